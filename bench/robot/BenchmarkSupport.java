@@ -0,0 +1,27 @@
+package robot;
+
+import robot.hal.sim.SimHardware;
+import edu.wpi.first.wpilibj.HLUsageReporting;
+
+/**
+ * Set up the robot code to run inside a benchmark on a desktop JVM.
+ */
+public class BenchmarkSupport {
+
+	/**
+	 * Install a new simulated hardware factory in the {@link RobotMap}.
+	 * <p>
+	 * The WPILib usage reporting is stubbed out so that subsystems can register with the 
+	 * Scheduler without a roboRIO.
+	 * @return SimHardware - the installed hardware factory.
+	 */
+	public static SimHardware useSimHardware() {
+		
+		HLUsageReporting.SetImplementation(new HLUsageReporting.Null());
+		
+		SimHardware hardware = new SimHardware();
+		RobotMap.hardware = hardware;
+		
+		return hardware;
+	}
+}
@@ -0,0 +1,52 @@
+package robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+
+/**
+ * Cost of the joystick coordinate conversions done every teleop loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoordinateBenchmark {
+
+	private CartesianCoordinate xy = new CartesianCoordinate();
+	private PolarCoordinate p = new PolarCoordinate();
+	private double theta;
+
+	@Setup
+	public void setup() {
+		xy.set(-0.37, 0.82);
+		theta = -437.6;
+	}
+
+	@Benchmark
+	public PolarCoordinate polarValueOf() {
+		return PolarCoordinate.valueOf(xy);
+	}
+
+	@Benchmark
+	public PolarCoordinate polarSetInPlace() {
+		return p.set(xy);
+	}
+
+	@Benchmark
+	public double polarSetTheta() {
+		p.setTheta(theta);
+		return p.getTheta();
+	}
+
+	@Benchmark
+	public CartesianCoordinate cartesianSquare() {
+		// Reset the values so the benchmark does not square down to zero.
+		return xy.set(-0.37, 0.82).square();
+	}
+}
@@ -0,0 +1,64 @@
+package robot;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Check that the drive loop kinematics do not allocate once the JIT has warmed up.
+ * <p>
+ * Each tick sets the drive coordinate in place and calculates the wheel speeds into a 
+ * caller owned array, the same as the teleop drive path.  The bytes allocated by this 
+ * thread are read with the HotSpot ThreadMXBean before and after the measured ticks, and
+ * the check fails with exit code 1 if any were allocated.
+ * <p>
+ * Run with {@code ant allocationcheck}.
+ */
+public class DrivePolarAllocationCheck {
+
+	private static final int WARMUP_TICKS   = 200000;
+	private static final int MEASURED_TICKS = 100000;
+
+	private static final RunnymedeMecanumDrive mecanumDrive = new RunnymedeMecanumDrive(true, true, false, false);
+	private static final PolarCoordinate       p            = new PolarCoordinate();
+	private static final double []             wheelSpeeds  = new double [4];
+
+	private static double checksum = 0.0d;
+
+	public static void main(String[] args) {
+
+		com.sun.management.ThreadMXBean threadBean = 
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		if (!threadBean.isThreadAllocatedMemorySupported()) {
+			System.out.println("Thread allocated memory is not supported by this JVM");
+			System.exit(2);
+		}
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		long threadId = Thread.currentThread().getId();
+
+		runTicks(WARMUP_TICKS);
+
+		// The allocation of reading the counter itself, subtracted from the measurement.
+		long overhead = -threadBean.getThreadAllocatedBytes(threadId) + threadBean.getThreadAllocatedBytes(threadId);
+
+		long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+		runTicks(MEASURED_TICKS);
+		long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes - overhead;
+
+		System.out.println(String.format("drivePolar: %d bytes allocated in %d ticks (checksum %.3f)", 
+				allocatedBytes, MEASURED_TICKS, checksum));
+
+		if (allocatedBytes > 0) {
+			System.out.println("FAILED: the drive loop allocates");
+			System.exit(1);
+		}
+	}
+
+	private static void runTicks(int ticks) {
+		for (int i=0; i<ticks; i++) {
+			p.set((i % 100) / 100.0d, i % 360);
+			mecanumDrive.drivePolar(p, ((i % 21) - 10) / 10.0d, wheelSpeeds);
+			checksum += wheelSpeeds[0];
+		}
+	}
+}
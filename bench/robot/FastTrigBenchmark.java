@@ -0,0 +1,70 @@
+package robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+
+/**
+ * The table driven trigonometry against java.lang.Math for the angles used by the drive.
+ * <p>
+ * Math.sin and Math.cos are intrinsics on the desktop JVM but not on every ARM JVM, so 
+ * compare the results from the desktop with a run on the roboRIO.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FastTrigBenchmark {
+
+	private static final int ANGLE_COUNT = 64;
+
+	private final double [] degreeArr = new double [ANGLE_COUNT];
+	private final double [] xArr      = new double [ANGLE_COUNT];
+	private final double [] yArr      = new double [ANGLE_COUNT];
+
+	private int index = 0;
+
+	@Setup
+	public void setup() {
+		// Joystick like angles and coordinates, including the 45 degree drive offset.
+		for (int i=0; i<ANGLE_COUNT; i++) {
+			degreeArr[i] = i * 360.0d / ANGLE_COUNT + 45.0d;
+			xArr[i]      = Math.sin(Math.toRadians(i * 17.0d)) * 0.8d;
+			yArr[i]      = Math.cos(Math.toRadians(i * 17.0d)) * 0.8d;
+		}
+	}
+
+	private int next() {
+		index = (index + 1) & (ANGLE_COUNT - 1);
+		return index;
+	}
+
+	@Benchmark
+	public double mathSinCos() {
+		double radians = Math.toRadians(degreeArr[next()]);
+		return Math.sin(radians) + Math.cos(radians);
+	}
+
+	@Benchmark
+	public double fastTrigSinCos() {
+		double degrees = degreeArr[next()];
+		return FastTrig.sin(degrees) + FastTrig.cos(degrees);
+	}
+
+	@Benchmark
+	public double mathAtan2() {
+		int i = next();
+		return Math.toDegrees(Math.atan2(xArr[i], yArr[i]));
+	}
+
+	@Benchmark
+	public double fastTrigAtan2() {
+		int i = next();
+		return FastTrig.atan2(xArr[i], yArr[i]);
+	}
+}
@@ -0,0 +1,45 @@
+package robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+
+import robot.hal.sim.SimGyro;
+
+/**
+ * Cost of the gyro angle normalization that runs on every gyro read.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OffsetableGyroBenchmark {
+
+	private SimGyro simGyro;
+	private OffsetableGyro gyro;
+	private double rawAngle = 0.0d;
+
+	@Setup
+	public void setup() {
+		simGyro = new SimGyro(0);
+		gyro = new OffsetableGyro(simGyro);
+		gyro.setOffset(270);
+	}
+
+	@Benchmark
+	public double getAngle() {
+		
+		// Walk the raw angle around several turns in both directions so that both 
+		// the positive and negative normalization paths are measured.
+		rawAngle += 7.3d;
+		if (rawAngle > 1000) { rawAngle = -1000; }
+		simGyro.setAngle(rawAngle);
+		
+		return gyro.getAngle();
+	}
+}
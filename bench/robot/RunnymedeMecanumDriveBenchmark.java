@@ -0,0 +1,46 @@
+package robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+
+/**
+ * Cost of the mecanum wheel speed calculation done once per drive loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RunnymedeMecanumDriveBenchmark {
+
+	@Param({ "0", "37", "270" })
+	public double theta;
+
+	private RunnymedeMecanumDrive mecanumDrive;
+	private PolarCoordinate p;
+	private double rotation;
+	private double [] wheelSpeeds = new double [4];
+
+	@Setup
+	public void setup() {
+		mecanumDrive = new RunnymedeMecanumDrive(true, true, false, false);
+		p = new PolarCoordinate(0.8, theta);
+		rotation = 0.3;
+	}
+
+	@Benchmark
+	public double [] drivePolarInPlace() {
+		return mecanumDrive.drivePolar(p, rotation, wheelSpeeds);
+	}
+
+	@Benchmark
+	public double [] drivePolarAllocating() {
+		return mecanumDrive.drivePolar(p, rotation);
+	}
+}
@@ -0,0 +1,71 @@
+package robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+
+import robot.hal.sim.SimEncoder;
+import robot.hal.sim.SimHardware;
+import robot.subsystems.PowerSubsystem;
+
+/**
+ * Cost of a SafeTalon set() with every safety check armed: limit switches, encoder fault 
+ * and limits, and the over current fuse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SafeTalonBenchmark {
+
+	// Channels that are not used by the robot so that the benchmark talon does not 
+	// collide with the Robot subsystems.
+	private static final int BENCHMARK_PWM_CHANNEL = 18;
+	private static final int BENCHMARK_ENCODER_ONE = 22;
+	private static final int BENCHMARK_ENCODER_TWO = 23;
+	private static final int BENCHMARK_UPPER_LIMIT = 24;
+	private static final int BENCHMARK_LOWER_LIMIT = 25;
+	private static final int BENCHMARK_PDP_PORT    = 15;
+
+	private SafeTalon talon;
+	private SimEncoder encoder;
+	private double speed = 0.5d;
+
+	@Setup
+	public void setup() {
+		
+		SimHardware hardware = BenchmarkSupport.useSimHardware();
+		
+		// The over current check reads the PowerSubsystem snapshot through the Robot class.  
+		// Load the Robot subsystems before creating the benchmark talon.
+		PowerSubsystem powerSubsystem = Robot.powerSubsystem;
+		
+		talon = new SafeTalon(BENCHMARK_PWM_CHANNEL);
+		talon.setNegativeLimitSwitch(hardware.digitalInput(BENCHMARK_UPPER_LIMIT));
+		talon.setPositiveLimitSwitch(hardware.digitalInput(BENCHMARK_LOWER_LIMIT));
+		talon.setEncoder(hardware.encoder(BENCHMARK_ENCODER_ONE, BENCHMARK_ENCODER_TWO, false), -10000, 10000);
+		talon.setOverCurrentFuse(BENCHMARK_PDP_PORT, 40, 0.5);
+		
+		encoder = hardware.getEncoder(BENCHMARK_ENCODER_ONE);
+		hardware.getPowerDistribution().setCurrent(BENCHMARK_PDP_PORT, 12.0);
+		powerSubsystem.readSensors();
+	}
+
+	@Benchmark
+	public double safeSet() {
+		
+		// Keep the encoder moving so that the encoder fault does not latch the talon off.
+		encoder.setCount(encoder.get() + 1);
+		if (encoder.get() > 5000) { encoder.setCount(-5000); }
+		
+		speed = -speed;
+		talon.set(speed);
+		
+		return talon.get();
+	}
+}
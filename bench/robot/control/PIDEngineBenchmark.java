@@ -0,0 +1,166 @@
+package robot.control;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import robot.BenchmarkSupport;
+import robot.MockSpeedController;
+import edu.wpi.first.wpilibj.PIDController;
+import edu.wpi.first.wpilibj.PIDOutput;
+import edu.wpi.first.wpilibj.PIDSource;
+
+/**
+ * The PID engine against the WPILib thread per controller PIDController, for the
+ * twelve PIDs on the robot.
+ * <p>
+ * The calculate benchmarks measure one control tick of all twelve loops on one thread.
+ * The setpoint benchmarks measure the robot thread setting every setpoint and reading every
+ * output while the loops are calculated in the background at the control loop rate: by
+ * twelve PIDController timer threads, or by the PID engine on one control thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PIDEngineBenchmark {
+
+	private static final int    LOOP_COUNT = 12;
+	private static final double RATE       = 200.0d;
+
+	/** Exposes the protected calculate so that the PIDController can be stepped directly */
+	private static class SteppedPIDController extends PIDController {
+
+		SteppedPIDController(PIDSource source, PIDOutput output, double period) {
+			super(0.4, 0.01, 0.001, 0.5, source, output, period);
+		}
+
+		void step() { calculate(); }
+	}
+
+	private final double[] inputArr = new double[LOOP_COUNT];
+
+	// Stepped directly, with timers that never run
+	private SteppedPIDController[] steppedControllerArr;
+	private PIDEngine              steppedEngine;
+	private PIDLoop[]              steppedLoopArr;
+
+	// Calculated in the background
+	private PIDController[]     threadedControllerArr;
+	private PIDLoop[]           threadedLoopArr;
+	private ControlLoopExecutor executor;
+
+	private double setpoint = 0.0d;
+
+	@Setup
+	public void setup() {
+
+		BenchmarkSupport.useSimHardware();
+
+		steppedControllerArr  = new SteppedPIDController[LOOP_COUNT];
+		steppedLoopArr        = new PIDLoop[LOOP_COUNT];
+		threadedControllerArr = new PIDController[LOOP_COUNT];
+		threadedLoopArr       = new PIDLoop[LOOP_COUNT];
+
+		steppedEngine = new PIDEngine(LOOP_COUNT, RATE);
+		PIDEngine threadedEngine = new PIDEngine(LOOP_COUNT, RATE);
+
+		for (int i=0; i<LOOP_COUNT; i++) {
+
+			inputArr[i] = i * 0.05d;
+			PIDSource source = newSource(i);
+
+			steppedControllerArr[i] = new SteppedPIDController(source, new MockSpeedController(), 86400.0d);
+			steppedLoopArr[i]       = steppedEngine.add(0.4, 0.01, 0.001, 0.5, source, new MockSpeedController(), 1.0d / RATE);
+
+			threadedControllerArr[i] = new PIDController(0.4, 0.01, 0.001, 0.5, source, new MockSpeedController(), 1.0d / RATE);
+			threadedLoopArr[i]       = threadedEngine.add(0.4, 0.01, 0.001, 0.5, source, new MockSpeedController(), 1.0d / RATE);
+
+			steppedControllerArr[i] .enable();
+			steppedLoopArr[i]       .enable();
+			threadedControllerArr[i].enable();
+			threadedLoopArr[i]      .enable();
+		}
+
+		executor = new ControlLoopExecutor(RATE);
+		executor.add(threadedEngine);
+		executor.start();
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.stop();
+		for (int i=0; i<LOOP_COUNT; i++) {
+			threadedControllerArr[i].free();
+			steppedControllerArr[i] .free();
+		}
+	}
+
+	@Benchmark
+	public double pidControllerCalculate() {
+
+		double sum = 0.0d;
+		for (int i=0; i<LOOP_COUNT; i++) {
+			steppedControllerArr[i].step();
+			sum += steppedControllerArr[i].get();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double pidEngineCalculate() {
+
+		steppedEngine.step();
+
+		double sum = 0.0d;
+		for (int i=0; i<LOOP_COUNT; i++) {
+			sum += steppedLoopArr[i].get();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double pidControllerThreadsSetpoint() {
+
+		nextSetpoint();
+
+		double sum = 0.0d;
+		for (int i=0; i<LOOP_COUNT; i++) {
+			threadedControllerArr[i].setSetpoint(setpoint);
+			sum += threadedControllerArr[i].get();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double pidEngineSetpoint() {
+
+		nextSetpoint();
+
+		double sum = 0.0d;
+		for (int i=0; i<LOOP_COUNT; i++) {
+			threadedLoopArr[i].setSetpoint(setpoint);
+			sum += threadedLoopArr[i].get();
+		}
+		return sum;
+	}
+
+	private void nextSetpoint() {
+		setpoint += 0.01d;
+		if (setpoint > 1.0d) { setpoint = -1.0d; }
+	}
+
+	private PIDSource newSource(final int index) {
+		return new PIDSource() {
+			public double pidGet() {
+				return inputArr[index];
+			}
+		};
+	}
+}
@@ -0,0 +1,79 @@
+package robot.control;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import robot.Clock;
+import robot.VirtualClock;
+import robot.hal.sim.SimEncoder;
+
+/**
+ * One control loop step of the velocity estimator for the six encoders on the robot
+ * (four wheels and two elevators), against reading the encoder rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VelocityEstimatorBenchmark {
+
+	private static final int    ENCODER_COUNT = 6;
+	private static final double PERIOD        = 0.005d;
+
+	private final SimEncoder [] encoderArr = new SimEncoder [ENCODER_COUNT];
+	private final EncoderVelocity [] velocityArr = new EncoderVelocity [ENCODER_COUNT];
+
+	private VelocityEstimator estimator;
+	private VirtualClock      clock;
+
+	@Setup
+	public void setup() {
+
+		clock = new VirtualClock();
+		Clock.setInstance(clock);
+
+		estimator = new VelocityEstimator(ENCODER_COUNT, VelocityEstimator.DEFAULT_MAX_WINDOW);
+
+		for (int i=0; i<ENCODER_COUNT; i++) {
+			encoderArr[i] = new SimEncoder(i * 2, i * 2 + 1, false);
+			encoderArr[i].setRate(100.0d * (i + 1));
+			// The wheels use a short window and the container elevator a long one.
+			velocityArr[i] = estimator.add(encoderArr[i], (i == ENCODER_COUNT - 1) ? 20 : 8, 2500.0d);
+		}
+	}
+
+	@Benchmark
+	public double encoderGetRate() {
+
+		double sum = 0.0d;
+		for (int i=0; i<ENCODER_COUNT; i++) {
+			encoderArr[i].advance(PERIOD);
+			sum += encoderArr[i].getRate();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double velocityEstimatorStep() {
+
+		clock.advanceSeconds(PERIOD);
+
+		for (int i=0; i<ENCODER_COUNT; i++) {
+			encoderArr[i].advance(PERIOD);
+		}
+
+		estimator.step();
+
+		double sum = 0.0d;
+		for (int i=0; i<ENCODER_COUNT; i++) {
+			sum += velocityArr[i].pidGet();
+		}
+		return sum;
+	}
+}
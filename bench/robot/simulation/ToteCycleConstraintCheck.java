@@ -0,0 +1,69 @@
+package robot.simulation;
+
+import robot.commands.autonomous.AutonomousToteCycle;
+
+/**
+ * Check that each constraint in the {@link ToteCycleModel} can reject a cycle.
+ * <p>
+ * The tote is placed where the hand tuned cycle picks it up, the same as in the 
+ * {@link ToteCycleOptimizer}.  The hand tuned cycle must be feasible, and each of the other 
+ * cycles changes the hand tuned cycle so that exactly one constraint is broken.  The check fails 
+ * with exit code 1 if any cycle does not give the expected violations.
+ * <p>
+ * Run with {@code ant totecyclecheck}.
+ */
+public class ToteCycleConstraintCheck {
+
+	private static final AutonomousToteCycle BASELINE = AutonomousToteCycle.FIRST_CONTAINER;
+
+	private static int failures = 0;
+
+	public static void main(String[] args) {
+
+		double [] totePosition = ToteCycleModel.getEndPosition(BASELINE);
+
+		ToteCycleModel model = new ToteCycleModel(totePosition[0], totePosition[1]);
+
+		check(model, "hand tuned cycle", BASELINE, 0);
+
+		// A short pickup stops before the tote reaches the sensor.
+		check(model, "short pickup", 
+				new AutonomousToteCycle(BASELINE.getSpeed(), BASELINE.getTurnAngle(),
+						BASELINE.getShiftDirection(), BASELINE.getShiftHeading(), BASELINE.getShiftDistance(),
+						BASELINE.getApproachDirection(), BASELINE.getApproachDistance(), 6.0d),
+				ToteCycleModel.TOTE_NOT_REACHED);
+
+		// Shifting while facing away from the tote leaves a large turn for the approach, and the
+		// robot is still turning when the intake arms reach the tote.
+		check(model, "late turn onto the tote",
+				new AutonomousToteCycle(0.4d, BASELINE.getTurnAngle(),
+						BASELINE.getShiftDirection(), 150.0d, BASELINE.getShiftDistance(),
+						290.0d, 50.0d, 12.0d),
+				ToteCycleModel.HEADING_ERROR);
+
+		// A small turn finishes before the stack is at half height, so the shift starts with the
+		// stack below the top of the container.
+		check(model, "short turn",
+				new AutonomousToteCycle(BASELINE.getSpeed(), 265,
+						BASELINE.getShiftDirection(), BASELINE.getShiftHeading(), BASELINE.getShiftDistance(),
+						BASELINE.getApproachDirection(), BASELINE.getApproachDistance(), BASELINE.getPickupDistance()),
+				ToteCycleModel.ELEVATOR_COLLISION);
+
+		if (failures > 0) {
+			System.out.println("FAILED: " + failures + " cycles did not give the expected violations");
+			System.exit(1);
+		}
+	}
+
+	private static void check(ToteCycleModel model, String name, AutonomousToteCycle cycle, int expectedViolations) {
+
+		int violations = model.run(cycle);
+
+		System.out.println(String.format("%-24s %5.2f s  violations %d (expected %d)",
+				name, model.getCycleTime(), violations, expectedViolations));
+
+		if (violations != expectedViolations) {
+			failures++;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package robot.subsystems;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+
+import robot.BenchmarkSupport;
+import robot.RobotMap;
+import robot.hal.sim.SimHardware;
+import robot.subsystems.ChassisSubsystem.Units;
+
+/**
+ * Cost of the chassis sensor read done once per loop, and of the distance read from the 
+ * sensor frame by the profile following.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChassisSubsystemBenchmark {
+
+	private ChassisSubsystem chassisSubsystem;
+
+	@Setup
+	public void setup() {
+		
+		SimHardware hardware = BenchmarkSupport.useSimHardware();
+		
+		chassisSubsystem = new ChassisSubsystem();
+		
+		hardware.getEncoder(RobotMap.FRONT_LEFT_ENCODER_ONE) .setCount( 1200);
+		hardware.getEncoder(RobotMap.REAR_LEFT_ENCODER_ONE)  .setCount( 1180);
+		hardware.getEncoder(RobotMap.FRONT_RIGHT_ENCODER_ONE).setCount(-1210);
+		hardware.getEncoder(RobotMap.REAR_RIGHT_ENCODER_ONE) .setCount(-1190);
+		
+		chassisSubsystem.readSensors();
+	}
+
+	@Benchmark
+	public ChassisSensorFrame readSensors() {
+		chassisSubsystem.readSensors();
+		return chassisSubsystem.getSensorFrame();
+	}
+
+	@Benchmark
+	public double getDistanceInches() {
+		return chassisSubsystem.getDistance(Units.INCHES);
+	}
+}
@@ -38,6 +38,21 @@ public class CartesianCoordinate {
 	 */
 	public void setY(double y) { this.y = roundAndTruncate(y); }
 	
+	/**
+	 * Set both the x and y values of the Cartesian Coordinate (x, y).
+	 * <p>
+	 * The values will be truncated and rounded as described in {@link #setX(double)}.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return this - pointer to this cartesian coordinate.
+	 */
+	public CartesianCoordinate set(double x, double y) {
+		setX(x);
+		setY(y);
+		return this;
+	}
+	
 	/**
 	 * Square each of the values in the cartesian coordinate x,y.
 	 * <p>
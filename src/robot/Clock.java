@@ -0,0 +1,62 @@
+package robot;
+
+/**
+ * The monotonic clock used by all of the robot timing code.
+ * <p>
+ * On the robot the clock is the {@link System#nanoTime()} clock, which does not jump when the
+ * wall clock is changed and has sub-millisecond resolution.  The times are only meaningful
+ * as differences, they are not the time of day.
+ * <p>
+ * Simulations and replays install a {@link VirtualClock} with {@link #setInstance(Clock)} so 
+ * that the robot code runs on simulated time, faster than real time.
+ */
+public abstract class Clock {
+
+	public static final long NANOS_PER_MILLI  = 1000000L;
+	public static final long NANOS_PER_SECOND = 1000000000L;
+
+	private static final Clock SYSTEM_CLOCK = new Clock() {
+		@Override
+		public long getTimeNanos() {
+			return System.nanoTime();
+		}
+	};
+
+	private static volatile Clock instance = SYSTEM_CLOCK;
+
+	/**
+	 * Get the robot clock.
+	 * @return Clock - the system clock unless another clock was installed.
+	 */
+	public static Clock getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Install the robot clock.  Install a clock before the robot code is started, because 
+	 * times taken on one clock cannot be compared with times on another clock.
+	 * @param clock - the new clock, or {@code null} for the system clock.
+	 */
+	public static void setInstance(Clock clock) {
+		instance = (clock == null) ? SYSTEM_CLOCK : clock;
+	}
+
+	/**
+	 * @return long - the current time in nanoseconds
+	 */
+	public abstract long getTimeNanos();
+
+	/**
+	 * @return long - the current time in milliseconds
+	 */
+	public long getTimeMillis() {
+		return getTimeNanos() / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * @return double - the current time in seconds
+	 */
+	public double getTimeSeconds() {
+		return getTimeNanos() / (double) NANOS_PER_SECOND;
+	}
+}
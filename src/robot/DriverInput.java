@@ -0,0 +1,39 @@
+package robot;
+
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ChassisSubsystem.PIDEnable;
+
+/**
+ * The driver inputs used to drive the chassis.
+ * <p>
+ * This is implemented by the {@link OI} on the robot, and can be implemented by other
+ * sources (for example a recorded match) to drive the robot without joysticks.
+ */
+public interface DriverInput {
+
+	/**
+	 * Get the driver drive stick as a PolarCoordinate.
+	 * @return PolarCoordinate (r, theta) of the driver drive stick.
+	 */
+	PolarCoordinate getDriverPolarCoordinate();
+
+	/**
+	 * Get the driver rotation request.
+	 * @return double - the rotation between -1.0 and 1.0
+	 */
+	double getDriverRotation();
+
+	DriveMode getDriveMode();
+
+	boolean getAccelerationOverride();
+
+	/**
+	 * @return PIDEnable - ENABLED to hold the rotation with the rotation PID
+	 */
+	PIDEnable getRotationPIDEnable();
+
+	/**
+	 * @return PIDEnable - ENABLED to drive the wheel speeds with the motor PIDs
+	 */
+	PIDEnable getMotorPIDEnable();
+}
@@ -0,0 +1,131 @@
+package robot;
+
+/**
+ * Table driven trigonometry for the drive calculations that run every loop.
+ * <p>
+ * The sine is looked up in a table with {@link #SIN_TABLE_SIZE} segments per turn and 
+ * linearly interpolated between the two nearest entries.  The interpolation error is at most
+ * (segment angle)^2 / 8, so the result is within {@link #MAX_SIN_ERROR} of {@link Math#sin(double)}
+ * for any angle.
+ * <p>
+ * The arc tangent is looked up in a table of atan(t) for t from 0 to 1 with
+ * {@link #ATAN_TABLE_SIZE} segments, and the other octants are found from the symmetry of
+ * the arc tangent.  The result is within {@link #MAX_ATAN2_ERROR_DEG} degrees of 
+ * {@link Math#atan2(double, double)}.
+ * <p>
+ * All angles are in degrees, because all of the robot angles (gyro, joystick and
+ * {@link PolarCoordinate}) are in degrees.  The inputs must be finite.
+ */
+public final class FastTrig {
+
+	/** The number of sine table segments in one turn.  Must be a power of two. */
+	public static final int SIN_TABLE_SIZE = 1024;
+
+	/** The number of arc tangent table segments from 0 to 45 degrees */
+	public static final int ATAN_TABLE_SIZE = 512;
+
+	/** The maximum difference from {@link Math#sin(double)} and {@link Math#cos(double)} */
+	public static final double MAX_SIN_ERROR = 5.0e-6d;
+
+	/** The maximum difference from {@link Math#atan2(double, double)} in degrees */
+	public static final double MAX_ATAN2_ERROR_DEG = 2.0e-5d;
+
+	private static final int    SIN_MASK         = SIN_TABLE_SIZE - 1;
+	private static final double SIN_INDEX_PER_DEG = SIN_TABLE_SIZE / 360.0d;
+
+	// One extra entry so that the interpolation never wraps.
+	private static final double [] sinArr  = new double [SIN_TABLE_SIZE + 1];
+	private static final double [] atanArr = new double [ATAN_TABLE_SIZE + 1];
+
+	static {
+		for (int i=0; i<=SIN_TABLE_SIZE; i++) {
+			sinArr[i] = Math.sin(i * 2.0d * Math.PI / SIN_TABLE_SIZE);
+		}
+		for (int i=0; i<=ATAN_TABLE_SIZE; i++) {
+			atanArr[i] = Math.toDegrees(Math.atan(i / (double) ATAN_TABLE_SIZE));
+		}
+	}
+
+	private FastTrig() { }
+
+	/**
+	 * @param degrees - any angle in degrees
+	 * @return double - the sine of the angle
+	 */
+	public static double sin(double degrees) {
+
+		double index = degrees * SIN_INDEX_PER_DEG;
+
+		// Floor without Math.floor, which is not an intrinsic on every JVM.
+		long whole = (long) index;
+		if (index < whole) { whole--; }
+
+		double fraction = index - whole;
+		int    i        = (int) (whole & SIN_MASK);
+
+		return sinArr[i] + (sinArr[i+1] - sinArr[i]) * fraction;
+	}
+
+	/**
+	 * @param degrees - any angle in degrees
+	 * @return double - the cosine of the angle
+	 */
+	public static double cos(double degrees) {
+		return sin(degrees + 90.0d);
+	}
+
+	/**
+	 * The tangent is calculated from the sine and cosine, so the relative error grows 
+	 * near +/-90 degrees where the cosine goes to zero.
+	 * @param degrees - any angle in degrees
+	 * @return double - the tangent of the angle
+	 */
+	public static double tan(double degrees) {
+		return sin(degrees) / cos(degrees);
+	}
+
+	/**
+	 * The angle of the point (x, y) from the x axis, the same as {@link Math#atan2(double, double)}
+	 * in degrees.
+	 * <p>
+	 * Note that the robot measures theta clockwise from the y axis (north), so a robot 
+	 * theta is {@code atan2(x, y)}.
+	 *
+	 * @param y - the y coordinate
+	 * @param x - the x coordinate
+	 * @return double - the angle from -180 to 180 degrees, or 0 at the origin.
+	 */
+	public static double atan2(double y, double x) {
+
+		double absY = Math.abs(y);
+		double absX = Math.abs(x);
+
+		if (absX == 0.0d && absY == 0.0d) { return 0.0d; }
+
+		// Look up the angle of the smaller over the larger coordinate, from 0 to 45 degrees.
+		double degrees;
+		if (absY <= absX) {
+			degrees = atan(absY / absX);
+		} else {
+			degrees = 90.0d - atan(absX / absY);
+		}
+
+		if (x < 0.0d) { degrees = 180.0d - degrees; }
+
+		// Copy the sign so that y = -0.0 gives -180 like Math.atan2.
+		return Math.copySign(degrees, y);
+	}
+
+	/*
+	 * The arc tangent of a ratio from 0 to 1, in degrees.
+	 */
+	private static double atan(double ratio) {
+
+		double index    = ratio * ATAN_TABLE_SIZE;
+		int    i        = (int) index;
+
+		if (i >= ATAN_TABLE_SIZE) { return atanArr[ATAN_TABLE_SIZE]; }
+
+		return atanArr[i] + (atanArr[i+1] - atanArr[i]) * (index - i);
+	}
+}
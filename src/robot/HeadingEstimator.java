@@ -0,0 +1,168 @@
+package robot;
+
+/**
+ * Heading estimator that fuses the gyro with the rotation measured by the mecanum wheel encoders.
+ * <p>
+ * The analog gyro is accurate over a short time but its rate has a bias that makes the angle
+ * drift over a match.  The wheel encoders do not drift when the robot is not turning, but the 
+ * wheels slip when the robot turns or is pushed.  The estimator is a complementary filter on the 
+ * rotation rate: the gyro is used at high frequency, and the difference between the gyro rate and
+ * the encoder rotation rate is low pass filtered into a gyro bias estimate that is removed from 
+ * the gyro.
+ * <p>
+ * The bias is only learned while both the gyro and the encoders show that the robot is
+ * (nearly) not rotating, so wheel slip while turning or being pushed does not corrupt it.  
+ * This happens often in a match, when the robot is stopped or driving straight.
+ * <p>
+ * All angles are in degrees clockwise from north, like the gyro.  The update does not allocate, 
+ * so it can be called every loop.
+ */
+public class HeadingEstimator {
+
+	// wheel definitions for arrays
+	private static final int FRONT_LEFT  = 0;
+	private static final int REAR_LEFT   = 1;
+	private static final int FRONT_RIGHT = 2;
+	private static final int REAR_RIGHT  = 3;
+	private static final int MOTOR_COUNT = 4;
+
+	private static final double NANOS_PER_SECOND = 1.0e9d;
+
+	private final double countsPerDegree;
+	private final double biasTimeConstant;
+	private final double stillRate;
+
+	private final double [] prevWheelDistance = new double [MOTOR_COUNT];
+	private boolean wheelDistanceValid = false;
+
+	private boolean gyroValid      = false;
+	private double  prevGyroAngle  = 0.0d;
+	private long    prevTimeNanos  = 0;
+
+	private double heading = 0.0d;
+	private double rate    = 0.0d;
+	private double bias    = 0.0d;
+
+	/**
+	 * @param countsPerInch - encoder counts per inch of wheel travel.
+	 * @param rotationRadius - the mecanum rotation radius in inches, half of the track width plus 
+	 * half of the wheel base.  Wheel travel / rotation radius is the robot rotation in radians.
+	 * @param biasTimeConstant - the time constant of the gyro bias filter in seconds.
+	 * @param stillRate - the rotation rate in degrees / sec below which the robot is not rotating
+	 * and the bias is learned.
+	 */
+	public HeadingEstimator(double countsPerInch, double rotationRadius, double biasTimeConstant, double stillRate) {
+		this.countsPerDegree  = countsPerInch * Math.toRadians(rotationRadius);
+		this.biasTimeConstant = biasTimeConstant;
+		this.stillRate        = stillRate;
+	}
+
+	/**
+	 * Update the heading.
+	 * <p>
+	 * The wheel distances are in encoder counts, signed so that positive is the direction
+	 * that drives the robot forward.
+	 *
+	 * @param frontLeft - front left wheel distance
+	 * @param rearLeft - rear left wheel distance
+	 * @param frontRight - front right wheel distance
+	 * @param rearRight - rear right wheel distance
+	 * @param gyroAngle - the gyro angle in degrees clockwise from north
+	 * @param gyroRate - the gyro rate in degrees / sec clockwise
+	 * @param timeNanos - the {@link Clock} time of the sensor values
+	 */
+	public void update(double frontLeft, double rearLeft, double frontRight, double rearRight,
+			double gyroAngle, double gyroRate, long timeNanos) {
+
+		// The first update after a reset only records the sensor values.
+		if (!gyroValid) {
+			prevGyroAngle = gyroAngle;
+			prevTimeNanos = timeNanos;
+			gyroValid     = true;
+			setPrevWheelDistance(frontLeft, rearLeft, frontRight, rearRight);
+			wheelDistanceValid = true;
+			rate = gyroRate - bias;
+			return;
+		}
+
+		double dt = (timeNanos - prevTimeNanos) / NANOS_PER_SECOND;
+
+		double gyroDelta = gyroAngle - prevGyroAngle;
+		if (gyroDelta >  180.0d) { gyroDelta -= 360.0d; }
+		if (gyroDelta < -180.0d) { gyroDelta += 360.0d; }
+
+		// The left wheels drive forward and the right wheels drive backwards to turn clockwise.
+		boolean encoderValid = wheelDistanceValid;
+		double  encoderDelta = 0.0d;
+		if (encoderValid) {
+			encoderDelta = 
+					( (frontLeft  - prevWheelDistance[FRONT_LEFT])
+					+ (rearLeft   - prevWheelDistance[REAR_LEFT])
+					- (frontRight - prevWheelDistance[FRONT_RIGHT])
+					- (rearRight  - prevWheelDistance[REAR_RIGHT]) ) / 4.0d / countsPerDegree;
+		}
+
+		setPrevWheelDistance(frontLeft, rearLeft, frontRight, rearRight);
+		wheelDistanceValid = true;
+
+		prevGyroAngle = gyroAngle;
+		prevTimeNanos = timeNanos;
+
+		if (dt > 0.0d) {
+
+			double gyroDeltaRate    = gyroDelta / dt;
+			double encoderDeltaRate = encoderDelta / dt;
+
+			// Learn the bias only when the robot is not rotating.
+			if (   encoderValid 
+				&& Math.abs(gyroDeltaRate)    < stillRate 
+				&& Math.abs(encoderDeltaRate) < stillRate) {
+				bias += (dt / (biasTimeConstant + dt)) * ((gyroDeltaRate - encoderDeltaRate) - bias);
+			}
+
+			heading += gyroDelta - bias * dt;
+		} else {
+			heading += gyroDelta;
+		}
+
+		heading = heading % 360.0d;
+		if (heading < 0) { heading += 360.0d; }
+
+		rate = gyroRate - bias;
+	}
+
+	/**
+	 * Set the heading, for example when the driver resets the field angle.  The bias is kept.
+	 * <p>
+	 * The next update only records the gyro angle, so a gyro reset at the same time is not
+	 * seen as a rotation.
+	 * @param heading - the heading in degrees clockwise from north
+	 */
+	public void reset(double heading) {
+		this.heading = heading;
+		gyroValid = false;
+	}
+
+	/**
+	 * Restart the wheel distance tracking after the encoders are reset.
+	 */
+	public void resetEncoders() {
+		wheelDistanceValid = false;
+	}
+
+	/** @return double - the heading in degrees clockwise from north, 0 to 360 */
+	public double getHeading() { return heading; }
+
+	/** @return double - the rotation rate in degrees / sec with the gyro bias removed */
+	public double getRate() { return rate; }
+
+	/** @return double - the estimated gyro bias in degrees / sec */
+	public double getBias() { return bias; }
+
+	private void setPrevWheelDistance(double frontLeft, double rearLeft, double frontRight, double rearRight) {
+		prevWheelDistance[FRONT_LEFT]  = frontLeft;
+		prevWheelDistance[REAR_LEFT]   = rearLeft;
+		prevWheelDistance[FRONT_RIGHT] = frontRight;
+		prevWheelDistance[REAR_RIGHT]  = rearRight;
+	}
+}
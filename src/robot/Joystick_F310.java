@@ -92,7 +92,18 @@ public class Joystick_F310 {
 	 */
 	public CartesianCoordinate getCartesianCoordinate(F310Stick stick) {
 
-		CartesianCoordinate xy = new CartesianCoordinate();
+		return getCartesianCoordinate(stick, new CartesianCoordinate());
+	}
+
+	/**
+	 * Get the Cartesian Coordinate for the specified stick into a caller owned coordinate.  
+	 * <p>
+	 * This method does not allocate and can be used every loop.
+	 * @param stick - Stick.LEFT, Stick.RIGHT
+	 * @param xy - CartesianCoordinate that will be overwritten with the stick values
+	 * @return - the passed in CartesianCoordinate.
+	 */
+	public CartesianCoordinate getCartesianCoordinate(F310Stick stick, CartesianCoordinate xy) {
 
 		xy.setX(getRawAxis(stick, Axis.X));
 
@@ -116,6 +127,21 @@ public class Joystick_F310 {
 
 	}
 
+	/**
+	 * Get the Polar Coordinate for the specified stick into a caller owned coordinate.  
+	 * <p>
+	 * This method does not allocate and can be used every loop.
+	 * @param stick - Stick.LEFT, Stick.RIGHT
+	 * @param xy - CartesianCoordinate used as scratch space for the raw stick values
+	 * @param p - PolarCoordinate that will be overwritten with the (r, theta) of this joystick
+	 * @return - the passed in PolarCoordinate.
+	 */
+	public PolarCoordinate getPolarCoordinate(F310Stick stick, CartesianCoordinate xy, PolarCoordinate p) {
+
+		return p.set(getCartesianCoordinate(stick, xy));
+
+	}
+
 	/**
 	 * Determine whether the requested button was pressed.  In X-configuration, the rear buttons RT and LT
 	 * are returned as a button press if the axis reads greater than 0.1.  In D-configuration these 
@@ -1,11 +1,18 @@
 package robot;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.DashboardPublisher.NumberEntry;
 
 public class LinearRamp {
 
-	private long startTime = 0;
-	private long endTime = 0;
+	// All ramps share the same dashboard keys.
+	private static final NumberEntry startValueEntry    = DashboardPublisher.getInstance().addNumber("RampStartValue");
+	private static final NumberEntry endValueEntry      = DashboardPublisher.getInstance().addNumber("RampEndValue");
+	private static final NumberEntry completeRatioEntry = DashboardPublisher.getInstance().addNumber("RampCompleteRatio");
+	private static final NumberEntry valueEntry         = DashboardPublisher.getInstance().addNumber("RampValue");
+
+	private long startTimeNanos = 0;
+	private long endTimeNanos = 0;
 	private double startValue = 0.0d;
 	private double targetValue = 0.0d;
 
@@ -29,8 +36,8 @@ public class LinearRamp {
 			
 		this.startValue = startValue;
 		this.targetValue = targetValue;
-		this.startTime = System.currentTimeMillis();
-		this.endTime = this.startTime + Math.round(t*1000);
+		this.startTimeNanos = Clock.getInstance().getTimeNanos();
+		this.endTimeNanos = this.startTimeNanos + Math.round(t*Clock.NANOS_PER_SECOND);
 		this.enable = true;
 		return this.startValue;
 	}
@@ -41,19 +48,19 @@ public class LinearRamp {
 	 */
 	public double getValue() {
 		
-		long currentTime = System.currentTimeMillis();
+		long currentTimeNanos = Clock.getInstance().getTimeNanos();
 
-		if (currentTime > endTime) { return this.targetValue; }
+		if (currentTimeNanos > endTimeNanos) { return this.targetValue; }
 		
-		double completeRatio = ((currentTime - this.startTime) * 1.0d) / ((this.endTime - this.startTime) * 1.0d);
+		double completeRatio = ((currentTimeNanos - this.startTimeNanos) * 1.0d) / ((this.endTimeNanos - this.startTimeNanos) * 1.0d);
 
 		double rtnVal =  startValue + ((targetValue-startValue)*completeRatio);
 
-		SmartDashboard.putNumber("RampStartValue", startValue);
-		SmartDashboard.putNumber("RampEndValue", targetValue);
+		startValueEntry.set(startValue);
+		endValueEntry.set(targetValue);
 		
-		SmartDashboard.putNumber("RampCompleteRatio", completeRatio);
-		SmartDashboard.putNumber("RampValue", rtnVal);
+		completeRatioEntry.set(completeRatio);
+		valueEntry.set(rtnVal);
 		
 		return rtnVal;
 		
@@ -77,7 +84,7 @@ public class LinearRamp {
 		
 		if (!isEnable()) { return true; }
 		
-		return System.currentTimeMillis() > endTime;
+		return Clock.getInstance().getTimeNanos() > endTimeNanos;
 	}
 	
 	/** 
@@ -0,0 +1,130 @@
+package robot;
+
+/**
+ * Mecanum odometry tracks the robot position on the field.
+ * <p>
+ * Each update uses the mecanum forward kinematics to convert the change in the four wheel
+ * distances into a forward and strafe movement of the robot, and then rotates that movement onto
+ * the field using the gyro heading.  The rotational component of the wheel movement is not used
+ * because the gyro heading is more accurate.
+ * <p>
+ * The field coordinates follow the drive conventions: x is to the right (east), y is forward (north)
+ * from the driver station and the heading is in degrees clockwise from north.
+ * <p>
+ * The update does not allocate, so it can be called every loop.
+ */
+public class MecanumOdometry {
+
+	// wheel definitions for arrays
+	private static final int FRONT_LEFT  = 0;
+	private static final int REAR_LEFT   = 1;
+	private static final int FRONT_RIGHT = 2;
+	private static final int REAR_RIGHT  = 3;
+	private static final int MOTOR_COUNT = 4;
+
+	private final double countsPerInch;
+
+	private final double [] prevWheelDistance = new double [MOTOR_COUNT];
+	private boolean wheelDistanceValid = false;
+
+	private double prevHeading = 0.0d;
+
+	private double x = 0.0d;
+	private double y = 0.0d;
+	private double heading = 0.0d;
+
+	/**
+	 * @param countsPerInch - encoder counts per inch of wheel travel.
+	 */
+	public MecanumOdometry(double countsPerInch) {
+		this.countsPerInch = countsPerInch;
+	}
+
+	/**
+	 * Update the field position.
+	 * <p>
+	 * The wheel distances are in encoder counts, signed so that positive is the direction
+	 * that drives the robot forward.
+	 *
+	 * @param frontLeft - front left wheel distance
+	 * @param rearLeft - rear left wheel distance
+	 * @param frontRight - front right wheel distance
+	 * @param rearRight - rear right wheel distance
+	 * @param gyroAngle - the robot heading in degrees clockwise from north
+	 */
+	public void update(double frontLeft, double rearLeft, double frontRight, double rearRight, double gyroAngle) {
+
+		if (!wheelDistanceValid) {
+			setPrevWheelDistance(frontLeft, rearLeft, frontRight, rearRight);
+			prevHeading = gyroAngle;
+			heading = gyroAngle;
+			wheelDistanceValid = true;
+			return;
+		}
+
+		double deltaFrontLeft  = frontLeft  - prevWheelDistance[FRONT_LEFT];
+		double deltaRearLeft   = rearLeft   - prevWheelDistance[REAR_LEFT];
+		double deltaFrontRight = frontRight - prevWheelDistance[FRONT_RIGHT];
+		double deltaRearRight  = rearRight  - prevWheelDistance[REAR_RIGHT];
+
+		setPrevWheelDistance(frontLeft, rearLeft, frontRight, rearRight);
+
+		// Mecanum forward kinematics.  All wheels turn forward to drive forward, and the
+		// diagonals turn in opposite directions to strafe.
+		double forward = (deltaFrontLeft + deltaRearLeft + deltaFrontRight + deltaRearRight) / 4.0d / countsPerInch;
+		double strafe  = (deltaFrontLeft - deltaRearLeft - deltaFrontRight + deltaRearRight) / 4.0d / countsPerInch;
+
+		// Use the heading in the middle of the update so that driving while rotating
+		// does not curve the path to one side.
+		double deltaHeading = gyroAngle - prevHeading;
+		if (deltaHeading >  180.0d) { deltaHeading -= 360.0d; }
+		if (deltaHeading < -180.0d) { deltaHeading += 360.0d; }
+
+		double midHeading = prevHeading + deltaHeading / 2.0d;
+
+		double sin = FastTrig.sin(midHeading);
+		double cos = FastTrig.cos(midHeading);
+
+		x += forward * sin + strafe * cos;
+		y += forward * cos - strafe * sin;
+
+		prevHeading = gyroAngle;
+		heading = gyroAngle;
+	}
+
+	/**
+	 * Set the field position.  The heading always follows the gyro.
+	 * @param x - field x in inches
+	 * @param y - field y in inches
+	 */
+	public void reset(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Restart the wheel distance tracking after the encoders are reset.
+	 * <p>
+	 * The next update only records the wheel distances so that the encoder reset is not
+	 * seen as robot movement.
+	 */
+	public void resetEncoders() {
+		wheelDistanceValid = false;
+	}
+
+	/** @return double - field x in inches */
+	public double getX() { return x; }
+
+	/** @return double - field y in inches */
+	public double getY() { return y; }
+
+	/** @return double - the heading in degrees clockwise from north */
+	public double getHeading() { return heading; }
+
+	private void setPrevWheelDistance(double frontLeft, double rearLeft, double frontRight, double rearRight) {
+		prevWheelDistance[FRONT_LEFT]  = frontLeft;
+		prevWheelDistance[REAR_LEFT]   = rearLeft;
+		prevWheelDistance[FRONT_RIGHT] = frontRight;
+		prevWheelDistance[REAR_RIGHT]  = rearRight;
+	}
+}
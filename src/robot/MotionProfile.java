@@ -0,0 +1,221 @@
+package robot;
+
+/**
+ * Motion profile for driving a distance with limited velocity, acceleration and jerk.
+ * <p>
+ * The profile is calculated once when a move starts using {@link #generate(double, double)},
+ * and then the position and velocity setpoints are looked up by the time since the start
+ * of the move every loop.
+ * <p>
+ * The profile is an S-curve made by smoothing a trapezoidal (velocity and acceleration limited)
+ * profile with a moving average that is as long as the time to reach the maximum acceleration
+ * at the maximum jerk.  The moving average keeps the end point of the trapezoid and limits the
+ * jerk, at the cost of making the profile longer by the moving average time.  The trapezoid
+ * always cruises for at least the moving average time, so that the acceleration never changes 
+ * from +max to -max inside one average.
+ * <p>
+ * The profile arrays are only re-allocated when a longer profile is generated, so
+ * generating and using profiles of similar lengths does not allocate.
+ */
+public class MotionProfile {
+
+	private final double maxAcceleration;
+	private final double maxJerk;
+	private final double period;
+
+	private double [] positionArr = new double [0];
+	private double [] velocityArr = new double [0];
+
+	private int    sampleCount = 0;
+	private double distance    = 0.0d;
+
+	/**
+	 * Create a motion profile generator.
+	 *
+	 * @param maxAcceleration - the maximum acceleration in distance units / sec^2
+	 * @param maxJerk - the maximum jerk in distance units / sec^3
+	 * @param period - the time between profile samples in seconds, normally the loop period.
+	 */
+	public MotionProfile(double maxAcceleration, double maxJerk, double period) {
+		this.maxAcceleration = maxAcceleration;
+		this.maxJerk         = maxJerk;
+		this.period          = period;
+	}
+
+	/**
+	 * Generate the profile for a move.
+	 * <p>
+	 * If the distance is too short to reach the maximum velocity and cruise for the moving 
+	 * average time, the profile cruises at the highest velocity that leaves that much cruise.
+	 * A higher maximum velocity therefore never makes the move longer.
+	 *
+	 * @param distance - the distance to move.  A negative distance moves backwards.
+	 * @param maxVelocity - the maximum velocity in distance units / sec
+	 */
+	public void generate(double distance, double maxVelocity) {
+
+		this.distance = distance;
+
+		double absDistance = Math.abs(distance);
+		double sign        = distance < 0 ? -1.0d : 1.0d;
+
+		// Moving average time to reach the maximum acceleration at the maximum jerk.
+		double filterTime = maxAcceleration / maxJerk;
+
+		// Trapezoid: accelerate to the peak velocity, cruise, and decelerate.
+		// Short moves do not reach the maximum velocity, and cruise for the moving average time
+		// at the velocity v where v^2 / a + v * filterTime is the distance.
+		double shortMoveVelocity = maxAcceleration / 2.0d
+				* (Math.sqrt(filterTime * filterTime + 4.0d * absDistance / maxAcceleration) - filterTime);
+
+		double peakVelocity = Math.min(Math.abs(maxVelocity), shortMoveVelocity);
+
+		double accelerationTime = 0.0d;
+		double cruiseTime       = 0.0d;
+
+		if (peakVelocity > 0.0d) {
+			accelerationTime = peakVelocity / maxAcceleration;
+			cruiseTime       = (absDistance - peakVelocity * accelerationTime) / peakVelocity;
+		}
+
+		double trapezoidTime = 2.0d * accelerationTime + cruiseTime;
+
+		int filterLength = Math.max(1, (int) Math.ceil(filterTime / period));
+
+		int trapezoidSamples = (int) Math.ceil(trapezoidTime / period) + 1;
+
+		sampleCount = trapezoidSamples + filterLength - 1;
+
+		if (positionArr.length < sampleCount) {
+			positionArr = new double [sampleCount];
+			velocityArr = new double [sampleCount];
+		}
+
+		// The moving average of the trapezoid position and velocity.  The running sums
+		// add the newest sample and remove the sample that falls out of the average.
+		double positionSum = 0.0d;
+		double velocitySum = 0.0d;
+
+		for (int i=0; i<sampleCount; i++) {
+
+			double t = i * period;
+
+			positionSum += getTrapezoidPosition(t, absDistance, peakVelocity, accelerationTime, cruiseTime);
+			velocitySum += getTrapezoidVelocity(t, peakVelocity, accelerationTime, cruiseTime);
+
+			if (i >= filterLength) {
+				double oldT = (i - filterLength) * period;
+				positionSum -= getTrapezoidPosition(oldT, absDistance, peakVelocity, accelerationTime, cruiseTime);
+				velocitySum -= getTrapezoidVelocity(oldT, peakVelocity, accelerationTime, cruiseTime);
+			}
+
+			positionArr[i] = sign * positionSum / filterLength;
+			velocityArr[i] = sign * velocitySum / filterLength;
+		}
+
+		// Remove any rounding error at the end of the move.
+		positionArr[sampleCount-1] = distance;
+		velocityArr[sampleCount-1] = 0.0d;
+	}
+
+	/** @return double - the distance of the move */
+	public double getDistance() { return distance; }
+
+	/** @return double - the time to complete the move in seconds */
+	public double getDuration() {
+		return Math.max(0, sampleCount - 1) * period;
+	}
+
+	/**
+	 * Get the position setpoint at the given time.
+	 *
+	 * @param t - time since the start of the move in seconds
+	 * @return double - the position, or the distance if the move is complete.
+	 */
+	public double getPosition(double t) {
+		return lookup(positionArr, t, distance);
+	}
+
+	/**
+	 * Get the velocity setpoint at the given time.
+	 *
+	 * @param t - time since the start of the move in seconds
+	 * @return double - the velocity, or zero if the move is complete.
+	 */
+	public double getVelocity(double t) {
+		return lookup(velocityArr, t, 0.0d);
+	}
+
+	/**
+	 * Is the move complete at the given time.
+	 * @param t - time since the start of the move in seconds
+	 * @return boolean - {@code true} if the profile is complete.
+	 */
+	public boolean isComplete(double t) {
+		return t >= getDuration();
+	}
+
+	/**
+	 * Interpolate between the two samples around the time.
+	 */
+	private double lookup(double [] sampleArr, double t, double endValue) {
+
+		if (sampleCount == 0) { return endValue; }
+
+		if (t <= 0.0d) { return sampleArr[0]; }
+
+		double index = t / period;
+		int    i     = (int) index;
+
+		if (i >= sampleCount - 1) { return endValue; }
+
+		double ratio = index - i;
+
+		return sampleArr[i] + (sampleArr[i+1] - sampleArr[i]) * ratio;
+	}
+
+	private double getTrapezoidPosition(double t, double absDistance, double peakVelocity,
+			double accelerationTime, double cruiseTime) {
+
+		if (t <= 0.0d) { return 0.0d; }
+
+		if (t < accelerationTime) {
+			return maxAcceleration * t * t / 2.0d;
+		}
+
+		double accelerationDistance = peakVelocity * accelerationTime / 2.0d;
+
+		if (t < accelerationTime + cruiseTime) {
+			return accelerationDistance + peakVelocity * (t - accelerationTime);
+		}
+
+		double decelerationTime = t - accelerationTime - cruiseTime;
+
+		if (decelerationTime < accelerationTime) {
+			return absDistance - maxAcceleration * (accelerationTime - decelerationTime) * (accelerationTime - decelerationTime) / 2.0d;
+		}
+
+		return absDistance;
+	}
+
+	private double getTrapezoidVelocity(double t, double peakVelocity, double accelerationTime, double cruiseTime) {
+
+		if (t <= 0.0d) { return 0.0d; }
+
+		if (t < accelerationTime) {
+			return maxAcceleration * t;
+		}
+
+		if (t < accelerationTime + cruiseTime) {
+			return peakVelocity;
+		}
+
+		double decelerationTime = t - accelerationTime - cruiseTime;
+
+		if (decelerationTime < accelerationTime) {
+			return peakVelocity - maxAcceleration * decelerationTime;
+		}
+
+		return 0.0d;
+	}
+}
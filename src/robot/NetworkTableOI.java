@@ -1,7 +1,8 @@
 package robot;
 
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.DashboardPublisher.StringEntry;
 import edu.wpi.first.wpilibj.networktables.NetworkTable;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 public class NetworkTableOI {
 
@@ -12,6 +13,8 @@ public class NetworkTableOI {
 	
 	NetworkTable mouseWindow;
 	
+	private StringEntry networkOIEntry = DashboardPublisher.getInstance().addString("Network OI");
+	
 	NetworkTableOI() {
 
 		mouseWindow = NetworkTable.getTable(MOUSE_WINDOW_TABLE);
@@ -43,13 +46,15 @@ public class NetworkTableOI {
 	
 	public void updateDashboard() {
 		
+		// Only build the string when it can be published.
+		if (!networkOIEntry.isDue()) { return; }
+		
 		// Return the coordinate
 		CartesianCoordinate xy = new CartesianCoordinate();
 		xy.setX(mouseWindow.getNumber(MOUSE_WINDOW_X));
 		xy.setY(mouseWindow.getNumber(MOUSE_WINDOW_Y));
 		
-		SmartDashboard.putString("Network OI", 
-				"mouse" + xy + " " + isNewMouseEvent()); 
+		networkOIEntry.set("mouse" + xy + " " + isNewMouseEvent()); 
 
 	}
 }
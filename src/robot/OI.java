@@ -12,8 +12,11 @@ import robot.subsystems.ChassisSubsystem.DriveMode;
 import robot.subsystems.ChassisSubsystem.PIDEnable;
 import robot.subsystems.ContainerElevatorSubsystem.ContainerElevatorLevel;
 import robot.subsystems.ToteElevatorSubsystem.ToteElevatorLevel;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.DashboardPublisher.StringEntry;
+import robot.telemetry.FlightRecorder;
+import robot.telemetry.FlightRecorder.Channel;
 import edu.wpi.first.wpilibj.command.Scheduler;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * This class is the glue that binds the controls on the physical operator
@@ -23,7 +26,7 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  * the default command of subsystems in order to run the subsystems.
  * 
  */
-public class OI {
+public class OI implements DriverInput {
 
 	private PIDEnable motorPIDEnable    = PIDEnable.ENABLED;
 	private PIDEnable rotationPIDEnable = PIDEnable.ENABLED;
@@ -35,6 +38,14 @@ public class OI {
 	private Toggle containerDeployToggle = new Toggle(false);
 	private Toggle accelerationOverride = new Toggle(true);
 	private Toggle toggleHalfInput = new Toggle(false);
+	
+	// Coordinates reused every loop so that reading the driver sticks does not allocate.
+	private CartesianCoordinate driverCartesianCoordinate = new CartesianCoordinate();
+	private PolarCoordinate     driverPolarCoordinate     = new PolarCoordinate();
+	private CartesianCoordinate driverRotationCoordinate  = new CartesianCoordinate();
+	
+	private StringEntry driveModeEntry      = DashboardPublisher.getInstance().addString("DriveMode");
+	private StringEntry driverButtonsEntry  = DashboardPublisher.getInstance().addString("Driver Joystick Buttons");
 
 	private enum StickMap {
 		
@@ -148,6 +159,7 @@ public class OI {
 	 * DRIVER GETTERS
 	 */
 	
+	@Override
 	public DriveMode getDriveMode() {
 		if (!robotRelativeToggle.getState()) {
 			return DriveMode.FIELD_RELATIVE;
@@ -155,18 +167,29 @@ public class OI {
 		return DriveMode.ROBOT_RELATIVE;
 	}
 	
+	/**
+	 * Get the driver drive stick as a PolarCoordinate.
+	 * <p>
+	 * The returned coordinate is owned by the OI and is overwritten on the next call.  Callers 
+	 * that need to keep the value must copy it using {@link PolarCoordinate#set(double, double)}.
+	 * @return PolarCoordinate (r, theta) of the driver drive stick.
+	 */
+	@Override
 	public PolarCoordinate getDriverPolarCoordinate() { 
 		// Square the coordinates to reduce joystick sensitivity.
-		PolarCoordinate p = driverJoystick.getPolarCoordinate(StickMap.DRIVE_STICK.getStick()).square();
+		PolarCoordinate p = driverJoystick.getPolarCoordinate(StickMap.DRIVE_STICK.getStick(),
+				driverCartesianCoordinate, driverPolarCoordinate).square();
 		if(toggleHalfInput.getState()) {
-			return new PolarCoordinate(p.getR()/2, p.getTheta());
+			p.setR(p.getR()/2);
 		}
 		return p;
 	}
 	
+	@Override
 	public double getDriverRotation() { 
 		// Square the coordinates to reduce joystick sensitivity.
-		double rotation = driverJoystick.getCartesianCoordinate(StickMap.ROTATION_STICK.getStick()).square().getX();
+		double rotation = driverJoystick.getCartesianCoordinate(StickMap.ROTATION_STICK.getStick(),
+				driverRotationCoordinate).square().getX();
 		if(toggleHalfInput.getState()) {
 			return rotation / 2;
 		}
@@ -175,18 +198,21 @@ public class OI {
 	
 	public int getDriverPov() { return driverJoystick.getPOV(); }
 	
+	@Override
  	public PIDEnable getMotorPIDEnable() { return motorPIDEnable; }
  	
  	public CartesianCoordinate getMouseEvent() { return networkTableOI.getMouseEvent(); }
  	
 	public boolean getToteIntakeDeployButton() { return driverJoystick.getButton(Driver_ButtonMap.DEPLOY_PICKUP.getButton()); }
 	
+	@Override
 	public PIDEnable getRotationPIDEnable() { return rotationPIDEnable; }
 
 	public boolean getPickupRollerButton() { return driverJoystick.getButton(Driver_ButtonMap.PICKUP_MOTORS.getButton()); }
 	
 	public boolean getPickupRollerDirection() { return !driverJoystick.getButton(Driver_ButtonMap.REVERSE_PICKUP_MOTORS.getButton()); }
 
+	@Override
 	public boolean getAccelerationOverride() { return accelerationOverride.getState(); }
 
 	public boolean isNewMouseEvent() { return networkTableOI.isNewMouseEvent();	}
@@ -306,17 +332,35 @@ public class OI {
 	}
 
  	
+	/**
+	 * Record the driver inputs for the current tick.
+	 * @param recorder
+	 */
+	public void recordFlightData(FlightRecorder recorder) {
+		
+		PolarCoordinate p = getDriverPolarCoordinate();
+		
+		recorder.set(Channel.DRIVER_R,        p.getR());
+		recorder.set(Channel.DRIVER_THETA,    p.getTheta());
+		recorder.set(Channel.DRIVER_ROTATION, getDriverRotation());
+		recorder.set(Channel.DRIVER_ROBOT_RELATIVE, getDriveMode() == DriveMode.ROBOT_RELATIVE);
+		recorder.set(Channel.DRIVER_ACCELERATION_OVERRIDE, getAccelerationOverride());
+	}
+	
 	public void updateDashboard() {
 
  		networkTableOI.updateDashboard();
  
- 		SmartDashboard.putString("DriveMode", getDriveMode().toString());
+ 		driveModeEntry.set(getDriveMode().toString());
  		
-		SmartDashboard.putString("Driver Joystick Buttons", 
+ 		// Only build the button string when it can be published.
+ 		if (driverButtonsEntry.isDue()) {
+ 			driverButtonsEntry.set(
 				driverJoystick.getPolarCoordinate    (StickMap.DRIVE_STICK.getStick())   .square().toString() + " " +
 				driverJoystick.getCartesianCoordinate(StickMap.ROTATION_STICK.getStick()).square().toString() + " " +
 				driverJoystick.getButtonsPressedString()
 				+ ((getDirectionPointer() >= 0) ? " D(" + getDirectionPointer() + ")" : "") );
+ 		}
 	}
 
 }
@@ -1,27 +1,37 @@
 package robot;
 
-import edu.wpi.first.wpilibj.Gyro;
+import robot.hal.RateGyro;
+import edu.wpi.first.wpilibj.tables.ITable;
 
-public class OffsetableGyro extends Gyro {
+/**
+ * A gyro that reports the field angle (0-360 degrees) using an offset set by the driver.
+ */
+public class OffsetableGyro implements RateGyro {
 
+	private final RateGyro gyro;
+	
 	private double offset;
 	private double lastRawAngle;
 	
 	public OffsetableGyro(int channel) {
-		super(channel);
+		this(RobotMap.hardware.gyro(channel));
+	}
+
+	public OffsetableGyro(RateGyro gyro) {
+		this.gyro = gyro;
 		offset = 0.0;
 		lastRawAngle = 0.0d;
 	}
 
 	public void setOffset(double offset) {
-		super.reset();
+		gyro.reset();
 		lastRawAngle = 0.0d;
 		this.offset = offset;
 	}
 
 	@Override
 	public double getRate() {
-		return -super.getRate();
+		return -gyro.getRate();
 	}
 	
 	@Override
@@ -29,7 +39,7 @@ public class OffsetableGyro extends Gyro {
 
 		// Watch for gyro values that are messed up and 
 		// discard them.
-		double rawAngle = -super.getAngle();
+		double rawAngle = -gyro.getAngle();
 
 		if (Math.abs(rawAngle - lastRawAngle) > 360) {
 			rawAngle = lastRawAngle;
@@ -48,10 +58,38 @@ public class OffsetableGyro extends Gyro {
 		return angle;
 	}
 	
+	@Override
+	public double pidGet() {
+		return getAngle();
+	}
+	
 	@Override
 	public void reset() {
-		super.reset();
+		gyro.reset();
 		offset = 0.0;
 	}
 
+	@Override
+	public void setSensitivity(double voltsPerDegreePerSecond) {
+		gyro.setSensitivity(voltsPerDegreePerSecond);
+	}
+
+	@Override
+	public void initTable(ITable subtable) { gyro.initTable(subtable); }
+
+	@Override
+	public ITable getTable() { return gyro.getTable(); }
+
+	@Override
+	public String getSmartDashboardType() { return gyro.getSmartDashboardType(); }
+
+	@Override
+	public void updateTable() { gyro.updateTable(); }
+
+	@Override
+	public void startLiveWindowMode() { gyro.startLiveWindowMode(); }
+
+	@Override
+	public void stopLiveWindowMode() { gyro.stopLiveWindowMode(); }
+
 }
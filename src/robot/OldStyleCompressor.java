@@ -1,18 +1,19 @@
 package robot;
 
-import edu.wpi.first.wpilibj.DigitalInput;
+import robot.hal.DigitalSensor;
+import robot.hal.RelayOutput;
 import edu.wpi.first.wpilibj.Relay;
 
 public class OldStyleCompressor {
 	
-	DigitalInput pressureSwitch;
-	Relay spike;
+	DigitalSensor pressureSwitch;
+	RelayOutput spike;
 	
 	boolean enabled = false;
 	
 	public OldStyleCompressor(int spikePort, int pressureSwitchPort) {
-		this.spike = new Relay(spikePort);
-		this.pressureSwitch = new DigitalInput(pressureSwitchPort);
+		this.spike = RobotMap.hardware.relay(spikePort);
+		this.pressureSwitch = RobotMap.hardware.digitalInput(pressureSwitchPort);
 	}
 
 	public void update() {
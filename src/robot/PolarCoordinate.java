@@ -32,22 +32,35 @@ public class PolarCoordinate {
 
 		PolarCoordinate p = new PolarCoordinate();
 		
+		p.set(xy);
+		
+		return p;
+	}
+	
+	/**
+	 * Set this PolarCoordinate to the equivalent of the passed in 
+	 * CartesianCoordinate.
+	 * <p>
+	 * This is the allocation free version of {@link #valueOf(CartesianCoordinate)} and
+	 * applies the same rounding rules.
+	 * @param xy
+	 * @return this - pointer to this Polar Coordinate.
+	 */
+	public PolarCoordinate set(CartesianCoordinate xy) {
+
 		// the magnitude is the root of the sum of squares.
-		p.setR(Math.sqrt(xy.getX() * xy.getX() 
-				       + xy.getY() * xy.getY()));
+		setR(Math.sqrt(xy.getX() * xy.getX() 
+				     + xy.getY() * xy.getY()));
 
 		// The polar direction, theta, is the arcTan of the polar x and y coordinates.
-		// The radians will be between -PI and PI
-		double radians = Math.atan2(xy.getX(), xy.getY());
-		
-		// Convert theta to degrees.
-		double degrees = (radians * 180.0)/Math.PI;
+		// The degrees will be between -180 and 180
+		double degrees = FastTrig.atan2(xy.getX(), xy.getY());
 
 		// Allow the setter to round theta and translate it to a value between
 		// 0 and 360 degrees.
-		p.setTheta(degrees);
+		setTheta(degrees);
 		
-		return p;
+		return this;
 	}
 	
 	/**
@@ -77,10 +90,27 @@ public class PolarCoordinate {
 	 * Set the Polar Coordinate to the same value as the passed in PolarCoordinate.
 	 * <p>
 	 * @param p - the PolarCoordinate (r, theta) used to set this object.
+	 * @return this - pointer to this Polar Coordinate.
 	 */
-	public void set(PolarCoordinate p) {
+	public PolarCoordinate set(PolarCoordinate p) {
 		this.r     = p.r;
 		this.theta = p.theta;
+		return this;
+	}
+	
+	/**
+	 * Set both the r and theta values of the Polar Coordinate.
+	 * <p>
+	 * The values are rounded and bounded as described in {@link #setR(double)} and 
+	 * {@link #setTheta(double)}.
+	 * @param r - the magnitude of the (r, theta) coordinate.
+	 * @param theta - the angle of the (r, theta) coordinate.
+	 * @return this - pointer to this Polar Coordinate.
+	 */
+	public PolarCoordinate set(double r, double theta) {
+		setR(r);
+		setTheta(theta);
+		return this;
 	}
 	
 	/**
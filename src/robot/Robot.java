@@ -4,10 +4,17 @@ package robot;
 import java.util.ArrayList;
 import java.util.List;
 
+import robot.commands.AutotunePIDCommand;
+import robot.commands.AutotunePIDCommand.AutotuneLoop;
+import robot.commands.DriveCharacterizationCommand;
 import robot.commands.autonomous.commandgroup.AutonomousTestCommandGroup;
+import robot.commands.autonomous.commandgroup.AutonomousThreeToteSplineCommandGroup;
 import robot.commands.autonomous.commandgroup.AutonomousThreeToteStackCommandGroup;
 import robot.commands.autonomous.commandgroup.AutonomousThreeToteTwoContainerCommandGroup;
 import robot.commands.autonomous.commandgroup.AutonomousThreeToteWithContainerGone;
+import robot.control.ControlLoopExecutor;
+import robot.control.PIDEngine;
+import robot.control.VelocityEstimator;
 import robot.subsystems.ChassisSubsystem;
 import robot.subsystems.ContainerElevatorSubsystem;
 import robot.subsystems.PowerSubsystem;
@@ -16,9 +23,12 @@ import robot.subsystems.SensorSubsystem;
 import robot.subsystems.ToteElevatorSubsystem;
 import robot.subsystems.ToteIntakeSubsystem;
 import robot.subsystems.VisionSubsystem;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.FlightRecorder;
+import robot.telemetry.LoopTimer;
+import robot.telemetry.LoopTimer.Phase;
 import edu.wpi.first.wpilibj.IterativeRobot;
 import edu.wpi.first.wpilibj.command.Command;
-import edu.wpi.first.wpilibj.command.CommandGroup;
 import edu.wpi.first.wpilibj.command.Scheduler;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
@@ -37,6 +47,10 @@ public class Robot extends IterativeRobot {
 	
 	public static OI oi;
 
+	// The driver inputs for the commands that drive with the driver stick.  This is the OI
+	// on the robot, and can be replaced where there is no OI (for example in the simulation).
+	public static DriverInput driverInput;
+
 	public static final VisionSubsystem   visionSubsystem   = new VisionSubsystem();
 	public static final PowerSubsystem    powerSubsystem    = new PowerSubsystem();
 	public static final ChassisSubsystem  chassisSubsystem  = new ChassisSubsystem();
@@ -50,6 +64,12 @@ public class Robot extends IterativeRobot {
     
     OldStyleCompressor compressor = new OldStyleCompressor(RobotMap.COMPRESSOR_SPIKE_PORT, RobotMap.PRESSURE_SWITCH_PORT);
     
+    LoopTimer loopTimer = new LoopTimer();
+    
+    FlightRecorder flightRecorder = FlightRecorder.getInstance();
+    
+    ControlLoopExecutor controlLoopExecutor = new ControlLoopExecutor(RobotMap.CONTROL_LOOP_RATE);
+    
     // Default constructor.
     
     public Robot () {
@@ -66,8 +86,8 @@ public class Robot extends IterativeRobot {
         // schedule the autonomous command (example)
     	
     	Object selected = autonomousChooser.getSelected();
-		if (selected instanceof CommandGroup) {
-			autonomousCommand = ((CommandGroup) selected);
+		if (selected instanceof Command) {
+			autonomousCommand = ((Command) selected);
 			Scheduler.getInstance().add(autonomousCommand);
 		}
     	        
@@ -80,9 +100,20 @@ public class Robot extends IterativeRobot {
      */
     @Override
     public void autonomousPeriodic() {
+    	loopTimer.startLoop();
+    	readSensors();
+    	loopTimer.endPhase(Phase.SENSORS);
         Scheduler.getInstance().run();
+        loopTimer.endPhase(Phase.SCHEDULER);
+        writeOutputs();
+        loopTimer.endPhase(Phase.OUTPUTS);
         updateDashboard();
+        loopTimer.endPhase(Phase.DASHBOARD);
         compressor.update();
+        loopTimer.endPhase(Phase.COMPRESSOR);
+        recordFlightData();
+        loopTimer.endPhase(Phase.RECORDER);
+        loopTimer.endLoop();
     }
 
     /**
@@ -97,9 +128,20 @@ public class Robot extends IterativeRobot {
 
     @Override
     public void disabledPeriodic() {
+    	loopTimer.startLoop();
+    	readSensors();
+    	loopTimer.endPhase(Phase.SENSORS);
 		Scheduler.getInstance().run();
+		loopTimer.endPhase(Phase.SCHEDULER);
+		writeOutputs();
+		loopTimer.endPhase(Phase.OUTPUTS);
 		updateDashboard();
+		loopTimer.endPhase(Phase.DASHBOARD);
 		compressor.stop();
+		loopTimer.endPhase(Phase.COMPRESSOR);
+		recordFlightData();
+		loopTimer.endPhase(Phase.RECORDER);
+		loopTimer.endLoop();
 	}
 
     /**
@@ -109,6 +151,7 @@ public class Robot extends IterativeRobot {
     @Override
     public void robotInit() {
 		oi = new OI();
+		driverInput = oi;
 		
 		compressor.stop();
 		
@@ -122,10 +165,19 @@ public class Robot extends IterativeRobot {
 				new AutonomousThreeToteWithContainerGone());
 		autonomousChooser.addObject("ThreeTote",
 				new AutonomousThreeToteStackCommandGroup());
+		autonomousChooser.addObject("Three Tote Spline",
+				new AutonomousThreeToteSplineCommandGroup());
+		autonomousChooser.addObject("Characterize Drive",
+				new DriveCharacterizationCommand());
 		autonomousChooser.addObject("Nothing", null);
 		
 		SmartDashboard.putData("Autonomous Mode", autonomousChooser);
 		
+		// Each PID loop can be retuned from the dashboard in teleop.
+		for (AutotuneLoop autotuneLoop: AutotuneLoop.values()) {
+			SmartDashboard.putData("Autotune " + autotuneLoop, new AutotunePIDCommand(autotuneLoop));
+		}
+		
     	// Initialize all subsystems.
     	for (RunnymedeSubsystem subsystem: subsystemLs) {
     		subsystem.initSubsystem();
@@ -133,6 +185,18 @@ public class Robot extends IterativeRobot {
 
     	// instantiate the command used for the autonomous period
     	// FIXME: need to write some autonomous code here.
+    	
+    	// Move the dashboard NetworkTables writes off of the control thread.
+    	DashboardPublisher.getInstance().start();
+    	
+    	flightRecorder.start();
+    	
+    	// Run the inner control loops at a fixed rate, independent of the periodic methods.
+    	// The encoder velocities are fit before the PIDs that read them.
+    	controlLoopExecutor.add(VelocityEstimator.getInstance());
+    	controlLoopExecutor.add(PIDEngine.getInstance());
+    	controlLoopExecutor.add(chassisSubsystem);
+    	controlLoopExecutor.start();
     }
 
     @Override
@@ -153,10 +217,22 @@ public class Robot extends IterativeRobot {
      */
     @Override
     public void teleopPeriodic() {
+    	loopTimer.startLoop();
+    	readSensors();
+    	loopTimer.endPhase(Phase.SENSORS);
         Scheduler.getInstance().run();
+        loopTimer.endPhase(Phase.SCHEDULER);
         oi.periodic();
+        loopTimer.endPhase(Phase.OI);
+        writeOutputs();
+        loopTimer.endPhase(Phase.OUTPUTS);
         updateDashboard();
+        loopTimer.endPhase(Phase.DASHBOARD);
         compressor.update();
+        loopTimer.endPhase(Phase.COMPRESSOR);
+        recordFlightData();
+        loopTimer.endPhase(Phase.RECORDER);
+        loopTimer.endLoop();
     }
     
     @Override
@@ -189,10 +265,32 @@ public class Robot extends IterativeRobot {
     	}
     }
 
+    private void recordFlightData() {
+    	for (RunnymedeSubsystem subsystem: subsystemLs) {
+    		subsystem.recordFlightData(flightRecorder);
+    	}
+    	oi.recordFlightData(flightRecorder);
+    	
+    	flightRecorder.endTick();
+    }
+
+    private void readSensors() {
+    	for (RunnymedeSubsystem subsystem: subsystemLs) {
+    		subsystem.readSensors();
+    	}
+    }
+
+    private void writeOutputs() {
+    	chassisSubsystem.writeOutputs();
+    }
+
     private void updateDashboard() {
     	for (RunnymedeSubsystem subsystem: subsystemLs) {
     		subsystem.updateDashboard();
     	}
     	oi.updateDashboard();
+    	controlLoopExecutor.updateDashboard();
+    	
+    	DashboardPublisher.getInstance().publish();
     }
 }
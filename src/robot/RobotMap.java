@@ -1,5 +1,8 @@
 package robot;
 
+import robot.hal.HardwareFactory;
+import robot.hal.wpilib.WpilibHardware;
+
 /**
  * The RobotMap is a mapping from the ports sensors and actuators are wired into
  * to a variable name. This provides flexibility changing wiring, makes checking
@@ -14,6 +17,11 @@ public class RobotMap {
 
 	public static int currentRobot = ROBOT_PRACTICE;
 
+	// Hardware
+	// All motors, sensors and actuators are created through this factory.  Set this to a 
+	// robot.hal.sim.SimHardware before the Robot class is loaded to run the robot code on a desktop.
+	public static HardwareFactory hardware = new WpilibHardware();
+
 	/*
 	 * Production/Test robot port mappings
 	 */
@@ -95,6 +103,11 @@ public class RobotMap {
 	public static final double MAX_ANUGLAR_VELOCITY = 120;
 	public static final double MAX_ENCODER_RATE = 2500;//900;
 	
+	// Heading estimator: half track plus half wheel base, and the gyro bias filter
+	public static final double DRIVE_ROTATION_RADIUS = 23; // inches
+	public static final double HEADING_BIAS_TIME_CONSTANT = 5.0; // sec
+	public static final double HEADING_STILL_RATE = 2.0; // degrees / sec
+	
 	public static final long EYEBROW_DEPLOY_PULSE_TIME = 1200;
 	public static final long EYEBROW_RETRACT_PULSE_TIME = 2000;
 	
@@ -108,6 +121,31 @@ public class RobotMap {
 	public static final double MAX_DRIVE_ACCELERATION = .5; // change in motor speed control / sec
 	public static final double MAX_TELEOP_DRIVE_ACCELERATION = 1.0; // change in motor speed control / sec
 	
+	// Rate of the wheel speed and elevator rate PIDs on the control thread
+	public static final double CONTROL_LOOP_RATE = 200; // Hz
+	
+	// Encoder velocity least squares windows in control loop steps.  The velocity lags by 
+	// about half of the window.  The container elevator only moves a few counts per step.
+	public static final int DRIVE_VELOCITY_WINDOW = 8;
+	public static final int TOTE_ELEVATOR_VELOCITY_WINDOW = 8;
+	public static final int CONTAINER_ELEVATOR_VELOCITY_WINDOW = 20;
+	
+	// Drive distance motion profile limits
+	public static final double MAX_DRIVE_SPEED = MAX_ENCODER_RATE / ENCODER_COUNTS_PER_INCH; // inches / sec at full speed control
+	public static final double PROFILE_DRIVE_ACCELERATION = 120; // inches / sec^2
+	public static final double PROFILE_DRIVE_JERK = 600; // inches / sec^3
+	
+	// Tote elevator motion profile limits.  The max rate leaves 20% of the output above the rate
+	// PID feed forward (0.0004 per encoder count / sec) for the correction.  The acceleration 
+	// reaches the max rate in one elevator time constant (0.1 sec), and the jerk spreads each
+	// change of acceleration over the 40 ms encoder velocity window.
+	public static final double TOTE_ELEVATOR_PROFILE_ACCELERATION = 20000; // encoder counts / sec^2
+	public static final double TOTE_ELEVATOR_PROFILE_JERK = 500000; // encoder counts / sec^3
+	
+	// Autonomous spline trajectory limits
+	public static final double TRAJECTORY_MAX_VELOCITY = 60; // inches / sec
+	public static final double TRAJECTORY_MAX_CENTRIPETAL_ACCELERATION = 80; // inches / sec^2
+	
 	public static final double PICKUP_ROLLER_SPEED = 0.5;
 	
 }
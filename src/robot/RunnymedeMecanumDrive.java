@@ -104,7 +104,27 @@ public class RunnymedeMecanumDrive {
      */
     public double [] drivePolar(PolarCoordinate p, double rotation) {
     	
-    	double [] wheelSpeeds = new double [] { 0.0, 0.0, 0.0, 0.0 };
+    	return drivePolar(p, rotation, new double [MOTOR_COUNT]);
+    }
+
+    /**
+     * Calculate the mecanum wheel speeds to drive the mecanum drive into a caller owned array.
+     * <p>
+     * This is the allocation free version of {@link #drivePolar(PolarCoordinate, double)} that should 
+     * be used from the periodic drive loop.  All four entries in the array are overwritten.
+     *
+     * @param p - PolarCoordinate (r, theta) containing the required magnitude and direction for the  
+     * mecanum drive
+     * @param rotation The rate of rotation for the robot that is completely independent of
+     * the magnitute or direction. [-1.0..1.0]
+     * @param wheelSpeeds - double [4] that will receive the wheel speeds.
+     * @return the passed in wheelSpeeds array.
+     */
+    public double [] drivePolar(PolarCoordinate p, double rotation, double [] wheelSpeeds) {
+    	
+    	for (int i=0; i<MOTOR_COUNT; i++) {
+    		wheelSpeeds[i] = 0.0;
+    	}
 
     	// If there is no movement requested, then return zeros.
     	if (Math.abs(p.getR()) < MIN_DRIVE_VALUE && Math.abs(rotation) < MIN_DRIVE_VALUE) { return wheelSpeeds; }
@@ -113,9 +133,9 @@ public class RunnymedeMecanumDrive {
     	// obtain a vector at angle theta.
     	// The rollers are at 45 degree angles.
 
-    	double angleRad = (p.getTheta() + 45.0) * Math.PI / 180.0;
-        double cosD = Math.cos(angleRad);
-        double sinD = Math.sin(angleRad);
+    	double angleDeg = p.getTheta() + 45.0;
+        double cosD = FastTrig.cos(angleDeg);
+        double sinD = FastTrig.sin(angleDeg);
 
         wheelSpeeds[FRONT_LEFT]  = sinD;
         wheelSpeeds[FRONT_RIGHT] = cosD;
@@ -195,7 +215,7 @@ public class RunnymedeMecanumDrive {
 		
 		// If the scalingValue is 0, then all of the values will be scaled to 0.
 		if (Math.abs(scalingValue) < MIN_DRIVE_VALUE) {
-			for (int i=0; i<wheelSpeeds.length; i++) { 
+			for (int i=0; i<MOTOR_COUNT; i++) { 
 				wheelSpeeds[i] = 0; 
 			}
 			return;
@@ -209,7 +229,7 @@ public class RunnymedeMecanumDrive {
 		
 		// If the maximum value is 0, then there is nothing to do for the scaling.
 		if (maxMagnitude < 0.02) { 
-			for (int i=0; i<wheelSpeeds.length; i++) { 
+			for (int i=0; i<MOTOR_COUNT; i++) { 
 				wheelSpeeds[i] = 0; 
 			}
 			return;
@@ -219,7 +239,7 @@ public class RunnymedeMecanumDrive {
 		double scalingFactor = scalingValue / maxMagnitude;
 		
 		// Scale all of the wheel values
-		for (int i=0; i<wheelSpeeds.length; i++) {
+		for (int i=0; i<MOTOR_COUNT; i++) {
 			wheelSpeeds[i] = wheelSpeeds[i] * scalingFactor;
 		}
 		
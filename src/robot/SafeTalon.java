@@ -1,15 +1,20 @@
 package robot;
 
-import edu.wpi.first.wpilibj.Counter;
-import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.Talon;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import robot.hal.DigitalSensor;
+import robot.hal.EdgeCounter;
+import robot.hal.Motor;
+import robot.hal.QuadratureEncoder;
+import robot.subsystems.PowerSubsystem;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.DashboardPublisher.BooleanEntry;
+import robot.telemetry.DashboardPublisher.NumberEntry;
+import robot.telemetry.DashboardPublisher.StringEntry;
+import edu.wpi.first.wpilibj.tables.ITable;
 
 /**
  * Safe Talon
  * 
- * This class extends the Talon drive class and implements safety features around the 
+ * This class wraps a {@link Motor} and implements safety features around the 
  * talon drive.
  * 
  * Safety features implemented include
@@ -19,7 +24,7 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  * <br>Encoder limit - stop motor turning in a specified direction when the encoder limit changes
  * 
  */
-public class SafeTalon extends Talon {
+public class SafeTalon implements Motor {
 	
 	public enum TalonState { ENABLED, DISABLED, 
 		NEGATIVE_LIMIT_SWITCH, POSITIVE_LIMIT_SWITCH,
@@ -29,20 +34,22 @@ public class SafeTalon extends Talon {
 	public static double ENCODER_DISTANCE_NO_LIMIT = 0.00001d;;
 	public static double CURRENT_NO_LIMIT = 0d;
 	
-	private TalonState talonState = (super.isAlive() ? TalonState.ENABLED : TalonState.DISABLED);
+	private final Motor talon;
+	
+	private TalonState talonState;
 	
 	private int channel = -1;
 	
-	private DigitalInput negativeLimitSwitch = null;
-	private DigitalInput positiveLimitSwitch = null;
+	private DigitalSensor negativeLimitSwitch = null;
+	private DigitalSensor positiveLimitSwitch = null;
 	
 	private boolean negativeLimitSwitchDefaultState = false;
 	private boolean positiveLimitSwitchDefaultState = false;
 	
-	private Counter positiveLimitSwitchCounter = null;
-	private Counter negativeLimitSwitchCounter = null;
+	private EdgeCounter positiveLimitSwitchCounter = null;
+	private EdgeCounter negativeLimitSwitchCounter = null;
 
-	private Encoder limitEncoder = null;
+	private QuadratureEncoder limitEncoder = null;
 	private double prevEncoderDistance = 0.0d;
 	private double lowerLimitEncoderDistance = ENCODER_DISTANCE_NO_LIMIT;
 	private double upperLimitEncoderDistance = ENCODER_DISTANCE_NO_LIMIT;
@@ -55,9 +62,41 @@ public class SafeTalon extends Talon {
 	private double current = 0;
 	private double peakCurrent = 0;
 	
+	// Dashboard entries are keyed by channel, and are created once when the talon is created.
+	private static final double CURRENT_DEADBAND = 0.1d;
+	
+	private final StringEntry  stateEntry;
+	private final BooleanEntry positiveLimitSwitchEntry;
+	private final NumberEntry  positiveLimitSwitchCounterEntry;
+	private final BooleanEntry negativeLimitSwitchEntry;
+	private final NumberEntry  negativeLimitSwitchCounterEntry;
+	private final NumberEntry  currentEntry;
+	private final NumberEntry  peakCurrentEntry;
+	
 	public SafeTalon(int channel) {
-		super(channel);
-		this.channel = channel;
+		this(RobotMap.hardware.motor(channel));
+	}
+	
+	/**
+	 * Add the safety features to the given motor.
+	 * @param talon - the motor controller to protect.
+	 */
+	public SafeTalon(Motor talon) {
+		this.talon = talon;
+		this.channel = talon.getChannel();
+		this.talonState = (talon.isAlive() ? TalonState.ENABLED : TalonState.DISABLED);
+		
+		DashboardPublisher dashboard = DashboardPublisher.getInstance();
+		
+		String keyPrefix = "Talon(" + channel + ")";
+		
+		stateEntry                      = dashboard.addString (keyPrefix);
+		positiveLimitSwitchEntry        = dashboard.addBoolean(keyPrefix + " positive limit switch");
+		positiveLimitSwitchCounterEntry = dashboard.addNumber (keyPrefix + " positive limit switch counter");
+		negativeLimitSwitchEntry        = dashboard.addBoolean(keyPrefix + " negative limit switch");
+		negativeLimitSwitchCounterEntry = dashboard.addNumber (keyPrefix + " negative limit switch counter");
+		currentEntry     = dashboard.addNumber(keyPrefix + " current",      CURRENT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+		peakCurrentEntry = dashboard.addNumber(keyPrefix + " peak current", CURRENT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
 	}
 	
 	/**
@@ -65,6 +104,22 @@ public class SafeTalon extends Talon {
 	 * @return TalonState - the current state of this talon
 	 */
 	public TalonState getState() { return talonState; }
+	
+	/**
+	 * Get the positive limit switch value
+	 * @return boolean - the switch value, or {@code true} if there is no positive limit switch
+	 */
+	public boolean getPositiveLimitSwitch() {
+		return (positiveLimitSwitch == null) ? true : positiveLimitSwitch.get();
+	}
+	
+	/**
+	 * Get the negative limit switch value
+	 * @return boolean - the switch value, or {@code true} if there is no negative limit switch
+	 */
+	public boolean getNegativeLimitSwitch() {
+		return (negativeLimitSwitch == null) ? true : negativeLimitSwitch.get();
+	}
 
 	@Override
 	public void pidWrite(double output) {
@@ -77,21 +132,36 @@ public class SafeTalon extends Talon {
 	 * other latching condition that causes the Talon to be unusable.
 	 */
 	public void reset() {
-		talonState = (super.isAlive() ? TalonState.ENABLED : TalonState.DISABLED);
+		talonState = (talon.isAlive() ? TalonState.ENABLED : TalonState.DISABLED);
 		peakCurrent = 0;
 	}
 
 	@Override
     public void set(double speed) {
-    	super.set(safeSpeed(speed));
+    	talon.set(safeSpeed(speed));
     }
 	
 	@Override
 	@Deprecated
     public void set(double speed, byte syncGroup) {
-		super.set(safeSpeed(speed), syncGroup);
+		talon.set(safeSpeed(speed), syncGroup);
     }
 	
+	@Override
+	public double get() { return talon.get(); }
+
+	@Override
+	public void disable() { talon.disable(); }
+
+	@Override
+	public int getChannel() { return channel; }
+
+	@Override
+	public boolean isAlive() { return talon.isAlive(); }
+
+	@Override
+	public void stopMotor() { talon.stopMotor(); }
+	
 	/**
 	 * Set a safe encoder limit on this motor.
 	 * <p>
@@ -101,7 +171,7 @@ public class SafeTalon extends Talon {
 	 * @param lowerLimit lower limit or {@link #ENCODER_DISTANCE_NO_LIMIT}
 	 * @param upperLimit upper limit or {@link #ENCODER_DISTANCE_NO_LIMIT}
 	 */
-	public void setEncoder(Encoder limitEncoder, double lowerLimit, double upperLimit) {
+	public void setEncoder(QuadratureEncoder limitEncoder, double lowerLimit, double upperLimit) {
 		this.limitEncoder = limitEncoder;
 		this.lowerLimitEncoderDistance = lowerLimit;
 		this.upperLimitEncoderDistance = upperLimit;
@@ -117,7 +187,7 @@ public class SafeTalon extends Talon {
 	 * <p>
 	 * @param negativeLimitSwitch
 	 */
-	public void setNegativeLimitSwitch(DigitalInput negativeLimitSwitch) {
+	public void setNegativeLimitSwitch(DigitalSensor negativeLimitSwitch) {
 		setNegativeLimitSwitch(negativeLimitSwitch, true);
 	}
 
@@ -133,18 +203,13 @@ public class SafeTalon extends Talon {
 	 * @param defaultState - the default state for this limit switch. The value opposite of the default
 	 * state is used to determine if the switch is engaged.  
 	 */
-	public void setNegativeLimitSwitch(DigitalInput negativeLimitSwitch, boolean defaultState) {
+	public void setNegativeLimitSwitch(DigitalSensor negativeLimitSwitch, boolean defaultState) {
 		this.negativeLimitSwitch             = negativeLimitSwitch;
 		this.negativeLimitSwitchDefaultState = defaultState;
 		
 		// If the default state is true, the counter should detect falling edges
-		this.negativeLimitSwitchCounter = new Counter(this.negativeLimitSwitch);
-		if (defaultState == false) {
-			this.negativeLimitSwitchCounter.setUpSourceEdge(true, false);
-		} else {
-			this.negativeLimitSwitchCounter.setUpSourceEdge(false, true);
-		}
-		this.negativeLimitSwitchCounter.reset();
+		this.negativeLimitSwitchCounter = 
+				RobotMap.hardware.edgeCounter(this.negativeLimitSwitch, !defaultState, defaultState);
 	}
 
 	/**
@@ -154,12 +219,18 @@ public class SafeTalon extends Talon {
 	 * values can be set to be triggered on a time delay fuse by setting the fuse delay to a non-zero value.
 	 * <p>
 	 * In order to reset the fuse, the {@link #reset()} method must be called.
+	 * <p>
+	 * The current is read from the {@link robot.subsystems.PowerSubsystem} snapshot, which is 
+	 * updated once per loop.
 	 * @param powerDistributionPort - the port on the power distribution panel
 	 * @param currentLimit - the current limit in Amps
 	 * @param fuseDelay - the time delay for the fuse in seconds.  Zero seconds will trip the fuse
 	 * immediately
 	 */
 	public void setOverCurrentFuse(int powerDistributionPort, double currentLimit, double fuseDelay) {
+		if (!PowerSubsystem.isValidChannel(powerDistributionPort)) {
+			throw new IllegalArgumentException("Invalid power distribution port (" + powerDistributionPort + ")");
+		}
 		this.powerDistributionPort = powerDistributionPort;
 		this.currentLimit = currentLimit;
 		this.currentLimitFuseDelay = fuseDelay;
@@ -182,7 +253,7 @@ public class SafeTalon extends Talon {
 	 * state for the switch is {@literal true} and a switch state of {@literal false} indicates the
 	 * limit has been hit.
 	 */
-	public void setPositiveLimitSwitch(DigitalInput positiveLimitSwitch) {
+	public void setPositiveLimitSwitch(DigitalSensor positiveLimitSwitch) {
 		setPositiveLimitSwitch(positiveLimitSwitch, true);
 	}
 
@@ -198,48 +269,58 @@ public class SafeTalon extends Talon {
 	 * @param defaultState - the default state for this limit switch. The value opposite of the default
 	 * state is used to determine if the switch is engaged.  
 	 */
-	public void setPositiveLimitSwitch(DigitalInput positiveLimitSwitch, boolean defaultState) {
+	public void setPositiveLimitSwitch(DigitalSensor positiveLimitSwitch, boolean defaultState) {
 		this.positiveLimitSwitch             = positiveLimitSwitch;
 		this.positiveLimitSwitchDefaultState = defaultState;
 		
 		// If the default state is true, the counter should detect falling edges
-		this.positiveLimitSwitchCounter = new Counter(this.positiveLimitSwitch);
-		if (defaultState == false) {
-			this.positiveLimitSwitchCounter.setUpSourceEdge(true, false);
-		} else {
-			this.positiveLimitSwitchCounter.setUpSourceEdge(false, true);
-		}
-		this.positiveLimitSwitchCounter.reset();
+		this.positiveLimitSwitchCounter = 
+				RobotMap.hardware.edgeCounter(this.positiveLimitSwitch, !defaultState, defaultState);
 	}
 
+	@Override
+	public void initTable(ITable subtable) { talon.initTable(subtable); }
+
+	@Override
+	public ITable getTable() { return talon.getTable(); }
+
+	@Override
+	public String getSmartDashboardType() { return talon.getSmartDashboardType(); }
+
+	@Override
+	public void startLiveWindowMode() { talon.startLiveWindowMode(); }
+
+	@Override
+	public void stopLiveWindowMode() { talon.stopLiveWindowMode(); }
+
 	@Override
 	public void updateTable() {
-		super.updateTable();
+		talon.updateTable();
 		
-		SmartDashboard.putString("Talon(" + channel + ")", this.getState().toString());
+		stateEntry.set(this.getState().toString());
 		
 		if (positiveLimitSwitch != null) {
-			SmartDashboard.putBoolean("Talon(" + channel + ") positive limit switch", positiveLimitSwitch.get() );
-			SmartDashboard.putNumber("Talon(" + channel + ") positive limit switch counter", positiveLimitSwitchCounter.get() );
+			positiveLimitSwitchEntry       .set(positiveLimitSwitch.get());
+			positiveLimitSwitchCounterEntry.set(positiveLimitSwitchCounter.get());
 		} else {
-			SmartDashboard.putBoolean("Talon(" + channel + ") positive limit switch", true );
-			SmartDashboard.putNumber("Talon(" + channel + ") positive limit switch counter", 0 );
+			positiveLimitSwitchEntry       .set(true);
+			positiveLimitSwitchCounterEntry.set(0);
 		}
 		
 		if (negativeLimitSwitch != null) {
-			SmartDashboard.putBoolean("Talon(" + channel + ") negative limit switch", negativeLimitSwitch.get() );
-			SmartDashboard.putNumber("Talon(" + channel + ") negative limit switch counter", negativeLimitSwitchCounter.get() );
+			negativeLimitSwitchEntry       .set(negativeLimitSwitch.get());
+			negativeLimitSwitchCounterEntry.set(negativeLimitSwitchCounter.get());
 		} else {
-			SmartDashboard.putBoolean("Talon(" + channel + ") negative limit switch", true );
-			SmartDashboard.putNumber("Talon(" + channel + ") negative limit switch counter", 0);
+			negativeLimitSwitchEntry       .set(true);
+			negativeLimitSwitchCounterEntry.set(0);
 		}
 		
 		if (powerDistributionPort >= 0) {
-			SmartDashboard.putNumber("Talon(" + channel + ") current", current );
-			SmartDashboard.putNumber("Talon(" + channel + ") peak current", peakCurrent );
+			currentEntry    .set(current);
+			peakCurrentEntry.set(peakCurrent);
 		} else {
-			SmartDashboard.putNumber("Talon(" + channel + ") current", 0 );
-			SmartDashboard.putNumber("Talon(" + channel + ") peak current", 0 );
+			currentEntry    .set(0);
+			peakCurrentEntry.set(0);
 		}
 		
 	}
@@ -314,7 +395,7 @@ public class SafeTalon extends Talon {
 		}
 		
 		// Check the talon is alive
-		TalonState talonState = (super.isAlive() ? TalonState.ENABLED : TalonState.DISABLED);
+		TalonState talonState = (talon.isAlive() ? TalonState.ENABLED : TalonState.DISABLED);
 		
 		// If the talon is not alive, then set the speed to zero and return
 		if (talonState != TalonState.ENABLED) { 
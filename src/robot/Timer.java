@@ -5,7 +5,7 @@ public class Timer {
 	private double  timerTime = 0.0;
 	private boolean isEnable = false;
 	
-	private long endTime = 0;
+	private long endTimeNanos = 0;
 	
 	/**
 	 * Create a timer with the specified default duration. This duration will be used for 
@@ -63,7 +63,7 @@ public class Timer {
 		if (isEnable) { return; }
 		
 		isEnable = true;
-		endTime = Math.round(seconds*1000) + System.currentTimeMillis();
+		endTimeNanos = Math.round(seconds*Clock.NANOS_PER_SECOND) + Clock.getInstance().getTimeNanos();
 	}
 	
 	/**
@@ -80,7 +80,7 @@ public class Timer {
 		
 		if (! isEnable) { return false; }
 		
-		return System.currentTimeMillis() > endTime;
+		return Clock.getInstance().getTimeNanos() > endTimeNanos;
 	}
 	
 }
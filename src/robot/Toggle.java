@@ -3,7 +3,7 @@ package robot;
 public class Toggle {
 	
 	boolean state, previousControlValue;
-	long time = System.currentTimeMillis();
+	long time = Clock.getInstance().getTimeMillis();
 	
 	/**
 	 * Create a Toggle and initialize it to this state.
@@ -27,7 +27,7 @@ public class Toggle {
 		// on the transition only. 
 		if (controlValue && !previousControlValue) {
 			state = !state;
-			time = System.currentTimeMillis();
+			time = Clock.getInstance().getTimeMillis();
 		}
 		
 		// Save the control value in order to do proper edge detection.
@@ -54,6 +54,10 @@ public class Toggle {
 		return this.state;
 	}
 	
+	/**
+	 * Get the time of the last state change
+	 * @return long - the {@link Clock} time in milliseconds
+	 */
 	public long lastStateChangeTime() {
 		return time;
 	}
@@ -0,0 +1,39 @@
+package robot;
+
+/**
+ * A clock that only moves when it is advanced.
+ * <p>
+ * Install the virtual clock with {@link Clock#setInstance(Clock)} to run the robot code on
+ * simulated time.  The clock can be read from any thread, but should only be advanced by
+ * the thread that runs the simulation.
+ */
+public class VirtualClock extends Clock {
+
+	private volatile long timeNanos = 0;
+
+	@Override
+	public long getTimeNanos() {
+		return timeNanos;
+	}
+
+	/**
+	 * Move the clock forward.
+	 * @param nanos - the time to advance in nanoseconds, must not be negative.
+	 */
+	public void advanceNanos(long nanos) {
+
+		if (nanos < 0) {
+			throw new IllegalArgumentException("A clock cannot go backwards (" + nanos + " ns)");
+		}
+
+		timeNanos += nanos;
+	}
+
+	/**
+	 * Move the clock forward.
+	 * @param seconds - the time to advance in seconds, must not be negative.
+	 */
+	public void advanceSeconds(double seconds) {
+		advanceNanos(Math.round(seconds * NANOS_PER_SECOND));
+	}
+}
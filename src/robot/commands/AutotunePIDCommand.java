@@ -0,0 +1,198 @@
+package robot.commands;
+
+import robot.PolarCoordinate;
+import robot.Robot;
+import robot.RobotMap;
+import robot.control.PIDLoop;
+import robot.control.TuningFile;
+import robot.control.TuningRule;
+import robot.subsystems.ChassisSubsystem;
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ChassisSubsystem.PIDEnable;
+import robot.subsystems.ContainerElevatorSubsystem;
+import robot.subsystems.ToteElevatorSubsystem;
+import robot.subsystems.ToteElevatorSubsystem.ToteElevatorLevel;
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Tune a PID loop with a relay feedback experiment and save the gains for this robot.
+ * <p>
+ * The loop is run by its subsystem as usual, but the PID engine replaces the PID calculation
+ * with a relay (see {@link PIDLoop#startRelay(double, double)}).  When the relay has measured
+ * the ultimate gain and period, the gains are calculated with the {@link TuningRule} for the
+ * loop, saved in the {@link TuningFile} and loaded into the subsystem.  If the relay does not
+ * settle before the timeout, or the command is interrupted, the gains are not changed.  The
+ * angle gains are added to the chassis angle gain schedule at standstill, for every drive 
+ * direction, since the robot turns in place.
+ * <p>
+ * Each experiment takes a few seconds.  The chassis turns the robot back and forth by a few 
+ * degrees, the tote elevator rises from the floor and the container elevator oscillates 
+ * around its current level.
+ */
+public class AutotunePIDCommand extends Command {
+
+	public enum AutotuneLoop {
+
+		/** The chassis angle PID, turning in place */
+		ANGLE                (ChassisSubsystem.ANGLE_GAIN_SCHEDULE_NAME,   0.3d, 1.0d,  TuningRule.NO_OVERSHOOT),
+
+		/** The tote elevator rate PID, rising from the floor */
+		TOTE_ELEVATOR_RATE   (ToteElevatorSubsystem.RATE_PID_NAME,         0.2d, 0.02d, TuningRule.ZIEGLER_NICHOLS_PI),
+
+		/** The container elevator hold level PID, at the current level */
+		CONTAINER_HOLD_LEVEL (ContainerElevatorSubsystem.HOLD_LEVEL_PID_NAME, 0.5d, 2.0d, TuningRule.ZIEGLER_NICHOLS_P);
+
+		private final String     name;
+		private final double     relayAmplitude;
+		private final double     relayHysteresis;
+		private final TuningRule rule;
+
+		/**
+		 * @param name - the name of the gains in the tuning file
+		 * @param relayAmplitude - the relay output above and below the feed forward
+		 * @param relayHysteresis - the relay hysteresis in loop input units
+		 * @param rule - the rule to calculate the gains
+		 */
+		AutotuneLoop(String name, double relayAmplitude, double relayHysteresis, TuningRule rule) {
+			this.name            = name;
+			this.relayAmplitude  = relayAmplitude;
+			this.relayHysteresis = relayHysteresis;
+			this.rule            = rule;
+		}
+	}
+
+	/** The time for the relay to settle and measure, in seconds */
+	private static final double RELAY_TIMEOUT = 10.0d;
+
+	/** The tote elevator rate while the relay runs, as a rate PID setpoint */
+	private static final double TOTE_ELEVATOR_RELAY_RATE = 0.5d;
+
+	/** The tote elevator is stopped at this level if the relay has not finished */
+	private static final ToteElevatorLevel TOTE_ELEVATOR_RELAY_LIMIT = ToteElevatorLevel.THREE;
+
+	private final AutotuneLoop autotuneLoop;
+
+	private PIDLoop loop = null;
+
+	private double heading = 0.0d;
+
+	private final PolarCoordinate stopped = new PolarCoordinate();
+
+	public AutotunePIDCommand(AutotuneLoop autotuneLoop) {
+
+		this.autotuneLoop = autotuneLoop;
+
+		switch (autotuneLoop) {
+		case ANGLE:                requires(Robot.chassisSubsystem);           break;
+		case TOTE_ELEVATOR_RATE:   requires(Robot.toteElevatorSubsystem);      break;
+		case CONTAINER_HOLD_LEVEL: requires(Robot.containerElevatorSubsystem); break;
+		default: break;
+		}
+
+		setTimeout(RELAY_TIMEOUT);
+	}
+
+	@Override
+	protected void initialize() {
+
+		heading = Robot.chassisSubsystem.getGyroAngle();
+
+		switch (autotuneLoop) {
+		case ANGLE:
+			loop = Robot.chassisSubsystem.getAnglePID();
+			break;
+		case TOTE_ELEVATOR_RATE:
+			loop = Robot.toteElevatorSubsystem.getRatePID();
+			break;
+		case CONTAINER_HOLD_LEVEL:
+			loop = Robot.containerElevatorSubsystem.getHoldLevelPID();
+			break;
+		default: break;
+		}
+
+		loop.startRelay(autotuneLoop.relayAmplitude, autotuneLoop.relayHysteresis);
+	}
+
+	@Override
+	protected void execute() {
+
+		switch (autotuneLoop) {
+		case ANGLE:
+			Robot.chassisSubsystem.driveToAngle(stopped, heading, DriveMode.FIELD_RELATIVE, PIDEnable.ENABLED, PIDEnable.ENABLED);
+			break;
+		case TOTE_ELEVATOR_RATE:
+			// Negative drives the elevator up.
+			Robot.toteElevatorSubsystem.driveAtRate(-TOTE_ELEVATOR_RELAY_RATE);
+			break;
+		case CONTAINER_HOLD_LEVEL:
+			Robot.containerElevatorSubsystem.holdLevel();
+			break;
+		default: break;
+		}
+	}
+
+	@Override
+	protected boolean isFinished() {
+
+		if (loop.isRelayComplete() || isTimedOut()) { return true; }
+
+		// The tote elevator levels are negative going up.
+		return autotuneLoop == AutotuneLoop.TOTE_ELEVATOR_RATE
+				&& Robot.toteElevatorSubsystem.getEncoderDistance() < TOTE_ELEVATOR_RELAY_LIMIT.encoderSetpoint;
+	}
+
+	@Override
+	protected void end() {
+
+		boolean complete = loop.isRelayComplete();
+
+		stop();
+
+		if (!complete) {
+			System.out.println("Autotune " + autotuneLoop + " did not settle, the gains are not changed");
+			return;
+		}
+
+		double ultimateGain   = loop.getUltimateGain();
+		double ultimatePeriod = loop.getUltimatePeriod();
+
+		double [] gainArr = autotuneLoop.rule.getGains(ultimateGain, ultimatePeriod, loop.getPeriod());
+
+		if (autotuneLoop == AutotuneLoop.ANGLE) {
+			Robot.chassisSubsystem.addAngleGainSample(Double.NaN, 0.0d, gainArr);
+		} else {
+			TuningFile tuningFile = TuningFile.getInstance();
+			tuningFile.setPID(autotuneLoop.name, gainArr);
+			tuningFile.save();
+		}
+
+		switch (autotuneLoop) {
+		case TOTE_ELEVATOR_RATE:   Robot.toteElevatorSubsystem.loadTuning();      break;
+		case CONTAINER_HOLD_LEVEL: Robot.containerElevatorSubsystem.loadTuning(); break;
+		default: break;
+		}
+
+		System.out.println(String.format("Autotune %s on robot %d: Ku %.5f, Pu %.3f s, %s P %.6f I %.6f D %.6f",
+				autotuneLoop, RobotMap.currentRobot, ultimateGain, ultimatePeriod, autotuneLoop.rule, gainArr[0], gainArr[1], gainArr[2]));
+	}
+
+	@Override
+	protected void interrupted() {
+		stop();
+	}
+
+	private void stop() {
+
+		loop.stopRelay();
+
+		switch (autotuneLoop) {
+		case ANGLE:
+			Robot.chassisSubsystem.driveJoystick(stopped, 0.0, DriveMode.ROBOT_RELATIVE, PIDEnable.DISABLED, PIDEnable.DISABLED);
+			break;
+		case TOTE_ELEVATOR_RATE:
+			Robot.toteElevatorSubsystem.disableSubsystem();
+			break;
+		default: break;
+		}
+	}
+}
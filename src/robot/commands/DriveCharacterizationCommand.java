@@ -0,0 +1,213 @@
+package robot.commands;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import robot.Clock;
+import robot.PolarCoordinate;
+import robot.Robot;
+import robot.RobotMap;
+import robot.control.FeedforwardFit;
+import robot.control.MotorFeedforward;
+import robot.subsystems.ChassisSubsystem;
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ChassisSubsystem.PIDEnable;
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Characterize the drive wheels and set the wheel speed feed forwards.
+ * <p>
+ * All four wheels are driven forward together with a slow voltage ramp, allowed to coast,
+ * driven backward with a voltage step and allowed to coast again.  The voltage, velocity and
+ * acceleration of each wheel are logged to the {@link #DEFAULT_FILE}, and the static, velocity
+ * and acceleration constants of each wheel are fit with a {@link FeedforwardFit}.  The constants
+ * are set on the chassis and saved for this robot when the command ends.  If the command is
+ * interrupted, the samples are logged but the constants are not changed.
+ * <p>
+ * The robot drives about 15 feet forward and then 6 feet back, so run it from the autonomous
+ * chooser with clear floor in front of the robot, or with the robot on blocks.  The ramp is
+ * slow enough that the acceleration is small, which separates the velocity constant from the
+ * acceleration constant.
+ */
+public class DriveCharacterizationCommand extends Command {
+
+	public static final String DEFAULT_FILE = "/home/lvuser/driveCharacterization.csv";
+
+	// Voltage ramp forward, then a voltage step backward
+	private static final double RAMP_RATE    = 1.0d; // volts / sec
+	private static final double RAMP_TIME    = 6.0d; // sec
+	private static final double STEP_VOLTAGE = 6.0d; // volts
+	private static final double STEP_TIME    = 1.5d; // sec
+	private static final double COAST_TIME   = 1.0d; // sec
+
+	private static final double DURATION = RAMP_TIME + COAST_TIME + STEP_TIME + COAST_TIME;
+
+	// One sample per robot periodic loop, with room for slow loops.
+	private static final int MAX_SAMPLES = (int) (DURATION / 0.02d) * 2;
+
+	// Slower wheels are held by static friction and are not used in the fit.
+	private static final double MIN_FIT_VELOCITY = RobotMap.MAX_ENCODER_RATE * 0.02d; // encoder counts / sec
+
+	// A battery reading below this is not valid.
+	private static final double MIN_BATTERY_VOLTAGE = 6.0d;
+
+	private static final int WHEEL_COUNT = ChassisSubsystem.WHEEL_COUNT;
+
+	private final double []   timeArr     = new double [MAX_SAMPLES];
+	private final double [][] voltageArr  = new double [WHEEL_COUNT][MAX_SAMPLES];
+	private final double [][] velocityArr = new double [WHEEL_COUNT][MAX_SAMPLES];
+
+	private int  sampleCount    = 0;
+	private long startTimeNanos = 0;
+
+	private FeedforwardFit fit = new FeedforwardFit(MIN_FIT_VELOCITY);
+
+	public DriveCharacterizationCommand() {
+		requires(Robot.chassisSubsystem);
+	}
+
+	@Override
+	protected void initialize() {
+		sampleCount    = 0;
+		startTimeNanos = Clock.getInstance().getTimeNanos();
+	}
+
+	@Override
+	protected void execute() {
+
+		double t = getCharacterizationTime();
+
+		double batteryVoltage = Robot.powerSubsystem.getVoltage();
+		if (batteryVoltage < MIN_BATTERY_VOLTAGE) {
+			batteryVoltage = MotorFeedforward.NOMINAL_VOLTAGE;
+		}
+
+		// Log the output set in the last loop against the velocity read at the start of this loop.
+		if (sampleCount < MAX_SAMPLES) {
+			timeArr[sampleCount] = t;
+			for (int i=0; i<WHEEL_COUNT; i++) {
+				voltageArr [i][sampleCount] = Robot.chassisSubsystem.getWheelOutput(i) * batteryVoltage;
+				velocityArr[i][sampleCount] = Robot.chassisSubsystem.getWheelVelocity(i);
+			}
+			sampleCount++;
+		}
+
+		double output = getVoltage(t) / batteryVoltage;
+
+		Robot.chassisSubsystem.driveWheels(Math.max(-1.0d, Math.min(1.0d, output)));
+	}
+
+	@Override
+	protected boolean isFinished() {
+		return getCharacterizationTime() > DURATION;
+	}
+
+	@Override
+	protected void end() {
+
+		stop();
+		writeLog();
+
+		for (int i=0; i<WHEEL_COUNT; i++) {
+
+			String wheelName = Robot.chassisSubsystem.getWheelName(i);
+
+			fit.reset();
+
+			// The acceleration is the centered difference of the velocity.
+			for (int n=1; n<sampleCount-1; n++) {
+				fit.add(voltageArr[i][n], velocityArr[i][n], getAcceleration(i, n));
+			}
+
+			try {
+				double [] constantArr = fit.solve();
+
+				Robot.chassisSubsystem.setWheelFeedforward(i, constantArr[0], constantArr[1], constantArr[2]);
+
+				System.out.println(String.format("%s feed forward kS %.3f V, kV %.6f V/(count/s), kA %.7f V/(count/s^2), rms error %.3f V over %d samples",
+						wheelName, constantArr[0], constantArr[1], constantArr[2], fit.getRmsError(constantArr), fit.getSampleCount()));
+
+			} catch (IllegalStateException e) {
+				System.out.println(wheelName + " not characterized: " + e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	protected void interrupted() {
+		stop();
+		writeLog();
+	}
+
+	/**
+	 * The characterization voltage at a time from the start.
+	 * @param t - seconds
+	 * @return double - volts, positive drives forward
+	 */
+	private double getVoltage(double t) {
+
+		if (t < RAMP_TIME) { return RAMP_RATE * t; }
+		t -= RAMP_TIME + COAST_TIME;
+
+		if (t >= 0 && t < STEP_TIME) { return -STEP_VOLTAGE; }
+
+		return 0.0d;
+	}
+
+	private double getAcceleration(int wheel, int n) {
+
+		double dt = timeArr[n+1] - timeArr[n-1];
+
+		if (dt <= 0) { return 0.0d; }
+
+		return (velocityArr[wheel][n+1] - velocityArr[wheel][n-1]) / dt;
+	}
+
+	/**
+	 * @return double - the time since the characterization started in seconds
+	 */
+	private double getCharacterizationTime() {
+		return (Clock.getInstance().getTimeNanos() - startTimeNanos) / (double) Clock.NANOS_PER_SECOND;
+	}
+
+	private void stop() {
+		Robot.chassisSubsystem.driveJoystick(new PolarCoordinate(), 0.0, DriveMode.ROBOT_RELATIVE, PIDEnable.DISABLED, PIDEnable.DISABLED);
+	}
+
+	/**
+	 * Write the samples as comma separated values, with the voltage, velocity and acceleration
+	 * of each wheel.
+	 */
+	private void writeLog() {
+
+		File file = new File(DEFAULT_FILE);
+
+		try {
+			PrintWriter out = new PrintWriter(new FileWriter(file));
+
+			try {
+				out.print("Time");
+				for (int i=0; i<WHEEL_COUNT; i++) {
+					String wheelName = Robot.chassisSubsystem.getWheelName(i);
+					out.print("," + wheelName + " Volts," + wheelName + " Velocity," + wheelName + " Acceleration");
+				}
+				out.println();
+
+				for (int n=1; n<sampleCount-1; n++) {
+					out.print(String.format("%.3f", timeArr[n]));
+					for (int i=0; i<WHEEL_COUNT; i++) {
+						out.print(String.format(",%.3f,%.1f,%.1f", voltageArr[i][n], velocityArr[i][n], getAcceleration(i, n)));
+					}
+					out.println();
+				}
+			} finally {
+				out.close();
+			}
+
+		} catch (IOException e) {
+			System.out.println("Drive characterization not logged to " + file + ": " + e.getMessage());
+		}
+	}
+}
@@ -1,18 +1,42 @@
 package robot.commands;
 
+import robot.Clock;
+import robot.MotionProfile;
 import robot.PolarCoordinate;
 import robot.Robot;
+import robot.RobotMap;
 import robot.subsystems.ChassisSubsystem.DriveMode;
 import robot.subsystems.ChassisSubsystem.PIDEnable;
 import edu.wpi.first.wpilibj.command.Command;
 
+/**
+ * Drive a distance in a direction using a motion profile.
+ * <p>
+ * The profile is generated when the command starts, with the maximum speed set by the 
+ * magnitude of the drive coordinate.  Each loop the position and velocity setpoints are 
+ * looked up by the time since the command started.
+ */
 public class DriveDistanceCommand extends Command {
 
+	/** Distance from the target to be on target, in inches */
+	private static final double DISTANCE_TOLERANCE = 1.0d;
+	
+	/** Time after the end of the profile to reach the target before giving up, in seconds */
+	private static final double SETTLE_TIME = 0.5d;
+	
+	/** The robot periodic loop time, in seconds */
+	private static final double LOOP_PERIOD = 0.02d;
+	
 	PolarCoordinate p;
 	double targetAngle;
 	double distance;
 	DriveMode driveMode;
 
+	private long startTimeNanos = 0;
+
+	private MotionProfile profile = 
+			new MotionProfile(RobotMap.PROFILE_DRIVE_ACCELERATION, RobotMap.PROFILE_DRIVE_JERK, LOOP_PERIOD);
+
 	public DriveDistanceCommand(double r, double thetaDeg, double targetAngle, double distance, DriveMode driveMode) {
 		this(new PolarCoordinate(r, thetaDeg), targetAngle, distance, driveMode);
 	}
@@ -28,19 +52,35 @@ public class DriveDistanceCommand extends Command {
 	@Override
 	protected void initialize() {
 		Robot.chassisSubsystem.resetEncoders();
+		profile.generate(distance, p.getR() * RobotMap.MAX_DRIVE_SPEED);
+		startTimeNanos = Clock.getInstance().getTimeNanos();
 	}
 
 	@Override
 	protected void execute() {
-		// Y axis is inverted on controller, the robot drive compensates for this, so a negative is needed here
-		//Robot.chassisSubsystem.drive(r * Math.cos(thetaRad), -r * Math.sin(thetaRad), rotation, true);
-		Robot.chassisSubsystem.driveDistance(p, targetAngle, distance, driveMode);
-		
+		double t = getProfileTime();
+		Robot.chassisSubsystem.driveProfile(p, targetAngle, profile.getPosition(t), profile.getVelocity(t), driveMode);
 	}
 
 	@Override
 	protected boolean isFinished() {
-		return Robot.chassisSubsystem.distanceOnTarget() && Robot.chassisSubsystem.angleOnTarget();//(Robot.chassisSubsystem.getEncoderCounts() - distance) >= 0;
+		
+		double t = getProfileTime();
+		
+		if (!profile.isComplete(t)) { return false; }
+		
+		// Stop if the robot cannot reach the target after the profile ends.
+		if (t > profile.getDuration() + SETTLE_TIME) { return true; }
+		
+		return Math.abs(distance - Robot.chassisSubsystem.getDistanceInches()) < DISTANCE_TOLERANCE
+				&& Robot.chassisSubsystem.angleOnTarget();
+	}
+
+	/**
+	 * @return double - the time since the profile started in seconds
+	 */
+	private double getProfileTime() {
+		return (Clock.getInstance().getTimeNanos() - startTimeNanos) / (double) Clock.NANOS_PER_SECOND;
 	}
 
 	@Override
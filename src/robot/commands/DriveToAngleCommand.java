@@ -1,5 +1,7 @@
 package robot.commands;
 
+import robot.Clock;
+import robot.DriverInput;
 import robot.PolarCoordinate;
 import robot.Robot;
 import robot.Timer;
@@ -34,6 +36,8 @@ public class DriveToAngleCommand extends Command {
 		// Until the angle is within 18 degrees, use a rotation drive, and then switch to the 
 		// driveToAngle command to finish off when within 18 degrees.
 
+		DriverInput driverInput = Robot.driverInput;
+
 		// Get the difference in angle
 		double currentAngle = Robot.chassisSubsystem.getGyroAngle();
 		double angleDifference = targetAngle - currentAngle;
@@ -49,17 +53,17 @@ public class DriveToAngleCommand extends Command {
 			// Set the rotation value to .8 in the direction of the angle difference 
 			double rotation = .8 * Math.signum(angleDifference);
 			
-			Robot.chassisSubsystem.driveJoystick(Robot.oi.getDriverPolarCoordinate(),
-					rotation, driveMode, Robot.oi.getRotationPIDEnable(), Robot.oi.getMotorPIDEnable());
+			Robot.chassisSubsystem.driveJoystick(driverInput.getDriverPolarCoordinate(),
+					rotation, driveMode, driverInput.getRotationPIDEnable(), driverInput.getMotorPIDEnable());
 		} else {
 			// Wait for a timer to expire in the targeting before looking
 			// for the isFinished.  This is done because the angle is controlled by
 			// a PID controller and the PID may need time to settle.
 			if (startTime == 0) {
-				startTime = System.currentTimeMillis();
+				startTime = Clock.getInstance().getTimeMillis();
 			}
-			Robot.chassisSubsystem.driveToAngle(Robot.oi.getDriverPolarCoordinate(),
-					targetAngle, driveMode, Robot.oi.getRotationPIDEnable(), Robot.oi.getMotorPIDEnable());
+			Robot.chassisSubsystem.driveToAngle(driverInput.getDriverPolarCoordinate(),
+					targetAngle, driveMode, driverInput.getRotationPIDEnable(), driverInput.getMotorPIDEnable());
 		}
 		
 	}
@@ -71,7 +75,7 @@ public class DriveToAngleCommand extends Command {
 //		if (startTime == 0) { return false; }
 		
 		// Wait at least 1.5 seconds after the timer starts to end the command.
-//		long endTime = System.currentTimeMillis();
+//		long endTime = Clock.getInstance().getTimeMillis();
 //		if (endTime - startTime < 1500) { return false; }
 		
 		// Check if the angle is on target.
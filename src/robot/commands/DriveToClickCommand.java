@@ -1,6 +1,7 @@
 package robot.commands;
 
 import robot.CartesianCoordinate;
+import robot.FastTrig;
 import robot.PolarCoordinate;
 import robot.RobotMap;
 import robot.subsystems.ChassisSubsystem.DriveMode;
@@ -27,7 +28,7 @@ public class DriveToClickCommand extends Command {
     		theta += 360;
     	}
     	
-    	double distance     = 59 * Math.tan(Math.toRadians(49 + 17 * xy.getY())) - 30;
+    	double distance     = 59 * FastTrig.tan(49 + 17 * xy.getY()) - 30;
     	
     	double angle = theta;
     	
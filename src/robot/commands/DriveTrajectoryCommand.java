@@ -0,0 +1,117 @@
+package robot.commands;
+
+import robot.Clock;
+import robot.FastTrig;
+import robot.PolarCoordinate;
+import robot.Robot;
+import robot.RobotMap;
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ChassisSubsystem.PIDEnable;
+import robot.trajectory.Trajectory;
+import robot.trajectory.TrajectoryDefinition;
+import robot.trajectory.TrajectoryFile;
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Drive along a spline trajectory without stopping at the waypoints.
+ * <p>
+ * The trajectory is loaded when the command is created, so that it is mapped (or generated on
+ * the first boot) when the autonomous commands are built at startup.  The trajectory is driven
+ * relative to the field position when the command starts, and the heading is field relative.
+ * <p>
+ * Each loop the trajectory velocity is driven field relative, corrected by the difference
+ * between the trajectory position and the odometry position, and the angle PID turns the robot
+ * to the trajectory heading.
+ */
+public class DriveTrajectoryCommand extends Command {
+
+	/** Motor output per inch of position error */
+	private static final double POSITION_P = 0.02d;
+
+	/** Distance from the end of the trajectory to be on target, in inches */
+	private static final double POSITION_TOLERANCE = 2.0d;
+
+	/** Time after the end of the trajectory to reach the target before giving up, in seconds */
+	private static final double SETTLE_TIME = 0.5d;
+
+	/** The robot periodic loop time, in seconds */
+	private static final double LOOP_PERIOD = 0.02d;
+
+	private final Trajectory trajectory;
+
+	// The field position of the start of the trajectory.
+	private double offsetX = 0.0d;
+	private double offsetY = 0.0d;
+
+	private long startTimeNanos = 0;
+
+	private PolarCoordinate drivePolarCoordinate = new PolarCoordinate();
+
+	public DriveTrajectoryCommand(TrajectoryDefinition definition) {
+		requires(Robot.chassisSubsystem);
+		trajectory = TrajectoryFile.load(definition, LOOP_PERIOD);
+	}
+
+	@Override
+	protected void initialize() {
+		offsetX = Robot.chassisSubsystem.getFieldX() - trajectory.getX(0.0d);
+		offsetY = Robot.chassisSubsystem.getFieldY() - trajectory.getY(0.0d);
+		startTimeNanos = Clock.getInstance().getTimeNanos();
+	}
+
+	@Override
+	protected void execute() {
+
+		double t = getTrajectoryTime();
+
+		double x = trajectory.getVelocityX(t) / RobotMap.MAX_DRIVE_SPEED + POSITION_P * getErrorX(t);
+		double y = trajectory.getVelocityY(t) / RobotMap.MAX_DRIVE_SPEED + POSITION_P * getErrorY(t);
+
+		drivePolarCoordinate.set(Math.sqrt(x * x + y * y), FastTrig.atan2(x, y));
+
+		Robot.chassisSubsystem.driveToAngle(drivePolarCoordinate, trajectory.getHeading(t),
+				DriveMode.FIELD_RELATIVE, PIDEnable.ENABLED, PIDEnable.ENABLED);
+	}
+
+	@Override
+	protected boolean isFinished() {
+
+		double t = getTrajectoryTime();
+
+		if (!trajectory.isComplete(t)) { return false; }
+
+		// Stop if the robot cannot reach the end after the trajectory is complete.
+		if (t > trajectory.getDuration() + SETTLE_TIME) { return true; }
+
+		double errorX = getErrorX(t);
+		double errorY = getErrorY(t);
+
+		return Math.sqrt(errorX * errorX + errorY * errorY) < POSITION_TOLERANCE
+				&& Robot.chassisSubsystem.angleOnTarget();
+	}
+
+	private double getErrorX(double t) {
+		return offsetX + trajectory.getX(t) - Robot.chassisSubsystem.getFieldX();
+	}
+
+	private double getErrorY(double t) {
+		return offsetY + trajectory.getY(t) - Robot.chassisSubsystem.getFieldY();
+	}
+
+	/**
+	 * @return double - the time since the trajectory started in seconds
+	 */
+	private double getTrajectoryTime() {
+		return (Clock.getInstance().getTimeNanos() - startTimeNanos) / (double) Clock.NANOS_PER_SECOND;
+	}
+
+	@Override
+	protected void end() {
+		Robot.chassisSubsystem.driveJoystick(new PolarCoordinate(), 0.0, DriveMode.ROBOT_RELATIVE, PIDEnable.DISABLED, PIDEnable.DISABLED);
+	}
+
+	@Override
+	protected void interrupted() {
+		Robot.chassisSubsystem.driveJoystick(new PolarCoordinate(), 0.0, DriveMode.ROBOT_RELATIVE, PIDEnable.DISABLED, PIDEnable.DISABLED);
+	}
+}
@@ -1,5 +1,6 @@
 package robot.commands;
 
+import robot.DriverInput;
 import robot.PolarCoordinate;
 import robot.Robot;
 import robot.RobotMap;
@@ -14,6 +15,9 @@ public class TeleopDriveCommand extends Command {
 
 	Toggle togglePID = new Toggle(true);
 	double prevDriveSpeed = 0.0d;
+	
+	// Reused every loop to hold the acceleration limited drive coordinate.
+	PolarCoordinate rampedPolarCoordinate = new PolarCoordinate();
 
 	// The approximate loop speed is 20ms, so this means 50 iterations per second.
 	double MAX_DRIVE_INCREMENT = RobotMap.MAX_TELEOP_DRIVE_ACCELERATION/50;
@@ -30,10 +34,21 @@ public class TeleopDriveCommand extends Command {
 
 	// Called repeatedly when this Command is scheduled to run
 	protected void execute() {
+		drive(Robot.oi);
+	}
+
+	/**
+	 * Drive the chassis from the driver inputs.
+	 * <p>
+	 * This is called every loop by execute(), and can be called directly to drive the chassis 
+	 * from another source of driver inputs.
+	 * @param driverInput
+	 */
+	public void drive(DriverInput driverInput) {
 		
-		PolarCoordinate drivePolarCoordinate = Robot.oi.getDriverPolarCoordinate();
+		PolarCoordinate drivePolarCoordinate = driverInput.getDriverPolarCoordinate();
 		
-		if (! Robot.oi.getAccelerationOverride()) {
+		if (! driverInput.getAccelerationOverride()) {
 			// Always ramp the r-value from the Polar Drive between the last r value and the current r value.
 			double driveIncrement = drivePolarCoordinate.getR() - prevDriveSpeed;
 			
@@ -45,11 +60,11 @@ public class TeleopDriveCommand extends Command {
 			
 			prevDriveSpeed = newDriveSpeed;
 			
-			drivePolarCoordinate = new PolarCoordinate(newDriveSpeed, drivePolarCoordinate.getTheta());
+			drivePolarCoordinate = rampedPolarCoordinate.set(newDriveSpeed, drivePolarCoordinate.getTheta());
 		}
 
 		Robot.chassisSubsystem.driveJoystick(drivePolarCoordinate,
-				Robot.oi.getDriverRotation(), Robot.oi.getDriveMode(), PIDEnable.ENABLED, PIDEnable.ENABLED);
+				driverInput.getDriverRotation(), driverInput.getDriveMode(), PIDEnable.ENABLED, PIDEnable.ENABLED);
 
 	}
 
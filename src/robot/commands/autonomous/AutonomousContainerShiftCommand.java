@@ -2,7 +2,7 @@ package robot.commands.autonomous;
 
 import robot.Robot;
 import robot.Timer;
-import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotState;
 import edu.wpi.first.wpilibj.command.Command;
 
 public class AutonomousContainerShiftCommand extends Command {
@@ -25,7 +25,7 @@ public class AutonomousContainerShiftCommand extends Command {
 
 	@Override
 	protected boolean isFinished() {
-		return !DriverStation.getInstance().isAutonomous() || timeout.isExpired();
+		return !RobotState.isAutonomous() || timeout.isExpired();
 	}
 
 	@Override
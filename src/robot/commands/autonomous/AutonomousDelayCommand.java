@@ -1,10 +1,11 @@
 package robot.commands.autonomous;
 
+import robot.Clock;
 import robot.PolarCoordinate;
 import robot.Robot;
 import robot.subsystems.ChassisSubsystem.DriveMode;
 import robot.subsystems.ChassisSubsystem.PIDEnable;
-import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotState;
 import edu.wpi.first.wpilibj.command.Command;
 
 public class AutonomousDelayCommand extends Command {
@@ -18,7 +19,7 @@ public class AutonomousDelayCommand extends Command {
 
 	@Override
 	protected void initialize() {
-		initTime = System.currentTimeMillis();
+		initTime = Clock.getInstance().getTimeMillis();
 	}
 
 	@Override
@@ -27,7 +28,7 @@ public class AutonomousDelayCommand extends Command {
 
 	@Override
 	protected boolean isFinished() {
-		return (System.currentTimeMillis() - initTime > delay) || !DriverStation.getInstance().isAutonomous();
+		return (Clock.getInstance().getTimeMillis() - initTime > delay) || !RobotState.isAutonomous();
 	}
 
 	@Override
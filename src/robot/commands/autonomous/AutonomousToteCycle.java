@@ -0,0 +1,105 @@
+package robot.commands.autonomous;
+
+import robot.commands.DriveDistanceCommand;
+import robot.commands.DriveToAngleCommand;
+import robot.commands.DriveToteElevatorCommand;
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ToteElevatorSubsystem.ToteElevatorLevel;
+import edu.wpi.first.wpilibj.command.CommandGroup;
+
+/**
+ * The drive parameters for picking up the next tote past a container.
+ * <p>
+ * A cycle lifts the stack to half height and pushes the container aside, turns and shifts
+ * around the container, approaches the next tote while lowering the stack to level one, and
+ * drives onto the tote until the tote sensor sees it.  Directions and headings are field
+ * relative degrees, distances are in inches and the speed is the fraction of the maximum drive
+ * speed.
+ * <p>
+ * The cycle constants are tuned on the practice field, and can be searched in the simulation
+ * with the {@link robot.simulation.ToteCycleOptimizer}.
+ */
+public class AutonomousToteCycle {
+
+	/** Past the first container */
+	public static final AutonomousToteCycle FIRST_CONTAINER  = new AutonomousToteCycle(0.6, 235, 270-30, 230, 12, 270+25,   44, 14);
+
+	/** Past the second container */
+	public static final AutonomousToteCycle SECOND_CONTAINER = new AutonomousToteCycle(0.6, 235, 270-30, 230, 16, 270+27.5, 44, 14);
+
+	/** The heading while approaching and picking up the tote */
+	public static final double PICKUP_HEADING = 270;
+
+	private final double speed;
+	private final int    turnAngle;
+	private final double shiftDirection;
+	private final double shiftHeading;
+	private final double shiftDistance;
+	private final double approachDirection;
+	private final double approachDistance;
+	private final double pickupDistance;
+
+	/**
+	 * @param speed - the drive speed for all legs
+	 * @param turnAngle - the heading to turn to before the shift
+	 * @param shiftDirection - the direction of the shift around the container
+	 * @param shiftHeading - the heading held during the shift
+	 * @param shiftDistance - the length of the shift
+	 * @param approachDirection - the direction of the approach to the tote
+	 * @param approachDistance - the length of the approach
+	 * @param pickupDistance - the distance driven onto the tote while the intake runs
+	 */
+	public AutonomousToteCycle(double speed, int turnAngle, double shiftDirection, double shiftHeading,
+			double shiftDistance, double approachDirection, double approachDistance, double pickupDistance) {
+		this.speed             = speed;
+		this.turnAngle         = turnAngle;
+		this.shiftDirection    = shiftDirection;
+		this.shiftHeading      = shiftHeading;
+		this.shiftDistance     = shiftDistance;
+		this.approachDirection = approachDirection;
+		this.approachDistance  = approachDistance;
+		this.pickupDistance    = pickupDistance;
+	}
+
+	/**
+	 * Add the commands for the cycle to a command group.
+	 * @param group - the autonomous command group
+	 */
+	public void addCommands(CommandGroup group) {
+
+		group.addParallel(new DriveToteElevatorCommand(ToteElevatorLevel.HALF));
+		group.addParallel(new AutonomousContainerShiftCommand());
+		group.addSequential(new DriveToAngleCommand(turnAngle, DriveMode.FIELD_RELATIVE));
+		group.addSequential(new DriveDistanceCommand(speed, shiftDirection, shiftHeading, shiftDistance, DriveMode.FIELD_RELATIVE));
+
+		group.addParallel(new DriveToteElevatorCommand(ToteElevatorLevel.ONE));
+		group.addSequential(new DriveDistanceCommand(speed, approachDirection, PICKUP_HEADING, approachDistance, DriveMode.FIELD_RELATIVE));
+
+		group.addParallel(new DriveDistanceCommand(speed, PICKUP_HEADING, PICKUP_HEADING, pickupDistance, DriveMode.FIELD_RELATIVE));
+		group.addSequential(new AutonomousPickupToteCommand());
+
+		group.addSequential(new DriveToteElevatorCommand(ToteElevatorLevel.FLOOR));
+	}
+
+	public double getSpeed() { return speed; }
+
+	public int getTurnAngle() { return turnAngle; }
+
+	public double getShiftDirection() { return shiftDirection; }
+
+	public double getShiftHeading() { return shiftHeading; }
+
+	public double getShiftDistance() { return shiftDistance; }
+
+	public double getApproachDirection() { return approachDirection; }
+
+	public double getApproachDistance() { return approachDistance; }
+
+	public double getPickupDistance() { return pickupDistance; }
+
+	@Override
+	public String toString() {
+		return String.format("speed %.2f, turn %d, shift %.1f/%.1f/%.1f, approach %.1f/%.1f, pickup %.1f",
+				speed, turnAngle, shiftDirection, shiftHeading, shiftDistance, approachDirection, approachDistance, pickupDistance);
+	}
+}
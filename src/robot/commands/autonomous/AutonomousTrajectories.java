@@ -0,0 +1,25 @@
+package robot.commands.autonomous;
+
+import robot.RobotMap;
+import robot.trajectory.TrajectoryDefinition;
+import robot.trajectory.Waypoint;
+
+/**
+ * The spline trajectories driven in autonomous.
+ * <p>
+ * Waypoints are in inches relative to the start of the trajectory, with y forward from the
+ * driver station and x to the right.  Directions and headings are field relative degrees.
+ */
+public class AutonomousTrajectories {
+
+	/**
+	 * From a picked up tote around the container to the next tote.  This is the same path as the
+	 * 12 inch and 48 inch legs of the three tote stack, without stopping to turn between them.
+	 */
+	public static final TrajectoryDefinition NEXT_TOTE = new TrajectoryDefinition("NextTote",
+			RobotMap.TRAJECTORY_MAX_VELOCITY, RobotMap.PROFILE_DRIVE_ACCELERATION,
+			RobotMap.TRAJECTORY_MAX_CENTRIPETAL_ACCELERATION, RobotMap.MAX_ANUGLAR_VELOCITY,
+			new Waypoint(  0.0,   0.0, 300, 270),
+			new Waypoint(-10.4,   6.0, 270, 315),
+			new Waypoint(-51.1, -19.4, 270, 270));
+}
@@ -0,0 +1,41 @@
+package robot.commands.autonomous.commandgroup;
+
+import robot.commands.DriveDistanceCommand;
+import robot.commands.DriveToteElevatorCommand;
+import robot.commands.DriveTrajectoryCommand;
+import robot.commands.ResetGyroCommand;
+import robot.commands.autonomous.AutonomousPickupToteCommand;
+import robot.commands.autonomous.AutonomousTrajectories;
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ToteElevatorSubsystem.ToteElevatorLevel;
+import edu.wpi.first.wpilibj.command.CommandGroup;
+
+/**
+ * The three tote stack, driving from each tote to the next along a spline trajectory
+ * instead of turning and driving straight legs.
+ */
+public class AutonomousThreeToteSplineCommandGroup extends CommandGroup {
+
+	public AutonomousThreeToteSplineCommandGroup() {
+
+		addSequential(new ResetGyroCommand(245));
+
+		for(int i = 0; i < 2; i++) {
+			addParallel(new DriveToteElevatorCommand(ToteElevatorLevel.ONE));
+			addSequential(new DriveTrajectoryCommand(AutonomousTrajectories.NEXT_TOTE));
+
+			addParallel(new DriveDistanceCommand(1.0, 270, 270, 18, DriveMode.FIELD_RELATIVE));
+			addSequential(new AutonomousPickupToteCommand());
+
+			addSequential(new DriveToteElevatorCommand(ToteElevatorLevel.FLOOR));
+		}
+		
+		addSequential(new DriveToteElevatorCommand(ToteElevatorLevel.HALF));
+		addSequential(new DriveDistanceCommand(1.0, 0.0, 270, 42*3 - 8, DriveMode.FIELD_RELATIVE));
+		addSequential(new DriveToteElevatorCommand(ToteElevatorLevel.FLOOR));
+		
+		addSequential(new DriveDistanceCommand(1.0, 90, 270, 24, DriveMode.FIELD_RELATIVE));
+
+	}
+	
+}
@@ -1,11 +1,9 @@
 package robot.commands.autonomous.commandgroup;
 
 import robot.commands.DriveDistanceCommand;
-import robot.commands.DriveToAngleCommand;
 import robot.commands.DriveToteElevatorCommand;
 import robot.commands.ResetGyroCommand;
-import robot.commands.autonomous.AutonomousContainerShiftCommand;
-import robot.commands.autonomous.AutonomousPickupToteCommand;
+import robot.commands.autonomous.AutonomousToteCycle;
 import robot.subsystems.ChassisSubsystem.DriveMode;
 import robot.subsystems.ToteElevatorSubsystem.ToteElevatorLevel;
 import edu.wpi.first.wpilibj.command.CommandGroup;
@@ -14,35 +12,8 @@ public class AutonomousThreeToteTwoContainerCommandGroup extends CommandGroup {
 	public AutonomousThreeToteTwoContainerCommandGroup() {
 		addSequential(new ResetGyroCommand(270));
 
-		{
-			addParallel(new DriveToteElevatorCommand(ToteElevatorLevel.HALF));
-			addParallel(new AutonomousContainerShiftCommand());
-			addSequential(new DriveToAngleCommand(235, DriveMode.FIELD_RELATIVE));
-			addSequential(new DriveDistanceCommand(0.6, 270-30, 230, 12, DriveMode.FIELD_RELATIVE));
-
-			addParallel(new DriveToteElevatorCommand(ToteElevatorLevel.ONE));
-			addSequential(new DriveDistanceCommand(0.6, 270+25, 270, 44, DriveMode.FIELD_RELATIVE));
-
-			addParallel(new DriveDistanceCommand(0.6, 270, 270, 14, DriveMode.FIELD_RELATIVE));
-			addSequential(new AutonomousPickupToteCommand());
-
-			addSequential(new DriveToteElevatorCommand(ToteElevatorLevel.FLOOR));
-		}
-
-		{
-			addParallel(new DriveToteElevatorCommand(ToteElevatorLevel.HALF));
-			addParallel(new AutonomousContainerShiftCommand());
-			addSequential(new DriveToAngleCommand(235, DriveMode.FIELD_RELATIVE));
-			addSequential(new DriveDistanceCommand(0.6, 270-30, 230, 16, DriveMode.FIELD_RELATIVE));
-
-			addParallel(new DriveToteElevatorCommand(ToteElevatorLevel.ONE));
-			addSequential(new DriveDistanceCommand(0.6, 270+27.5, 270, 44, DriveMode.FIELD_RELATIVE));
-
-			addParallel(new DriveDistanceCommand(0.6, 270, 270, 14, DriveMode.FIELD_RELATIVE));
-			addSequential(new AutonomousPickupToteCommand());
-
-			addSequential(new DriveToteElevatorCommand(ToteElevatorLevel.FLOOR));
-		}
+		AutonomousToteCycle.FIRST_CONTAINER .addCommands(this);
+		AutonomousToteCycle.SECOND_CONTAINER.addCommands(this);
 
 		addSequential(new DriveToteElevatorCommand(ToteElevatorLevel.HALF));
 		addSequential(new DriveDistanceCommand(1.0, 0.0, 270, 42*3, DriveMode.FIELD_RELATIVE));
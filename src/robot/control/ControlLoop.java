@@ -0,0 +1,16 @@
+package robot.control;
+
+/**
+ * An inner control loop that is run by the {@link ControlLoopExecutor}.
+ * <p>
+ * The control loops run on the control thread at a fixed rate, independent of the robot
+ * periodic methods.  A control loop must not allocate or block, and any state it shares with
+ * the robot thread must be thread safe.
+ */
+public interface ControlLoop {
+
+	/**
+	 * Run one iteration of the control loop.
+	 */
+	void controlPeriodic();
+}
@@ -0,0 +1,266 @@
+package robot.control;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.DashboardPublisher.NumberEntry;
+import robot.telemetry.LatencyHistogram;
+
+/**
+ * Run the {@link ControlLoop}s at a fixed rate on a dedicated thread.
+ * <p>
+ * The loops are run on a deadline schedule: the n-th iteration is due at start + n * period,
+ * so a late iteration does not delay the ones after it.  If an iteration is more than a whole
+ * period late, the missed deadlines are counted and skipped instead of running the loops
+ * several times back to back.
+ * <p>
+ * The lateness of each iteration (period jitter) and the time to run the loops are recorded
+ * on the control thread.  Once a second the summary is handed to the robot thread, which
+ * publishes it in {@link #updateDashboard()}.
+ * <p>
+ * A control loop that throws is counted and the other loops keep running.  The control thread
+ * does not print, since printing allocates and blocks.  The failure counts and the last
+ * exception of each loop are handed over with the summary, and the robot thread prints them
+ * at most once a second.
+ */
+public class ControlLoopExecutor {
+
+	// 10us buckets up to 20ms
+	private static final long BUCKET_WIDTH_NANOS = 10000L;
+	private static final int  BUCKET_COUNT       = 2000;
+
+	private static final long   NANOS_PER_SECOND = 1000000000L;
+	private static final double NANOS_PER_MS     = 1000000.0d;
+
+	private final long periodNanos;
+	private final int  iterationsPerSummary;
+
+	private final List<ControlLoop> controlLoopLs = new ArrayList<ControlLoop>();
+	private ControlLoop [] controlLoopArr = new ControlLoop [0];
+
+	// Written only by the control thread.
+	private final LatencyHistogram jitterHistogram;
+	private final LatencyHistogram executionHistogram;
+	private long missedDeadlineCount = 0;
+	private long [] failureCountArr = new long [0];
+	private RuntimeException [] lastFailureArr = new RuntimeException [0];
+
+	// The summary handed from the control thread to the robot thread.
+	private volatile double jitterP50Ms      = 0.0d;
+	private volatile double jitterP99Ms      = 0.0d;
+	private volatile double jitterMaxMs      = 0.0d;
+	private volatile double executionP99Ms   = 0.0d;
+	private volatile double executionMaxMs   = 0.0d;
+	private volatile long   missedDeadlines  = 0;
+	private volatile long   overrunCount     = 0;
+
+	// Failures per control loop handed from the control thread, and the counts the robot 
+	// thread has already printed.
+	private volatile AtomicLongArray failureSummaryArr = new AtomicLongArray(0);
+	private volatile AtomicReferenceArray<RuntimeException> lastFailureSummaryArr = 
+			new AtomicReferenceArray<RuntimeException>(0);
+	private long [] reportedFailureArr = new long [0];
+
+	private final NumberEntry jitterP50Entry;
+	private final NumberEntry jitterP99Entry;
+	private final NumberEntry jitterMaxEntry;
+	private final NumberEntry executionP99Entry;
+	private final NumberEntry executionMaxEntry;
+	private final NumberEntry missedDeadlineEntry;
+	private final NumberEntry overrunEntry;
+
+	private volatile boolean running = false;
+	private Thread controlThread = null;
+
+	/**
+	 * @param rateHz - the number of times per second to run the control loops
+	 */
+	public ControlLoopExecutor(double rateHz) {
+
+		this.periodNanos          = Math.round(NANOS_PER_SECOND / rateHz);
+		this.iterationsPerSummary = Math.max(1, (int) Math.round(rateHz));
+
+		jitterHistogram    = new LatencyHistogram(BUCKET_WIDTH_NANOS, BUCKET_COUNT, periodNanos);
+		executionHistogram = new LatencyHistogram(BUCKET_WIDTH_NANOS, BUCKET_COUNT, periodNanos);
+
+		DashboardPublisher dashboard = DashboardPublisher.getInstance();
+
+		// The summary is only set once per second, so there is no deadband or period.
+		jitterP50Entry      = dashboard.addNumber("Control jitter p50 (ms)",    0.0d, 0);
+		jitterP99Entry      = dashboard.addNumber("Control jitter p99 (ms)",    0.0d, 0);
+		jitterMaxEntry      = dashboard.addNumber("Control jitter max (ms)",    0.0d, 0);
+		executionP99Entry   = dashboard.addNumber("Control execution p99 (ms)", 0.0d, 0);
+		executionMaxEntry   = dashboard.addNumber("Control execution max (ms)", 0.0d, 0);
+		missedDeadlineEntry = dashboard.addNumber("Control missed deadlines",   0.0d, 0);
+		overrunEntry        = dashboard.addNumber("Control overruns",           0.0d, 0);
+	}
+
+	/**
+	 * Add a control loop.  Control loops are run in the order they are added, and must
+	 * be added before the executor is started.
+	 * @param controlLoop
+	 */
+	public synchronized void add(ControlLoop controlLoop) {
+
+		if (controlThread != null) {
+			throw new IllegalStateException("Control loops must be added before the executor is started");
+		}
+
+		controlLoopLs.add(controlLoop);
+		controlLoopArr = controlLoopLs.toArray(new ControlLoop [controlLoopLs.size()]);
+	}
+
+	/** @return long - the control loop period in nanoseconds */
+	public long getPeriodNanos() { return periodNanos; }
+
+	/** @return long - the number of deadlines missed since the executor started */
+	public long getMissedDeadlineCount() { return missedDeadlines; }
+
+	/**
+	 * Start the control thread.  Calling start more than once has no effect.
+	 */
+	public synchronized void start() {
+
+		if (controlThread != null) { return; }
+
+		running = true;
+
+		int loopCount = controlLoopArr.length;
+
+		failureCountArr       = new long [loopCount];
+		lastFailureArr        = new RuntimeException [loopCount];
+		reportedFailureArr    = new long [loopCount];
+		lastFailureSummaryArr = new AtomicReferenceArray<RuntimeException>(loopCount);
+		failureSummaryArr     = new AtomicLongArray(loopCount);
+
+		controlThread = new Thread(new Runnable() {
+			public void run() {
+				runControlLoops();
+			}
+		}, "ControlLoop");
+
+		controlThread.setDaemon(true);
+		controlThread.setPriority(Thread.MAX_PRIORITY);
+		controlThread.start();
+	}
+
+	/**
+	 * Stop the control thread after the current iteration.
+	 */
+	public synchronized void stop() {
+
+		if (controlThread == null) { return; }
+
+		running = false;
+		LockSupport.unpark(controlThread);
+
+		try {
+			controlThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		controlThread = null;
+	}
+
+	/**
+	 * Publish the jitter summary, and print the control loops that failed since the last 
+	 * summary.  Called on the robot thread.
+	 */
+	public void updateDashboard() {
+
+		AtomicLongArray failureArr = failureSummaryArr;
+
+		for (int i=0; i<failureArr.length() && i<reportedFailureArr.length; i++) {
+			long failures = failureArr.get(i);
+			if (failures > reportedFailureArr[i]) {
+				System.out.println("Control loop " + controlLoopArr[i].getClass().getSimpleName() 
+						+ " failed " + (failures - reportedFailureArr[i]) + " times, last: " 
+						+ lastFailureSummaryArr.get(i));
+				reportedFailureArr[i] = failures;
+			}
+		}
+
+		jitterP50Entry     .set(jitterP50Ms);
+		jitterP99Entry     .set(jitterP99Ms);
+		jitterMaxEntry     .set(jitterMaxMs);
+		executionP99Entry  .set(executionP99Ms);
+		executionMaxEntry  .set(executionMaxMs);
+		missedDeadlineEntry.set(missedDeadlines);
+		overrunEntry       .set(overrunCount);
+	}
+
+	private void runControlLoops() {
+
+		ControlLoop [] loops = controlLoopArr;
+
+		long deadline  = System.nanoTime() + periodNanos;
+		int  iteration = 0;
+
+		while (running) {
+
+			// Park until the deadline.  Park can return early, so check the time again.
+			long now = System.nanoTime();
+			while (running && now < deadline) {
+				LockSupport.parkNanos(deadline - now);
+				now = System.nanoTime();
+			}
+
+			if (!running) { break; }
+
+			long lateness = now - deadline;
+			jitterHistogram.record(lateness);
+
+			// Skip the deadlines that were missed completely.
+			if (lateness >= periodNanos) {
+				long missed = lateness / periodNanos;
+				missedDeadlineCount += missed;
+				deadline += missed * periodNanos;
+			}
+
+			for (int i=0; i<loops.length; i++) {
+				try {
+					loops[i].controlPeriodic();
+				} catch (RuntimeException e) {
+					// Keep the other loops running.  The failure is printed by the robot thread.
+					failureCountArr[i]++;
+					lastFailureArr[i] = e;
+				}
+			}
+
+			executionHistogram.record(System.nanoTime() - now);
+
+			deadline += periodNanos;
+
+			if (++iteration >= iterationsPerSummary) {
+				summarize();
+				iteration = 0;
+			}
+		}
+	}
+
+	private void summarize() {
+
+		jitterP50Ms     = jitterHistogram.getPercentileNanos(0.50d) / NANOS_PER_MS;
+		jitterP99Ms     = jitterHistogram.getPercentileNanos(0.99d) / NANOS_PER_MS;
+		jitterMaxMs     = jitterHistogram.getMaxNanos() / NANOS_PER_MS;
+		executionP99Ms  = executionHistogram.getPercentileNanos(0.99d) / NANOS_PER_MS;
+		executionMaxMs  = executionHistogram.getMaxNanos() / NANOS_PER_MS;
+		missedDeadlines = missedDeadlineCount;
+		overrunCount    = executionHistogram.getTotalOverrunCount();
+
+		// The exception is set before the count, so the robot thread sees the last failure 
+		// of the count it prints.
+		for (int i=0; i<failureCountArr.length; i++) {
+			lastFailureSummaryArr.set(i, lastFailureArr[i]);
+			failureSummaryArr.set(i, failureCountArr[i]);
+		}
+
+		jitterHistogram.reset();
+		executionHistogram.reset();
+	}
+}
@@ -0,0 +1,64 @@
+package robot.control;
+
+import robot.hal.QuadratureEncoder;
+import edu.wpi.first.wpilibj.PIDSource;
+
+/**
+ * An encoder velocity calculated by the {@link VelocityEstimator}.
+ * <p>
+ * The velocity is a {@link PIDSource} normalized by the max rate, so it can be used as the
+ * input of a rate PID with an input range of -1 to 1.  All of the methods can be called
+ * from any thread.
+ * <p>
+ * Velocities are created with {@link VelocityEstimator#add(QuadratureEncoder, int, double)}.
+ */
+public class EncoderVelocity implements PIDSource {
+
+	private final VelocityEstimator estimator;
+	private final int               index;
+	private final double            maxRate;
+
+	EncoderVelocity(VelocityEstimator estimator, int index, double maxRate) {
+		this.estimator = estimator;
+		this.index     = index;
+		this.maxRate   = maxRate;
+	}
+
+	/**
+	 * @return double - the velocity from the last control loop step in encoder distance
+	 * units per second
+	 */
+	public double getRate() {
+		return estimator.getRate(index);
+	}
+
+	/**
+	 * @return double - the velocity divided by the max rate
+	 */
+	@Override
+	public double pidGet() {
+		return getRate() / maxRate;
+	}
+
+	/**
+	 * Reset the encoder and clear the samples, so that the reset is not fit as a velocity.
+	 * <p>
+	 * The encoder is reset by the control thread on its next step.  Do not reset the
+	 * encoder directly.
+	 */
+	public void reset() {
+		estimator.reset(index);
+	}
+
+	/**
+	 * @return boolean - {@code true} until the control thread has reset the encoder
+	 */
+	public boolean isResetPending() {
+		return estimator.isResetPending(index);
+	}
+
+	/** @return QuadratureEncoder - the sampled encoder */
+	public QuadratureEncoder getEncoder() {
+		return estimator.getEncoder(index);
+	}
+}
@@ -0,0 +1,17 @@
+package robot.control;
+
+/**
+ * A feed forward term for a {@link PIDLoop} that replaces the constant F gain.
+ * <p>
+ * The feed forward is calculated by the {@link PIDEngine} on the control thread, so it must
+ * not allocate or block.  Set it on the loop with {@link PIDLoop#setFeedforward(Feedforward)}.
+ */
+public interface Feedforward {
+
+	/**
+	 * Calculate the open loop output for a setpoint.
+	 * @param setpoint - the loop setpoint in input units
+	 * @return double - the output that should hold the input at the setpoint with no error
+	 */
+	double calculate(double setpoint);
+}
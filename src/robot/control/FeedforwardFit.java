@@ -0,0 +1,156 @@
+package robot.control;
+
+/**
+ * A least squares fit of the {@link MotorFeedforward} constants to logged motor samples.
+ * <p>
+ * Each sample is the voltage applied to the motor with the measured velocity and acceleration.
+ * The fit solves the normal equations for the kS, kV and kA that best predict the voltage.
+ * Only the sums are kept, so samples can be added without allocating.
+ * <p>
+ * Samples slower than the minimum velocity are skipped, since the motor is held by static
+ * friction and the voltage does not follow the model.  A fit needs samples over a range of
+ * velocities and accelerations, for example a slow voltage ramp followed by a voltage step.
+ */
+public class FeedforwardFit {
+
+	// Columns of the fit: sign(velocity), velocity, acceleration
+	private static final int COLUMNS = 3;
+
+	private final double minVelocity;
+
+	private final double [][] normalArr = new double [COLUMNS][COLUMNS];
+	private final double []   targetArr = new double [COLUMNS];
+	private final double []   rowArr    = new double [COLUMNS];
+
+	private double sumVoltageSquared = 0.0d;
+	private int    sampleCount       = 0;
+
+	/**
+	 * @param minVelocity - the slowest velocity used in the fit
+	 */
+	public FeedforwardFit(double minVelocity) {
+		this.minVelocity = minVelocity;
+	}
+
+	/**
+	 * Add a sample.
+	 * @param voltage - the applied voltage in volts
+	 * @param velocity - the measured velocity
+	 * @param acceleration - the measured acceleration
+	 * @return boolean - {@code true} if the sample is used, {@code false} if it is too slow
+	 */
+	public boolean add(double voltage, double velocity, double acceleration) {
+
+		if (Math.abs(velocity) < minVelocity) { return false; }
+
+		rowArr[0] = Math.signum(velocity);
+		rowArr[1] = velocity;
+		rowArr[2] = acceleration;
+
+		for (int i=0; i<COLUMNS; i++) {
+			for (int j=0; j<COLUMNS; j++) {
+				normalArr[i][j] += rowArr[i] * rowArr[j];
+			}
+			targetArr[i] += rowArr[i] * voltage;
+		}
+
+		sumVoltageSquared += voltage * voltage;
+		sampleCount++;
+
+		return true;
+	}
+
+	/** @return int - the number of samples in the fit */
+	public int getSampleCount() { return sampleCount; }
+
+	/**
+	 * Clear all of the samples.
+	 */
+	public void reset() {
+
+		for (int i=0; i<COLUMNS; i++) {
+			for (int j=0; j<COLUMNS; j++) {
+				normalArr[i][j] = 0.0d;
+			}
+			targetArr[i] = 0.0d;
+		}
+
+		sumVoltageSquared = 0.0d;
+		sampleCount       = 0;
+	}
+
+	/**
+	 * Solve for the constants.
+	 * @return double[] - { kS, kV, kA }
+	 * @throws IllegalStateException if the samples do not determine all of the constants,
+	 * for example if the motor never accelerated.
+	 */
+	public double [] solve() {
+
+		// Gaussian elimination with partial pivoting on a copy of the normal equations.
+		double [][] a = new double [COLUMNS][COLUMNS + 1];
+
+		for (int i=0; i<COLUMNS; i++) {
+			for (int j=0; j<COLUMNS; j++) {
+				a[i][j] = normalArr[i][j];
+			}
+			a[i][COLUMNS] = targetArr[i];
+		}
+
+		for (int col=0; col<COLUMNS; col++) {
+
+			int pivot = col;
+			for (int row=col+1; row<COLUMNS; row++) {
+				if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) { pivot = row; }
+			}
+
+			// Relative to the diagonal, so the test does not depend on the units.
+			if (Math.abs(a[pivot][col]) <= 1.0e-9d * Math.max(1.0d, normalArr[col][col])) {
+				throw new IllegalStateException("Feedforward fit is singular with " + sampleCount + " samples");
+			}
+
+			double [] swap = a[col]; a[col] = a[pivot]; a[pivot] = swap;
+
+			for (int row=col+1; row<COLUMNS; row++) {
+				double factor = a[row][col] / a[col][col];
+				for (int j=col; j<=COLUMNS; j++) {
+					a[row][j] -= factor * a[col][j];
+				}
+			}
+		}
+
+		double [] constantArr = new double [COLUMNS];
+
+		for (int row=COLUMNS-1; row>=0; row--) {
+			double sum = a[row][COLUMNS];
+			for (int j=row+1; j<COLUMNS; j++) {
+				sum -= a[row][j] * constantArr[j];
+			}
+			constantArr[row] = sum / a[row][row];
+		}
+
+		return constantArr;
+	}
+
+	/**
+	 * Get the root mean square difference between the fit and the sample voltages.
+	 * @param constantArr - the constants from {@link #solve()}
+	 * @return double - volts
+	 */
+	public double getRmsError(double [] constantArr) {
+
+		if (sampleCount == 0) { return 0.0d; }
+
+		// sum (y - x.c)^2 = sum y^2 - 2 c.(X'y) + c.(X'X)c
+		double sumSquared = sumVoltageSquared;
+
+		for (int i=0; i<COLUMNS; i++) {
+			sumSquared -= 2.0d * constantArr[i] * targetArr[i];
+			for (int j=0; j<COLUMNS; j++) {
+				sumSquared += constantArr[i] * normalArr[i][j] * constantArr[j];
+			}
+		}
+
+		return Math.sqrt(Math.max(0.0d, sumSquared) / sampleCount);
+	}
+}
@@ -0,0 +1,268 @@
+package robot.control;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A precomputed table of PID gains indexed by the drive heading and speed.
+ * <p>
+ * The table has a node every (360 / heading count) degrees of heading, wrapping around, and
+ * evenly spaced speeds from 0 to the max speed.  The gains between the nodes are interpolated
+ * bilinearly by {@link #lookup(double, double, double[])}, which does not lock or allocate, so
+ * it can be called every loop.
+ * <p>
+ * The table is filled from a {@link GainModel} and corrected by the measured samples, for
+ * example from an autotune at a heading.  Each node is moved from the model toward the samples
+ * near it, weighted by a gaussian of the heading and speed distance, so that a sample sets the
+ * gains at its own node and has less effect on the nodes further away.  A sample with a NaN
+ * speed was measured without a speed and applies at every speed, and a sample with a NaN
+ * heading was measured without a drive direction, for example turning in place, and applies
+ * at every heading.
+ * <p>
+ * The table is rebuilt on the robot thread when a sample is added and then published as a new
+ * array, so the lookup can be called from any thread.
+ */
+public class GainSchedule {
+
+	/** The number of gains at each node: P, I and D */
+	public static final int GAIN_COUNT = 3;
+
+	/** The heading distance at which a sample has 1/e of its weight, in degrees */
+	public static final double HEADING_RADIUS = 45.0d;
+
+	/** The speed distance at which a sample has 1/e of its weight, as a fraction of the max speed */
+	public static final double SPEED_RADIUS = 0.5d;
+
+	/**
+	 * The gains before any samples are measured.
+	 */
+	public interface GainModel {
+
+		/**
+		 * @param heading - the drive heading in degrees, 0 to 360
+		 * @param speed - the drive speed, 0 to the max speed
+		 * @param gainArr - double[3] that receives { P, I, D }
+		 */
+		void getGains(double heading, double speed, double [] gainArr);
+	}
+
+	private final int    headingCount;
+	private final int    speedCount;
+	private final double maxSpeed;
+	private final double headingStep;
+	private final double speedStep;
+
+	private final GainModel model;
+
+	// Samples as { heading, speed, P, I, D }, only used by the robot thread.
+	private final List<double []> sampleLs = new ArrayList<double []>();
+
+	private volatile double [] table;
+
+	/**
+	 * @param headingCount - the number of heading nodes around the circle
+	 * @param speedCount - the number of speed nodes from 0 to the max speed, at least 2
+	 * @param maxSpeed - the speed of the last speed node
+	 * @param model - the gains without samples
+	 */
+	public GainSchedule(int headingCount, int speedCount, double maxSpeed, GainModel model) {
+
+		if (headingCount < 1 || speedCount < 2) {
+			throw new IllegalArgumentException("Gain schedule needs at least 1 heading and 2 speeds");
+		}
+
+		this.headingCount = headingCount;
+		this.speedCount   = speedCount;
+		this.maxSpeed     = maxSpeed;
+		this.headingStep  = 360.0d / headingCount;
+		this.speedStep    = maxSpeed / (speedCount - 1);
+		this.model        = model;
+
+		rebuild();
+	}
+
+	/**
+	 * Get the gains for a heading and speed.  The speed is limited to 0 to the max speed.
+	 * @param heading - the drive heading in degrees
+	 * @param speed - the drive speed
+	 * @param gainArr - double[3] that receives { P, I, D }
+	 * @return the passed in gainArr
+	 */
+	public double [] lookup(double heading, double speed, double [] gainArr) {
+
+		double [] t = table;
+
+		double h = wrapHeading(heading) / headingStep;
+		int    h0 = Math.min((int) h, headingCount - 1);
+		int    h1 = (h0 + 1) % headingCount;
+		double fh = h - h0;
+
+		double s  = Math.max(0.0d, Math.min(maxSpeed, Math.abs(speed))) / speedStep;
+		int    s0 = Math.min((int) s, speedCount - 2);
+		double fs = s - s0;
+
+		int n00 = (h0 * speedCount + s0) * GAIN_COUNT;
+		int n01 = n00 + GAIN_COUNT;
+		int n10 = (h1 * speedCount + s0) * GAIN_COUNT;
+		int n11 = n10 + GAIN_COUNT;
+
+		for (int g=0; g<GAIN_COUNT; g++) {
+			double low  = t[n00 + g] + fs * (t[n01 + g] - t[n00 + g]);
+			double high = t[n10 + g] + fs * (t[n11 + g] - t[n10 + g]);
+			gainArr[g] = low + fh * (high - low);
+		}
+
+		return gainArr;
+	}
+
+	/**
+	 * Add a measured sample and rebuild the table.  A sample at the same heading and speed as
+	 * an earlier sample replaces it.
+	 * @param heading - degrees, or NaN if the sample applies at every heading
+	 * @param speed - the speed, or NaN if the sample applies at every speed
+	 * @param gainArr - { P, I, D }
+	 */
+	public void addSample(double heading, double speed, double [] gainArr) {
+
+		heading = wrapHeading(heading);
+
+		for (int k=sampleLs.size()-1; k>=0; k--) {
+			double [] sample = sampleLs.get(k);
+			if (sameValue(sample[0], heading) && sameValue(sample[1], speed)) {
+				sampleLs.remove(k);
+			}
+		}
+
+		sampleLs.add(new double [] { heading, speed, gainArr[0], gainArr[1], gainArr[2] });
+
+		rebuild();
+	}
+
+	/**
+	 * Remove all of the samples and rebuild the table from the model.
+	 */
+	public void clearSamples() {
+		sampleLs.clear();
+		rebuild();
+	}
+
+	/** @return int - the number of measured samples */
+	public int getSampleCount() { return sampleLs.size(); }
+
+	/**
+	 * Replace the samples with the samples saved in a tuning file, and rebuild the table.
+	 * @param tuningFile - the tuning file
+	 * @param name - the schedule name
+	 */
+	public void loadSamples(TuningFile tuningFile, String name) {
+
+		sampleLs.clear();
+
+		int count = (int) tuningFile.getDouble(name + ".count", 0);
+
+		for (int k=0; k<count; k++) {
+			String key = name + "." + k;
+			sampleLs.add(new double [] {
+					tuningFile.getDouble(key + ".heading", 0.0d),
+					tuningFile.getDouble(key + ".speed",   Double.NaN),
+					tuningFile.getDouble(key + ".p",       0.0d),
+					tuningFile.getDouble(key + ".i",       0.0d),
+					tuningFile.getDouble(key + ".d",       0.0d) });
+		}
+
+		rebuild();
+	}
+
+	/**
+	 * Set the samples in a tuning file.  Call {@link TuningFile#save()} to write the file.
+	 * @param tuningFile - the tuning file
+	 * @param name - the schedule name
+	 */
+	public void saveSamples(TuningFile tuningFile, String name) {
+
+		tuningFile.setDouble(name + ".count", sampleLs.size());
+
+		for (int k=0; k<sampleLs.size(); k++) {
+			String    key    = name + "." + k;
+			double [] sample = sampleLs.get(k);
+			tuningFile.setDouble(key + ".heading", sample[0]);
+			tuningFile.setDouble(key + ".speed",   sample[1]);
+			tuningFile.setDouble(key + ".p",       sample[2]);
+			tuningFile.setDouble(key + ".i",       sample[3]);
+			tuningFile.setDouble(key + ".d",       sample[4]);
+		}
+	}
+
+	/** @return double - the heading of a heading node in degrees */
+	public double getHeading(int headingIndex) { return headingIndex * headingStep; }
+
+	/** @return double - the speed of a speed node */
+	public double getSpeed(int speedIndex) { return speedIndex * speedStep; }
+
+	/**
+	 * Fill a new table from the model and the samples, and publish it.
+	 */
+	private void rebuild() {
+
+		double [] newTable    = new double [headingCount * speedCount * GAIN_COUNT];
+		double [] modelArr    = new double [GAIN_COUNT];
+		double [] residualArr = new double [GAIN_COUNT];
+		double [] sampleArr   = new double [GAIN_COUNT];
+
+		for (int h=0; h<headingCount; h++) {
+			for (int s=0; s<speedCount; s++) {
+
+				double heading = getHeading(h);
+				double speed   = getSpeed(s);
+
+				model.getGains(heading, speed, modelArr);
+
+				// The weighted average of the sample differences from the model.  Far from the
+				// samples the total weight is small and the node stays close to the model.
+				double weightSum = 0.0d;
+				for (int g=0; g<GAIN_COUNT; g++) { residualArr[g] = 0.0d; }
+
+				for (double [] sample: sampleLs) {
+
+					double sampleHeading = Double.isNaN(sample[0]) ? heading : sample[0];
+					double sampleSpeed   = Double.isNaN(sample[1]) ? speed   : sample[1];
+
+					double dh = headingDifference(heading, sampleHeading) / HEADING_RADIUS;
+					double ds = (speed - sampleSpeed) / (SPEED_RADIUS * maxSpeed);
+
+					double weight = Math.exp(-(dh * dh + ds * ds));
+
+					model.getGains(sampleHeading, sampleSpeed, sampleArr);
+
+					for (int g=0; g<GAIN_COUNT; g++) {
+						residualArr[g] += weight * (sample[2 + g] - sampleArr[g]);
+					}
+					weightSum += weight;
+				}
+
+				int node = (h * speedCount + s) * GAIN_COUNT;
+
+				for (int g=0; g<GAIN_COUNT; g++) {
+					newTable[node + g] = modelArr[g] + residualArr[g] / Math.max(1.0d, weightSum);
+				}
+			}
+		}
+
+		table = newTable;
+	}
+
+	// Equal values, where NaN matches NaN.
+	private static boolean sameValue(double a, double b) {
+		return a == b || (Double.isNaN(a) && Double.isNaN(b));
+	}
+
+	private static double wrapHeading(double heading) {
+		heading %= 360.0d;
+		return (heading < 0) ? heading + 360.0d : heading;
+	}
+
+	private static double headingDifference(double a, double b) {
+		double difference = Math.abs(wrapHeading(a) - wrapHeading(b));
+		return (difference > 180.0d) ? 360.0d - difference : difference;
+	}
+}
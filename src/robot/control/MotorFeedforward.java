@@ -0,0 +1,122 @@
+package robot.control;
+
+import robot.Clock;
+
+/**
+ * The voltage to drive a motor at a velocity, from the characterized motor constants.
+ * <p>
+ * The voltage is modelled as
+ * <pre>
+ *   volts = kS * sign(velocity) + kV * velocity + kA * acceleration
+ * </pre>
+ * where kS is the voltage to overcome static friction, kV is the voltage per unit of velocity
+ * and kA is the voltage per unit of acceleration.  The constants are fit from a drive
+ * characterization with a {@link FeedforwardFit}.
+ * <p>
+ * The rate PID setpoints are normalized by a max rate, so the setpoint is multiplied by the max
+ * rate to get the velocity.  The acceleration is the change in the velocity setpoint, which the
+ * robot thread writes once per periodic loop.  The voltage is divided by the battery voltage so
+ * the output does not sag with the battery.
+ * <p>
+ * The constants and the battery voltage can be set from any thread.  The setpoint history is
+ * only used by the control thread.
+ */
+public class MotorFeedforward implements Feedforward {
+
+	/** The battery voltage used until the battery voltage is set */
+	public static final double NOMINAL_VOLTAGE = 12.0d;
+
+	// A battery reading below this is not valid, for example before the first read.
+	private static final double MIN_VOLTAGE = 6.0d;
+
+	// The robot periodic loop writes the setpoint every 20 ms.
+	private static final double SETPOINT_PERIOD = 0.02d;
+
+	private static final double NANOS_PER_SECOND = Clock.NANOS_PER_SECOND;
+
+	private final double maxRate;
+
+	private volatile double kS = 0.0d;
+	private volatile double kV = 0.0d;
+	private volatile double kA = 0.0d;
+
+	private volatile double batteryVoltage = NOMINAL_VOLTAGE;
+
+	// Only used by the control thread.
+	private double lastVelocity    = 0.0d;
+	private long   lastChangeNanos = 0;
+	private double acceleration    = 0.0d;
+
+	/**
+	 * @param maxRate - the velocity of a setpoint of 1.0
+	 */
+	public MotorFeedforward(double maxRate) {
+		this.maxRate = maxRate;
+	}
+
+	/**
+	 * Set the motor constants.
+	 * @param kS - static voltage, volts
+	 * @param kV - velocity voltage, volts / (unit / sec)
+	 * @param kA - acceleration voltage, volts / (unit / sec^2)
+	 */
+	public void setConstants(double kS, double kV, double kA) {
+		this.kS = kS;
+		this.kV = kV;
+		this.kA = kA;
+	}
+
+	public double getKs() { return kS; }
+	public double getKv() { return kV; }
+	public double getKa() { return kA; }
+
+	/**
+	 * Set the battery voltage used to convert the voltage to an output.  Call this every loop
+	 * with the voltage from the power distribution panel.
+	 * @param batteryVoltage - volts
+	 */
+	public void setBatteryVoltage(double batteryVoltage) {
+		this.batteryVoltage = batteryVoltage;
+	}
+
+	/**
+	 * Calculate the voltage for a velocity and acceleration.
+	 * @param velocity - unit / sec
+	 * @param acceleration - unit / sec^2
+	 * @return double - volts
+	 */
+	public double getVoltage(double velocity, double acceleration) {
+		return kS * Math.signum(velocity) + kV * velocity + kA * acceleration;
+	}
+
+	/**
+	 * Calculate the motor output for a normalized velocity setpoint.  Call this only
+	 * from the control thread.
+	 * @param setpoint - the velocity divided by the max rate
+	 * @return double - the motor output, volts divided by the battery voltage
+	 */
+	@Override
+	public double calculate(double setpoint) {
+
+		double velocity  = setpoint * maxRate;
+		long   timeNanos = Clock.getInstance().getTimeNanos();
+
+		// Hold the acceleration of the last setpoint change until the next change
+		// is due, and then assume the setpoint is steady.
+		if (velocity != lastVelocity) {
+			acceleration    = (velocity - lastVelocity) / SETPOINT_PERIOD;
+			lastVelocity    = velocity;
+			lastChangeNanos = timeNanos;
+		}
+		else if ((timeNanos - lastChangeNanos) / NANOS_PER_SECOND > SETPOINT_PERIOD) {
+			acceleration = 0.0d;
+		}
+
+		double voltage = batteryVoltage;
+		if (voltage < MIN_VOLTAGE) {
+			voltage = NOMINAL_VOLTAGE;
+		}
+
+		return getVoltage(velocity, acceleration) / voltage;
+	}
+}
@@ -0,0 +1,447 @@
+package robot.control;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import robot.RobotMap;
+import edu.wpi.first.wpilibj.PIDOutput;
+import edu.wpi.first.wpilibj.PIDSource;
+
+/**
+ * One PID engine that calculates all of the robot {@link PIDLoop}s.
+ * <p>
+ * The WPILib PIDController runs a timer thread for every controller and synchronizes every
+ * get and set.  The PID engine keeps the state of all the loops in primitive arrays and
+ * calculates every enabled loop in one {@link #step()} on the control thread.
+ * <p>
+ * The values shared with the robot thread (gains, ranges, setpoint, flags and result) are
+ * stored as double bits in one {@link AtomicLongArray} with a fixed stride per loop, so they
+ * can be read and written from any thread without locks.  The error sums used by the
+ * calculation are only touched by the control thread.
+ * <p>
+ * The loop outputs are only written by the control thread.  {@link PIDLoop#disable()} sets a
+ * disable request, and the engine clears the enable and writes the zero output on its next
+ * step, so a calculation that is in progress when the loop is disabled cannot write over the
+ * zero.
+ * <p>
+ * Each loop has a period.  The engine steps at the control loop rate, and a loop is only
+ * calculated every (period * rate) steps.  The calculation is the same as the WPILib
+ * PIDController, which does not scale the I and D terms by the period, so a loop keeps the
+ * same gains as long as it keeps the same period.
+ * <p>
+ * A loop with a {@link Feedforward} uses it in place of the setpoint * F term.
+ * <p>
+ * A loop can be switched to a relay to measure its ultimate gain and period for
+ * {@link PIDLoop#startRelay(double, double)}.  The relay output is the feed forward plus or
+ * minus the relay amplitude, switched when the error crosses the hysteresis.  The loop then
+ * oscillates at the frequency where the process lags by half a cycle.  After the relay
+ * settles, the period and the amplitude of the error are averaged over a number of cycles,
+ * and the ultimate gain is the describing function gain of the relay at that amplitude.
+ */
+public class PIDEngine implements ControlLoop {
+
+	/** The WPILib PIDController default period in seconds */
+	public static final double DEFAULT_PERIOD = 0.05d;
+
+	public static final int DEFAULT_CAPACITY = 32;
+
+	// Loop fields in the state array
+	static final int P          = 0;
+	static final int I          = 1;
+	static final int D          = 2;
+	static final int F          = 3;
+	static final int SETPOINT   = 4;
+	static final int INPUT_MIN  = 5;
+	static final int INPUT_MAX  = 6;
+	static final int OUTPUT_MIN = 7;
+	static final int OUTPUT_MAX = 8;
+	static final int RESULT     = 9;
+	static final int FLAGS      = 10;
+	static final int RELAY_AMPLITUDE  = 11;
+	static final int RELAY_HYSTERESIS = 12;
+	static final int ULTIMATE_GAIN    = 13;
+	static final int ULTIMATE_PERIOD  = 14;
+	static final int STRIDE     = 15;
+
+	// Flag bits
+	static final long ENABLED        = 1L;
+	static final long CONTINUOUS     = 2L;
+	static final long RESET          = 4L;
+	static final long RELAY          = 8L;
+	static final long RELAY_COMPLETE = 16L;
+	static final long DISABLE_REQUEST = 32L;
+
+	/** The relay cycles that are not measured while the oscillation settles */
+	public static final int RELAY_SETTLE_CYCLES  = 2;
+
+	/** The relay cycles that are averaged for the ultimate gain and period */
+	public static final int RELAY_MEASURE_CYCLES = 4;
+
+	private static PIDEngine instance = null;
+
+	private final double rateHz;
+	private final int    capacity;
+
+	private final AtomicLongArray state;
+
+	private final PIDSource [] sourceArr;
+	private final PIDOutput [] outputArr;
+
+	private final AtomicReferenceArray<Feedforward> feedforwardArr;
+
+	// Only used by the control thread.
+	private final double [] totalErrorArr;
+	private final double [] prevErrorArr;
+	private final int    [] tickDividerArr;
+	private final int    [] tickCountArr;
+
+	// Relay state, only used by the control thread.
+	private final int    [] relaySignArr;
+	private final int    [] relayTickCountArr;
+	private final int    [] relayCycleCountArr;
+	private final double [] relayErrorMaxArr;
+	private final double [] relayErrorMinArr;
+	private final double [] relayPeriodSumArr;
+	private final double [] relayAmplitudeSumArr;
+
+	private volatile int loopCount = 0;
+
+	/**
+	 * Get the robot PID engine, which steps at the {@link RobotMap#CONTROL_LOOP_RATE}.
+	 * @return PIDEngine
+	 */
+	public static synchronized PIDEngine getInstance() {
+		if (instance == null) {
+			instance = new PIDEngine(DEFAULT_CAPACITY, RobotMap.CONTROL_LOOP_RATE);
+		}
+		return instance;
+	}
+
+	/**
+	 * @param capacity - the maximum number of loops
+	 * @param rateHz - the number of times per second that {@link #step()} is called
+	 */
+	public PIDEngine(int capacity, double rateHz) {
+
+		this.capacity = capacity;
+		this.rateHz   = rateHz;
+
+		state = new AtomicLongArray(capacity * STRIDE);
+
+		sourceArr      = new PIDSource [capacity];
+		outputArr      = new PIDOutput [capacity];
+		feedforwardArr = new AtomicReferenceArray<Feedforward>(capacity);
+		totalErrorArr  = new double [capacity];
+		prevErrorArr   = new double [capacity];
+		tickDividerArr = new int [capacity];
+		tickCountArr   = new int [capacity];
+
+		relaySignArr         = new int [capacity];
+		relayTickCountArr    = new int [capacity];
+		relayCycleCountArr   = new int [capacity];
+		relayErrorMaxArr     = new double [capacity];
+		relayErrorMinArr     = new double [capacity];
+		relayPeriodSumArr    = new double [capacity];
+		relayAmplitudeSumArr = new double [capacity];
+	}
+
+	/**
+	 * Add a loop that is calculated at the {@link #DEFAULT_PERIOD}.
+	 * @see #add(double, double, double, double, PIDSource, PIDOutput, double)
+	 */
+	public PIDLoop add(double Kp, double Ki, double Kd, double Kf, PIDSource source, PIDOutput output) {
+		return add(Kp, Ki, Kd, Kf, source, output, DEFAULT_PERIOD);
+	}
+
+	/**
+	 * Add a loop.  Loops should be added when the subsystems are created, before the
+	 * control thread is started.
+	 * <p>
+	 * The loop starts disabled with no input range and an output range of -1 to 1.
+	 *
+	 * @param Kp - proportional gain
+	 * @param Ki - integral gain
+	 * @param Kd - derivative gain
+	 * @param Kf - feed forward gain, multiplied by the setpoint
+	 * @param source - the loop input
+	 * @param output - the loop output
+	 * @param period - the time between calculations in seconds.  Periods shorter than the
+	 * engine step are calculated every step.
+	 * @return PIDLoop - the loop
+	 */
+	public synchronized PIDLoop add(double Kp, double Ki, double Kd, double Kf,
+			PIDSource source, PIDOutput output, double period) {
+
+		int index = loopCount;
+
+		if (index >= capacity) {
+			throw new IllegalStateException("PID engine capacity (" + capacity + ") exceeded");
+		}
+
+		sourceArr[index]      = source;
+		outputArr[index]      = output;
+		tickDividerArr[index] = Math.max(1, (int) Math.round(period * rateHz));
+
+		int base = index * STRIDE;
+		setDouble(base + P, Kp);
+		setDouble(base + I, Ki);
+		setDouble(base + D, Kd);
+		setDouble(base + F, Kf);
+		setDouble(base + OUTPUT_MIN, -1.0d);
+		setDouble(base + OUTPUT_MAX,  1.0d);
+
+		// Publish the loop to the control thread.
+		loopCount = index + 1;
+
+		return new PIDLoop(this, index);
+	}
+
+	/** @return int - the number of loops */
+	public int getLoopCount() { return loopCount; }
+
+	/**
+	 * Step the engine from the control thread.
+	 */
+	@Override
+	public void controlPeriodic() {
+		step();
+	}
+
+	/**
+	 * Calculate every enabled loop that is due.  Only one thread may call this method.
+	 */
+	public void step() {
+
+		int count = loopCount;
+
+		for (int i=0; i<count; i++) {
+
+			int  base  = i * STRIDE;
+			long flags = state.get(base + FLAGS);
+
+			if ((flags & RESET) != 0) {
+				totalErrorArr[i] = 0.0d;
+				prevErrorArr[i]  = 0.0d;
+				// Calculate on the first step after the loop is enabled.
+				tickCountArr[i]  = tickDividerArr[i] - 1;
+				relaySignArr[i]  = 0;
+				setDouble(base + RESULT, 0.0d);
+				clearFlag(i, RESET);
+			}
+
+			if ((flags & DISABLE_REQUEST) != 0) {
+				if (applyDisable(i)) {
+					outputArr[i].pidWrite(0.0d);
+				}
+				continue;
+			}
+
+			if ((flags & ENABLED) == 0) { continue; }
+
+			if (++tickCountArr[i] < tickDividerArr[i]) { continue; }
+			tickCountArr[i] = 0;
+
+			calculate(i, base, flags);
+		}
+	}
+
+	/*
+	 * The same calculation as the WPILib PIDController.
+	 */
+	private void calculate(int i, int base, long flags) {
+
+		double input    = sourceArr[i].pidGet();
+		double setpoint = getDouble(base + SETPOINT);
+
+		double error = wrapError(base, flags, setpoint - input);
+
+		double Kp        = getDouble(base + P);
+		double Ki        = getDouble(base + I);
+		double Kd        = getDouble(base + D);
+		double Kf        = getDouble(base + F);
+		Feedforward feedforward = feedforwardArr.get(i);
+		double outputMin = getDouble(base + OUTPUT_MIN);
+		double outputMax = getDouble(base + OUTPUT_MAX);
+
+		if ((flags & RELAY) != 0) {
+			double bias = (feedforward != null ? feedforward.calculate(setpoint) : setpoint * Kf);
+			write(i, base, relay(i, base, error, bias), outputMin, outputMax);
+			return;
+		}
+
+		// Limit the integral so that the I term alone stays inside the output range.
+		if (Ki != 0.0d) {
+			double potentialIGain = (totalErrorArr[i] + error) * Ki;
+			if (potentialIGain < outputMax) {
+				if (potentialIGain > outputMin) {
+					totalErrorArr[i] += error;
+				} else {
+					totalErrorArr[i] = outputMin / Ki;
+				}
+			} else {
+				totalErrorArr[i] = outputMax / Ki;
+			}
+		}
+
+		double result = Kp * error + Ki * totalErrorArr[i] + Kd * (error - prevErrorArr[i])
+				+ (feedforward != null ? feedforward.calculate(setpoint) : setpoint * Kf);
+
+		prevErrorArr[i] = error;
+
+		write(i, base, result, outputMin, outputMax);
+	}
+
+	private void write(int i, int base, double result, double outputMin, double outputMax) {
+
+		if      (result > outputMax) { result = outputMax; }
+		else if (result < outputMin) { result = outputMin; }
+
+		setDouble(base + RESULT, result);
+
+		// A loop disabled during the calculation is set to zero on the next step.
+		outputArr[i].pidWrite(result);
+	}
+
+	/**
+	 * Clear the enable and the disable request together.
+	 * @return boolean - {@code false} if the loop was enabled again before the request was applied
+	 */
+	private boolean applyDisable(int i) {
+		int field = i * STRIDE + FLAGS;
+		long flags;
+		do {
+			flags = state.get(field);
+			if ((flags & DISABLE_REQUEST) == 0) { return false; }
+		} while (!state.compareAndSet(field, flags, flags & ~(ENABLED | DISABLE_REQUEST)));
+		return true;
+	}
+
+	/**
+	 * Switch the relay and measure the oscillation.  A cycle starts each time the relay
+	 * switches to the positive output.
+	 * @return double - the relay output
+	 */
+	private double relay(int i, int base, double error, double bias) {
+
+		double amplitude  = getDouble(base + RELAY_AMPLITUDE);
+		double hysteresis = getDouble(base + RELAY_HYSTERESIS);
+
+		// Start toward the setpoint after a reset.
+		if (relaySignArr[i] == 0) {
+			relaySignArr[i]         = (error >= 0) ? 1 : -1;
+			relayTickCountArr[i]    = 0;
+			relayCycleCountArr[i]   = 0;
+			relayErrorMaxArr[i]     = error;
+			relayErrorMinArr[i]     = error;
+			relayPeriodSumArr[i]    = 0.0d;
+			relayAmplitudeSumArr[i] = 0.0d;
+		}
+
+		relayTickCountArr[i]++;
+		relayErrorMaxArr[i] = Math.max(relayErrorMaxArr[i], error);
+		relayErrorMinArr[i] = Math.min(relayErrorMinArr[i], error);
+
+		if (relaySignArr[i] > 0 && error < -hysteresis) {
+			relaySignArr[i] = -1;
+		}
+		else if (relaySignArr[i] < 0 && error > hysteresis) {
+
+			relaySignArr[i] = 1;
+
+			// The first cycle starts at the first switch to the positive output.
+			int cycle = relayCycleCountArr[i]++;
+
+			if (cycle > RELAY_SETTLE_CYCLES) {
+				relayPeriodSumArr[i]    += relayTickCountArr[i] * tickDividerArr[i] / rateHz;
+				relayAmplitudeSumArr[i] += (relayErrorMaxArr[i] - relayErrorMinArr[i]) / 2.0d;
+			}
+
+			if (cycle == RELAY_SETTLE_CYCLES + RELAY_MEASURE_CYCLES) {
+
+				double errorAmplitude = relayAmplitudeSumArr[i] / RELAY_MEASURE_CYCLES;
+
+				// The describing function of a relay with hysteresis
+				double ultimateGain = 4.0d * amplitude
+						/ (Math.PI * Math.sqrt(Math.max(errorAmplitude * errorAmplitude - hysteresis * hysteresis, 1.0e-12d)));
+
+				setDouble(base + ULTIMATE_GAIN,   ultimateGain);
+				setDouble(base + ULTIMATE_PERIOD, relayPeriodSumArr[i] / RELAY_MEASURE_CYCLES);
+				setFlag(i, RELAY_COMPLETE);
+			}
+
+			relayTickCountArr[i] = 0;
+			relayErrorMaxArr[i]  = error;
+			relayErrorMinArr[i]  = error;
+		}
+
+		return bias + relaySignArr[i] * amplitude;
+	}
+
+	/**
+	 * Take the short way around a continuous input range.
+	 */
+	private double wrapError(int base, long flags, double error) {
+
+		if ((flags & CONTINUOUS) != 0) {
+			double range = getDouble(base + INPUT_MAX) - getDouble(base + INPUT_MIN);
+			if (Math.abs(error) > range / 2.0d) {
+				if (error > 0) {
+					error -= range;
+				} else {
+					error += range;
+				}
+			}
+		}
+		return error;
+	}
+
+	// Accessors used by the PIDLoop on the robot thread
+
+	double getError(int index) {
+		int base = index * STRIDE;
+		return wrapError(base, state.get(base + FLAGS), getDouble(base + SETPOINT) - sourceArr[index].pidGet());
+	}
+
+	double getPeriod(int index) { return tickDividerArr[index] / rateHz; }
+
+	Feedforward getFeedforward(int index) { return feedforwardArr.get(index); }
+
+	void setFeedforward(int index, Feedforward feedforward) {
+		feedforwardArr.set(index, feedforward);
+	}
+
+	double getDouble(int field) {
+		return Double.longBitsToDouble(state.get(field));
+	}
+
+	void setDouble(int field, double value) {
+		state.set(field, Double.doubleToRawLongBits(value));
+	}
+
+	long getFlags(int index) {
+		return state.get(index * STRIDE + FLAGS);
+	}
+
+	boolean isFlagSet(int index, long flag) {
+		return (getFlags(index) & flag) != 0;
+	}
+
+	void setFlag(int index, long flag) {
+		changeFlags(index, flag, 0L);
+	}
+
+	void clearFlag(int index, long flag) {
+		changeFlags(index, 0L, flag);
+	}
+
+	/**
+	 * Set and clear flags in one atomic update.
+	 */
+	void changeFlags(int index, long setFlags, long clearFlags) {
+		int field = index * STRIDE + FLAGS;
+		long flags;
+		do {
+			flags = state.get(field);
+		} while (!state.compareAndSet(field, flags, (flags | setFlags) & ~clearFlags));
+	}
+}
@@ -0,0 +1,323 @@
+package robot.control;
+
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+import edu.wpi.first.wpilibj.tables.ITable;
+import edu.wpi.first.wpilibj.tables.ITableListener;
+
+/**
+ * A PID loop calculated by the {@link PIDEngine}.
+ * <p>
+ * A PIDLoop has the same methods as the WPILib PIDController and can be put on the
+ * SmartDashboard to tune the gains.  All of the methods can be called from any thread.
+ * Add the loop with {@link robot.telemetry.DashboardPublisher#addSendable(String, LiveWindowSendable)}
+ * so that the dashboard is updated off of the control thread.
+ * <p>
+ * Loops are created with {@link PIDEngine#add(double, double, double, double,
+ * edu.wpi.first.wpilibj.PIDSource, edu.wpi.first.wpilibj.PIDOutput)}.
+ */
+public class PIDLoop implements LiveWindowSendable {
+
+	private final PIDEngine engine;
+	private final int       index;
+	private final int       base;
+
+	// Only used by the robot thread.
+	private double tolerance = 0.0d;
+
+	private ITable table = null;
+
+	private final ITableListener listener = new ITableListener() {
+		public void valueChanged(ITable table, String key, Object value, boolean isNew) {
+
+			if (key.equals("p") || key.equals("i") || key.equals("d") || key.equals("f")) {
+
+				if (   getP() != table.getNumber("p", 0.0d) || getI() != table.getNumber("i", 0.0d)
+					|| getD() != table.getNumber("d", 0.0d) || getF() != table.getNumber("f", 0.0d)) {
+					setPID(table.getNumber("p", 0.0d), table.getNumber("i", 0.0d),
+							table.getNumber("d", 0.0d), table.getNumber("f", 0.0d));
+				}
+			}
+			else if (key.equals("setpoint")) {
+				double setpoint = ((Double) value).doubleValue();
+				if (getSetpoint() != setpoint) {
+					setSetpoint(setpoint);
+				}
+			}
+			else if (key.equals("enabled")) {
+				boolean enabled = ((Boolean) value).booleanValue();
+				if (isEnable() != enabled) {
+					if (enabled) {
+						enable();
+					} else {
+						disable();
+					}
+				}
+			}
+		}
+	};
+
+	PIDLoop(PIDEngine engine, int index) {
+		this.engine = engine;
+		this.index  = index;
+		this.base   = index * PIDEngine.STRIDE;
+	}
+
+	public void setPID(double p, double i, double d) {
+		engine.setDouble(base + PIDEngine.P, p);
+		engine.setDouble(base + PIDEngine.I, i);
+		engine.setDouble(base + PIDEngine.D, d);
+	}
+
+	public void setPID(double p, double i, double d, double f) {
+		setPID(p, i, d);
+		engine.setDouble(base + PIDEngine.F, f);
+	}
+
+	public double getP() { return engine.getDouble(base + PIDEngine.P); }
+	public double getI() { return engine.getDouble(base + PIDEngine.I); }
+	public double getD() { return engine.getDouble(base + PIDEngine.D); }
+	public double getF() { return engine.getDouble(base + PIDEngine.F); }
+
+	/**
+	 * Use a feed forward in place of the setpoint * F term.  The F gain is kept, and is used
+	 * again if the feed forward is cleared.
+	 * @param feedforward - the feed forward, or {@code null} to use the F gain
+	 */
+	public void setFeedforward(Feedforward feedforward) {
+		engine.setFeedforward(index, feedforward);
+	}
+
+	/** @return Feedforward - the feed forward, or {@code null} if the F gain is used */
+	public Feedforward getFeedforward() {
+		return engine.getFeedforward(index);
+	}
+
+	/**
+	 * @return double - the time between calculations in seconds
+	 */
+	public double getPeriod() {
+		return engine.getPeriod(index);
+	}
+
+	/**
+	 * Replace the PID calculation with a relay to measure the ultimate gain and period of
+	 * the loop.  The loop must also be enabled to run the relay.  The gains are not changed.
+	 * @param amplitude - the relay output above and below the feed forward
+	 * @param hysteresis - the error in input units that the relay must cross to switch, larger
+	 * than the input noise
+	 */
+	public void startRelay(double amplitude, double hysteresis) {
+		engine.setDouble(base + PIDEngine.RELAY_AMPLITUDE,  amplitude);
+		engine.setDouble(base + PIDEngine.RELAY_HYSTERESIS, hysteresis);
+		engine.clearFlag(index, PIDEngine.RELAY_COMPLETE);
+		engine.setFlag(index, PIDEngine.RESET);
+		engine.setFlag(index, PIDEngine.RELAY);
+	}
+
+	/**
+	 * Return to the PID calculation.  The error sums are cleared.
+	 */
+	public void stopRelay() {
+		engine.clearFlag(index, PIDEngine.RELAY);
+		engine.setFlag(index, PIDEngine.RESET);
+	}
+
+	/** @return boolean - {@code true} if the relay is running in place of the PID */
+	public boolean isRelay() {
+		return engine.isFlagSet(index, PIDEngine.RELAY);
+	}
+
+	/**
+	 * @return boolean - {@code true} when the relay has measured the ultimate gain and period
+	 */
+	public boolean isRelayComplete() {
+		return engine.isFlagSet(index, PIDEngine.RELAY_COMPLETE);
+	}
+
+	/**
+	 * @return double - the ultimate gain measured by the last complete relay, in output units
+	 * per input unit
+	 */
+	public double getUltimateGain() {
+		return engine.getDouble(base + PIDEngine.ULTIMATE_GAIN);
+	}
+
+	/**
+	 * @return double - the ultimate period measured by the last complete relay, in seconds
+	 */
+	public double getUltimatePeriod() {
+		return engine.getDouble(base + PIDEngine.ULTIMATE_PERIOD);
+	}
+
+	/**
+	 * @return double - the result of the last calculation
+	 */
+	public double get() {
+		return engine.getDouble(base + PIDEngine.RESULT);
+	}
+
+	/**
+	 * Set the input to be continuous, so that the error is calculated the short way
+	 * around the input range (for example a gyro angle from 0 to 360 degrees).
+	 * @param continuous
+	 */
+	public void setContinuous(boolean continuous) {
+		if (continuous) {
+			engine.setFlag(index, PIDEngine.CONTINUOUS);
+		} else {
+			engine.clearFlag(index, PIDEngine.CONTINUOUS);
+		}
+	}
+
+	/**
+	 * Set the input range.  The setpoint is limited to the input range.
+	 * @param minimumInput
+	 * @param maximumInput
+	 */
+	public void setInputRange(double minimumInput, double maximumInput) {
+
+		if (minimumInput > maximumInput) {
+			throw new IllegalArgumentException("Lower bound is greater than upper bound");
+		}
+
+		engine.setDouble(base + PIDEngine.INPUT_MIN, minimumInput);
+		engine.setDouble(base + PIDEngine.INPUT_MAX, maximumInput);
+		setSetpoint(getSetpoint());
+	}
+
+	public void setOutputRange(double minimumOutput, double maximumOutput) {
+
+		if (minimumOutput > maximumOutput) {
+			throw new IllegalArgumentException("Lower bound is greater than upper bound");
+		}
+
+		engine.setDouble(base + PIDEngine.OUTPUT_MIN, minimumOutput);
+		engine.setDouble(base + PIDEngine.OUTPUT_MAX, maximumOutput);
+	}
+
+	public void setSetpoint(double setpoint) {
+
+		double minimumInput = engine.getDouble(base + PIDEngine.INPUT_MIN);
+		double maximumInput = engine.getDouble(base + PIDEngine.INPUT_MAX);
+
+		if (maximumInput > minimumInput) {
+			if      (setpoint > maximumInput) { setpoint = maximumInput; }
+			else if (setpoint < minimumInput) { setpoint = minimumInput; }
+		}
+
+		engine.setDouble(base + PIDEngine.SETPOINT, setpoint);
+	}
+
+	public double getSetpoint() {
+		return engine.getDouble(base + PIDEngine.SETPOINT);
+	}
+
+	/**
+	 * @return double - the current difference between the setpoint and the input
+	 */
+	public double getError() {
+		return engine.getError(index);
+	}
+
+	/**
+	 * Set the error which is considered on target.
+	 * @param tolerance - the absolute error in input units
+	 */
+	public void setAbsoluteTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * @return boolean - {@code true} if the error is within the tolerance
+	 */
+	public boolean onTarget() {
+		return Math.abs(getError()) < tolerance;
+	}
+
+	/**
+	 * Start calculating the loop.  A disable that the engine has not applied yet is cancelled.
+	 */
+	public void enable() {
+
+		engine.changeFlags(index, PIDEngine.ENABLED, PIDEngine.DISABLE_REQUEST);
+	}
+
+	/**
+	 * Stop calculating the loop and set the output to zero.  The engine sets the output on
+	 * its next step, after any calculation in progress, so the zero is the last output written.
+	 */
+	public void disable() {
+
+		engine.setFlag(index, PIDEngine.DISABLE_REQUEST);
+	}
+
+	/**
+	 * @return boolean - {@code true} if the loop is enabled and has not been disabled since
+	 */
+	public boolean isEnable() {
+		long flags = engine.getFlags(index);
+		return (flags & PIDEngine.ENABLED) != 0 && (flags & PIDEngine.DISABLE_REQUEST) == 0;
+	}
+
+	/**
+	 * Disable the loop and clear the error sums and the result.
+	 */
+	public void reset() {
+		disable();
+		engine.setDouble(base + PIDEngine.RESULT, 0.0d);
+		engine.setFlag(index, PIDEngine.RESET);
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "PIDController";
+	}
+
+	@Override
+	public void initTable(ITable table) {
+
+		if (this.table != null) {
+			this.table.removeTableListener(listener);
+		}
+
+		this.table = table;
+
+		if (table != null) {
+			table.putNumber("p", getP());
+			table.putNumber("i", getI());
+			table.putNumber("d", getD());
+			table.putNumber("f", getF());
+			table.putNumber("setpoint", getSetpoint());
+			table.putBoolean("enabled", isEnable());
+			table.addTableListener(listener, false);
+		}
+	}
+
+	@Override
+	public ITable getTable() {
+		return table;
+	}
+
+	/**
+	 * Update the setpoint and enabled state on the dashboard.  The setpoint and enable methods
+	 * do not write the table, so that the control code does not write to the network.
+	 */
+	@Override
+	public void updateTable() {
+		if (table != null) {
+			table.putNumber("setpoint", getSetpoint());
+			table.putBoolean("enabled", isEnable());
+		}
+	}
+
+	/**
+	 * Live window mode disables the loop so it can be tuned from the dashboard.
+	 */
+	@Override
+	public void startLiveWindowMode() {
+		disable();
+	}
+
+	@Override
+	public void stopLiveWindowMode() { }
+}
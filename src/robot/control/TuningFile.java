@@ -0,0 +1,181 @@
+package robot.control;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import robot.RobotMap;
+
+/**
+ * Control constants that are measured on the robot and kept across reboots.
+ * <p>
+ * The constants are stored as a properties file, with each name prefixed by the
+ * {@link RobotMap#currentRobot}, so that the production and practice robots keep their own
+ * values in the same file.  A constant that has not been measured returns the default that is
+ * coded in the subsystem.
+ * <p>
+ * The file is read once when the robot starts and written when a measurement is saved.  The
+ * methods are synchronized, but they read and write the file, so they should not be called
+ * from the control thread.
+ */
+public class TuningFile {
+
+	public static final String DEFAULT_FILE = "/home/lvuser/tuning.properties";
+
+	private static TuningFile instance = null;
+
+	private final File       file;
+	private final Properties properties = new Properties();
+
+	/**
+	 * Get the robot tuning file, loaded from the {@link #DEFAULT_FILE}.
+	 * @return TuningFile
+	 */
+	public static synchronized TuningFile getInstance() {
+		if (instance == null) {
+			instance = new TuningFile(new File(DEFAULT_FILE));
+		}
+		return instance;
+	}
+
+	/**
+	 * Load a tuning file.  If the file cannot be read, a message is printed and all of the
+	 * constants use their defaults.
+	 * @param file - the properties file
+	 */
+	public TuningFile(File file) {
+
+		this.file = file;
+
+		if (!file.isFile()) { return; }
+
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			System.out.println("Unable to read tuning file " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Get a constant for the current robot.
+	 * @param name - the constant name, for example "FrontLeft.kV"
+	 * @param defaultValue - the value if the constant was never saved
+	 * @return double - the value
+	 */
+	public synchronized double getDouble(String name, double defaultValue) {
+
+		String value = properties.getProperty(getKey(name));
+
+		if (value == null) { return defaultValue; }
+
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			System.out.println("Tuning constant " + getKey(name) + " is not a number: " + value);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Set a constant for the current robot.  Call {@link #save()} to write the file.
+	 * @param name - the constant name
+	 * @param value - the value
+	 */
+	public synchronized void setDouble(String name, double value) {
+		properties.setProperty(getKey(name), Double.toString(value));
+	}
+
+	/**
+	 * @param name - the constant name
+	 * @return boolean - {@code true} if the constant was saved for the current robot
+	 */
+	public synchronized boolean contains(String name) {
+		return properties.containsKey(getKey(name));
+	}
+
+	/**
+	 * Set the gains of a loop from the saved gains.  The loop keeps its gains if they were
+	 * never saved.
+	 * @param name - the loop name
+	 * @param loop - the loop
+	 */
+	public synchronized void loadPID(String name, PIDLoop loop) {
+		loop.setPID(
+				getDouble(name + ".p", loop.getP()),
+				getDouble(name + ".i", loop.getI()),
+				getDouble(name + ".d", loop.getD()));
+	}
+
+	/**
+	 * Set the gains of a loop.  Call {@link #save()} to write the file.
+	 * @param name - the loop name
+	 * @param gainArr - { P, I, D }
+	 */
+	public synchronized void setPID(String name, double [] gainArr) {
+		setDouble(name + ".p", gainArr[0]);
+		setDouble(name + ".i", gainArr[1]);
+		setDouble(name + ".d", gainArr[2]);
+	}
+
+	/**
+	 * Get the saved gains of a loop.
+	 * @param name - the loop name
+	 * @param defaultGainArr - { P, I, D } used for the gains that were never saved
+	 * @return double[] - { P, I, D }
+	 */
+	public synchronized double [] getPID(String name, double [] defaultGainArr) {
+		return new double [] {
+				getDouble(name + ".p", defaultGainArr[0]),
+				getDouble(name + ".i", defaultGainArr[1]),
+				getDouble(name + ".d", defaultGainArr[2]) };
+	}
+
+	/**
+	 * Write the file.  The constants are written to a temporary file that is renamed, so that a
+	 * partly written file is never loaded.
+	 * @return boolean - {@code true} if the file was written, otherwise a message is printed
+	 */
+	public synchronized boolean save() {
+
+		File directory = file.getAbsoluteFile().getParentFile();
+		File tempFile  = new File(directory, file.getName() + ".tmp");
+
+		try {
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				throw new IOException("Unable to create " + directory);
+			}
+
+			OutputStream out = new FileOutputStream(tempFile);
+			try {
+				properties.store(out, "Robot tuning constants");
+			} finally {
+				out.close();
+			}
+
+			// Rename does not replace an existing file on every platform.
+			if (!tempFile.renameTo(file) && !(file.delete() && tempFile.renameTo(file))) {
+				throw new IOException("Unable to rename " + tempFile);
+			}
+
+			return true;
+
+		} catch (IOException e) {
+			tempFile.delete();
+			System.out.println("Tuning file " + file + " not saved: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private static String getKey(String name) {
+		return "robot" + RobotMap.currentRobot + "." + name;
+	}
+}
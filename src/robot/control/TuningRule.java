@@ -0,0 +1,54 @@
+package robot.control;
+
+/**
+ * Rules to calculate PID gains from the ultimate gain and period measured by a relay.
+ * <p>
+ * Each rule sets the proportional gain as a fraction of the ultimate gain, and the integral and
+ * derivative times as fractions of the ultimate period.  The {@link PIDEngine} does not scale
+ * the I and D terms by the loop period, so the times are converted to gains for the period of
+ * the loop that is tuned.
+ */
+public enum TuningRule {
+
+	/** Ziegler-Nichols proportional only */
+	ZIEGLER_NICHOLS_P   (0.5d,  0.0d,       0.0d),
+
+	/** Ziegler-Nichols proportional and integral, for rate loops */
+	ZIEGLER_NICHOLS_PI  (0.45d, 1.0d / 1.2d, 0.0d),
+
+	/** Ziegler-Nichols classic PID, fast with about 25% overshoot */
+	ZIEGLER_NICHOLS_PID (0.6d,  0.5d,       0.125d),
+
+	/** PID with little or no overshoot, for position loops */
+	NO_OVERSHOOT        (0.2d,  0.5d,       1.0d / 3.0d);
+
+	private final double gainFactor;
+	private final double integralFactor;
+	private final double derivativeFactor;
+
+	TuningRule(double gainFactor, double integralFactor, double derivativeFactor) {
+		this.gainFactor       = gainFactor;
+		this.integralFactor   = integralFactor;
+		this.derivativeFactor = derivativeFactor;
+	}
+
+	/**
+	 * Calculate the gains for a loop.
+	 * @param ultimateGain - the ultimate gain in output units per input unit
+	 * @param ultimatePeriod - the ultimate period in seconds
+	 * @param loopPeriod - the time between loop calculations in seconds, see {@link PIDLoop#getPeriod()}
+	 * @return double[] - { P, I, D }
+	 */
+	public double [] getGains(double ultimateGain, double ultimatePeriod, double loopPeriod) {
+
+		double p = gainFactor * ultimateGain;
+		double i = 0.0d;
+		double d = p * derivativeFactor * ultimatePeriod / loopPeriod;
+
+		if (integralFactor > 0) {
+			i = p * loopPeriod / (integralFactor * ultimatePeriod);
+		}
+
+		return new double [] { p, i, d };
+	}
+}
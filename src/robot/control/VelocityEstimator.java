@@ -0,0 +1,254 @@
+package robot.control;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import robot.Clock;
+import robot.hal.QuadratureEncoder;
+
+/**
+ * Estimate encoder velocities with a least squares fit over a window of timestamped
+ * encoder distances.
+ * <p>
+ * The encoder getRate() is the inverse of the time between the last pulses, which is very
+ * noisy when the pulses are far apart at low speed.  The velocity estimator samples the
+ * encoder distance on every control loop step and fits a line through the last (window)
+ * samples.  The slope of the line is the velocity.  A short window follows changes in speed
+ * quickly, a long window smooths slow encoders that only move a few counts per step.
+ * <p>
+ * The estimator must be added to the {@link ControlLoopExecutor} before the {@link PIDEngine},
+ * so that the PIDs read the velocity from the same step.  The samples are kept in fixed
+ * primitive ring buffers that are only touched by the control thread.  The velocity is
+ * stored as double bits in an {@link AtomicLongArray} so it can be read from any thread.
+ * <p>
+ * An encoder with a velocity is reset with {@link EncoderVelocity#reset()}.  The control
+ * thread resets the encoder and clears the samples in the same step, so the fit never sees
+ * the distance before and after the reset in one window.
+ * <p>
+ * Velocities are added with {@link #add(QuadratureEncoder, int, double)}.
+ */
+public class VelocityEstimator implements ControlLoop {
+
+	public static final int DEFAULT_CAPACITY   = 8;
+	public static final int DEFAULT_MAX_WINDOW = 32;
+
+	// Velocity fields in the state array
+	static final int RATE   = 0;
+	static final int FLAGS  = 1;
+	static final int STRIDE = 2;
+
+	// Flag bits
+	static final long RESET = 1L;
+
+	private static final double NANOS_PER_SECOND = Clock.NANOS_PER_SECOND;
+
+	private static VelocityEstimator instance = null;
+
+	private final int capacity;
+	private final int maxWindow;
+
+	private final AtomicLongArray state;
+
+	private final QuadratureEncoder [] encoderArr;
+	private final int               [] windowArr;
+
+	// Only used by the control thread.  The samples of velocity i are stored
+	// at [i * maxWindow, i * maxWindow + window).
+	private final long   [] timeNanosArr;
+	private final double [] distanceArr;
+	private final int    [] newestArr;
+	private final int    [] sampleCountArr;
+
+	private volatile int velocityCount = 0;
+
+	/**
+	 * Get the robot velocity estimator.
+	 * @return VelocityEstimator
+	 */
+	public static synchronized VelocityEstimator getInstance() {
+		if (instance == null) {
+			instance = new VelocityEstimator(DEFAULT_CAPACITY, DEFAULT_MAX_WINDOW);
+		}
+		return instance;
+	}
+
+	/**
+	 * @param capacity - the maximum number of velocities
+	 * @param maxWindow - the maximum number of samples in a window
+	 */
+	public VelocityEstimator(int capacity, int maxWindow) {
+
+		this.capacity  = capacity;
+		this.maxWindow = maxWindow;
+
+		state = new AtomicLongArray(capacity * STRIDE);
+
+		encoderArr     = new QuadratureEncoder [capacity];
+		windowArr      = new int [capacity];
+		timeNanosArr   = new long [capacity * maxWindow];
+		distanceArr    = new double [capacity * maxWindow];
+		newestArr      = new int [capacity];
+		sampleCountArr = new int [capacity];
+	}
+
+	/**
+	 * Add an encoder velocity.  Velocities should be added when the subsystems are created,
+	 * before the control thread is started.
+	 *
+	 * @param encoder - the encoder to sample
+	 * @param window - the number of samples in the fit, at least 2.  The velocity lags the
+	 * encoder by about half of the window.
+	 * @param maxRate - the rate that is returned as 1.0 by the {@link EncoderVelocity#pidGet()}
+	 * @return EncoderVelocity - the velocity
+	 */
+	public synchronized EncoderVelocity add(QuadratureEncoder encoder, int window, double maxRate) {
+
+		int index = velocityCount;
+
+		if (index >= capacity) {
+			throw new IllegalStateException("Velocity estimator capacity (" + capacity + ") exceeded");
+		}
+
+		if (window < 2 || window > maxWindow) {
+			throw new IllegalArgumentException("Velocity window (" + window + ") must be from 2 to " + maxWindow);
+		}
+
+		encoderArr[index] = encoder;
+		windowArr[index]  = window;
+
+		// Publish the velocity to the control thread.
+		velocityCount = index + 1;
+
+		return new EncoderVelocity(this, index, maxRate);
+	}
+
+	/** @return int - the number of velocities */
+	public int getVelocityCount() { return velocityCount; }
+
+	/**
+	 * Step the estimator from the control thread.
+	 */
+	@Override
+	public void controlPeriodic() {
+		step();
+	}
+
+	/**
+	 * Sample every encoder and fit the velocities.  Only one thread may call this method.
+	 * <p>
+	 * A sample is skipped if the clock has not advanced since the last sample, so that
+	 * the fit never divides by a zero time span.
+	 */
+	public void step() {
+
+		int  count     = velocityCount;
+		long timeNanos = Clock.getInstance().getTimeNanos();
+
+		for (int i=0; i<count; i++) {
+
+			int base = i * STRIDE;
+
+			if ((state.get(base + FLAGS) & RESET) != 0) {
+				encoderArr[i].reset();
+				sampleCountArr[i] = 0;
+				setDouble(base + RATE, 0.0d);
+				// Clear the flag after the encoder reset, so a reader that sees the flag 
+				// cleared also sees the reset encoder.
+				clearFlag(i, RESET);
+			}
+
+			int offset = i * maxWindow;
+			int window = windowArr[i];
+
+			if (sampleCountArr[i] > 0 && timeNanos <= timeNanosArr[offset + newestArr[i]]) { continue; }
+
+			double distance = encoderArr[i].getDistance();
+
+			int newest = (sampleCountArr[i] == 0) ? 0 : (newestArr[i] + 1) % window;
+
+			timeNanosArr[offset + newest] = timeNanos;
+			distanceArr [offset + newest] = distance;
+			newestArr[i] = newest;
+
+			if (sampleCountArr[i] < window) {
+				sampleCountArr[i]++;
+			}
+
+			setDouble(base + RATE, fit(offset, sampleCountArr[i], timeNanos, distance));
+		}
+	}
+
+	/*
+	 * The least squares slope through the samples.  The times and distances are taken
+	 * relative to the newest sample so that the sums keep their precision.
+	 */
+	private double fit(int offset, int sampleCount, long newestTimeNanos, double newestDistance) {
+
+		if (sampleCount < 2) { return 0.0d; }
+
+		double sumT = 0.0d;
+		double sumX = 0.0d;
+
+		for (int j=0; j<sampleCount; j++) {
+			sumT += (timeNanosArr[offset + j] - newestTimeNanos) / NANOS_PER_SECOND;
+			sumX +=  distanceArr [offset + j] - newestDistance;
+		}
+
+		double meanT = sumT / sampleCount;
+		double meanX = sumX / sampleCount;
+
+		double sumTT = 0.0d;
+		double sumTX = 0.0d;
+
+		for (int j=0; j<sampleCount; j++) {
+			double t = (timeNanosArr[offset + j] - newestTimeNanos) / NANOS_PER_SECOND - meanT;
+			double x =  distanceArr [offset + j] - newestDistance - meanX;
+			sumTT += t * t;
+			sumTX += t * x;
+		}
+
+		if (sumTT <= 0.0d) { return 0.0d; }
+
+		return sumTX / sumTT;
+	}
+
+	// Accessors used by the EncoderVelocity
+
+	double getRate(int index) {
+		return getDouble(index * STRIDE + RATE);
+	}
+
+	QuadratureEncoder getEncoder(int index) { return encoderArr[index]; }
+
+	void reset(int index) {
+		setDouble(index * STRIDE + RATE, 0.0d);
+		setFlag(index, RESET);
+	}
+
+	boolean isResetPending(int index) {
+		return (state.get(index * STRIDE + FLAGS) & RESET) != 0;
+	}
+
+	private double getDouble(int field) {
+		return Double.longBitsToDouble(state.get(field));
+	}
+
+	private void setDouble(int field, double value) {
+		state.set(field, Double.doubleToRawLongBits(value));
+	}
+
+	private void setFlag(int index, long flag) {
+		int field = index * STRIDE + FLAGS;
+		long flags;
+		do {
+			flags = state.get(field);
+		} while (!state.compareAndSet(field, flags, flags | flag));
+	}
+
+	private void clearFlag(int index, long flag) {
+		int field = index * STRIDE + FLAGS;
+		long flags;
+		do {
+			flags = state.get(field);
+		} while (!state.compareAndSet(field, flags, flags & ~flag));
+	}
+}
@@ -0,0 +1,21 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+
+/**
+ * A digital input such as a limit switch or a photo sensor.
+ */
+public interface DigitalSensor extends LiveWindowSendable {
+
+	/**
+	 * Get the value of the digital input.
+	 * @return boolean - the state of the input.
+	 */
+	boolean get();
+
+	/**
+	 * Get the digital I/O channel for this sensor.
+	 * @return int - the channel.
+	 */
+	int getChannel();
+}
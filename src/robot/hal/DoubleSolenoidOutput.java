@@ -0,0 +1,22 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+
+/**
+ * A double acting solenoid valve.
+ */
+public interface DoubleSolenoidOutput extends LiveWindowSendable {
+
+	/**
+	 * Set the valve position.
+	 * @param value - kOff, kForward or kReverse.
+	 */
+	void set(DoubleSolenoid.Value value);
+
+	/**
+	 * Get the current valve position.
+	 * @return DoubleSolenoid.Value - the valve position.
+	 */
+	DoubleSolenoid.Value get();
+}
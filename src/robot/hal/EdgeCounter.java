@@ -0,0 +1,18 @@
+package robot.hal;
+
+/**
+ * Counts the edges seen on a {@link DigitalSensor}.
+ */
+public interface EdgeCounter {
+
+	/**
+	 * Get the number of edges counted since the last reset.
+	 * @return int - edge count.
+	 */
+	int get();
+
+	/**
+	 * Reset the edge count to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,44 @@
+package robot.hal;
+
+/**
+ * The HardwareFactory creates all of the devices used by the robot.
+ * <p>
+ * The factory used by the robot is set in {@link robot.RobotMap#hardware}.  On the robot this is the 
+ * {@link robot.hal.wpilib.WpilibHardware} factory.  On a desktop JVM the 
+ * {@link robot.hal.sim.SimHardware} factory creates in-memory devices so that the subsystems 
+ * can be run without a roboRIO.
+ */
+public interface HardwareFactory {
+
+	Motor motor(int pwmChannel);
+
+	QuadratureEncoder encoder(int aChannel, int bChannel, boolean reverseDirection);
+
+	RateGyro gyro(int analogChannel);
+
+	DigitalSensor digitalInput(int channel);
+
+	/**
+	 * Create a counter on the edges of a digital input.
+	 * @param input - a DigitalSensor created by this factory.
+	 * @param risingEdge - {@literal true} to count rising edges.
+	 * @param fallingEdge - {@literal true} to count falling edges.
+	 * @return EdgeCounter
+	 */
+	EdgeCounter edgeCounter(DigitalSensor input, boolean risingEdge, boolean fallingEdge);
+
+	SolenoidOutput solenoid(int channel);
+
+	DoubleSolenoidOutput doubleSolenoid(int forwardChannel, int reverseChannel);
+
+	RelayOutput relay(int channel);
+
+	PowerDistribution powerDistribution();
+
+	/**
+	 * Start streaming the named camera to the driver station.
+	 * @param cameraName - the camera name, for example "cam0".
+	 * @param quality - the image quality 0-100.
+	 */
+	void startCameraCapture(String cameraName, int quality);
+}
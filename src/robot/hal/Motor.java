@@ -0,0 +1,30 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+
+/**
+ * A PWM motor controller.
+ * <p>
+ * Subsystems use this interface instead of a WPILib Talon so that the control code can run
+ * against either the robot hardware or the simulated devices in {@link robot.hal.sim}.
+ */
+public interface Motor extends SpeedController, LiveWindowSendable {
+
+	/**
+	 * Get the PWM channel for this motor.
+	 * @return int - the PWM channel.
+	 */
+	int getChannel();
+
+	/**
+	 * Is the motor controller alive (not timed out by the motor safety)?
+	 * @return {@literal true} if alive, {@literal false} otherwise
+	 */
+	boolean isAlive();
+
+	/**
+	 * Stop the motor immediately.
+	 */
+	void stopMotor();
+}
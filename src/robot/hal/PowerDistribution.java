@@ -0,0 +1,31 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+
+/**
+ * The power distribution panel.
+ */
+public interface PowerDistribution extends LiveWindowSendable {
+
+	/** The number of monitored channels on the power distribution panel */
+	int CHANNEL_COUNT = 16;
+
+	/**
+	 * Get the current on a channel.
+	 * @param channel - the channel number 0 to {@link #CHANNEL_COUNT}-1.
+	 * @return double - the current in Amps.
+	 */
+	double getCurrent(int channel);
+
+	/**
+	 * Get the input voltage to the power distribution panel.
+	 * @return double - voltage in Volts.
+	 */
+	double getVoltage();
+
+	/**
+	 * Get the total current drawn through the power distribution panel.
+	 * @return double - current in Amps.
+	 */
+	double getTotalCurrent();
+}
@@ -0,0 +1,33 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.PIDSource;
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+
+/**
+ * A two channel quadrature encoder.
+ */
+public interface QuadratureEncoder extends PIDSource, LiveWindowSendable {
+
+	/**
+	 * Get the current encoder count, scaled for the encoding type.
+	 * @return int - encoder count since the last reset.
+	 */
+	int get();
+
+	/**
+	 * Get the distance travelled since the last reset in distance per pulse units.
+	 * @return double - distance.
+	 */
+	double getDistance();
+
+	/**
+	 * Get the current rate of the encoder in distance per pulse units per second.
+	 * @return double - rate.
+	 */
+	double getRate();
+
+	/**
+	 * Reset the encoder count to zero.
+	 */
+	void reset();
+}
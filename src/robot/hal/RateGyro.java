@@ -0,0 +1,34 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.PIDSource;
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+
+/**
+ * A single axis rate gyro that integrates its rate into an angle.
+ */
+public interface RateGyro extends PIDSource, LiveWindowSendable {
+
+	/**
+	 * Get the accumulated angle in degrees since the last reset.  The angle is continuous
+	 * and is not limited to 0-360 degrees.
+	 * @return double - angle in degrees.
+	 */
+	double getAngle();
+
+	/**
+	 * Get the rate of rotation in degrees per second.
+	 * @return double - rate in degrees per second.
+	 */
+	double getRate();
+
+	/**
+	 * Reset the accumulated angle to zero.
+	 */
+	void reset();
+
+	/**
+	 * Set the gyro sensitivity in volts per degree per second.
+	 * @param voltsPerDegreePerSecond
+	 */
+	void setSensitivity(double voltsPerDegreePerSecond);
+}
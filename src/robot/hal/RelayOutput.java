@@ -0,0 +1,15 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.Relay;
+
+/**
+ * A relay (spike) output.
+ */
+public interface RelayOutput {
+
+	/**
+	 * Set the relay state.
+	 * @param value - kOff, kOn, kForward or kReverse.
+	 */
+	void set(Relay.Value value);
+}
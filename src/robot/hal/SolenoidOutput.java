@@ -0,0 +1,21 @@
+package robot.hal;
+
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+
+/**
+ * A single acting solenoid valve.
+ */
+public interface SolenoidOutput extends LiveWindowSendable {
+
+	/**
+	 * Set the solenoid.
+	 * @param on - {@literal true} to energize the solenoid.
+	 */
+	void set(boolean on);
+
+	/**
+	 * Get the current solenoid setting.
+	 * @return boolean - {@literal true} if the solenoid is energized.
+	 */
+	boolean get();
+}
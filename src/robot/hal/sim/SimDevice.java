@@ -0,0 +1,34 @@
+package robot.hal.sim;
+
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+import edu.wpi.first.wpilibj.tables.ITable;
+
+/**
+ * Base class for the simulated devices.
+ * <p>
+ * Simulated devices can be sent to the SmartDashboard like the WPILib devices, but do not
+ * publish any values.
+ */
+public abstract class SimDevice implements LiveWindowSendable {
+
+	private ITable table = null;
+
+	@Override
+	public void initTable(ITable subtable) {
+		this.table = subtable;
+	}
+
+	@Override
+	public ITable getTable() {
+		return table;
+	}
+
+	@Override
+	public void updateTable() {}
+
+	@Override
+	public void startLiveWindowMode() {}
+
+	@Override
+	public void stopLiveWindowMode() {}
+}
@@ -0,0 +1,58 @@
+package robot.hal.sim;
+
+import robot.hal.DigitalSensor;
+
+/**
+ * An in-memory {@link DigitalSensor}.
+ * <p>
+ * Digital inputs on the roboRIO are pulled up, so an unconnected input reads {@literal true}.
+ */
+public class SimDigitalSensor extends SimDevice implements DigitalSensor {
+
+	private final int channel;
+	private boolean value = true;
+	
+	private SimEdgeCounter [] counterArr = new SimEdgeCounter [0];
+
+	public SimDigitalSensor(int channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public boolean get() {
+		return value;
+	}
+
+	@Override
+	public int getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Set the simulated value of the input.  Any counters attached to this input will
+	 * count the edge.
+	 * @param value
+	 */
+	public void set(boolean value) {
+		
+		if (value != this.value) {
+			for (SimEdgeCounter counter: counterArr) {
+				counter.edge(value);
+			}
+		}
+		
+		this.value = value;
+	}
+
+	void addCounter(SimEdgeCounter counter) {
+		SimEdgeCounter [] newCounterArr = new SimEdgeCounter [counterArr.length + 1];
+		System.arraycopy(counterArr, 0, newCounterArr, 0, counterArr.length);
+		newCounterArr[counterArr.length] = counter;
+		counterArr = newCounterArr;
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "Digital Input";
+	}
+}
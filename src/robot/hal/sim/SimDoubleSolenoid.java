@@ -0,0 +1,27 @@
+package robot.hal.sim;
+
+import robot.hal.DoubleSolenoidOutput;
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+
+/**
+ * An in-memory {@link DoubleSolenoidOutput}.
+ */
+public class SimDoubleSolenoid extends SimDevice implements DoubleSolenoidOutput {
+
+	private DoubleSolenoid.Value value = DoubleSolenoid.Value.kOff;
+
+	@Override
+	public void set(DoubleSolenoid.Value value) {
+		this.value = value;
+	}
+
+	@Override
+	public DoubleSolenoid.Value get() {
+		return value;
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "Double Solenoid";
+	}
+}
@@ -0,0 +1,35 @@
+package robot.hal.sim;
+
+import robot.hal.EdgeCounter;
+
+/**
+ * An in-memory {@link EdgeCounter} attached to a {@link SimDigitalSensor}.
+ */
+public class SimEdgeCounter implements EdgeCounter {
+
+	private final boolean risingEdge;
+	private final boolean fallingEdge;
+	private int count = 0;
+
+	public SimEdgeCounter(SimDigitalSensor input, boolean risingEdge, boolean fallingEdge) {
+		this.risingEdge  = risingEdge;
+		this.fallingEdge = fallingEdge;
+		input.addCounter(this);
+	}
+
+	void edge(boolean newValue) {
+		if ((newValue && risingEdge) || (!newValue && fallingEdge)) {
+			count++;
+		}
+	}
+
+	@Override
+	public int get() {
+		return count;
+	}
+
+	@Override
+	public void reset() {
+		count = 0;
+	}
+}
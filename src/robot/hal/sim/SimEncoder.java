@@ -0,0 +1,91 @@
+package robot.hal.sim;
+
+import robot.hal.QuadratureEncoder;
+
+/**
+ * An in-memory {@link QuadratureEncoder}.
+ * <p>
+ * The count and rate are set by the simulation.  The {@link #advance(double)} method integrates
+ * the rate into the count so that a simulation only needs to set the encoder rate.
+ * <p>
+ * The reverseDirection flag is recorded but not applied; the simulation sets the count as 
+ * the robot code would read it.
+ */
+public class SimEncoder extends SimDevice implements QuadratureEncoder {
+
+	private final int aChannel;
+	private final boolean reverseDirection;
+	
+	private double count = 0.0d;
+	private double rate  = 0.0d;
+
+	public SimEncoder(int aChannel, int bChannel, boolean reverseDirection) {
+		this.aChannel = aChannel;
+		this.reverseDirection = reverseDirection;
+	}
+
+	/**
+	 * Advance the simulated encoder by the given time using the current rate.
+	 * @param seconds - the simulated time step.
+	 */
+	public void advance(double seconds) {
+		count += rate * seconds;
+	}
+
+	@Override
+	public int get() {
+		return (int) Math.round(count);
+	}
+
+	public int getChannel() {
+		return aChannel;
+	}
+
+	@Override
+	public double getDistance() {
+		return get();
+	}
+
+	@Override
+	public double getRate() {
+		return rate;
+	}
+
+	public boolean isReverseDirection() {
+		return reverseDirection;
+	}
+
+	/**
+	 * Encoders default to returning the distance to a PID controller.
+	 */
+	@Override
+	public double pidGet() {
+		return getDistance();
+	}
+
+	@Override
+	public void reset() {
+		count = 0.0d;
+	}
+
+	/**
+	 * Set the simulated encoder count.
+	 * @param count - the new count.
+	 */
+	public void setCount(double count) {
+		this.count = count;
+	}
+
+	/**
+	 * Set the simulated encoder rate.
+	 * @param rate - counts per second.
+	 */
+	public void setRate(double rate) {
+		this.rate = rate;
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "Quadrature Encoder";
+	}
+}
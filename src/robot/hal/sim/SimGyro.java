@@ -0,0 +1,83 @@
+package robot.hal.sim;
+
+import robot.hal.RateGyro;
+
+/**
+ * An in-memory {@link RateGyro}.
+ * <p>
+ * The {@link #advance(double)} method integrates the rate into the angle so that a simulation 
+ * only needs to set the gyro rate.
+ */
+public class SimGyro extends SimDevice implements RateGyro {
+
+	private final int channel;
+	private double angle = 0.0d;
+	private double rate  = 0.0d;
+	private double sensitivity = 0.007d;
+
+	public SimGyro(int channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Advance the simulated gyro by the given time using the current rate.
+	 * @param seconds - the simulated time step.
+	 */
+	public void advance(double seconds) {
+		angle += rate * seconds;
+	}
+
+	@Override
+	public double getAngle() {
+		return angle;
+	}
+
+	public int getChannel() {
+		return channel;
+	}
+
+	@Override
+	public double getRate() {
+		return rate;
+	}
+
+	public double getSensitivity() {
+		return sensitivity;
+	}
+
+	@Override
+	public double pidGet() {
+		return getAngle();
+	}
+
+	@Override
+	public void reset() {
+		angle = 0.0d;
+	}
+
+	/**
+	 * Set the simulated (raw) angle.
+	 * @param angle - degrees.
+	 */
+	public void setAngle(double angle) {
+		this.angle = angle;
+	}
+
+	/**
+	 * Set the simulated (raw) rate.
+	 * @param rate - degrees per second.
+	 */
+	public void setRate(double rate) {
+		this.rate = rate;
+	}
+
+	@Override
+	public void setSensitivity(double voltsPerDegreePerSecond) {
+		this.sensitivity = voltsPerDegreePerSecond;
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "Gyro";
+	}
+}
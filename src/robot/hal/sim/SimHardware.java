@@ -0,0 +1,167 @@
+package robot.hal.sim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import robot.hal.DigitalSensor;
+import robot.hal.DoubleSolenoidOutput;
+import robot.hal.EdgeCounter;
+import robot.hal.HardwareFactory;
+import robot.hal.Motor;
+import robot.hal.PowerDistribution;
+import robot.hal.QuadratureEncoder;
+import robot.hal.RateGyro;
+import robot.hal.RelayOutput;
+import robot.hal.SolenoidOutput;
+
+/**
+ * The HardwareFactory used to run the robot code on a desktop JVM.
+ * <p>
+ * All devices are created in memory and are registered by channel so that a simulation, a log 
+ * replay or a benchmark can read the motor outputs and set the sensor values.
+ * <p>
+ * To use the simulated hardware, set {@link robot.RobotMap#hardware} before the 
+ * {@link robot.Robot} class is loaded.
+ */
+public class SimHardware implements HardwareFactory {
+
+	private final Map<Integer, SimMotor>         motorMap        = new HashMap<Integer, SimMotor>();
+	private final Map<Integer, SimEncoder>       encoderMap      = new HashMap<Integer, SimEncoder>();
+	private final Map<Integer, SimGyro>          gyroMap         = new HashMap<Integer, SimGyro>();
+	private final Map<Integer, SimDigitalSensor> digitalInputMap = new HashMap<Integer, SimDigitalSensor>();
+	private final Map<Integer, SimSolenoid>      solenoidMap     = new HashMap<Integer, SimSolenoid>();
+	private final Map<Integer, SimDoubleSolenoid> doubleSolenoidMap = new HashMap<Integer, SimDoubleSolenoid>();
+	private final Map<Integer, SimRelay>         relayMap        = new HashMap<Integer, SimRelay>();
+	
+	private final List<SimEncoder> encoderList = new ArrayList<SimEncoder>();
+	private final List<SimGyro>    gyroList    = new ArrayList<SimGyro>();
+	
+	private final SimPowerDistribution powerDistribution = new SimPowerDistribution();
+
+	/**
+	 * Advance all of the simulated encoders and gyros by the given time step using their 
+	 * current rates.
+	 * @param seconds - the simulated time step.
+	 */
+	public void advance(double seconds) {
+		for (int i=0; i<encoderList.size(); i++) {
+			encoderList.get(i).advance(seconds);
+		}
+		for (int i=0; i<gyroList.size(); i++) {
+			gyroList.get(i).advance(seconds);
+		}
+	}
+
+	@Override
+	public Motor motor(int pwmChannel) {
+		SimMotor motor = new SimMotor(pwmChannel);
+		register(motorMap, pwmChannel, motor, "PWM");
+		return motor;
+	}
+
+	@Override
+	public QuadratureEncoder encoder(int aChannel, int bChannel, boolean reverseDirection) {
+		SimEncoder encoder = new SimEncoder(aChannel, bChannel, reverseDirection);
+		register(encoderMap, aChannel, encoder, "Encoder");
+		encoderList.add(encoder);
+		return encoder;
+	}
+
+	@Override
+	public RateGyro gyro(int analogChannel) {
+		SimGyro gyro = new SimGyro(analogChannel);
+		register(gyroMap, analogChannel, gyro, "Analog");
+		gyroList.add(gyro);
+		return gyro;
+	}
+
+	@Override
+	public DigitalSensor digitalInput(int channel) {
+		SimDigitalSensor input = new SimDigitalSensor(channel);
+		register(digitalInputMap, channel, input, "Digital Input");
+		return input;
+	}
+
+	@Override
+	public EdgeCounter edgeCounter(DigitalSensor input, boolean risingEdge, boolean fallingEdge) {
+		
+		if (!(input instanceof SimDigitalSensor)) {
+			throw new IllegalArgumentException("Digital input on channel " + input.getChannel() 
+					+ " was not created by the SimHardware factory");
+		}
+		
+		return new SimEdgeCounter((SimDigitalSensor) input, risingEdge, fallingEdge);
+	}
+
+	@Override
+	public SolenoidOutput solenoid(int channel) {
+		SimSolenoid solenoid = new SimSolenoid();
+		register(solenoidMap, channel, solenoid, "Solenoid");
+		return solenoid;
+	}
+
+	@Override
+	public DoubleSolenoidOutput doubleSolenoid(int forwardChannel, int reverseChannel) {
+		SimDoubleSolenoid doubleSolenoid = new SimDoubleSolenoid();
+		register(doubleSolenoidMap, forwardChannel, doubleSolenoid, "Solenoid");
+		return doubleSolenoid;
+	}
+
+	@Override
+	public RelayOutput relay(int channel) {
+		SimRelay relay = new SimRelay();
+		register(relayMap, channel, relay, "Relay");
+		return relay;
+	}
+
+	@Override
+	public PowerDistribution powerDistribution() {
+		return powerDistribution;
+	}
+
+	@Override
+	public void startCameraCapture(String cameraName, int quality) {
+		// There is no camera in the simulation.
+	}
+
+	/*
+	 * Simulation accessors
+	 */
+	
+	public SimMotor getMotor(int pwmChannel) { return motorMap.get(pwmChannel); }
+
+	/**
+	 * Get the simulated encoder by the first (A) channel number.
+	 * @param aChannel
+	 * @return SimEncoder or {@literal null} if no encoder was created on that channel
+	 */
+	public SimEncoder getEncoder(int aChannel) { return encoderMap.get(aChannel); }
+
+	public SimGyro getGyro(int analogChannel) { return gyroMap.get(analogChannel); }
+
+	public SimDigitalSensor getDigitalInput(int channel) { return digitalInputMap.get(channel); }
+
+	public SimSolenoid getSolenoid(int channel) { return solenoidMap.get(channel); }
+
+	/**
+	 * Get the simulated double solenoid by the forward channel number.
+	 * @param forwardChannel
+	 * @return SimDoubleSolenoid or {@literal null} if no solenoid was created on that channel
+	 */
+	public SimDoubleSolenoid getDoubleSolenoid(int forwardChannel) { return doubleSolenoidMap.get(forwardChannel); }
+
+	public SimRelay getRelay(int channel) { return relayMap.get(channel); }
+
+	public SimPowerDistribution getPowerDistribution() { return powerDistribution; }
+
+	// Two devices on the same channel is a wiring error on the real robot, so it is 
+	// reported the same way in the simulation.
+	private <T> void register(Map<Integer, T> deviceMap, int channel, T device, String deviceType) {
+		if (deviceMap.containsKey(channel)) {
+			throw new IllegalStateException(deviceType + " channel " + channel + " is already allocated");
+		}
+		deviceMap.put(channel, device);
+	}
+}
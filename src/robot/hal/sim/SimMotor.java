@@ -0,0 +1,73 @@
+package robot.hal.sim;
+
+import robot.hal.Motor;
+
+/**
+ * An in-memory {@link Motor} that remembers the last value it was set to.
+ */
+public class SimMotor extends SimDevice implements Motor {
+
+	private final int channel;
+	private double speed = 0.0d;
+	private boolean alive = true;
+
+	public SimMotor(int channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public void pidWrite(double output) {
+		set(output);
+	}
+
+	@Override
+	public double get() {
+		return speed;
+	}
+
+	@Override
+	@Deprecated
+	public void set(double speed, byte syncGroup) {
+		set(speed);
+	}
+
+	@Override
+	public void set(double speed) {
+		if (speed >  1.0) { speed =  1.0; }
+		if (speed < -1.0) { speed = -1.0; }
+		this.speed = speed;
+	}
+
+	@Override
+	public void disable() {
+		speed = 0.0d;
+	}
+
+	@Override
+	public int getChannel() {
+		return channel;
+	}
+
+	@Override
+	public boolean isAlive() {
+		return alive;
+	}
+
+	/**
+	 * Simulate a motor safety timeout.
+	 * @param alive - {@literal false} to simulate a timed out motor controller.
+	 */
+	public void setAlive(boolean alive) {
+		this.alive = alive;
+	}
+
+	@Override
+	public void stopMotor() {
+		speed = 0.0d;
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "Speed Controller";
+	}
+}
@@ -0,0 +1,44 @@
+package robot.hal.sim;
+
+import robot.hal.PowerDistribution;
+
+/**
+ * An in-memory {@link PowerDistribution} panel.
+ */
+public class SimPowerDistribution extends SimDevice implements PowerDistribution {
+
+	private final double [] currentArr = new double [CHANNEL_COUNT];
+	private double voltage = 12.5d;
+
+	@Override
+	public double getCurrent(int channel) {
+		return currentArr[channel];
+	}
+
+	@Override
+	public double getVoltage() {
+		return voltage;
+	}
+
+	@Override
+	public double getTotalCurrent() {
+		double total = 0.0d;
+		for (int i=0; i<CHANNEL_COUNT; i++) {
+			total += currentArr[i];
+		}
+		return total;
+	}
+
+	public void setCurrent(int channel, double current) {
+		currentArr[channel] = current;
+	}
+
+	public void setVoltage(double voltage) {
+		this.voltage = voltage;
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "PowerDistributionPanel";
+	}
+}
@@ -0,0 +1,21 @@
+package robot.hal.sim;
+
+import robot.hal.RelayOutput;
+import edu.wpi.first.wpilibj.Relay;
+
+/**
+ * An in-memory {@link RelayOutput}.
+ */
+public class SimRelay implements RelayOutput {
+
+	private Relay.Value value = Relay.Value.kOff;
+
+	@Override
+	public void set(Relay.Value value) {
+		this.value = value;
+	}
+
+	public Relay.Value get() {
+		return value;
+	}
+}
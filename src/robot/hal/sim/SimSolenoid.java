@@ -0,0 +1,26 @@
+package robot.hal.sim;
+
+import robot.hal.SolenoidOutput;
+
+/**
+ * An in-memory {@link SolenoidOutput}.
+ */
+public class SimSolenoid extends SimDevice implements SolenoidOutput {
+
+	private boolean on = false;
+
+	@Override
+	public void set(boolean on) {
+		this.on = on;
+	}
+
+	@Override
+	public boolean get() {
+		return on;
+	}
+
+	@Override
+	public String getSmartDashboardType() {
+		return "Solenoid";
+	}
+}
@@ -0,0 +1,17 @@
+package robot.hal.wpilib;
+
+import robot.hal.EdgeCounter;
+import edu.wpi.first.wpilibj.Counter;
+import edu.wpi.first.wpilibj.DigitalInput;
+
+/**
+ * A WPILib Counter used as an {@link EdgeCounter}.
+ */
+public class WpilibCounter extends Counter implements EdgeCounter {
+
+	public WpilibCounter(DigitalInput input, boolean risingEdge, boolean fallingEdge) {
+		super(input);
+		setUpSourceEdge(risingEdge, fallingEdge);
+		reset();
+	}
+}
@@ -0,0 +1,14 @@
+package robot.hal.wpilib;
+
+import robot.hal.DigitalSensor;
+import edu.wpi.first.wpilibj.DigitalInput;
+
+/**
+ * A WPILib DigitalInput used as a {@link DigitalSensor}.
+ */
+public class WpilibDigitalInput extends DigitalInput implements DigitalSensor {
+
+	public WpilibDigitalInput(int channel) {
+		super(channel);
+	}
+}
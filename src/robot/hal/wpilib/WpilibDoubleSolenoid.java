@@ -0,0 +1,14 @@
+package robot.hal.wpilib;
+
+import robot.hal.DoubleSolenoidOutput;
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+
+/**
+ * A WPILib DoubleSolenoid used as a {@link DoubleSolenoidOutput}.
+ */
+public class WpilibDoubleSolenoid extends DoubleSolenoid implements DoubleSolenoidOutput {
+
+	public WpilibDoubleSolenoid(int forwardChannel, int reverseChannel) {
+		super(forwardChannel, reverseChannel);
+	}
+}
@@ -0,0 +1,14 @@
+package robot.hal.wpilib;
+
+import robot.hal.QuadratureEncoder;
+import edu.wpi.first.wpilibj.Encoder;
+
+/**
+ * A WPILib Encoder used as a {@link QuadratureEncoder}.
+ */
+public class WpilibEncoder extends Encoder implements QuadratureEncoder {
+
+	public WpilibEncoder(int aChannel, int bChannel, boolean reverseDirection) {
+		super(aChannel, bChannel, reverseDirection);
+	}
+}
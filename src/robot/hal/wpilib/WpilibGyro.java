@@ -0,0 +1,14 @@
+package robot.hal.wpilib;
+
+import robot.hal.RateGyro;
+import edu.wpi.first.wpilibj.Gyro;
+
+/**
+ * A WPILib analog Gyro used as a {@link RateGyro}.
+ */
+public class WpilibGyro extends Gyro implements RateGyro {
+
+	public WpilibGyro(int channel) {
+		super(channel);
+	}
+}
@@ -0,0 +1,79 @@
+package robot.hal.wpilib;
+
+import robot.hal.DigitalSensor;
+import robot.hal.DoubleSolenoidOutput;
+import robot.hal.EdgeCounter;
+import robot.hal.HardwareFactory;
+import robot.hal.Motor;
+import robot.hal.PowerDistribution;
+import robot.hal.QuadratureEncoder;
+import robot.hal.RateGyro;
+import robot.hal.RelayOutput;
+import robot.hal.SolenoidOutput;
+import edu.wpi.first.wpilibj.CameraServer;
+import edu.wpi.first.wpilibj.DigitalInput;
+
+/**
+ * The HardwareFactory used on the robot.  All devices are backed by WPILib objects.
+ */
+public class WpilibHardware implements HardwareFactory {
+
+	@Override
+	public Motor motor(int pwmChannel) {
+		return new WpilibTalon(pwmChannel);
+	}
+
+	@Override
+	public QuadratureEncoder encoder(int aChannel, int bChannel, boolean reverseDirection) {
+		return new WpilibEncoder(aChannel, bChannel, reverseDirection);
+	}
+
+	@Override
+	public RateGyro gyro(int analogChannel) {
+		return new WpilibGyro(analogChannel);
+	}
+
+	@Override
+	public DigitalSensor digitalInput(int channel) {
+		return new WpilibDigitalInput(channel);
+	}
+
+	@Override
+	public EdgeCounter edgeCounter(DigitalSensor input, boolean risingEdge, boolean fallingEdge) {
+		
+		// The WPILib counter must be attached to a WPILib digital input.
+		if (!(input instanceof DigitalInput)) {
+			throw new IllegalArgumentException("Digital input on channel " + input.getChannel() 
+					+ " was not created by the WpilibHardware factory");
+		}
+		
+		return new WpilibCounter((DigitalInput) input, risingEdge, fallingEdge);
+	}
+
+	@Override
+	public SolenoidOutput solenoid(int channel) {
+		return new WpilibSolenoid(channel);
+	}
+
+	@Override
+	public DoubleSolenoidOutput doubleSolenoid(int forwardChannel, int reverseChannel) {
+		return new WpilibDoubleSolenoid(forwardChannel, reverseChannel);
+	}
+
+	@Override
+	public RelayOutput relay(int channel) {
+		return new WpilibRelay(channel);
+	}
+
+	@Override
+	public PowerDistribution powerDistribution() {
+		return new WpilibPowerDistribution();
+	}
+
+	@Override
+	public void startCameraCapture(String cameraName, int quality) {
+		CameraServer server = CameraServer.getInstance();
+		server.setQuality(quality);
+		server.startAutomaticCapture(cameraName);
+	}
+}
@@ -0,0 +1,10 @@
+package robot.hal.wpilib;
+
+import robot.hal.PowerDistribution;
+import edu.wpi.first.wpilibj.PowerDistributionPanel;
+
+/**
+ * The WPILib PowerDistributionPanel used as a {@link PowerDistribution}.
+ */
+public class WpilibPowerDistribution extends PowerDistributionPanel implements PowerDistribution {
+}
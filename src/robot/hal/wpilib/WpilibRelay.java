@@ -0,0 +1,14 @@
+package robot.hal.wpilib;
+
+import robot.hal.RelayOutput;
+import edu.wpi.first.wpilibj.Relay;
+
+/**
+ * A WPILib Relay used as a {@link RelayOutput}.
+ */
+public class WpilibRelay extends Relay implements RelayOutput {
+
+	public WpilibRelay(int channel) {
+		super(channel);
+	}
+}
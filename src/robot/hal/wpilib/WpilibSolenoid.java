@@ -0,0 +1,14 @@
+package robot.hal.wpilib;
+
+import robot.hal.SolenoidOutput;
+import edu.wpi.first.wpilibj.Solenoid;
+
+/**
+ * A WPILib Solenoid used as a {@link SolenoidOutput}.
+ */
+public class WpilibSolenoid extends Solenoid implements SolenoidOutput {
+
+	public WpilibSolenoid(int channel) {
+		super(channel);
+	}
+}
@@ -0,0 +1,14 @@
+package robot.hal.wpilib;
+
+import robot.hal.Motor;
+import edu.wpi.first.wpilibj.Talon;
+
+/**
+ * A WPILib Talon used as a {@link Motor}.
+ */
+public class WpilibTalon extends Talon implements Motor {
+
+	public WpilibTalon(int channel) {
+		super(channel);
+	}
+}
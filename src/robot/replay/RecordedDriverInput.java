@@ -0,0 +1,60 @@
+package robot.replay;
+
+import robot.DriverInput;
+import robot.PolarCoordinate;
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ChassisSubsystem.PIDEnable;
+import robot.telemetry.FlightRecorder.Channel;
+import robot.telemetry.FlightRecording;
+
+/**
+ * Driver inputs played back from a flight recording.
+ */
+public class RecordedDriverInput implements DriverInput {
+
+	private final PolarCoordinate driverPolarCoordinate = new PolarCoordinate();
+
+	private FlightRecording recording = null;
+	private int record = 0;
+
+	/**
+	 * Select the record to play back.
+	 * @param recording
+	 * @param record - the record index in the recording
+	 */
+	public void setRecord(FlightRecording recording, int record) {
+		this.recording = recording;
+		this.record = record;
+	}
+
+	@Override
+	public PolarCoordinate getDriverPolarCoordinate() {
+		return driverPolarCoordinate.set(
+				recording.get(record, Channel.DRIVER_R), 
+				recording.get(record, Channel.DRIVER_THETA));
+	}
+
+	@Override
+	public double getDriverRotation() {
+		return recording.get(record, Channel.DRIVER_ROTATION);
+	}
+
+	@Override
+	public DriveMode getDriveMode() {
+		return recording.getBoolean(record, Channel.DRIVER_ROBOT_RELATIVE) ? DriveMode.ROBOT_RELATIVE : DriveMode.FIELD_RELATIVE;
+	}
+
+	@Override
+	public boolean getAccelerationOverride() {
+		return recording.getBoolean(record, Channel.DRIVER_ACCELERATION_OVERRIDE);
+	}
+
+	/**
+	 * The PID switches are not recorded.  The teleop drive always enables the PIDs.
+	 */
+	@Override
+	public PIDEnable getRotationPIDEnable() { return PIDEnable.ENABLED; }
+
+	@Override
+	public PIDEnable getMotorPIDEnable() { return PIDEnable.ENABLED; }
+}
@@ -0,0 +1,210 @@
+package robot.replay;
+
+import robot.Clock;
+import robot.Robot;
+import robot.RobotMap;
+import robot.VirtualClock;
+import robot.commands.TeleopDriveCommand;
+import robot.control.ControlLoop;
+import robot.control.PIDEngine;
+import robot.control.VelocityEstimator;
+import robot.hal.sim.SimHardware;
+import robot.subsystems.RunnymedeSubsystem;
+import robot.subsystems.ToteElevatorSubsystem;
+import robot.subsystems.ToteElevatorSubsystem.ToteElevatorLevel;
+import robot.telemetry.FlightRecorder.Channel;
+import robot.telemetry.FlightRecording;
+
+/**
+ * Replay a flight recording through the robot subsystems.
+ * <p>
+ * The recorded sensor values are written into the simulated hardware, the chassis is driven
+ * from the recorded driver inputs through the {@link TeleopDriveCommand}, the tote elevator is 
+ * driven to the recorded levels, and the control loops are stepped.  The motor outputs produced by the code
+ * are then compared with the recorded motor outputs.  There are no delays, so a recording
+ * replays many times faster than real time.
+ * <p>
+ * The Robot subsystems must have been created on the given SimHardware (set the 
+ * {@link RobotMap#hardware} before the Robot class is loaded), and the given VirtualClock must
+ * be the {@link Clock}.  The clock is advanced by the recorded time between records, so timers 
+ * and ramps run on the recording time.
+ * <p>
+ * The OI default commands are not replayed.
+ */
+public class ReplayHarness {
+
+	/** The motor output difference that counts as a mismatch */
+	public static final double DEFAULT_TOLERANCE = 0.02d;
+
+	private static final Channel[] COMPARED_CHANNELS = {
+		Channel.FRONT_LEFT_OUTPUT, Channel.REAR_LEFT_OUTPUT, Channel.FRONT_RIGHT_OUTPUT, Channel.REAR_RIGHT_OUTPUT,
+		Channel.TOTE_ELEVATOR_OUTPUT };
+
+	private static final ToteElevatorLevel[] TOTE_ELEVATOR_LEVELS = ToteElevatorLevel.values();
+
+	private final SimHardware  hardware;
+	private final VirtualClock clock;
+	private final double       tolerance;
+
+	private final int[] comparedMotorChannels = {
+		RobotMap.FRONT_LEFT_MOTOR, RobotMap.REAR_LEFT_MOTOR, RobotMap.FRONT_RIGHT_MOTOR, RobotMap.REAR_RIGHT_MOTOR,
+		RobotMap.TOTE_ELEVATOR_MOTOR };
+
+	private final RunnymedeSubsystem[] subsystemArr = {
+		Robot.chassisSubsystem, Robot.toteElevatorSubsystem, Robot.containerElevatorSubsystem, Robot.powerSubsystem };
+
+	// The control loops run after the drive sets the setpoints, as many times per tick as they 
+	// run on the robot.
+	private final ControlLoop[] controlLoopArr = { VelocityEstimator.getInstance(), PIDEngine.getInstance(), Robot.chassisSubsystem };
+
+	private final int controlStepsPerTick = (int) Math.round(RobotMap.CONTROL_LOOP_RATE * 0.02d);
+
+	private final RecordedDriverInput driverInput = new RecordedDriverInput();
+
+	private TeleopDriveCommand teleopDriveCommand;
+
+	private boolean toteElevatorActive = false;
+	private boolean prevToteElevatorEnabled = false;
+	private int     prevToteElevatorLevel = -1;
+
+	public ReplayHarness(SimHardware hardware, VirtualClock clock) {
+		this(hardware, clock, DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * @param hardware - the simulated hardware the Robot subsystems were created on
+	 * @param clock - the robot clock, advanced by the replay
+	 * @param tolerance - the motor output difference that counts as a mismatch
+	 */
+	public ReplayHarness(SimHardware hardware, VirtualClock clock, double tolerance) {
+
+		if (Clock.getInstance() != clock) {
+			throw new IllegalStateException("The replay clock must be installed before the robot code is started");
+		}
+
+		this.hardware  = hardware;
+		this.clock     = clock;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Replay a recording from a freshly enabled robot.
+	 * @param recording
+	 * @return ReplayResult - the output comparison
+	 */
+	public ReplayResult replay(FlightRecording recording) {
+
+		ReplayResult result = new ReplayResult(COMPARED_CHANNELS, tolerance);
+
+		reset();
+
+		long startNanos = System.nanoTime();
+
+		for (int record=0; record<recording.getRecordCount(); record++) {
+
+			if (record > 0) {
+				clock.advanceNanos(Math.max(0, recording.getTimeNanos(record) - recording.getTimeNanos(record-1)));
+			}
+
+			setSensors(recording, record);
+
+			for (RunnymedeSubsystem subsystem : subsystemArr) {
+				subsystem.readSensors();
+			}
+
+			driverInput.setRecord(recording, record);
+			teleopDriveCommand.drive(driverInput);
+
+			driveToteElevator(recording, record);
+
+			Robot.chassisSubsystem.writeOutputs();
+
+			for (int step=0; step<controlStepsPerTick; step++) {
+				for (ControlLoop controlLoop : controlLoopArr) {
+					controlLoop.controlPeriodic();
+				}
+			}
+
+			for (int i=0; i<COMPARED_CHANNELS.length; i++) {
+				result.compare(i, recording.get(record, COMPARED_CHANNELS[i]), 
+						hardware.getMotor(comparedMotorChannels[i]).get());
+			}
+			result.endTick();
+		}
+
+		result.setTiming(System.nanoTime() - startNanos, recording.getDurationSeconds());
+
+		return result;
+	}
+
+	private void reset() {
+
+		for (RunnymedeSubsystem subsystem : subsystemArr) {
+			subsystem.disableSubsystem();
+		}
+		for (RunnymedeSubsystem subsystem : subsystemArr) {
+			subsystem.enableSubsystem();
+		}
+
+		// The teleop drive command holds the acceleration ramp, so a new command is used for each replay.
+		teleopDriveCommand = new TeleopDriveCommand();
+
+		toteElevatorActive = false;
+		prevToteElevatorEnabled = false;
+		prevToteElevatorLevel = -1;
+	}
+
+	private void setSensors(FlightRecording recording, int record) {
+
+		setEncoder(RobotMap.FRONT_LEFT_ENCODER_ONE,  recording.get(record, Channel.FRONT_LEFT_ENCODER),  recording.get(record, Channel.FRONT_LEFT_ENCODER_RATE));
+		setEncoder(RobotMap.REAR_LEFT_ENCODER_ONE,   recording.get(record, Channel.REAR_LEFT_ENCODER),   recording.get(record, Channel.REAR_LEFT_ENCODER_RATE));
+		setEncoder(RobotMap.FRONT_RIGHT_ENCODER_ONE, recording.get(record, Channel.FRONT_RIGHT_ENCODER), recording.get(record, Channel.FRONT_RIGHT_ENCODER_RATE));
+		setEncoder(RobotMap.REAR_RIGHT_ENCODER_ONE,  recording.get(record, Channel.REAR_RIGHT_ENCODER),  recording.get(record, Channel.REAR_RIGHT_ENCODER_RATE));
+
+		// The recorded angle already includes the gyro offset, and the replay gyro has no offset.
+		hardware.getGyro(RobotMap.GYRO_PORT).setAngle(recording.get(record, Channel.GYRO_ANGLE));
+		hardware.getGyro(RobotMap.GYRO_PORT).setRate (recording.get(record, Channel.GYRO_RATE));
+
+		setEncoder(RobotMap.TOTE_ELEVATOR_ENCODER_ONE, recording.get(record, Channel.TOTE_ELEVATOR_ENCODER), recording.get(record, Channel.TOTE_ELEVATOR_ENCODER_RATE));
+		hardware.getDigitalInput(RobotMap.TOTE_ELEVATOR_UPPER_LIMIT_SWITCH).set(recording.getBoolean(record, Channel.TOTE_ELEVATOR_UPPER_LIMIT));
+		hardware.getDigitalInput(RobotMap.TOTE_ELEVATOR_LOWER_LIMIT_SWITCH).set(recording.getBoolean(record, Channel.TOTE_ELEVATOR_LOWER_LIMIT));
+
+		setEncoder(RobotMap.CONTAINER_ELEVATOR_ENCODER_ONE, recording.get(record, Channel.CONTAINER_ELEVATOR_ENCODER), recording.get(record, Channel.CONTAINER_ELEVATOR_ENCODER_RATE));
+
+		hardware.getPowerDistribution().setVoltage(recording.get(record, Channel.BATTERY_VOLTAGE));
+	}
+
+	private void setEncoder(int aChannel, double count, double rate) {
+		hardware.getEncoder(aChannel).setCount(count);
+		hardware.getEncoder(aChannel).setRate(rate);
+	}
+
+	/**
+	 * Drive the tote elevator the way the DriveToteElevatorCommand does, starting a new 
+	 * drive whenever the recorded elevator is enabled or its level changes.
+	 */
+	private void driveToteElevator(FlightRecording recording, int record) {
+
+		ToteElevatorSubsystem toteElevator = Robot.toteElevatorSubsystem;
+
+		boolean enabled = recording.getBoolean(record, Channel.TOTE_ELEVATOR_ENABLED);
+		int     level   = (int) recording.get(record, Channel.TOTE_ELEVATOR_LEVEL);
+
+		if (enabled && level >= 0 && (!prevToteElevatorEnabled || level != prevToteElevatorLevel)) {
+			toteElevator.initDriveToLevel(TOTE_ELEVATOR_LEVELS[level]);
+			toteElevatorActive = true;
+		}
+
+		prevToteElevatorEnabled = enabled;
+		prevToteElevatorLevel = level;
+
+		if (!toteElevatorActive) { return; }
+
+		toteElevator.driveToLevel();
+
+		if (toteElevator.onTarget()) {
+			toteElevator.disableSubsystem();
+			toteElevatorActive = false;
+		}
+	}
+}
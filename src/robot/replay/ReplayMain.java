@@ -0,0 +1,89 @@
+package robot.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import robot.Clock;
+import robot.Robot;
+import robot.RobotMap;
+import robot.VirtualClock;
+import robot.hal.sim.SimHardware;
+import robot.telemetry.FlightRecording;
+import edu.wpi.first.wpilibj.HLUsageReporting;
+
+/**
+ * Replay flight recorder files on a desktop JVM and report the output comparison.
+ * <p>
+ * Usage: ReplayMain &lt;file or directory&gt;...  Directories are searched for *.dat files.
+ * The exit code is 1 if any recording does not match.
+ */
+public class ReplayMain {
+
+	public static void main(String[] args) throws IOException {
+
+		if (args.length == 0) {
+			System.out.println("Usage: ReplayMain <flight recorder file or directory>...");
+			System.exit(2);
+		}
+
+		// The subsystems must be created on the simulated hardware and clock, so the hardware 
+		// and clock are installed before the Robot class is loaded.
+		HLUsageReporting.SetImplementation(new HLUsageReporting.Null());
+
+		SimHardware hardware = new SimHardware();
+		RobotMap.hardware = hardware;
+
+		VirtualClock clock = new VirtualClock();
+		Clock.setInstance(clock);
+
+		Robot.chassisSubsystem.initSubsystem();
+		Robot.toteElevatorSubsystem.initSubsystem();
+		Robot.containerElevatorSubsystem.initSubsystem();
+
+		ReplayHarness harness = new ReplayHarness(hardware, clock);
+
+		List<File> fileLs = new ArrayList<File>();
+		for (String arg : args) {
+			addFiles(new File(arg), fileLs);
+		}
+
+		boolean allMatch = true;
+		double recordedSeconds = 0;
+		long startNanos = System.nanoTime();
+
+		for (File file : fileLs) {
+			for (FlightRecording recording : FlightRecording.read(file)) {
+
+				ReplayResult result = harness.replay(recording);
+
+				System.out.println(file.getName() + " boot " + recording.getBootCount() + ": " + result);
+
+				allMatch &= result.isMatch();
+				recordedSeconds += recording.getDurationSeconds();
+			}
+		}
+
+		double replaySeconds = (System.nanoTime() - startNanos) / 1.0e9d;
+		System.out.println(String.format("Replayed %.1f s of recordings in %.1f s", recordedSeconds, replaySeconds));
+
+		System.exit(allMatch ? 0 : 1);
+	}
+
+	private static void addFiles(File file, List<File> fileLs) {
+
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children == null) { return; }
+			for (File child : children) {
+				if (child.isDirectory() || child.getName().endsWith(".dat")) {
+					addFiles(child, fileLs);
+				}
+			}
+			return;
+		}
+
+		fileLs.add(file);
+	}
+}
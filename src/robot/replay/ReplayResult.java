@@ -0,0 +1,99 @@
+package robot.replay;
+
+import robot.telemetry.FlightRecorder.Channel;
+
+/**
+ * The comparison of the replayed motor outputs with the recorded motor outputs.
+ */
+public class ReplayResult {
+
+	private final Channel[] channels;
+	private final double    tolerance;
+
+	private final double[] maxError;
+	private final double[] sumSquaredError;
+	private final int[]    mismatchCount;
+
+	private int  tickCount = 0;
+	private long replayNanos = 0;
+	private double recordedSeconds = 0;
+
+	ReplayResult(Channel[] channels, double tolerance) {
+		this.channels        = channels;
+		this.tolerance       = tolerance;
+		this.maxError        = new double[channels.length];
+		this.sumSquaredError = new double[channels.length];
+		this.mismatchCount   = new int[channels.length];
+	}
+
+	void compare(int index, double recorded, double replayed) {
+
+		double error = Math.abs(replayed - recorded);
+
+		if (error > maxError[index]) { maxError[index] = error; }
+		sumSquaredError[index] += error * error;
+		if (error > tolerance) { mismatchCount[index]++; }
+	}
+
+	void endTick() { tickCount++; }
+
+	void setTiming(long replayNanos, double recordedSeconds) {
+		this.replayNanos = replayNanos;
+		this.recordedSeconds = recordedSeconds;
+	}
+
+	public int getTickCount() { return tickCount; }
+
+	/** @return boolean - {@code true} if every compared output was within the tolerance on every tick */
+	public boolean isMatch() {
+		for (int count : mismatchCount) {
+			if (count > 0) { return false; }
+		}
+		return true;
+	}
+
+	public double getMaxError(Channel channel) {
+		return maxError[indexOf(channel)];
+	}
+
+	public double getRmsError(Channel channel) {
+		if (tickCount == 0) { return 0; }
+		return Math.sqrt(sumSquaredError[indexOf(channel)] / tickCount);
+	}
+
+	public int getMismatchCount(Channel channel) {
+		return mismatchCount[indexOf(channel)];
+	}
+
+	/** @return double - the recorded time divided by the replay time */
+	public double getSpeedup() {
+		if (replayNanos == 0) { return 0; }
+		return recordedSeconds / (replayNanos / 1.0e9d);
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(isMatch() ? "MATCH" : "MISMATCH")
+		  .append(" ticks=").append(tickCount)
+		  .append(String.format(" recorded=%.1fs replay=%.3fs speedup=%.0fx", 
+				  recordedSeconds, replayNanos / 1.0e9d, getSpeedup()));
+
+		for (int i=0; i<channels.length; i++) {
+			sb.append(String.format("%n  %-28s max=%.4f rms=%.4f mismatches=%d",
+					channels[i], maxError[i], 
+					(tickCount == 0) ? 0 : Math.sqrt(sumSquaredError[i] / tickCount), mismatchCount[i]));
+		}
+
+		return sb.toString();
+	}
+
+	private int indexOf(Channel channel) {
+		for (int i=0; i<channels.length; i++) {
+			if (channels[i] == channel) { return i; }
+		}
+		throw new IllegalArgumentException("Channel " + channel + " is not compared");
+	}
+}
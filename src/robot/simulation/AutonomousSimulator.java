@@ -0,0 +1,287 @@
+package robot.simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import robot.Clock;
+import robot.DriverInput;
+import robot.PolarCoordinate;
+import robot.Robot;
+import robot.RobotMap;
+import robot.VirtualClock;
+import robot.control.ControlLoop;
+import robot.control.PIDEngine;
+import robot.control.VelocityEstimator;
+import robot.hal.sim.SimHardware;
+import robot.subsystems.ChassisSubsystem.DriveMode;
+import robot.subsystems.ChassisSubsystem.PIDEnable;
+import robot.subsystems.RunnymedeSubsystem;
+import edu.wpi.first.wpilibj.RobotState;
+import edu.wpi.first.wpilibj.command.Command;
+import edu.wpi.first.wpilibj.command.Scheduler;
+import edu.wpi.first.wpilibj.command.Subsystem;
+
+/**
+ * Run autonomous routines headless against the {@link RobotModel} on simulated time.
+ * <p>
+ * Each run follows the robot loop: the sensors are read, the WPILib scheduler runs the
+ * commands, the outputs are written, and the control loops are stepped as many times per loop
+ * as they run on the robot while the model moves the mechanisms.  There are no delays, so a
+ * 15 second routine runs in a few milliseconds.
+ * <p>
+ * The Robot subsystems must have been created on the given SimHardware, the given VirtualClock
+ * must be the {@link Clock}, and the {@link VirtualTimer} and {@link AutonomousRobotState} must be
+ * installed in WPILib before the routines are created.
+ * <p>
+ * The teleop default commands read the OI, which does not exist in the simulation.  They are held
+ * off by an idle command that requires every subsystem that the routine does not use.  The
+ * commands that read the {@link Robot#driverInput} see an {@link IdleDriverInput}.
+ */
+public class AutonomousSimulator {
+
+	/** The length of the autonomous period in seconds */
+	public static final double AUTONOMOUS_PERIOD = 15.0d;
+
+	/** Runs are stopped after this time if the routine has not finished */
+	public static final double DEFAULT_MAX_TIME = 20.0d;
+
+	/** The range of the model parameters for the Monte Carlo runs, as {min, max} */
+	private static final double [] DRIVE_SPEED_FACTOR_RANGE    = { 0.85d, 1.05d };
+	private static final double [] ELEVATOR_SPEED_FACTOR_RANGE = { 0.85d, 1.05d };
+	private static final double [] INTAKE_TIME_RANGE           = { 0.3d,  0.8d  };
+
+	private static final double LOOP_PERIOD = 0.02d;
+
+	private final VirtualClock clock;
+	private final RobotModel   model;
+
+	private final RunnymedeSubsystem[] subsystemArr = {
+		Robot.powerSubsystem, Robot.chassisSubsystem, Robot.sensorSubsystem,
+		Robot.toteElevatorSubsystem, Robot.containerElevatorSubsystem };
+
+	// The subsystems with teleop default commands.
+	private final Subsystem[] teleopSubsystemArr = {
+		Robot.chassisSubsystem, Robot.toteIntakeSubsystem, Robot.containerElevatorSubsystem };
+
+	private final ControlLoop[] controlLoopArr = { VelocityEstimator.getInstance(), PIDEngine.getInstance(), Robot.chassisSubsystem };
+
+	private final int    controlStepsPerLoop = (int) Math.round(RobotMap.CONTROL_LOOP_RATE * LOOP_PERIOD);
+	private final double controlStepTime     = LOOP_PERIOD / controlStepsPerLoop;
+
+	/**
+	 * @param hardware - the simulated hardware the Robot subsystems were created on
+	 * @param clock - the robot clock, advanced by the simulation
+	 */
+	public AutonomousSimulator(SimHardware hardware, VirtualClock clock) {
+
+		if (Clock.getInstance() != clock) {
+			throw new IllegalStateException("The simulation clock must be installed before the robot code is started");
+		}
+
+		this.clock = clock;
+		this.model = new RobotModel(hardware);
+
+		Robot.driverInput = new IdleDriverInput();
+	}
+
+	/** @return RobotModel - the model, to set the parameters for the next run */
+	public RobotModel getModel() { return model; }
+
+	/**
+	 * Run the routine once from the start of autonomous with the current model parameters.
+	 * @param routine - the autonomous command
+	 * @param timeline - the timeline of the routine, filled in by the run
+	 * @param maxTime - the time in seconds after which the run is stopped
+	 * @return AutonomousTimeline - the timeline
+	 */
+	public AutonomousTimeline run(Command routine, AutonomousTimeline timeline, double maxTime) {
+
+		reset();
+		timeline.reset();
+
+		Scheduler.getInstance().add(new IdleCommand(routine, teleopSubsystemArr));
+		Scheduler.getInstance().add(routine);
+
+		double startTime = clock.getTimeSeconds();
+		double time      = 0.0d;
+
+		try {
+			while (time < maxTime) {
+
+				for (RunnymedeSubsystem subsystem : subsystemArr) {
+					subsystem.readSensors();
+				}
+
+				Scheduler.getInstance().run();
+
+				Robot.chassisSubsystem.writeOutputs();
+
+				// The routine is added to the scheduler on the first run, so it is running until it finishes.
+				if (!routine.isRunning()) {
+					timeline.end(time, true);
+					return timeline;
+				}
+
+				timeline.update(time, model.isMoving());
+
+				for (int step=0; step<controlStepsPerLoop; step++) {
+					clock.advanceSeconds(controlStepTime);
+					model.update(controlStepTime);
+					for (ControlLoop controlLoop : controlLoopArr) {
+						controlLoop.controlPeriodic();
+					}
+				}
+
+				time = clock.getTimeSeconds() - startTime;
+			}
+
+			timeline.end(time, false);
+			return timeline;
+
+		} finally {
+			Scheduler.getInstance().removeAll();
+			for (RunnymedeSubsystem subsystem : subsystemArr) {
+				subsystem.disableSubsystem();
+			}
+		}
+	}
+
+	/**
+	 * Run the routine many times with random model parameters.
+	 * @param routine - the autonomous command
+	 * @param runs - the number of runs
+	 * @param seed - the random seed, so that a set of runs can be repeated
+	 * @param maxTime - the time in seconds after which a run is stopped
+	 * @return double[] - the total time of each run in seconds, sorted, with the runs that timed
+	 * out at the end as {@link Double#POSITIVE_INFINITY}.
+	 */
+	public double[] runMonteCarlo(Command routine, int runs, long seed, double maxTime) {
+
+		Random random = new Random(seed);
+
+		AutonomousTimeline timeline = new AutonomousTimeline(routine);
+
+		double[] totalTimeArr = new double[runs];
+
+		for (int i=0; i<runs; i++) {
+
+			model.setParameters(
+					nextDouble(random, DRIVE_SPEED_FACTOR_RANGE),
+					nextDouble(random, ELEVATOR_SPEED_FACTOR_RANGE),
+					nextDouble(random, INTAKE_TIME_RANGE));
+
+			run(routine, timeline, maxTime);
+
+			totalTimeArr[i] = timeline.isComplete() ? timeline.getTotalTime() : Double.POSITIVE_INFINITY;
+		}
+
+		Arrays.sort(totalTimeArr);
+
+		return totalTimeArr;
+	}
+
+	private void reset() {
+
+		Scheduler.getInstance().removeAll();
+
+		for (RunnymedeSubsystem subsystem : subsystemArr) {
+			subsystem.disableSubsystem();
+		}
+
+		// The intake is not a loop subsystem, and keeps its rollers running until it is stopped.
+		Robot.toteIntakeSubsystem.disableSubsystem();
+
+		model.reset();
+
+		Robot.chassisSubsystem.resetEncoders();
+		Robot.chassisSubsystem.resetGyro(0);
+		Robot.chassisSubsystem.resetFieldPosition(0.0d, 0.0d);
+		Robot.toteElevatorSubsystem.resetEncoders();
+
+		for (RunnymedeSubsystem subsystem : subsystemArr) {
+			subsystem.enableSubsystem();
+		}
+	}
+
+	private static double nextDouble(Random random, double[] range) {
+		return range[0] + random.nextDouble() * (range[1] - range[0]);
+	}
+
+	/**
+	 * The robot state for the simulation: enabled in autonomous.
+	 */
+	public static class AutonomousRobotState implements RobotState.Interface {
+
+		@Override
+		public boolean isDisabled() { return false; }
+
+		@Override
+		public boolean isEnabled() { return true; }
+
+		@Override
+		public boolean isOperatorControl() { return false; }
+
+		@Override
+		public boolean isAutonomous() { return true; }
+
+		@Override
+		public boolean isTest() { return false; }
+	}
+
+	/**
+	 * The driver inputs with the driver hands off of the sticks, and the OI defaults.
+	 */
+	public static class IdleDriverInput implements DriverInput {
+
+		private final PolarCoordinate centered = new PolarCoordinate();
+
+		@Override
+		public PolarCoordinate getDriverPolarCoordinate() { return centered.set(0.0d, 0.0d); }
+
+		@Override
+		public double getDriverRotation() { return 0.0d; }
+
+		@Override
+		public DriveMode getDriveMode() { return DriveMode.FIELD_RELATIVE; }
+
+		@Override
+		public boolean getAccelerationOverride() { return false; }
+
+		@Override
+		public PIDEnable getRotationPIDEnable() { return PIDEnable.ENABLED; }
+
+		@Override
+		public PIDEnable getMotorPIDEnable() { return PIDEnable.ENABLED; }
+	}
+
+	/**
+	 * A command that does nothing, and holds the subsystems that the routine does not require
+	 * so that their default commands do not run.
+	 */
+	private static class IdleCommand extends Command {
+
+		IdleCommand(Command routine, Subsystem[] subsystemArr) {
+			super("Idle");
+			for (Subsystem subsystem : subsystemArr) {
+				if (!routine.doesRequire(subsystem)) {
+					requires(subsystem);
+				}
+			}
+		}
+
+		@Override
+		protected void initialize() { }
+
+		@Override
+		protected void execute() { }
+
+		@Override
+		protected boolean isFinished() { return false; }
+
+		@Override
+		protected void end() { }
+
+		@Override
+		protected void interrupted() { }
+	}
+}
@@ -0,0 +1,93 @@
+package robot.simulation;
+
+import robot.Clock;
+import robot.Robot;
+import robot.RobotMap;
+import robot.VirtualClock;
+import robot.hal.sim.SimHardware;
+import edu.wpi.first.wpilibj.HLUsageReporting;
+import edu.wpi.first.wpilibj.RobotState;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Simulate an autonomous routine on a desktop JVM and report its timeline and predicted time.
+ * <p>
+ * Usage: AutonomousSimulatorMain &lt;routine&gt; [runs] [seed]
+ * <p>
+ * The routine is a class name in the {@code robot.commands.autonomous.commandgroup} package, or
+ * a fully qualified class name, with a no argument constructor.  The routine is run once with the
+ * nominal model and its timeline is printed, and then it is run the given number of times (default
+ * 1000) with random model parameters and the spread of the total times is printed.  The exit code
+ * is 1 if any run does not finish inside the autonomous period.
+ */
+public class AutonomousSimulatorMain {
+
+	private static final String ROUTINE_PACKAGE = "robot.commands.autonomous.commandgroup";
+
+	private static final int DEFAULT_RUNS = 1000;
+
+	public static void main(String[] args) throws Exception {
+
+		if (args.length == 0) {
+			System.out.println("Usage: AutonomousSimulatorMain <routine> [runs] [seed]");
+			System.exit(2);
+		}
+
+		String routineName = args[0].indexOf('.') < 0 ? ROUTINE_PACKAGE + "." + args[0] : args[0];
+		int    runs        = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+		long   seed        = args.length > 2 ? Long.parseLong(args[2])    : 0L;
+
+		// The subsystems must be created on the simulated hardware and clock, so the hardware
+		// and clock are installed before the Robot class is loaded.
+		HLUsageReporting.SetImplementation(new HLUsageReporting.Null());
+		Timer.SetImplementation(new VirtualTimer());
+		RobotState.SetImplementation(new AutonomousSimulator.AutonomousRobotState());
+
+		SimHardware hardware = new SimHardware();
+		RobotMap.hardware = hardware;
+
+		VirtualClock clock = new VirtualClock();
+		Clock.setInstance(clock);
+
+		Robot.chassisSubsystem.initSubsystem();
+		Robot.toteElevatorSubsystem.initSubsystem();
+		Robot.containerElevatorSubsystem.initSubsystem();
+
+		Command routine = (Command) Class.forName(routineName).newInstance();
+
+		AutonomousSimulator simulator = new AutonomousSimulator(hardware, clock);
+
+		AutonomousTimeline timeline = simulator.run(routine, new AutonomousTimeline(routine), AutonomousSimulator.DEFAULT_MAX_TIME);
+		timeline.print(System.out);
+
+		if (runs <= 0) {
+			System.exit(timeline.isComplete() && timeline.getTotalTime() <= AutonomousSimulator.AUTONOMOUS_PERIOD ? 0 : 1);
+		}
+
+		long startNanos = System.nanoTime();
+
+		double[] totalTimeArr = simulator.runMonteCarlo(routine, runs, seed, AutonomousSimulator.DEFAULT_MAX_TIME);
+
+		double simulateSeconds = (System.nanoTime() - startNanos) / 1.0e9d;
+
+		int overCount = 0;
+		for (double totalTime : totalTimeArr) {
+			if (totalTime > AutonomousSimulator.AUTONOMOUS_PERIOD) { overCount++; }
+		}
+
+		System.out.println();
+		System.out.println(String.format("%d runs in %.1f s: min %.2f s, median %.2f s, 95%% %.2f s, max %.2f s",
+				runs, simulateSeconds,
+				totalTimeArr[0], percentile(totalTimeArr, 0.5d), percentile(totalTimeArr, 0.95d),
+				totalTimeArr[runs-1]));
+		System.out.println(String.format("%d runs (%.1f%%) over the %.0f s autonomous period",
+				overCount, overCount * 100.0d / runs, AutonomousSimulator.AUTONOMOUS_PERIOD));
+
+		System.exit(overCount == 0 ? 0 : 1);
+	}
+
+	private static double percentile(double[] sortedArr, double fraction) {
+		return sortedArr[Math.min(sortedArr.length - 1, (int) Math.floor(fraction * sortedArr.length))];
+	}
+}
@@ -0,0 +1,310 @@
+package robot.simulation;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.command.Command;
+import edu.wpi.first.wpilibj.command.CommandGroup;
+
+/**
+ * The timeline of one simulated autonomous run: when each command in the routine ran, when
+ * more than one command was running in parallel, and when the robot was idle.
+ * <p>
+ * The commands in the routine are found by walking the CommandGroup children.  WPILib does not
+ * expose the children of a CommandGroup, so they are read by reflection.  If the children cannot
+ * be read, only the top level command is shown.
+ * <p>
+ * A timeline can be {@link #reset()} and used again for the next run of the same routine.
+ */
+public class AutonomousTimeline {
+
+	/** The width of the bar chart in characters */
+	private static final int CHART_WIDTH = 60;
+
+	/** Idle and parallel intervals shorter than this are not listed */
+	private static final double MIN_LISTED_INTERVAL = 0.1d;
+
+	private final Command routine;
+
+	private final List<Command> commandLs = new ArrayList<Command>();
+	private final int     [] depthArr;
+	private final boolean [] leafArr;
+
+	private final double  [] startTimeArr;
+	private final double  [] endTimeArr;
+	private final boolean [] runningArr;
+
+	private final Intervals idleIntervals     = new Intervals();
+	private final Intervals parallelIntervals = new Intervals();
+
+	private double totalTime = 0.0d;
+	private boolean complete = false;
+
+	/**
+	 * @param routine - the autonomous command
+	 */
+	public AutonomousTimeline(Command routine) {
+
+		this.routine = routine;
+
+		List<Integer> depthLs = new ArrayList<Integer>();
+		addCommand(routine, 0, depthLs);
+
+		int size = commandLs.size();
+
+		depthArr     = new int     [size];
+		leafArr      = new boolean [size];
+		startTimeArr = new double  [size];
+		endTimeArr   = new double  [size];
+		runningArr   = new boolean [size];
+
+		for (int i=0; i<size; i++) {
+			depthArr[i] = depthLs.get(i);
+			leafArr [i] = i == size-1 || depthLs.get(i+1) <= depthArr[i];
+		}
+
+		reset();
+	}
+
+	/**
+	 * Clear the timeline for a new run.
+	 */
+	public void reset() {
+
+		for (int i=0; i<commandLs.size(); i++) {
+			startTimeArr[i] = Double.NaN;
+			endTimeArr  [i] = Double.NaN;
+			runningArr  [i] = false;
+		}
+
+		idleIntervals.clear();
+		parallelIntervals.clear();
+
+		totalTime = 0.0d;
+		complete  = false;
+	}
+
+	/**
+	 * Record the state of the commands after a robot loop.  A command that is running is counted 
+	 * from the start of the loop where it was first seen until the start of the loop where it was 
+	 * no longer running.
+	 * @param time - the time at the start of the loop since the start of the run in seconds
+	 * @param moving - {@code true} if any mechanism is moving
+	 */
+	public void update(double time, boolean moving) {
+
+		int runningLeafCount = 0;
+
+		for (int i=0; i<commandLs.size(); i++) {
+
+			boolean running = commandLs.get(i).isRunning();
+
+			if (running && Double.isNaN(startTimeArr[i])) {
+				startTimeArr[i] = time;
+			}
+			if (!running && runningArr[i]) {
+				endTimeArr[i] = time;
+			}
+			if (running && leafArr[i]) {
+				runningLeafCount++;
+			}
+
+			runningArr[i] = running;
+		}
+
+		idleIntervals    .update(time, !moving);
+		parallelIntervals.update(time, runningLeafCount > 1);
+
+		totalTime = time;
+	}
+
+	/**
+	 * End the run.
+	 * @param time - the time since the start of the run in seconds
+	 * @param complete - {@code true} if the routine finished, {@code false} if the run timed out.
+	 */
+	public void end(double time, boolean complete) {
+
+		for (int i=0; i<commandLs.size(); i++) {
+			if (runningArr[i]) {
+				endTimeArr[i] = time;
+			}
+		}
+
+		idleIntervals    .update(time, false);
+		parallelIntervals.update(time, false);
+
+		this.totalTime = time;
+		this.complete  = complete;
+	}
+
+	/** @return double - the time from the start of the routine until it finished or timed out, in seconds */
+	public double getTotalTime() { return totalTime; }
+
+	/** @return boolean - {@code true} if the routine finished before the run timed out */
+	public boolean isComplete() { return complete; }
+
+	/** @return double - the time the robot was not moving any mechanism, in seconds */
+	public double getIdleTime() { return idleIntervals.getTotal(); }
+
+	/** @return double - the time more than one command was running, in seconds */
+	public double getParallelTime() { return parallelIntervals.getTotal(); }
+
+	/**
+	 * Print the timeline as a table with a bar chart of each command, followed by the idle and
+	 * parallel intervals.
+	 * @param out - the stream to print to
+	 */
+	public void print(PrintStream out) {
+
+		double scale = CHART_WIDTH / Math.max(totalTime, 0.02d);
+
+		out.println(String.format("%-48s %7s %7s %7s", "Command", "Start", "End", "Time"));
+
+		for (int i=0; i<commandLs.size(); i++) {
+
+			StringBuilder name = new StringBuilder();
+			for (int d=0; d<depthArr[i]; d++) {
+				name.append("  ");
+			}
+			name.append(commandLs.get(i).getName());
+
+			if (Double.isNaN(startTimeArr[i])) {
+				out.println(String.format("%-48s %7s", name, "-"));
+				continue;
+			}
+
+			out.println(String.format("%-48s %7.2f %7.2f %7.2f |%s|", name,
+					startTimeArr[i], endTimeArr[i], endTimeArr[i] - startTimeArr[i],
+					bar(startTimeArr[i], endTimeArr[i], scale)));
+		}
+
+		out.println();
+		print(out, "Parallel", parallelIntervals, scale);
+		print(out, "Idle",     idleIntervals,     scale);
+
+		out.println();
+		out.println(String.format("%s %s in %.2f s (%.2f s parallel, %.2f s idle)",
+				routine.getName(), complete ? "finished" : "timed out",
+				totalTime, getParallelTime(), getIdleTime()));
+	}
+
+	private void print(PrintStream out, String label, Intervals intervals, double scale) {
+
+		for (int i=0; i<intervals.size(); i++) {
+
+			double start = intervals.getStart(i);
+			double end   = intervals.getEnd(i);
+
+			if (end - start < MIN_LISTED_INTERVAL) { continue; }
+
+			out.println(String.format("%-48s %7.2f %7.2f %7.2f |%s|", label,
+					start, end, end - start, bar(start, end, scale)));
+		}
+	}
+
+	private static String bar(double start, double end, double scale) {
+
+		int from = (int) Math.round(start * scale);
+		int to   = Math.max(from + 1, (int) Math.round(end * scale));
+
+		StringBuilder bar = new StringBuilder(CHART_WIDTH);
+		for (int i=0; i<CHART_WIDTH; i++) {
+			bar.append(i >= from && i < to ? '#' : ' ');
+		}
+
+		return bar.toString();
+	}
+
+	private void addCommand(Command command, int depth, List<Integer> depthLs) {
+
+		commandLs.add(command);
+		depthLs.add(depth);
+
+		if (command instanceof CommandGroup) {
+			for (Command child : getChildren((CommandGroup) command)) {
+				addCommand(child, depth+1, depthLs);
+			}
+		}
+	}
+
+	/*
+	 * The CommandGroup keeps its children in a Vector of entries, each holding the command.
+	 */
+	private static List<Command> getChildren(CommandGroup group) {
+
+		List<Command> childLs = new ArrayList<Command>();
+
+		try {
+			Field commandsField = CommandGroup.class.getDeclaredField("m_commands");
+			commandsField.setAccessible(true);
+
+			for (Object entry : (List<?>) commandsField.get(group)) {
+				Field commandField = entry.getClass().getDeclaredField("command");
+				commandField.setAccessible(true);
+				childLs.add((Command) commandField.get(entry));
+			}
+
+		} catch (Exception e) {
+			System.out.println("Unable to read the commands in " + group.getName() + ": " + e);
+			childLs.clear();
+		}
+
+		return childLs;
+	}
+
+	/**
+	 * The intervals where a condition was true, in flat arrays that grow as needed.
+	 */
+	private static class Intervals {
+
+		private double [] startArr = new double [16];
+		private double [] endArr   = new double [16];
+		private int    size        = 0;
+		private boolean active     = false;
+
+		void clear() {
+			size   = 0;
+			active = false;
+		}
+
+		void update(double time, boolean condition) {
+
+			if (condition && !active) {
+				if (size == startArr.length) {
+					double [] newStartArr = new double [size * 2];
+					double [] newEndArr   = new double [size * 2];
+					System.arraycopy(startArr, 0, newStartArr, 0, size);
+					System.arraycopy(endArr,   0, newEndArr,   0, size);
+					startArr = newStartArr;
+					endArr   = newEndArr;
+				}
+				startArr[size] = time;
+				endArr  [size] = time;
+				size++;
+			}
+
+			if (active) {
+				endArr[size-1] = time;
+			}
+
+			active = condition;
+		}
+
+		int size() { return size; }
+
+		double getStart(int i) { return startArr[i]; }
+
+		double getEnd(int i) { return endArr[i]; }
+
+		double getTotal() {
+			double total = 0.0d;
+			for (int i=0; i<size; i++) {
+				total += endArr[i] - startArr[i];
+			}
+			return total;
+		}
+	}
+}
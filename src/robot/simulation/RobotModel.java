@@ -0,0 +1,235 @@
+package robot.simulation;
+
+import robot.Robot;
+import robot.RobotMap;
+import robot.hal.sim.SimEncoder;
+import robot.hal.sim.SimHardware;
+import robot.hal.sim.SimMotor;
+
+/**
+ * A simple model of the robot mechanisms that drives the simulated sensors from the simulated
+ * motor outputs.
+ * <p>
+ * Each mechanism is a first order lag from the motor output to the encoder rate, with the full
+ * speed rate from the {@link RobotMap}, so the rate PIDs see the same input range as on the robot.
+ * <ul>
+ * <li>Chassis: each wheel encoder follows its talon.  The gyro turns with the difference between
+ * the left and right wheels around the {@link RobotMap#DRIVE_ROTATION_RADIUS}.
+ * <li>Tote elevator: the encoder follows the talon unless the brake is engaged, and stops at the
+ * floor and the top, where the limit switches open.
+ * <li>Container elevator: the encoder follows the talon.
+ * <li>Tote intake: the tote sensor closes after the rollers have pulled in for the intake time,
+ * and opens again when the elevator lifts the tote.
+ * </ul>
+ * The model is not meant to match the robot exactly.  The speed factors and the intake time can
+ * be varied between runs to see how sensitive a routine is to them.
+ */
+public class RobotModel {
+
+	private static final int MOTOR_COUNT = 4;
+
+	/** The time for a mechanism to reach 63% of a new speed, in seconds */
+	public static final double DEFAULT_TIME_CONSTANT = 0.1d;
+
+	/** The time the rollers take to pull in a tote, in seconds */
+	public static final double DEFAULT_INTAKE_TIME = 0.5d;
+
+	/** Motor outputs smaller than this do not move a mechanism */
+	private static final double DEADBAND = 0.05d;
+
+	/** The elevator height (encoder counts up from the floor) where the tote leaves the sensor */
+	private static final double TOTE_LIFTED_HEIGHT = RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL / 4;
+
+	private final SimHardware hardware;
+
+	private final SimMotor   [] wheelMotorArr;
+	private final SimEncoder [] wheelEncoderArr;
+
+	private final SimMotor   toteElevatorMotor;
+	private final SimEncoder toteElevatorEncoder;
+	private final SimMotor   containerElevatorMotor;
+	private final SimEncoder containerElevatorEncoder;
+	private final SimMotor   leftPickupMotor;
+
+	private final double countsPerDegree;
+
+	private double timeConstant      = DEFAULT_TIME_CONSTANT;
+	private double driveSpeedFactor    = 1.0d;
+	private double elevatorSpeedFactor = 1.0d;
+	private double intakeTime          = DEFAULT_INTAKE_TIME;
+
+	private double heading      = 0.0d;
+	private double intakeSeconds = 0.0d;
+	private boolean totePresent  = false;
+
+	/**
+	 * @param hardware - the simulated hardware the robot subsystems were created on
+	 */
+	public RobotModel(SimHardware hardware) {
+
+		this.hardware = hardware;
+
+		wheelMotorArr = new SimMotor [] {
+				hardware.getMotor(RobotMap.FRONT_LEFT_MOTOR),
+				hardware.getMotor(RobotMap.REAR_LEFT_MOTOR),
+				hardware.getMotor(RobotMap.FRONT_RIGHT_MOTOR),
+				hardware.getMotor(RobotMap.REAR_RIGHT_MOTOR) };
+
+		wheelEncoderArr = new SimEncoder [] {
+				hardware.getEncoder(RobotMap.FRONT_LEFT_ENCODER_ONE),
+				hardware.getEncoder(RobotMap.REAR_LEFT_ENCODER_ONE),
+				hardware.getEncoder(RobotMap.FRONT_RIGHT_ENCODER_ONE),
+				hardware.getEncoder(RobotMap.REAR_RIGHT_ENCODER_ONE) };
+
+		toteElevatorMotor        = hardware.getMotor  (RobotMap.TOTE_ELEVATOR_MOTOR);
+		toteElevatorEncoder      = hardware.getEncoder(RobotMap.TOTE_ELEVATOR_ENCODER_ONE);
+		containerElevatorMotor   = hardware.getMotor  (RobotMap.CONTAINER_ELEVATOR_MOTOR);
+		containerElevatorEncoder = hardware.getEncoder(RobotMap.CONTAINER_ELEVATOR_ENCODER_ONE);
+		leftPickupMotor          = hardware.getMotor  (RobotMap.LEFT_PICKUP_MOTOR_PORT);
+
+		countsPerDegree = RobotMap.ENCODER_COUNTS_PER_INCH * Math.toRadians(RobotMap.DRIVE_ROTATION_RADIUS);
+	}
+
+	/**
+	 * Set the model parameters for the next run.
+	 * @param driveSpeedFactor - the wheel speed at full output as a fraction of the {@link RobotMap#MAX_ENCODER_RATE}
+	 * @param elevatorSpeedFactor - the elevator speed at full output as a fraction of the max elevator rates
+	 * @param intakeTime - the time the rollers take to pull in a tote, in seconds
+	 */
+	public void setParameters(double driveSpeedFactor, double elevatorSpeedFactor, double intakeTime) {
+		this.driveSpeedFactor    = driveSpeedFactor;
+		this.elevatorSpeedFactor = elevatorSpeedFactor;
+		this.intakeTime          = intakeTime;
+	}
+
+	/**
+	 * Stop every mechanism, put the elevators on the floor and the robot at heading zero
+	 * with no tote.
+	 */
+	public void reset() {
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			wheelEncoderArr[i].setRate(0.0d);
+			wheelEncoderArr[i].setCount(0.0d);
+		}
+
+		toteElevatorEncoder.setRate(0.0d);
+		toteElevatorEncoder.setCount(0.0d);
+		containerElevatorEncoder.setRate(0.0d);
+		containerElevatorEncoder.setCount(0.0d);
+
+		heading       = 0.0d;
+		intakeSeconds = 0.0d;
+		totePresent   = false;
+
+		hardware.getGyro(RobotMap.GYRO_PORT).setAngle(0.0d);
+		hardware.getGyro(RobotMap.GYRO_PORT).setRate(0.0d);
+
+		updateSwitches();
+	}
+
+	/**
+	 * Move the mechanisms for one time step with the current motor outputs.
+	 * @param seconds - the time step
+	 */
+	public void update(double seconds) {
+
+		double lag = Math.min(1.0d, seconds / timeConstant);
+
+		// Chassis
+		double rotation = 0.0d;
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+
+			double targetRate = getOutput(wheelMotorArr[i]) * RobotMap.MAX_ENCODER_RATE * driveSpeedFactor;
+			double rate       = wheelEncoderArr[i].getRate();
+
+			wheelEncoderArr[i].setRate(rate + (targetRate - rate) * lag);
+
+			// The left wheels turn the robot clockwise when they drive forward.
+			double forwardRate = wheelEncoderArr[i].getRate() * Robot.chassisSubsystem.getEncoderSign(i);
+			rotation += (i < 2) ? forwardRate : -forwardRate;
+		}
+
+		// The gyro counts counter clockwise.
+		double headingRate = rotation / MOTOR_COUNT / countsPerDegree;
+		heading += headingRate * seconds;
+
+		hardware.getGyro(RobotMap.GYRO_PORT).setRate(-headingRate);
+
+		// Tote elevator.  Up is a negative output and a negative count.
+		double toteElevatorTargetRate = 0.0d;
+		if (!hardware.getSolenoid(RobotMap.BRAKE_SOLENOID).get()) {
+			toteElevatorTargetRate = getOutput(toteElevatorMotor) * RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE * elevatorSpeedFactor;
+		}
+		double toteElevatorRate = toteElevatorEncoder.getRate();
+		toteElevatorEncoder.setRate(toteElevatorRate + (toteElevatorTargetRate - toteElevatorRate) * lag);
+
+		// Container elevator
+		double containerElevatorTargetRate = getOutput(containerElevatorMotor)
+				* RobotMap.CONTAINER_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE * elevatorSpeedFactor;
+		double containerElevatorRate = containerElevatorEncoder.getRate();
+		containerElevatorEncoder.setRate(containerElevatorRate + (containerElevatorTargetRate - containerElevatorRate) * lag);
+
+		hardware.advance(seconds);
+
+		// The elevator stops at the ends of its travel.
+		if (toteElevatorEncoder.getDistance() > 0.0d) {
+			toteElevatorEncoder.setCount(0.0d);
+			toteElevatorEncoder.setRate(0.0d);
+		}
+		if (toteElevatorEncoder.getDistance() < -RobotMap.TOTE_ELEVATOR_MAX_DISTANCE) {
+			toteElevatorEncoder.setCount(-RobotMap.TOTE_ELEVATOR_MAX_DISTANCE);
+			toteElevatorEncoder.setRate(0.0d);
+		}
+
+		// Tote intake.  The left roller pulls in with a negative output.
+		if (getOutput(leftPickupMotor) < 0.0d) {
+			intakeSeconds += seconds;
+			if (intakeSeconds >= intakeTime) {
+				totePresent = true;
+			}
+		} else {
+			intakeSeconds = 0.0d;
+		}
+
+		if (-toteElevatorEncoder.getDistance() > TOTE_LIFTED_HEIGHT) {
+			totePresent = false;
+		}
+
+		updateSwitches();
+	}
+
+	/** @return double - the modelled robot heading in degrees clockwise from the start */
+	public double getHeading() { return heading; }
+
+	/**
+	 * @return boolean - {@code true} if any drive or elevator motor is moving its mechanism
+	 */
+	public boolean isMoving() {
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			if (getOutput(wheelMotorArr[i]) != 0.0d) { return true; }
+		}
+
+		return getOutput(toteElevatorMotor) != 0.0d || getOutput(containerElevatorMotor) != 0.0d;
+	}
+
+	/*
+	 * The switches are normally closed, and open (false) when they are hit.  The tote sensor
+	 * reads false when there is a tote.
+	 */
+	private void updateSwitches() {
+
+		double toteElevatorDistance = toteElevatorEncoder.getDistance();
+
+		hardware.getDigitalInput(RobotMap.TOTE_ELEVATOR_LOWER_LIMIT_SWITCH).set(toteElevatorDistance < 0.0d);
+		hardware.getDigitalInput(RobotMap.TOTE_ELEVATOR_UPPER_LIMIT_SWITCH).set(toteElevatorDistance > -RobotMap.TOTE_ELEVATOR_MAX_DISTANCE);
+		hardware.getDigitalInput(RobotMap.TOTE_SENSOR_PORT).set(!totePresent);
+	}
+
+	private static double getOutput(SimMotor motor) {
+		double output = motor.get();
+		return (Math.abs(output) < DEADBAND) ? 0.0d : output;
+	}
+}
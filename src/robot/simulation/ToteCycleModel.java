@@ -0,0 +1,365 @@
+package robot.simulation;
+
+import robot.MotionProfile;
+import robot.RobotMap;
+import robot.commands.autonomous.AutonomousToteCycle;
+import robot.subsystems.ChassisSubsystem;
+import robot.subsystems.ToteElevatorSubsystem;
+
+/**
+ * A kinematic model of the chassis and tote elevator for one {@link AutonomousToteCycle}.
+ * <p>
+ * The model does not run the robot code.  It follows the same motion profiles as the
+ * DriveDistanceCommand with the chassis position correction, turns the robot toward the held 
+ * heading, and moves the elevator along the same profiles as the tote elevator subsystem at its 
+ * autonomous speed.  The drive and the rotation share the wheel output the way the mecanum drive 
+ * shares it, so a faster drive turns slower and a turn slows the drive.
+ * <p>
+ * The constraints are checked on every loop of the cycle, not only when the tote is reached.
+ * The stack must be at half height for the whole shift around the container, and once the
+ * intake arms are around the tote ({@link #TOTE_CLEARANCE}) the robot must be square to the 
+ * tote with the stack at level one.  The model keeps all of its
+ * state in the instance, so that many cycles can be evaluated on separate threads with one model
+ * per thread.
+ * <p>
+ * Positions are in inches from the start of the cycle and angles are field relative degrees.
+ * The cycle starts with the previous tote picked up, the stack on the floor and the robot
+ * facing the {@link AutonomousToteCycle#PICKUP_HEADING}.
+ */
+public class ToteCycleModel {
+
+	/** The tote was not within reach of the intake during the pickup */
+	public static final int TOTE_NOT_REACHED   = 1;
+
+	/** The heading was not within tolerance close to the tote */
+	public static final int HEADING_ERROR      = 2;
+
+	/** The stack was not at half height during the shift, or not at level one close to the tote */
+	public static final int ELEVATOR_COLLISION = 4;
+
+	/** The offset of the tote from the center of the intake that can still be pulled in, in inches */
+	public static final double TOTE_REACH = 3.0d;
+
+	/** The distance from the tote at which the tote sensor sees it, in inches */
+	public static final double TOTE_CONTACT = 0.5d;
+
+	/** The distance the robot must drive straight onto the tote, so that the rollers can square it up, in inches */
+	public static final double TOTE_RUN_IN = 6.0d;
+
+	/** 
+	 * The distance from the tote at which the intake arms start to reach around it, about one 
+	 * tote depth, in inches.  Within this distance the heading and the stack height are checked.
+	 */
+	public static final double TOTE_CLEARANCE = 18.0d;
+
+	/** The heading error allowed close to the tote, in degrees */
+	public static final double HEADING_TOLERANCE = 5.0d;
+
+	private static final double LOOP_PERIOD = 0.02d;
+
+	// The rotation rate per degree of heading error, 1 / sec
+	private static final double HEADING_GAIN = 5.0d;
+
+	// The DriveToAngleCommand turns at 80% until it is close
+	private static final double TURN_OUTPUT = 0.8d;
+
+	// From the chassis driveProfile(), drive output per inch of profile position error
+	private static final double PROFILE_POSITION_P = 0.02d;
+
+	// From the DriveDistanceCommand and the chassis angleOnTarget()
+	private static final double DISTANCE_SETTLE_TIME     = 0.5d;
+	private static final double DISTANCE_TOLERANCE       = 1.0d;
+	private static final double DISTANCE_ANGLE_TOLERANCE = 15.0d;
+
+	// Elevator heights in encoder counts up from the floor
+	private static final double HALF_HEIGHT        = RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL / 2;
+	private static final double LEVEL_ONE_HEIGHT   = RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL;
+	private static final double ELEVATOR_TOLERANCE = 100;
+
+	private final MotionProfile profile =
+			new MotionProfile(RobotMap.PROFILE_DRIVE_ACCELERATION, RobotMap.PROFILE_DRIVE_JERK, LOOP_PERIOD);
+
+	private final MotionProfile elevatorProfile =
+			new MotionProfile(RobotMap.TOTE_ELEVATOR_PROFILE_ACCELERATION, RobotMap.TOTE_ELEVATOR_PROFILE_JERK, LOOP_PERIOD);
+
+	private final double toteX;
+	private final double toteY;
+
+	private double time;
+	private double x;
+	private double y;
+	private double heading;
+	private double elevatorHeight;
+	private double elevatorStart;
+	private double elevatorTime;
+
+	// The constraints that apply in the current part of the cycle
+	private boolean shifting;
+	private boolean toteHeld;
+
+	// Results of the last cycle
+	private int    violations;
+	private double cycleTime;
+	private double toteMiss;
+	private double toteHeadingError;
+
+	/**
+	 * @param toteX - the field x of the next tote from the start of the cycle in inches
+	 * @param toteY - the field y of the next tote from the start of the cycle in inches
+	 */
+	public ToteCycleModel(double toteX, double toteY) {
+		this.toteX = toteX;
+		this.toteY = toteY;
+	}
+
+	/**
+	 * Get the position of the tote reached by a cycle that drives exactly its distances.
+	 * @param cycle - a cycle that is known to reach the tote, normally the one tuned on the field
+	 * @return double[] - {x, y} in inches from the start of the cycle
+	 */
+	public static double[] getEndPosition(AutonomousToteCycle cycle) {
+
+		double x = 0.0d;
+		double y = 0.0d;
+
+		x += cycle.getShiftDistance()    * Math.sin(Math.toRadians(cycle.getShiftDirection()));
+		y += cycle.getShiftDistance()    * Math.cos(Math.toRadians(cycle.getShiftDirection()));
+		x += cycle.getApproachDistance() * Math.sin(Math.toRadians(cycle.getApproachDirection()));
+		y += cycle.getApproachDistance() * Math.cos(Math.toRadians(cycle.getApproachDirection()));
+		x += cycle.getPickupDistance()   * Math.sin(Math.toRadians(AutonomousToteCycle.PICKUP_HEADING));
+		y += cycle.getPickupDistance()   * Math.cos(Math.toRadians(AutonomousToteCycle.PICKUP_HEADING));
+
+		return new double[] { x, y };
+	}
+
+	/**
+	 * Run the cycle in the model.
+	 * @param cycle - the cycle parameters
+	 * @return int - the constraint violations, 0 if the cycle is feasible
+	 */
+	public int run(AutonomousToteCycle cycle) {
+
+		time           = 0.0d;
+		x              = 0.0d;
+		y              = 0.0d;
+		heading        = AutonomousToteCycle.PICKUP_HEADING;
+		elevatorHeight = 0.0d;
+		shifting       = false;
+		toteHeld       = false;
+
+		violations       = 0;
+		toteMiss         = Double.POSITIVE_INFINITY;
+		toteHeadingError = Double.NaN;
+
+		// Lift to half height while turning.  The container shift runs on the intake in parallel
+		// and does not hold up the drive.
+		moveElevator(HALF_HEIGHT);
+
+		while (Math.abs(headingError(cycle.getTurnAngle())) >= ChassisSubsystem.ANGLE_PID_ABSOLUTE_TOLERANCE) {
+			step(0.0d, 0.0d, 0.0d, cycle.getTurnAngle(), TURN_OUTPUT);
+		}
+
+		// Shift around the container.  The stack is over the container for the whole shift.
+		shifting = true;
+		driveDistance(cycle.getSpeed(), cycle.getShiftDirection(), cycle.getShiftHeading(), cycle.getShiftDistance(), false);
+		shifting = false;
+
+		// Lower to level one while approaching the tote
+		moveElevator(LEVEL_ONE_HEIGHT);
+
+		driveDistance(cycle.getSpeed(), cycle.getApproachDirection(), AutonomousToteCycle.PICKUP_HEADING, cycle.getApproachDistance(), false);
+
+		// Drive onto the tote.  The pickup finishes when the tote reaches the sensor.
+		boolean reached = driveDistance(cycle.getSpeed(), AutonomousToteCycle.PICKUP_HEADING,
+				AutonomousToteCycle.PICKUP_HEADING, cycle.getPickupDistance(), true);
+
+		if (!reached) {
+			violations |= TOTE_NOT_REACHED;
+		}
+
+		// Set the stack down on the new tote.  The floor profile ends below the floor, and the
+		// floor sensor ends the move.
+		toteHeld = true;
+		moveElevator(-ToteElevatorSubsystem.FLOOR_OVERTRAVEL);
+		while (elevatorHeight > 0.0d) {
+			step(0.0d, 0.0d, 0.0d, AutonomousToteCycle.PICKUP_HEADING, 1.0d);
+		}
+
+		cycleTime = time;
+
+		return violations;
+	}
+
+	/** @return double - the time of the last cycle in seconds */
+	public double getCycleTime() { return cycleTime; }
+
+	/** @return int - the constraint violations of the last cycle */
+	public int getViolations() { return violations; }
+
+	/**
+	 * @return double - the offset of the tote from the center of the intake when it was reached in the
+	 * last cycle, or the distance to the tote if it was not reached, in inches
+	 */
+	public double getToteMiss() { return toteMiss; }
+
+	/** @return double - the heading error when the tote was reached in the last cycle, or NaN if it was not reached */
+	public double getToteHeadingError() { return toteHeadingError; }
+
+	/**
+	 * Drive a distance along a motion profile like the DriveDistanceCommand.  The drive output is
+	 * the profile velocity plus the position correction, so the robot catches up after a turn
+	 * slowed it down.
+	 * @param pickup - {@code true} to stop when the tote is reached
+	 * @return boolean - {@code true} if the tote was reached.
+	 */
+	private boolean driveDistance(double speed, double direction, double targetHeading, double distance, boolean pickup) {
+
+		profile.generate(distance, speed * RobotMap.MAX_DRIVE_SPEED);
+
+		double directionX = Math.sin(Math.toRadians(direction));
+		double directionY = Math.cos(Math.toRadians(direction));
+
+		double startX = x;
+		double startY = y;
+
+		// The tote must be in front of the intake at the start of the pickup, or the robot drove
+		// into it from the side.
+		if (pickup && getToteAhead(directionX, directionY) < TOTE_RUN_IN) {
+			toteMiss = Math.abs(getToteLateral(directionX, directionY));
+			return false;
+		}
+
+		double t = 0.0d;
+
+		while (true) {
+
+			t += LOOP_PERIOD;
+
+			double travelled   = (x - startX) * directionX + (y - startY) * directionY;
+			double driveOutput = profile.getVelocity(t) / RobotMap.MAX_DRIVE_SPEED 
+					+ PROFILE_POSITION_P * (profile.getPosition(t) - travelled);
+
+			step(directionX, directionY, driveOutput, targetHeading, 1.0d);
+
+			if (pickup && getToteAhead(directionX, directionY) < TOTE_CONTACT) {
+				return pickupTote(directionX, directionY);
+			}
+
+			if (profile.isComplete(t)) {
+				travelled = (x - startX) * directionX + (y - startY) * directionY;
+				if (   t > profile.getDuration() + DISTANCE_SETTLE_TIME
+					|| (   Math.abs(distance - travelled) < DISTANCE_TOLERANCE
+						&& Math.abs(headingError(targetHeading)) < DISTANCE_ANGLE_TOLERANCE)) {
+					if (pickup) {
+						toteMiss = Math.hypot(toteX - x, toteY - y);
+					}
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The tote reached the intake.  Check that it is centered on the intake.  The heading and 
+	 * the stack height were checked on the way in by {@link #checkClearance()}.
+	 * @return boolean - {@code true} if the intake can pull the tote in.
+	 */
+	private boolean pickupTote(double directionX, double directionY) {
+
+		toteMiss         = Math.abs(getToteLateral(directionX, directionY));
+		toteHeadingError = headingError(AutonomousToteCycle.PICKUP_HEADING);
+
+		return toteMiss <= TOTE_REACH;
+	}
+
+	/**
+	 * Check the stack and the heading against the container and the tote at the current position.
+	 */
+	private void checkClearance() {
+
+		if (shifting && elevatorHeight < HALF_HEIGHT - ELEVATOR_TOLERANCE) {
+			violations |= ELEVATOR_COLLISION;
+		}
+
+		if (toteHeld || Math.hypot(toteX - x, toteY - y) >= TOTE_CLEARANCE) {
+			return;
+		}
+
+		// Close to the tote, a robot that is not square hits the tote with a corner and a stack
+		// that is not at level one hits the tote.
+		if (Math.abs(headingError(AutonomousToteCycle.PICKUP_HEADING)) > HEADING_TOLERANCE) {
+			violations |= HEADING_ERROR;
+		}
+		if (Math.abs(elevatorHeight - LEVEL_ONE_HEIGHT) > ELEVATOR_TOLERANCE) {
+			violations |= ELEVATOR_COLLISION;
+		}
+	}
+
+	/** @return double - the distance to the tote along the drive direction in inches */
+	private double getToteAhead(double directionX, double directionY) {
+		return (toteX - x) * directionX + (toteY - y) * directionY;
+	}
+
+	/** @return double - the offset of the tote across the drive direction in inches */
+	private double getToteLateral(double directionX, double directionY) {
+		return (toteX - x) * directionY - (toteY - y) * directionX;
+	}
+
+	/**
+	 * Move the model one loop.
+	 * <p>
+	 * Like the RunnymedeMecanumDrive, the largest wheel output is the drive output plus the 
+	 * rotation output, and when that is over full output both are scaled down together.
+	 * @param directionX - the field x of the drive direction unit vector
+	 * @param directionY - the field y of the drive direction unit vector
+	 * @param driveOutput - the drive output as a fraction of the maximum drive speed, negative 
+	 * backs up
+	 * @param targetHeading - the heading to turn toward
+	 * @param rotationLimit - the largest rotation output
+	 */
+	private void step(double directionX, double directionY, double driveOutput, double targetHeading, double rotationLimit) {
+
+		time += LOOP_PERIOD;
+
+		driveOutput = Math.max(-1.0d, Math.min(1.0d, driveOutput));
+
+		double rotationOutput = HEADING_GAIN * headingError(targetHeading) / RobotMap.MAX_ANUGLAR_VELOCITY;
+		rotationOutput = Math.max(-rotationLimit, Math.min(rotationLimit, rotationOutput));
+
+		double scale = 1.0d / Math.max(1.0d, Math.abs(driveOutput) + Math.abs(rotationOutput));
+
+		double travel = driveOutput * scale * RobotMap.MAX_DRIVE_SPEED * LOOP_PERIOD;
+
+		x += travel * directionX;
+		y += travel * directionY;
+
+		heading += rotationOutput * scale * RobotMap.MAX_ANUGLAR_VELOCITY * LOOP_PERIOD;
+		if (heading <    0.0d) { heading += 360.0d; }
+		if (heading >= 360.0d) { heading -= 360.0d; }
+
+		elevatorTime  += LOOP_PERIOD;
+		elevatorHeight = elevatorStart + elevatorProfile.getPosition(elevatorTime);
+
+		checkClearance();
+	}
+
+	/**
+	 * Start an elevator profile from the current height, like the tote elevator initDriveToLevel().
+	 * @param height - encoder counts up from the floor
+	 */
+	private void moveElevator(double height) {
+		elevatorStart = elevatorHeight;
+		elevatorTime  = 0.0d;
+		elevatorProfile.generate(height - elevatorHeight, RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE);
+	}
+
+	private double headingError(double targetHeading) {
+
+		double error = targetHeading - heading;
+
+		if (error >  180.0d) { error -= 360.0d; }
+		if (error < -180.0d) { error += 360.0d; }
+
+		return error;
+	}
+}
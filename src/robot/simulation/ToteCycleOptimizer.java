@@ -0,0 +1,256 @@
+package robot.simulation;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import robot.commands.autonomous.AutonomousToteCycle;
+
+/**
+ * Search the parameters of an {@link AutonomousToteCycle} for the fastest cycle that still
+ * picks up the tote.
+ * <p>
+ * Every combination of the parameters on a grid around the hand tuned values is run in a
+ * {@link ToteCycleModel}.  The next tote is placed where the hand tuned cycle picks it up, since
+ * that cycle is known to work on the field.  A candidate is feasible if the tote comes within
+ * reach of the intake with the heading within tolerance, and the elevator is clear of the
+ * container and the tote.  The grid is split across all cores with fork/join, with one model per
+ * task.
+ */
+public class ToteCycleOptimizer {
+
+	// The search grid for each parameter as { min, max, steps } from the baseline value.  The
+	// container is not in the model, so the shift is never made shorter than the tuned shift.
+	// The turn and shift heading ranges are wide enough to reach the elevator and heading 
+	// limits, and the speeds above about 0.6 only matter on the longer legs because the profile 
+	// acceleration limits the peak speed.
+	private static final double [] SPEED_GRID              = { -0.2, 0.4,  4 };
+	private static final double [] TURN_ANGLE_GRID         = { -10,  30,   5 };
+	private static final double [] SHIFT_DIRECTION_GRID    = { -10,  10,   5 };
+	private static final double [] SHIFT_HEADING_GRID      = { -80,  20,   6 };
+	private static final double [] SHIFT_DISTANCE_GRID     = { 0,    8,    5 };
+	private static final double [] APPROACH_DIRECTION_GRID = { -10,  10,   9 };
+	private static final double [] APPROACH_DISTANCE_GRID  = { -8,   8,    17 };
+	private static final double [] PICKUP_DISTANCE_GRID    = { -4,   4,    5 };
+
+	/** The fastest drive speed */
+	private static final double MAX_SPEED = 1.0d;
+
+	private static final double [][] GRID_ARR = {
+		SPEED_GRID, TURN_ANGLE_GRID, SHIFT_DIRECTION_GRID, SHIFT_HEADING_GRID, SHIFT_DISTANCE_GRID,
+		APPROACH_DIRECTION_GRID, APPROACH_DISTANCE_GRID, PICKUP_DISTANCE_GRID };
+
+	/** The number of candidates evaluated by one task without splitting */
+	private static final int LEAF_SIZE = 1024;
+
+	private final AutonomousToteCycle baseline;
+
+	private final double toteX;
+	private final double toteY;
+
+	private final int candidateCount;
+
+	private final double [] baselineValueArr;
+
+	// Results by candidate index
+	private final double [] cycleTimeArr;
+	private final double [] changeArr;
+	private final int    [] violationArr;
+
+	private int    feasibleCount = 0;
+	private int [] rankArr       = new int [0];
+
+	/**
+	 * @param baseline - the hand tuned cycle that sets the tote position
+	 */
+	public ToteCycleOptimizer(AutonomousToteCycle baseline) {
+
+		this.baseline = baseline;
+
+		double [] totePosition = ToteCycleModel.getEndPosition(baseline);
+		toteX = totePosition[0];
+		toteY = totePosition[1];
+
+		int count = 1;
+		for (double [] grid : GRID_ARR) {
+			count *= (int) grid[2];
+		}
+		candidateCount = count;
+
+		baselineValueArr = getValues(baseline);
+
+		cycleTimeArr = new double [candidateCount];
+		changeArr    = new double [candidateCount];
+		violationArr = new int    [candidateCount];
+	}
+
+	/** @return int - the number of parameter sets on the grid */
+	public int getCandidateCount() { return candidateCount; }
+
+	/** @return int - the number of parameter sets that meet the constraints after a search */
+	public int getFeasibleCount() { return feasibleCount; }
+
+	/**
+	 * Get the cycle for a candidate on the grid.  The speed is limited to the fastest drive speed.
+	 * @param index - the candidate index from 0 to the candidate count
+	 * @return AutonomousToteCycle - the parameters
+	 */
+	public AutonomousToteCycle getCandidate(int index) {
+
+		double [] valueArr = new double [GRID_ARR.length];
+
+		for (int i=GRID_ARR.length-1; i>=0; i--) {
+			int steps = (int) GRID_ARR[i][2];
+			valueArr[i] = baselineValueArr[i] + gridValue(GRID_ARR[i], index % steps);
+			index /= steps;
+		}
+
+		return new AutonomousToteCycle(Math.min(MAX_SPEED, valueArr[0]), (int) Math.round(valueArr[1]), valueArr[2], valueArr[3],
+				valueArr[4], valueArr[5], valueArr[6], valueArr[7]);
+	}
+
+	/**
+	 * Evaluate every candidate and rank the feasible ones by cycle time.  Candidates with the
+	 * same time are ranked by how far they are from the baseline, so the smallest change to the
+	 * tuned values comes first.
+	 * @param pool - the pool to run the search in
+	 */
+	public void search(ForkJoinPool pool) {
+
+		pool.invoke(new SearchTask(0, candidateCount));
+
+		feasibleCount = 0;
+		for (int i=0; i<candidateCount; i++) {
+			if (violationArr[i] == 0) { feasibleCount++; }
+		}
+
+		Integer [] feasibleArr = new Integer [feasibleCount];
+		int n = 0;
+		for (int i=0; i<candidateCount; i++) {
+			if (violationArr[i] == 0) { feasibleArr[n++] = i; }
+		}
+
+		Arrays.sort(feasibleArr, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int compare = Double.compare(cycleTimeArr[a], cycleTimeArr[b]);
+				return (compare != 0) ? compare : Double.compare(changeArr[a], changeArr[b]);
+			}
+		});
+
+		rankArr = new int [feasibleCount];
+		for (int i=0; i<feasibleCount; i++) {
+			rankArr[i] = feasibleArr[i];
+		}
+	}
+
+	/**
+	 * Count the candidates that violate a constraint.
+	 * @param violation - one of the ToteCycleModel violations
+	 * @return int - the number of candidates
+	 */
+	public int getViolationCount(int violation) {
+		int count = 0;
+		for (int i=0; i<candidateCount; i++) {
+			if ((violationArr[i] & violation) != 0) { count++; }
+		}
+		return count;
+	}
+
+	/**
+	 * Print the baseline and the fastest feasible parameter sets as a ranked table.
+	 * @param out - the stream to print to
+	 * @param rows - the number of ranked parameter sets to print
+	 */
+	public void printTable(PrintStream out, int rows) {
+
+		ToteCycleModel model = new ToteCycleModel(toteX, toteY);
+
+		out.println(String.format("%-8s %6s %5s %5s %6s %6s %6s %6s %6s %6s %6s %6s",
+				"Rank", "Time", "Speed", "Turn", "ShDir", "ShHdg", "ShDst", "ApDir", "ApDst", "Pickup", "HdgErr", "Miss"));
+
+		printRow(out, "baseline", model, baseline);
+
+		for (int i=0; i<Math.min(rows, rankArr.length); i++) {
+			printRow(out, String.valueOf(i+1), model, getCandidate(rankArr[i]));
+		}
+	}
+
+	private void printRow(PrintStream out, String rank, ToteCycleModel model, AutonomousToteCycle cycle) {
+
+		int violations = model.run(cycle);
+
+		out.println(String.format("%-8s %6.2f %5.2f %5d %6.1f %6.1f %6.1f %6.1f %6.1f %6.1f %6.1f %6.1f%s",
+				rank, model.getCycleTime(), cycle.getSpeed(), cycle.getTurnAngle(),
+				cycle.getShiftDirection(), cycle.getShiftHeading(), cycle.getShiftDistance(),
+				cycle.getApproachDirection(), cycle.getApproachDistance(), cycle.getPickupDistance(),
+				model.getToteHeadingError(), model.getToteMiss(),
+				violations == 0 ? "" : " violations " + violations));
+	}
+
+	/**
+	 * The distance of a candidate from the baseline, as the sum of the number of grid steps
+	 * that each parameter is changed by.
+	 */
+	private double getChange(AutonomousToteCycle cycle) {
+
+		double [] valueArr = getValues(cycle);
+		double change = 0.0d;
+
+		for (int i=0; i<GRID_ARR.length; i++) {
+			double stepSize = (GRID_ARR[i][1] - GRID_ARR[i][0]) / Math.max(1, GRID_ARR[i][2] - 1);
+			change += Math.abs(valueArr[i] - baselineValueArr[i]) / stepSize;
+		}
+
+		return change;
+	}
+
+	private static double [] getValues(AutonomousToteCycle cycle) {
+		return new double [] {
+			cycle.getSpeed(), cycle.getTurnAngle(), cycle.getShiftDirection(), cycle.getShiftHeading(),
+			cycle.getShiftDistance(), cycle.getApproachDirection(), cycle.getApproachDistance(), cycle.getPickupDistance() };
+	}
+
+	private static double gridValue(double [] grid, int step) {
+		if (grid[2] <= 1) { return grid[0]; }
+		return grid[0] + step * (grid[1] - grid[0]) / (grid[2] - 1);
+	}
+
+	/**
+	 * Evaluate a range of candidates, splitting the range in half until it is small enough.
+	 * Each task writes only its own range of the result arrays.
+	 */
+	private class SearchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		SearchTask(int from, int to) {
+			this.from = from;
+			this.to   = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from > LEAF_SIZE) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new SearchTask(from, middle), new SearchTask(middle, to));
+				return;
+			}
+
+			ToteCycleModel model = new ToteCycleModel(toteX, toteY);
+
+			for (int i=from; i<to; i++) {
+				AutonomousToteCycle cycle = getCandidate(i);
+				violationArr[i] = model.run(cycle);
+				cycleTimeArr[i] = model.getCycleTime();
+				changeArr   [i] = getChange(cycle);
+			}
+		}
+	}
+}
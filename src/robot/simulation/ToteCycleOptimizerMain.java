@@ -0,0 +1,57 @@
+package robot.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+
+import robot.commands.autonomous.AutonomousToteCycle;
+
+/**
+ * Search the autonomous tote cycle parameters on all cores and print the ranked parameter sets.
+ * <p>
+ * Usage: ToteCycleOptimizerMain [first|second] [rows]
+ * <p>
+ * The cycle past the first or second container of the three tote two container routine is used
+ * as the baseline (default first), and the given number of ranked parameter sets are printed
+ * (default 20).  The model does not use the robot hardware, so no simulated hardware is needed.
+ */
+public class ToteCycleOptimizerMain {
+
+	private static final int DEFAULT_ROWS = 20;
+
+	public static void main(String[] args) {
+
+		AutonomousToteCycle baseline = AutonomousToteCycle.FIRST_CONTAINER;
+
+		if (args.length > 0) {
+			if ("second".equalsIgnoreCase(args[0])) {
+				baseline = AutonomousToteCycle.SECOND_CONTAINER;
+			} else if (!"first".equalsIgnoreCase(args[0])) {
+				System.out.println("Usage: ToteCycleOptimizerMain [first|second] [rows]");
+				System.exit(2);
+			}
+		}
+
+		int rows = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROWS;
+
+		ToteCycleOptimizer optimizer = new ToteCycleOptimizer(baseline);
+
+		ForkJoinPool pool = new ForkJoinPool();
+
+		long startNanos = System.nanoTime();
+
+		optimizer.search(pool);
+
+		double searchSeconds = (System.nanoTime() - startNanos) / 1.0e9d;
+
+		pool.shutdown();
+
+		System.out.println(String.format("%d parameter sets in %.1f s on %d threads, %d feasible",
+				optimizer.getCandidateCount(), searchSeconds, pool.getParallelism(), optimizer.getFeasibleCount()));
+		System.out.println(String.format("Tote not reached %d, heading error %d, elevator collision %d",
+				optimizer.getViolationCount(ToteCycleModel.TOTE_NOT_REACHED),
+				optimizer.getViolationCount(ToteCycleModel.HEADING_ERROR),
+				optimizer.getViolationCount(ToteCycleModel.ELEVATOR_COLLISION)));
+		System.out.println();
+
+		optimizer.printTable(System.out, rows);
+	}
+}
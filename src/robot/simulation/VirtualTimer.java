@@ -0,0 +1,74 @@
+package robot.simulation;
+
+import robot.Clock;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * The WPILib {@link Timer} implementation for the desktop JVM, on the robot {@link Clock}.
+ * <p>
+ * The command timeouts and {@code timeSinceInitialized()} read the WPILib timer, so installing
+ * this timer with a {@link robot.VirtualClock} runs the commands on simulated time.
+ */
+public class VirtualTimer implements Timer.StaticInterface {
+
+	@Override
+	public double getFPGATimestamp() {
+		return Clock.getInstance().getTimeSeconds();
+	}
+
+	@Override
+	public double getMatchTime() {
+		return getFPGATimestamp();
+	}
+
+	/**
+	 * A simulation must not wait on the clock, so a delay returns immediately.
+	 */
+	@Override
+	public void delay(double seconds) {
+	}
+
+	@Override
+	public Timer.Interface newTimer() {
+		return new StopWatch();
+	}
+
+	private class StopWatch implements Timer.Interface {
+
+		private double startTime   = 0.0d;
+		private double accumulated = 0.0d;
+		private boolean running    = false;
+
+		@Override
+		public synchronized double get() {
+			return running ? accumulated + getFPGATimestamp() - startTime : accumulated;
+		}
+
+		@Override
+		public synchronized void reset() {
+			accumulated = 0.0d;
+			startTime   = getFPGATimestamp();
+		}
+
+		@Override
+		public synchronized void start() {
+			startTime = getFPGATimestamp();
+			running   = true;
+		}
+
+		@Override
+		public synchronized void stop() {
+			accumulated = get();
+			running     = false;
+		}
+
+		@Override
+		public synchronized boolean hasPeriodPassed(double period) {
+			if (get() > period) {
+				startTime += period;
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package robot.subsystems;
+
+/**
+ * The chassis sensor values read at the start of one loop.
+ * <p>
+ * The gyro and the wheel encoders are read once in {@link ChassisSubsystem#readSensors()},
+ * and the drive calculations, the commands and the outer PID loops all use the frame for the
+ * rest of the loop.
+ * <p>
+ * A frame never changes once it is made.  The chassis makes a new frame every loop, and a
+ * reset later in the loop makes a new frame from the current one, so a frame that was
+ * already handed out keeps the values it was read with.  The outer PIDs on the control
+ * thread read the heading and rotation rate that are published with the frame.
+ */
+public final class ChassisSensorFrame {
+
+	static final int WHEEL_COUNT = 4;
+
+	private final long timeNanos;
+
+	private final double gyroAngle;
+	private final double gyroRate;
+
+	private final double heading;
+	private final double headingRate;
+
+	private final int    [] encoderCountArr;
+	private final double [] encoderDistanceArr;
+	private final double [] encoderRateArr;
+
+	private final double distance;
+	private final double speed;
+
+	/**
+	 * A frame with every value zero, used before the sensors are read.
+	 */
+	ChassisSensorFrame() {
+		this(0, 0.0d, 0.0d, 0.0d, 0.0d,
+				new int [WHEEL_COUNT], new double [WHEEL_COUNT], new double [WHEEL_COUNT], 0.0d, 0.0d);
+	}
+
+	/**
+	 * The arrays are copied, so the caller can reuse them for the next frame.
+	 */
+	ChassisSensorFrame(long timeNanos, double gyroAngle, double gyroRate, double heading, double headingRate,
+			int [] encoderCountArr, double [] encoderDistanceArr, double [] encoderRateArr,
+			double distance, double speed) {
+
+		this.timeNanos   = timeNanos;
+		this.gyroAngle   = gyroAngle;
+		this.gyroRate    = gyroRate;
+		this.heading     = heading;
+		this.headingRate = headingRate;
+
+		this.encoderCountArr    = encoderCountArr.clone();
+		this.encoderDistanceArr = encoderDistanceArr.clone();
+		this.encoderRateArr     = encoderRateArr.clone();
+
+		this.distance = distance;
+		this.speed    = speed;
+	}
+
+	/**
+	 * @return ChassisSensorFrame - a copy of this frame with the encoder distances and the
+	 * distance travelled set to zero.
+	 */
+	ChassisSensorFrame withEncodersReset() {
+		return new ChassisSensorFrame(timeNanos, gyroAngle, gyroRate, heading, headingRate,
+				encoderCountArr, new double [WHEEL_COUNT], encoderRateArr, 0.0d, speed);
+	}
+
+	/**
+	 * @param gyroAngle - the gyro angle after the reset
+	 * @param heading - the heading after the reset
+	 * @return ChassisSensorFrame - a copy of this frame with the gyro angle and heading replaced.
+	 */
+	ChassisSensorFrame withGyroReset(double gyroAngle, double heading) {
+		return new ChassisSensorFrame(timeNanos, gyroAngle, gyroRate, heading, headingRate,
+				encoderCountArr, encoderDistanceArr, encoderRateArr, distance, speed);
+	}
+
+	/** @return long - the {@link robot.Clock} time the sensors were read, in nanoseconds */
+	public long getTimeNanos() { return timeNanos; }
+
+	/** @return double - the raw gyro angle in degrees */
+	public double getGyroAngle() { return gyroAngle; }
+
+	/** @return double - the raw gyro rate in degrees / sec */
+	public double getGyroRate() { return gyroRate; }
+
+	/** @return double - the heading from the gyro and the encoders in degrees, 0 to 360 */
+	public double getHeading() { return heading; }
+
+	/** @return double - the rotation rate with the gyro bias removed, in degrees / sec */
+	public double getHeadingRate() { return headingRate; }
+
+	/**
+	 * @param wheel - the wheel index
+	 * @return int - the raw encoder count
+	 */
+	public int getEncoderCount(int wheel) { return encoderCountArr[wheel]; }
+
+	/**
+	 * @param wheel - the wheel index
+	 * @return double - the encoder distance in encoder counts, signed so that positive drives the
+	 * robot forward.
+	 */
+	public double getEncoderDistance(int wheel) { return encoderDistanceArr[wheel]; }
+
+	/**
+	 * @param wheel - the wheel index
+	 * @return double - the encoder rate in encoder counts / sec
+	 */
+	public double getEncoderRate(int wheel) { return encoderRateArr[wheel]; }
+
+	/** @return double - the distance travelled since the last encoder reset, in encoder counts */
+	public double getDistance() { return distance; }
+
+	/** @return double - the average absolute encoder rate in encoder counts / sec */
+	public double getSpeed() { return speed; }
+}
@@ -1,29 +1,47 @@
 package robot.subsystems;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 import robot.Timer;
-import robot.LinearRamp;
+import robot.Clock;
+import robot.HeadingEstimator;
+import robot.MecanumOdometry;
 import robot.MockSpeedController;
 import robot.OffsetableGyro;
 import robot.PolarCoordinate;
+import robot.Robot;
 import robot.RobotMap;
 import robot.RunnymedeMecanumDrive;
 import robot.Timer;
 import robot.commands.TeleopDriveCommand;
+import robot.control.ControlLoop;
+import robot.control.EncoderVelocity;
+import robot.control.GainSchedule;
+import robot.control.MotorFeedforward;
+import robot.control.PIDEngine;
+import robot.control.PIDLoop;
+import robot.control.TuningFile;
+import robot.control.VelocityEstimator;
+import robot.hal.Motor;
+import robot.hal.QuadratureEncoder;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.DashboardPublisher.BooleanEntry;
+import robot.telemetry.DashboardPublisher.NumberEntry;
+import robot.telemetry.FlightRecorder;
+import robot.telemetry.FlightRecorder.Channel;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.PIDController;
 import edu.wpi.first.wpilibj.PIDSource;
-import edu.wpi.first.wpilibj.Talon;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * The chassis subsystem contains the drive motors and uses the gyro sensor.
  */
-public class ChassisSubsystem extends RunnymedeSubsystem {
+public class ChassisSubsystem extends RunnymedeSubsystem implements ControlLoop {
 
 	public enum DriveMode { FIELD_RELATIVE, ROBOT_RELATIVE }
 	public enum PIDEnable { ENABLED, DISABLED }
-	private enum Units     { INCHES, ENCODER_COUNTS };
+	enum Units     { INCHES, ENCODER_COUNTS };
 
 	private boolean subsystemEnabled = false;
 
@@ -36,16 +54,21 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	private static final int REAR_RIGHT  = 3;
 	private static final int MOTOR_COUNT = 4;
 
+	public static final int WHEEL_COUNT = MOTOR_COUNT;
+
+	// Wheel names for the tuning constants and logs, in motor order
+	private static final String [] WHEEL_NAME_ARR = { "FrontLeft", "RearLeft", "FrontRight", "RearRight" };
+
 	private boolean MOTOR_INVERTED     = false;
 	private boolean MOTOR_NOT_INVERTED = true;
 
 	// Motors
 
-	private Talon [] talonArr = {
-			new Talon(RobotMap.FRONT_LEFT_MOTOR), 
-			new Talon(RobotMap.REAR_LEFT_MOTOR),
-			new Talon(RobotMap.FRONT_RIGHT_MOTOR),
-			new Talon(RobotMap.REAR_RIGHT_MOTOR)   };
+	private Motor [] talonArr = {
+			RobotMap.hardware.motor(RobotMap.FRONT_LEFT_MOTOR), 
+			RobotMap.hardware.motor(RobotMap.REAR_LEFT_MOTOR),
+			RobotMap.hardware.motor(RobotMap.FRONT_RIGHT_MOTOR),
+			RobotMap.hardware.motor(RobotMap.REAR_RIGHT_MOTOR)   };
 	
 	private boolean [] motorInversionArr = {
 			MOTOR_NOT_INVERTED,
@@ -57,46 +80,89 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 	private RunnymedeMecanumDrive mecanumDrive = new RunnymedeMecanumDrive(motorInversionArr);
 	
+	// Working storage for the drive calculations.  These are reused every loop so that 
+	// the drive path does not allocate.
+	private double [] motorSpeeds = new double [MOTOR_COUNT];
+
+	// The motor speeds are written in writeOutputs() at the end of the loop.
+	private boolean motorSpeedsPending = false;
+	private boolean motorSpeedsToPIDs  = false;
+
+	// The motors are only written by the control thread.  The robot thread requests the open 
+	// loop speeds or a stop, and the control thread applies the request on its next step, so 
+	// that a wheel speed PID output written during the request cannot override it.
+	private static final int MOTOR_REQUEST_NONE  = 0;
+	private static final int MOTOR_REQUEST_SPEED = 1;
+	private static final int MOTOR_REQUEST_STOP  = 2;
+
+	private final AtomicInteger   motorRequest      = new AtomicInteger(MOTOR_REQUEST_NONE);
+	private final AtomicLongArray requestedSpeedArr = new AtomicLongArray(MOTOR_COUNT);
+
+	// The wheels set from the wheel speed PIDs on the last step, only used by the control thread.
+	private final boolean [] wheelPIDOutputArr = new boolean [MOTOR_COUNT];
+
+	private PolarCoordinate drivePolarCoordinate    = new PolarCoordinate();
+	private PolarCoordinate distancePolarCoordinate = new PolarCoordinate();
+	
 	// SENSORS
 
 	// Encoders
-	// PID Input and Output are between -1 and 1, so we divide the rate by the max rate
-	// to normalize the encoder output so it can be compared with the motor drive input and output range
-	private Encoder [] encoderArr = {
-			new Encoder(RobotMap.FRONT_LEFT_ENCODER_ONE, RobotMap.FRONT_LEFT_ENCODER_TWO, true){
-				public double pidGet() {
-					return this.getRate() / RobotMap.MAX_ENCODER_RATE;
-				}
-			},
-			new Encoder(RobotMap.REAR_LEFT_ENCODER_ONE,  RobotMap.REAR_LEFT_ENCODER_TWO,  true){ //CORRECTION ON TEST ROBOT
-				public double pidGet() {
-					return this.getRate() / RobotMap.MAX_ENCODER_RATE;
-				}
-			},
-			new Encoder(RobotMap.FRONT_RIGHT_ENCODER_ONE,RobotMap.FRONT_RIGHT_ENCODER_TWO,true){
-				public double pidGet() {
-					return this.getRate() / RobotMap.MAX_ENCODER_RATE;
-				}
-			},
-			new Encoder(RobotMap.REAR_RIGHT_ENCODER_ONE, RobotMap.REAR_RIGHT_ENCODER_TWO, true){
-				public double pidGet() {
-					return this.getRate() / RobotMap.MAX_ENCODER_RATE;
-				}
-			}};
+	private QuadratureEncoder [] encoderArr = {
+			RobotMap.hardware.encoder(RobotMap.FRONT_LEFT_ENCODER_ONE, RobotMap.FRONT_LEFT_ENCODER_TWO, true),
+			RobotMap.hardware.encoder(RobotMap.REAR_LEFT_ENCODER_ONE,  RobotMap.REAR_LEFT_ENCODER_TWO,  true), //CORRECTION ON TEST ROBOT
+			RobotMap.hardware.encoder(RobotMap.FRONT_RIGHT_ENCODER_ONE,RobotMap.FRONT_RIGHT_ENCODER_TWO,true),
+			RobotMap.hardware.encoder(RobotMap.REAR_RIGHT_ENCODER_ONE, RobotMap.REAR_RIGHT_ENCODER_TWO, true) };
+
+	// PID Input and Output are between -1 and 1, so the wheel velocity is divided by the max rate
+	// to normalize the encoder output so it can be compared with the motor drive input and output range.
+	// The velocities are fit over the encoder counts on the control thread.
+	private EncoderVelocity [] wheelSpeedPIDSourceArr = {
+			newWheelVelocity(FRONT_LEFT),
+			newWheelVelocity(REAR_LEFT),
+			newWheelVelocity(FRONT_RIGHT),
+			newWheelVelocity(REAR_RIGHT) };
 
 	// Gyro
 	private OffsetableGyro gyro = new OffsetableGyro(RobotMap.GYRO_PORT);
 
+	// The sensors are read once per loop into a new frame, and a reset later in the loop 
+	// replaces the frame, so a frame that was already read never changes.  The sensor 
+	// values are read into the scratch arrays, which the frame copies.  The frame is only 
+	// used by the robot thread.
+	private ChassisSensorFrame sensorFrame = new ChassisSensorFrame();
+
+	private final int    [] encoderCountScratchArr    = new int    [MOTOR_COUNT];
+	private final double [] encoderDistanceScratchArr = new double [MOTOR_COUNT];
+	private final double [] encoderRateScratchArr     = new double [MOTOR_COUNT];
+
+	// The values of the current frame that are used by the outer PIDs on the control thread.
+	private volatile double controlHeading     = 0.0d;
+	private volatile double controlHeadingRate = 0.0d;
+
+	// The encoders are not reset in the hardware, so that the counts and the fitted velocities
+	// stay continuous.  The signed distance at the last reset is subtracted from each encoder.
+	private final double [] encoderResetDistanceArr = new double [MOTOR_COUNT];
+
+	// Heading from the gyro and the encoders, updated every time the sensors are read.
+	private HeadingEstimator headingEstimator = new HeadingEstimator(RobotMap.ENCODER_COUNTS_PER_INCH, 
+			RobotMap.DRIVE_ROTATION_RADIUS, RobotMap.HEADING_BIAS_TIME_CONSTANT, RobotMap.HEADING_STILL_RATE);
+
+	// Field position from the encoders and the heading, updated every loop in readSensors().
+	private MecanumOdometry odometry = new MecanumOdometry(RobotMap.ENCODER_COUNTS_PER_INCH);
+
 	// PIDS and PID outputs
 
+	// All of the PIDs are calculated by the PID engine on the control thread.
+	private PIDEngine pidEngine = PIDEngine.getInstance();
+
 	// AnglePID
 
 	private MockSpeedController anglePIDOutput    = new MockSpeedController();
 
-	private PIDController anglePID = new PIDController(0.02, 0.0, -0.001, 0.0,
+	private PIDLoop anglePID = pidEngine.add(0.02, 0.0, -0.001, 0.0,
 			new PIDSource() {
 		public double pidGet() {
-			return gyro.getAngle();
+			return controlHeading;
 		}
 	}, anglePIDOutput);
 
@@ -110,14 +176,17 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	private static final double ANGLE_PID_PRACTICE_I = 0.0d;
 	private static final double ANGLE_PID_PRACTICE_D = -0.001d;
 
+	/** The name of the angle PID gains in the {@link TuningFile} */
+	public static final String ANGLE_PID_NAME = "AnglePID";
+
 	// DriveAnglePID
 
 	private MockSpeedController holdAnglePIDOutput  = new MockSpeedController();
 
-	private PIDController holdAnglePID = new PIDController(0.04, 0.004, 0.0, 0.0,
+	private PIDLoop holdAnglePID = pidEngine.add(0.04, 0.004, 0.0, 0.0,
 			new PIDSource() {
 		public double pidGet() {
-			return gyro.getAngle();
+			return controlHeading;
 		}
 	}, holdAnglePIDOutput);
 
@@ -137,10 +206,10 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 	private MockSpeedController rotationPIDOutput    = new MockSpeedController();
 
-	private PIDController rotationPID = new PIDController(0.025, 0, 0, RobotMap.MAX_ANUGLAR_VELOCITY / 190.0, 
+	private PIDLoop rotationPID = pidEngine.add(0.025, 0, 0, RobotMap.MAX_ANUGLAR_VELOCITY / 190.0, 
 			new PIDSource() {
 		public double pidGet() {
-			return getGyroRotation() / RobotMap.MAX_ANUGLAR_VELOCITY;
+			return controlHeadingRate / RobotMap.MAX_ANUGLAR_VELOCITY;
 		}
 	},	rotationPIDOutput);
 
@@ -152,29 +221,8 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	private static final double ROTATION_PID_PRACTICE_I = 0.0d;
 	private static final double ROTATION_PID_PRACTICE_D = 0.0d;
 
-	// Distance PID
-
-	private Timer distancePIDTimer = new Timer(5.0);
-	private boolean        distanceOnTarget = false;
-	private LinearRamp     distanceSlowDownRamp = new LinearRamp();
-	private Timer      distancePIDOnTargetTimer = new Timer(0.2);
-	
-	private MockSpeedController distancePIDOutput = new MockSpeedController();
-
-	private PIDController distancePID = new PIDController(0.007, 0.0, -0.0005, 0.0, 
-			new PIDSource() {
-		public double pidGet() {
-			return getDistance(Units.ENCODER_COUNTS);
-		}
-	}, distancePIDOutput);
-
-	private static final double DISTANCE_PID_PRODUCTION_P = 0.007d;
-	private static final double DISTANCE_PID_PRODUCTION_I = 0.0d;
-	private static final double DISTANCE_PID_PRODUCTION_D = -0.0005d;
-
-	private static final double DISTANCE_PID_PRACTICE_P = 0.007d;
-	private static final double DISTANCE_PID_PRACTICE_I = 0.0d;
-	private static final double DISTANCE_PID_PRACTICE_D = -0.0005d;
+	// Motion profile following, speed control output per inch of profile position error.
+	private static final double PROFILE_POSITION_P = 0.02;
 
 	// Wheel Speed PID
 
@@ -184,15 +232,30 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 			new MockSpeedController(),
 			new MockSpeedController()  };
 
-	private PIDController [] wheelSpeedPIDArr = {
-			new PIDController(0.4, 0.0, -0.0,	1.0, 
-					encoderArr[FRONT_LEFT], wheelSpeedPIDOutputArr[FRONT_LEFT]),
-			new PIDController(0.4, 0.0, -0.0,	1.0, 
-					encoderArr[REAR_LEFT],  wheelSpeedPIDOutputArr[REAR_LEFT]),
-			new PIDController(0.4, 0.0, -0.0,	1.0, 
-					encoderArr[FRONT_RIGHT],wheelSpeedPIDOutputArr[FRONT_RIGHT]),
-			new PIDController(0.4, 0.0, -0.0,	1.0, 
-					encoderArr[REAR_RIGHT], wheelSpeedPIDOutputArr[REAR_RIGHT])	};
+	// The wheel speed PIDs are calculated on every control loop step.  The open loop output
+	// comes from the wheel feed forwards, and the P gain only corrects the error.
+	private PIDLoop [] wheelSpeedPIDArr = {
+			pidEngine.add(0.4, 0.0, -0.0,	0.0, 
+					wheelSpeedPIDSourceArr[FRONT_LEFT], wheelSpeedPIDOutputArr[FRONT_LEFT], 1.0d / RobotMap.CONTROL_LOOP_RATE),
+			pidEngine.add(0.4, 0.0, -0.0,	0.0, 
+					wheelSpeedPIDSourceArr[REAR_LEFT],  wheelSpeedPIDOutputArr[REAR_LEFT], 1.0d / RobotMap.CONTROL_LOOP_RATE),
+			pidEngine.add(0.4, 0.0, -0.0,	0.0, 
+					wheelSpeedPIDSourceArr[FRONT_RIGHT],wheelSpeedPIDOutputArr[FRONT_RIGHT], 1.0d / RobotMap.CONTROL_LOOP_RATE),
+			pidEngine.add(0.4, 0.0, -0.0,	0.0, 
+					wheelSpeedPIDSourceArr[REAR_RIGHT], wheelSpeedPIDOutputArr[REAR_RIGHT], 1.0d / RobotMap.CONTROL_LOOP_RATE)	};
+
+	// Wheel feed forwards from the drive characterization, in encoder counts.  The defaults
+	// are used until the wheels are characterized, and give the same output as an F gain 
+	// of 1.0 at the nominal battery voltage.
+	private MotorFeedforward [] wheelFeedforwardArr = {
+			new MotorFeedforward(RobotMap.MAX_ENCODER_RATE),
+			new MotorFeedforward(RobotMap.MAX_ENCODER_RATE),
+			new MotorFeedforward(RobotMap.MAX_ENCODER_RATE),
+			new MotorFeedforward(RobotMap.MAX_ENCODER_RATE) };
+
+	private static final double WHEEL_FEEDFORWARD_DEFAULT_KS = 0.0d;
+	private static final double WHEEL_FEEDFORWARD_DEFAULT_KV = MotorFeedforward.NOMINAL_VOLTAGE / RobotMap.MAX_ENCODER_RATE;
+	private static final double WHEEL_FEEDFORWARD_DEFAULT_KA = 0.0d;
 
 	private static final double WHEEL_SPEED_PID_PRODUCTION_P = 0.4;
 	private static final double WHEEL_SPEED_PID_PRODUCTION_I = 0.0d;
@@ -202,6 +265,101 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	private static final double WHEEL_SPEED_PID_PRACTICE_I = 0.0d;
 	private static final double WHEEL_SPEED_PID_PRACTICE_D = 0.0d;
 
+	// GAIN SCHEDULES
+
+	// The gains of the angle, hold angle and wheel speed PIDs and of the profile position 
+	// correction are looked up on every drive call by the robot relative drive direction and 
+	// speed.  Each schedule starts flat at the coded or tuned gains of its loop, and only the 
+	// gains measured at a direction and speed shape it.
+
+	/** The names of the gain schedule samples in the {@link TuningFile} */
+	public static final String ANGLE_GAIN_SCHEDULE_NAME       = "AnglePID.Schedule";
+	public static final String HOLD_ANGLE_GAIN_SCHEDULE_NAME  = "HoldAnglePID.Schedule";
+	public static final String WHEEL_SPEED_GAIN_SCHEDULE_NAME = "WheelSpeedPID.Schedule";
+	public static final String PROFILE_GAIN_SCHEDULE_NAME     = "ProfilePosition.Schedule";
+
+	// A node every 22.5 degrees and every 0.25 of full speed.
+	private static final int GAIN_SCHEDULE_HEADINGS = 16;
+	private static final int GAIN_SCHEDULE_SPEEDS   = 5;
+
+	// The gains the schedules start from, set in initSubsystem and loadTuning.
+	private final double [] angleBaseGainArr      = new double [GainSchedule.GAIN_COUNT];
+	private final double [] holdAngleBaseGainArr  = new double [GainSchedule.GAIN_COUNT];
+	private final double [] wheelSpeedBaseGainArr = new double [GainSchedule.GAIN_COUNT];
+	private final double [] profileBaseGainArr    = { PROFILE_POSITION_P, 0.0d, 0.0d };
+
+	private final GainSchedule angleGainSchedule = new GainSchedule(
+			GAIN_SCHEDULE_HEADINGS, GAIN_SCHEDULE_SPEEDS, 1.0d, new BaseGainModel(angleBaseGainArr));
+
+	private final GainSchedule holdAngleGainSchedule = new GainSchedule(
+			GAIN_SCHEDULE_HEADINGS, GAIN_SCHEDULE_SPEEDS, 1.0d, new BaseGainModel(holdAngleBaseGainArr));
+
+	private final GainSchedule wheelSpeedGainSchedule = new GainSchedule(
+			GAIN_SCHEDULE_HEADINGS, GAIN_SCHEDULE_SPEEDS, 1.0d, new BaseGainModel(wheelSpeedBaseGainArr));
+
+	private final GainSchedule profileGainSchedule = new GainSchedule(
+			GAIN_SCHEDULE_HEADINGS, GAIN_SCHEDULE_SPEEDS, 1.0d, new BaseGainModel(profileBaseGainArr));
+
+	// The scheduled gains, only used by the robot thread.
+	private final double [] scheduledGainArr = new double [GainSchedule.GAIN_COUNT];
+
+	// The scheduled gains last set on each loop.  The gains are only set on the loops when the 
+	// schedule changes them, so gains tuned from the LiveWindow are kept.
+	private final double [] angleAppliedGainArr      = new double [GainSchedule.GAIN_COUNT];
+	private final double [] holdAngleAppliedGainArr  = new double [GainSchedule.GAIN_COUNT];
+	private final double [] wheelSpeedAppliedGainArr = new double [GainSchedule.GAIN_COUNT];
+
+	// DASHBOARD
+
+	private static final double OUTPUT_DEADBAND   = 0.005d;
+	private static final double DISTANCE_DEADBAND = 1.0d;
+	private static final double ANGLE_DEADBAND    = 0.1d;
+
+	private DashboardPublisher dashboard = DashboardPublisher.getInstance();
+
+	private NumberEntry [] motorOutputEntryArr = {
+			dashboard.addNumber("Front Left Output",  OUTPUT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS),
+			dashboard.addNumber("Rear Left Output",   OUTPUT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS),
+			dashboard.addNumber("Front Right Output", OUTPUT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS),
+			dashboard.addNumber("Rear Right Output",  OUTPUT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS) };
+
+	private NumberEntry  encoderDistanceEntry        = dashboard.addNumber("Encoder Distance", DISTANCE_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  encoderDistanceInchesEntry  = dashboard.addNumber("Encoder Distance(in)", DISTANCE_DEADBAND / RobotMap.ENCODER_COUNTS_PER_INCH, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  encoderSpeedEntry           = dashboard.addNumber("Encoder Speed", DISTANCE_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  anglePIDOutputEntry         = dashboard.addNumber("Angle PID Output", OUTPUT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  holdAnglePIDOutputEntry     = dashboard.addNumber("Hold Angle PID Output", OUTPUT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  rotationPIDOutputEntry      = dashboard.addNumber("Rotation PID Output", OUTPUT_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  gyroAngleEntry              = dashboard.addNumber("Gyro angle", ANGLE_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  gyroRateEntry               = dashboard.addNumber("Gyro rate",  ANGLE_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  gyroBiasEntry               = dashboard.addNumber("Gyro bias",  0.01d, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  fieldXEntry                 = dashboard.addNumber("Field X", DISTANCE_DEADBAND / RobotMap.ENCODER_COUNTS_PER_INCH, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  fieldYEntry                 = dashboard.addNumber("Field Y", DISTANCE_DEADBAND / RobotMap.ENCODER_COUNTS_PER_INCH, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private BooleanEntry subsystemEnabledEntry       = dashboard.addBoolean("Chassis Subsystem Enabled");
+
+	private NumberEntry  angleDifferenceEntry        = dashboard.addNumber("Angle difference", ANGLE_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  drivePolarAngleEntry        = dashboard.addNumber("drivePolarAngle", ANGLE_DEADBAND, DashboardPublisher.DEFAULT_PERIOD_MS);
+	private NumberEntry  distanceErrorEntry          = dashboard.addNumber("Distance Profile Error", DISTANCE_DEADBAND / RobotMap.ENCODER_COUNTS_PER_INCH, DashboardPublisher.DEFAULT_PERIOD_MS);
+
+	// FLIGHT RECORDER channels in motor order
+
+	private static final Channel [] ENCODER_CHANNELS = {
+			Channel.FRONT_LEFT_ENCODER, Channel.REAR_LEFT_ENCODER, Channel.FRONT_RIGHT_ENCODER, Channel.REAR_RIGHT_ENCODER };
+
+	private static final Channel [] ENCODER_RATE_CHANNELS = {
+			Channel.FRONT_LEFT_ENCODER_RATE, Channel.REAR_LEFT_ENCODER_RATE, 
+			Channel.FRONT_RIGHT_ENCODER_RATE, Channel.REAR_RIGHT_ENCODER_RATE };
+
+	private static final Channel [] OUTPUT_CHANNELS = {
+			Channel.FRONT_LEFT_OUTPUT, Channel.REAR_LEFT_OUTPUT, Channel.FRONT_RIGHT_OUTPUT, Channel.REAR_RIGHT_OUTPUT };
+
+	private static final Channel [] PID_SETPOINT_CHANNELS = {
+			Channel.FRONT_LEFT_PID_SETPOINT, Channel.REAR_LEFT_PID_SETPOINT, 
+			Channel.FRONT_RIGHT_PID_SETPOINT, Channel.REAR_RIGHT_PID_SETPOINT };
+
+	private static final Channel [] PID_OUTPUT_CHANNELS = {
+			Channel.FRONT_LEFT_PID_OUTPUT, Channel.REAR_LEFT_PID_OUTPUT, 
+			Channel.FRONT_RIGHT_PID_OUTPUT, Channel.REAR_RIGHT_PID_OUTPUT };
+
 	/**
 	 * Is the angle on target for the specified drive angle driveToAngle which enables the anglePID.
 	 * @return true if on target, false otherwise
@@ -211,21 +369,57 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 		if (!anglePID.isEnable()) { return true; }
 		
 		// Get the current angle and look for an difference of less than 3 degrees
-		double difference = anglePID.getSetpoint() - gyro.getAngle();
+		double difference = anglePID.getSetpoint() - sensorFrame.getHeading();
 		if (difference > 180) { difference -= 360; }
 		
 		if (difference < -180) { difference += 360; }
 
-		SmartDashboard.putNumber("Angle difference", difference);
+		angleDifferenceEntry.set(difference);
 		
 		return Math.abs(difference) < 15;
 	}
 
+	/**
+	 * Set the motors from the motor request and the wheel speed PID outputs.
+	 * <p>
+	 * Called on the control thread after the PID engine.  If the wheel speed PIDs are disabled, 
+	 * the motors are set from the speeds requested by the drive methods.
+	 */
+	@Override
+	public void controlPeriodic() {
+
+		// A wheel speed PID disabled after this check is stopped on the next step.
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			if (wheelSpeedPIDArr[i].isEnable()) {
+				talonArr[i].set(wheelSpeedPIDOutputArr[i].get());
+				wheelPIDOutputArr[i] = true;
+			}
+			else if (wheelPIDOutputArr[i]) {
+				talonArr[i].stopMotor();
+				wheelPIDOutputArr[i] = false;
+			}
+		}
+
+		// The request is applied last so that it is not overridden by a PID output.
+		switch (motorRequest.getAndSet(MOTOR_REQUEST_NONE)) {
+		case MOTOR_REQUEST_SPEED:
+			for (int i=0; i<MOTOR_COUNT; i++) {
+				talonArr[i].set(Double.longBitsToDouble(requestedSpeedArr.get(i)));
+			}
+			break;
+		case MOTOR_REQUEST_STOP:
+			for (Motor talon: talonArr) {
+				talon.stopMotor();
+			}
+			break;
+		default: break;
+		}
+	}
+
 	public void disablePIDs() {
 
 		disableAnglePID();
 		disableRotationPID();
-		disableDistancePID();
 		disableWheelSpeedPIDs();
 		disableHoldAnglePID();
 
@@ -243,128 +437,39 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	}
 
 	/**
-	 * Is the distance on target for the specified drive distance after calling driveToDistance
-	 * which enables the distancePID.
-	 * @return true if on target, false otherwise
-	 */
-	public boolean distanceOnTarget() {
-		return distancePID.onTarget();
-//		if (distancePID.onTarget()) {
-//			distancePIDOnTargetTimer.start(0.2);
-//			if (distancePIDOnTargetTimer.isExpired()) {
-//				return true;
-//			}
-//		} else {
-//			distancePIDOnTargetTimer.disable();
-//		}
-//		return false;
-//		return distancePID.onTarget();// || distancePIDTimer.isExpired();
-	}
-
-	/** theta is the direction to drive in, targetAngle is the angle to rotate to. theta[rad], targetAngle[deg]
-	 * @param p - PolarCoordinate (r, theta) used to determine speed and direction
+	 * Drive along a motion profile.
+	 * <p>
+	 * The profile velocity sets the wheel speed PIDs directly and the difference between
+	 * the profile position and the encoder distance corrects for any following error.
+	 * 
+	 * @param p - PolarCoordinate (r, theta), theta is the direction to drive.  r is not used, the 
+	 * speed is set by the profile.
 	 * @param targetAngle - The angle to face while driving
-	 * @param distanceInches - Distance to travel in inches.
+	 * @param positionInches - the profile position setpoint in inches from the start of the move
+	 * @param velocity - the profile velocity setpoint in inches / sec
 	 * @param driveMode - FIELD_RELATIVE, or ROBOT_RELATIVE.
 	 */
-	public void driveDistance(PolarCoordinate p, double targetAngle, double distanceInches, DriveMode driveMode) {
+	public void driveProfile(PolarCoordinate p, double targetAngle, double positionInches, double velocity, DriveMode driveMode) {
 
-		double pMin = 0.0015;
-		double pMax = 0.0025;
-		
-		double iMin = 0.0002;
-		double iMax = 0.0005;
-		
-		PolarCoordinate drivePolarCoordinate = getDrivePolarCoordinate(p, driveMode);
-		
-		double pDrive = pMin + (Math.abs(Math.sin(Math.toRadians(drivePolarCoordinate.getTheta()))) * (pMax - pMin));
-		double iDrive = iMin + (Math.abs(Math.sin(Math.toRadians(drivePolarCoordinate.getTheta()))) * (iMax - iMin));
-		
-		SmartDashboard.putNumber("DISTANCE P VALUE", pDrive * 1000);
-		SmartDashboard.putNumber("DISTANCE I VALUE", iDrive * 1000);
-		if(distanceInches - getDistance(Units.INCHES) > 4.0) {
-			distancePID.setPID(pDrive, 0.0, 0.0);
+
+		double distanceError = positionInches - getDistance(Units.INCHES);
+
+		distanceErrorEntry.set(distanceError);
+
+		double profileSpeed = velocity / RobotMap.MAX_DRIVE_SPEED;
+
+		profileGainSchedule.lookup(getDrivePolarCoordinate(p, driveMode).getTheta(), profileSpeed, scheduledGainArr);
+
+		double r = profileSpeed + scheduledGainArr[0] * distanceError;
+
+		// A negative output backs up along the drive direction.
+		if (r < 0) {
+			distancePolarCoordinate.set(-r, p.getTheta() + 180.0d);
 		} else {
-			distancePID.setPID(pDrive, iDrive, 0.0);
+			distancePolarCoordinate.set(r, p.getTheta());
 		}
-		
-//		// If the drive distance is past the target, then stop the robot.
-//		// A new PolarCoordinate is set to stopped by default.
-//		
-//		if (getDistance(Units.INCHES) > distanceInches) { 
-//			driveToAngle(new PolarCoordinate(), targetAngle, driveMode, PIDEnable.ENABLED, PIDEnable.ENABLED);
-//			distanceOnTarget = true;
-//			distanceSlowDownRamp.disable();
-//			return;
-//		}
-//		
-//		// Drive at the requested power until the distance is close, and then 
-//		// turn on the deceleration.
-//		// When decelerating linearly, we know the distance travelled will be 
-//		// d = 1/2 a t^2
-//		// The initial velocity in encoder counts is given by 
-//		// v0 = getSpeed();
-//		//
-//		// The time to decelerate (given a constant speed) is given by
-//		// tdec = (setpointVelocity / RobotMap.MAX_DRIVE_ACCELERATION) 
-//		//
-//		// The actual acceleration in encoder counts / sec^2
-//		// a = V0 / tdec
-//		//
-//		// Given the acceleration, we need to start slowing down at some distance before we are stopped.
-//		//
-//		// The distance it will take to stop is
-//		// d = 1/2 a t^2
-//		// d = 1/2 (V0/tdec) tdec^2
-//		// d = 1/2 V0 tdec
-//		
-//	
-//		// If the robot has not yet got to the deceleration point, then continue driving.
-//		if (!distanceSlowDownRamp.isEnable()) {
-//		
-//			// Deceleration time
-//			double decelerationTime = p.getR() / RobotMap.MAX_DRIVE_ACCELERATION;
-//
-//			// d = 1/2 V0 tdec
-//			double stoppingDistance = getSpeed() * decelerationTime / 2.0d; // in encoderCounts
-//
-//			if (getDistance(Units.ENCODER_COUNTS) + stoppingDistance < distanceInches*RobotMap.ENCODER_COUNTS_PER_INCH) {
-//	
-//				driveToAngle(p, targetAngle, driveMode, PIDEnable.ENABLED, PIDEnable.ENABLED);
-//				
-//				distanceOnTarget = false;
-//	
-//				return;
-//			}
-//			
-//			// Initiate the distance slow down based on the current velocity and deceleration time
-//			distanceSlowDownRamp.start(decelerationTime, p.getR(), 0.0);
-//		}
-//		
-//		// The drive distance command determines the speed ramp down based on the current distance from the 
-//		// target and the speed of the robot.
-//
-//		double r = distanceSlowDownRamp.getValue();
-//
-//		SmartDashboard.putNumber("R", r);
-//
-//		if (distanceSlowDownRamp.isComplete()) {
-//			distanceOnTarget = true;
-//		} else {
-//			distanceOnTarget = false;
-//		}
-		
-		if(!distancePID.isEnable()) {
-			distancePID.enable();
-		}
-		
-		distancePID.setSetpoint(distanceInches * RobotMap.ENCODER_COUNTS_PER_INCH);
-		
-		distancePID.setOutputRange(-p.getR(), p.getR());
-		
-		double r = distancePIDOutput.get();
-		
-		driveToAngle(new PolarCoordinate(r, p.getTheta()), targetAngle, driveMode, PIDEnable.ENABLED, PIDEnable.ENABLED);
+
+		driveToAngle(distancePolarCoordinate, targetAngle, driveMode, PIDEnable.ENABLED, PIDEnable.ENABLED);
 	}
 
 	/**
@@ -382,7 +487,6 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 		// Disable unused PIDs
 		disableAnglePID();
-		disableDistancePID();
 
 		// Calculate the direction of travel relative to the robot heading.
 		PolarCoordinate drivePolarCoordinate = getDrivePolarCoordinate(p, driveMode);
@@ -407,10 +511,12 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	public void driveToAngle(PolarCoordinate p, double angleSetpoint, DriveMode driveMode,
 			PIDEnable rotationPIDEnable, PIDEnable motorPIDEnable) {
 
+		double gyroAngle = sensorFrame.getHeading();
+		
 		double angleRelativeSetpoint = angleSetpoint;
 		
 		if (driveMode == DriveMode.ROBOT_RELATIVE) {
-			angleRelativeSetpoint = gyro.getAngle() + angleSetpoint;
+			angleRelativeSetpoint = gyroAngle + angleSetpoint;
 			if (angleRelativeSetpoint > 360.0) {
 				angleRelativeSetpoint -= 360.0d;
 			}
@@ -418,14 +524,14 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 		enableAnglePID();
 
-		SmartDashboard.putNumber("Angle difference", angleRelativeSetpoint - gyro.getAngle());
+		angleDifferenceEntry.set(angleRelativeSetpoint - gyroAngle);
 
 		// Use the output of the gyro angle PID to set the rotational velocity of the robot.
 		anglePID.setSetpoint(angleRelativeSetpoint);
 
 		PolarCoordinate drivePolarCoordinate = getDrivePolarCoordinate(p, driveMode);
 
-		SmartDashboard.putNumber("drivePolarAngle", drivePolarCoordinate.getTheta());
+		drivePolarAngleEntry.set(drivePolarCoordinate.getTheta());
 
 		lastAngleSetpoint = angleRelativeSetpoint;
 		
@@ -435,6 +541,24 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 	}
 
+	/**
+	 * Drive every wheel forward at the same motor output with the PIDs disabled, for the
+	 * drive characterization.
+	 * @param output - the motor output -1.0 to 1.0, positive drives the robot forward.
+	 */
+	public void driveWheels(double output) {
+
+		disablePIDs();
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			// Same inversion as the mecanum drive
+			motorSpeeds[i] = motorInversionArr[i] ? -output : output;
+		}
+
+		motorSpeedsToPIDs  = false;
+		motorSpeedsPending = true;
+	}
+
 	@Override
 	public void enableSubsystem() {
 
@@ -443,21 +567,144 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	}
 
 	/**
-	 *  Get the Gyro angle
+	 *  Get the robot heading at the start of this loop.  The heading is the gyro angle 
+	 *  corrected for gyro drift using the wheel encoders.
 	 *  
 	 *  @return double - Gyro angle.
 	 */
 	public double getGyroAngle() {
-		return gyro.getAngle();
+		return sensorFrame.getHeading();
 	}
 
 	/**
-	 *  Get the Gyro rotational speed
+	 *  Get the robot rotational speed at the start of this loop, with the gyro bias removed.
 	 *  
 	 *  @return double - Gyro rotational speed.
 	 */
 	public double getGyroRotation() {
-		return gyro.getRate();
+		return sensorFrame.getHeadingRate();
+	}
+
+	/**
+	 * Get the chassis sensor values read at the start of this loop.
+	 * @return ChassisSensorFrame - the current frame.  The frame does not change, a reset
+	 * replaces the current frame.
+	 */
+	public ChassisSensorFrame getSensorFrame() {
+		return sensorFrame;
+	}
+
+	/**
+	 * Get the sign of the wheel encoder.  The encoder distance times the sign is positive 
+	 * when the wheel drives the robot forward.
+	 * @param wheel - the wheel index, in the order front left, rear left, front right, rear right.
+	 * @return double - 1.0 or -1.0
+	 */
+	public double getEncoderSign(int wheel) {
+		return motorInversionArr[wheel] ? 1.0d : -1.0d;
+	}
+
+	/**
+	 * Set the gains and constants that were measured on this robot and saved in the 
+	 * {@link TuningFile}.  The coded gains are used for anything that was not measured.
+	 */
+	public void loadTuning() {
+
+		TuningFile tuningFile = TuningFile.getInstance();
+
+		// Angle PID gains saved before the angle PID was scheduled apply at every direction and speed.
+		System.arraycopy(tuningFile.getPID(ANGLE_PID_NAME, angleBaseGainArr), 0, angleBaseGainArr, 0, GainSchedule.GAIN_COUNT);
+
+		angleGainSchedule     .loadSamples(tuningFile, ANGLE_GAIN_SCHEDULE_NAME);
+		holdAngleGainSchedule .loadSamples(tuningFile, HOLD_ANGLE_GAIN_SCHEDULE_NAME);
+		wheelSpeedGainSchedule.loadSamples(tuningFile, WHEEL_SPEED_GAIN_SCHEDULE_NAME);
+		profileGainSchedule   .loadSamples(tuningFile, PROFILE_GAIN_SCHEDULE_NAME);
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			wheelFeedforwardArr[i].setConstants(
+					tuningFile.getDouble(WHEEL_NAME_ARR[i] + ".kS", WHEEL_FEEDFORWARD_DEFAULT_KS),
+					tuningFile.getDouble(WHEEL_NAME_ARR[i] + ".kV", WHEEL_FEEDFORWARD_DEFAULT_KV),
+					tuningFile.getDouble(WHEEL_NAME_ARR[i] + ".kA", WHEEL_FEEDFORWARD_DEFAULT_KA));
+		}
+	}
+
+	/**
+	 * Get the angle PID, for the autotune relay.
+	 * @return PIDLoop - the angle PID
+	 */
+	public PIDLoop getAnglePID() {
+		return anglePID;
+	}
+
+	/**
+	 * Add measured angle PID gains to the gain schedule and save the schedule samples 
+	 * in the {@link TuningFile}.
+	 * @param heading - the robot relative drive direction of the measurement in degrees, or 
+	 * NaN if the robot was turning in place
+	 * @param speed - the drive speed of the measurement, or NaN if the gains apply at every speed
+	 * @param gainArr - { P, I, D }
+	 */
+	public void addAngleGainSample(double heading, double speed, double [] gainArr) {
+
+		TuningFile tuningFile = TuningFile.getInstance();
+
+		angleGainSchedule.addSample(heading, speed, gainArr);
+		angleGainSchedule.saveSamples(tuningFile, ANGLE_GAIN_SCHEDULE_NAME);
+
+		tuningFile.save();
+	}
+
+	/**
+	 * @param wheel - the wheel index, in the order front left, rear left, front right, rear right.
+	 * @return String - the wheel name used for the tuning constants
+	 */
+	public String getWheelName(int wheel) {
+		return WHEEL_NAME_ARR[wheel];
+	}
+
+	/**
+	 * Get the motor output of a wheel.  The output has the same sign as the wheel velocity.
+	 * @param wheel - the wheel index
+	 * @return double - the output set on the motor, -1.0 to 1.0
+	 */
+	public double getWheelOutput(int wheel) {
+		return talonArr[wheel].get();
+	}
+
+	/**
+	 * Get the wheel velocity fit on the control thread, as used by the wheel speed PIDs.
+	 * @param wheel - the wheel index
+	 * @return double - the velocity in encoder counts / sec
+	 */
+	public double getWheelVelocity(int wheel) {
+		return wheelSpeedPIDSourceArr[wheel].getRate();
+	}
+
+	/**
+	 * @param wheel - the wheel index
+	 * @return MotorFeedforward - the wheel speed feed forward
+	 */
+	public MotorFeedforward getWheelFeedforward(int wheel) {
+		return wheelFeedforwardArr[wheel];
+	}
+
+	/**
+	 * Set the wheel feed forward constants from a drive characterization and save them
+	 * for this robot.
+	 * @param wheel - the wheel index
+	 * @param kS - static voltage, volts
+	 * @param kV - volts / (encoder counts / sec)
+	 * @param kA - volts / (encoder counts / sec^2)
+	 */
+	public void setWheelFeedforward(int wheel, double kS, double kV, double kA) {
+
+		wheelFeedforwardArr[wheel].setConstants(kS, kV, kA);
+
+		TuningFile tuningFile = TuningFile.getInstance();
+		tuningFile.setDouble(WHEEL_NAME_ARR[wheel] + ".kS", kS);
+		tuningFile.setDouble(WHEEL_NAME_ARR[wheel] + ".kV", kV);
+		tuningFile.setDouble(WHEEL_NAME_ARR[wheel] + ".kA", kA);
+		tuningFile.save();
 	}
 
 	@Override
@@ -502,24 +749,30 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 		case RobotMap.ROBOT_PRACTICE:  rotationPID.setPID(ROTATION_PID_PRACTICE_P,   ROTATION_PID_PRACTICE_I,   ROTATION_PID_PRACTICE_D);   break;
 		default: break;	}
 
-		// Distance tolerance to determine if the PID is on target in encoder counts.
-		distancePID.setAbsoluteTolerance(60);
-		distancePID.setOutputRange(-1.0, 1.0);
-		switch (RobotMap.currentRobot) {
-		case RobotMap.ROBOT_PRODUCTION:distancePID.setPID(DISTANCE_PID_PRODUCTION_P, DISTANCE_PID_PRODUCTION_I, DISTANCE_PID_PRODUCTION_D); break;
-		case RobotMap.ROBOT_PRACTICE:  distancePID.setPID(DISTANCE_PID_PRACTICE_P,   DISTANCE_PID_PRACTICE_I,   DISTANCE_PID_PRACTICE_D);   break;
-		default: break;	}
-
 		// WheelSpeedPID
 		for (int i=0; i<MOTOR_COUNT; i++) {
 			wheelSpeedPIDArr[i].setInputRange(-1.0d, 1.0d);
 			wheelSpeedPIDArr[i].setOutputRange(-1.0d, 1.0d);
 			switch (RobotMap.currentRobot) {
-			case RobotMap.ROBOT_PRODUCTION:wheelSpeedPIDArr[i].setPID(WHEEL_SPEED_PID_PRODUCTION_P, WHEEL_SPEED_PID_PRODUCTION_I, WHEEL_SPEED_PID_PRODUCTION_D, 1.0d); break;
-			case RobotMap.ROBOT_PRACTICE:  wheelSpeedPIDArr[i].setPID(WHEEL_SPEED_PID_PRACTICE_P,   WHEEL_SPEED_PID_PRACTICE_I,   WHEEL_SPEED_PID_PRACTICE_D,   1.0d); break;
+			case RobotMap.ROBOT_PRODUCTION:wheelSpeedPIDArr[i].setPID(WHEEL_SPEED_PID_PRODUCTION_P, WHEEL_SPEED_PID_PRODUCTION_I, WHEEL_SPEED_PID_PRODUCTION_D, 0.0d); break;
+			case RobotMap.ROBOT_PRACTICE:  wheelSpeedPIDArr[i].setPID(WHEEL_SPEED_PID_PRACTICE_P,   WHEEL_SPEED_PID_PRACTICE_I,   WHEEL_SPEED_PID_PRACTICE_D,   0.0d); break;
 			default: break;	}
+
+			wheelSpeedPIDArr[i].setFeedforward(wheelFeedforwardArr[i]);
 		}
 
+		// The gain schedules start from the coded gains.
+		getGains(anglePID,                     angleBaseGainArr);
+		getGains(holdAnglePID,                 holdAngleBaseGainArr);
+		getGains(wheelSpeedPIDArr[FRONT_LEFT], wheelSpeedBaseGainArr);
+
+		// The measured gains and constants replace the defaults.
+		loadTuning();
+
+		getGains(anglePID,                     angleAppliedGainArr);
+		getGains(holdAnglePID,                 holdAngleAppliedGainArr);
+		getGains(wheelSpeedPIDArr[FRONT_LEFT], wheelSpeedAppliedGainArr);
+
 		switch (RobotMap.currentRobot) {
 		case RobotMap.ROBOT_PRODUCTION:
 		case RobotMap.ROBOT_PRACTICE:
@@ -542,27 +795,27 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 		// SmartDashboard.putData("Accel", accel);
 
-		SmartDashboard.putData("Gyro", gyro);
+		// The sensors and PIDs are updated by the DashboardPublisher.
+		dashboard.addSendable("Gyro", gyro);
 
 		SmartDashboard.putData("FrontLeftTalon", talonArr[FRONT_LEFT]);
 		SmartDashboard.putData("RearLeftTalon",  talonArr[REAR_LEFT]);
 		SmartDashboard.putData("FrontRightTalon",talonArr[FRONT_RIGHT]);
 		SmartDashboard.putData("RearRightTalon", talonArr[REAR_RIGHT]);
 
-		SmartDashboard.putData("FrontLeftEncoder", encoderArr[FRONT_LEFT]);
-		SmartDashboard.putData("RearLeftEncoder",  encoderArr[REAR_LEFT]);
-		SmartDashboard.putData("FrontRightEncoder",encoderArr[FRONT_RIGHT]);
-		SmartDashboard.putData("RearRightEncoder", encoderArr[REAR_RIGHT]);
+		dashboard.addSendable("FrontLeftEncoder", encoderArr[FRONT_LEFT]);
+		dashboard.addSendable("RearLeftEncoder",  encoderArr[REAR_LEFT]);
+		dashboard.addSendable("FrontRightEncoder",encoderArr[FRONT_RIGHT]);
+		dashboard.addSendable("RearRightEncoder", encoderArr[REAR_RIGHT]);
 
-		SmartDashboard.putData("FrontLeftPID", wheelSpeedPIDArr[FRONT_LEFT]);
-		SmartDashboard.putData("RearLeftPID",  wheelSpeedPIDArr[REAR_LEFT]);
-		SmartDashboard.putData("FrontRightPID",wheelSpeedPIDArr[FRONT_RIGHT]);
-		SmartDashboard.putData("RearRightPID", wheelSpeedPIDArr[REAR_RIGHT]);
+		dashboard.addSendable("FrontLeftPID", wheelSpeedPIDArr[FRONT_LEFT]);
+		dashboard.addSendable("RearLeftPID",  wheelSpeedPIDArr[REAR_LEFT]);
+		dashboard.addSendable("FrontRightPID",wheelSpeedPIDArr[FRONT_RIGHT]);
+		dashboard.addSendable("RearRightPID", wheelSpeedPIDArr[REAR_RIGHT]);
 
-		SmartDashboard.putData("DistancePID", distancePID);
-		SmartDashboard.putData("GyroAnglePID", anglePID);
-		SmartDashboard.putData("HoldAnglePID", holdAnglePID);
-		SmartDashboard.putData("GyroRotationPID", rotationPID);
+		dashboard.addSendable("GyroAnglePID", anglePID);
+		dashboard.addSendable("HoldAnglePID", holdAnglePID);
+		dashboard.addSendable("GyroRotationPID", rotationPID);
 
 		disableSubsystem();
 
@@ -591,16 +844,133 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 		 */
 	}
 
+	/**
+	 * Get the field x position of the robot.
+	 * <p>
+	 * The position is in inches relative to the last {@link #resetFieldPosition(double, double)}
+	 * with y forward from the driver station and x to the right.
+	 * @return double - field x in inches
+	 */
+	public double getFieldX() {
+		return odometry.getX();
+	}
+
+	/**
+	 * Get the field y position of the robot.
+	 * @return double - field y in inches
+	 * @see #getFieldX()
+	 */
+	public double getFieldY() {
+		return odometry.getY();
+	}
+
+	/**
+	 * Read the gyro and the encoders, and update the field position.
+	 */
+	@Override
+	public void readSensors() {
+
+		ChassisSensorFrame frame = sampleSensors();
+
+		// The power subsystem is read first in the loop.
+		for (MotorFeedforward wheelFeedforward: wheelFeedforwardArr) {
+			wheelFeedforward.setBatteryVoltage(Robot.powerSubsystem.getVoltage());
+		}
+
+		odometry.update(
+				frame.getEncoderDistance(FRONT_LEFT),
+				frame.getEncoderDistance(REAR_LEFT),
+				frame.getEncoderDistance(FRONT_RIGHT),
+				frame.getEncoderDistance(REAR_RIGHT),
+				frame.getHeading());
+	}
+
+	/**
+	 * Write the motor speeds from the drive methods called in this loop, either as the 
+	 * wheel speed PID setpoints or directly to the motors.
+	 * <p>
+	 * This method is called at the end of every loop, after the commands and the OI are run, 
+	 * in all robot modes.
+	 */
+	public void writeOutputs() {
+
+		if (!motorSpeedsPending) { return; }
+
+		motorSpeedsPending = false;
+
+		// When the motor PIDs are enabled, the motors are set from the PID outputs 
+		// on the control thread.
+		if (motorSpeedsToPIDs) {
+			for (int i=0; i<MOTOR_COUNT; i++) {
+				wheelSpeedPIDArr[i].setSetpoint(motorSpeeds[i]);
+			}
+			return;
+		}
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			requestedSpeedArr.set(i, Double.doubleToRawLongBits(motorSpeeds[i]));
+		}
+		motorRequest.set(MOTOR_REQUEST_SPEED);
+	}
+
+	@Override
+	public void recordFlightData(FlightRecorder recorder) {
+
+		ChassisSensorFrame frame = sensorFrame;
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			recorder.set(ENCODER_CHANNELS[i],      frame.getEncoderCount(i));
+			recorder.set(ENCODER_RATE_CHANNELS[i], frame.getEncoderRate(i));
+			recorder.set(OUTPUT_CHANNELS[i],       talonArr[i].get());
+			recorder.set(PID_SETPOINT_CHANNELS[i], wheelSpeedPIDArr[i].getSetpoint());
+			recorder.set(PID_OUTPUT_CHANNELS[i],   wheelSpeedPIDOutputArr[i].get());
+		}
+
+		recorder.set(Channel.GYRO_ANGLE, frame.getGyroAngle());
+		recorder.set(Channel.GYRO_RATE,  frame.getGyroRate());
+		recorder.set(Channel.HEADING,    frame.getHeading());
+		recorder.set(Channel.GYRO_BIAS,  headingEstimator.getBias());
+
+		recorder.set(Channel.FIELD_X, odometry.getX());
+		recorder.set(Channel.FIELD_Y, odometry.getY());
+
+		recorder.set(Channel.ANGLE_PID_SETPOINT,      anglePID.getSetpoint());
+		recorder.set(Channel.ANGLE_PID_OUTPUT,        anglePIDOutput.get());
+		recorder.set(Channel.HOLD_ANGLE_PID_SETPOINT, holdAnglePID.getSetpoint());
+		recorder.set(Channel.HOLD_ANGLE_PID_OUTPUT,   holdAnglePIDOutput.get());
+		recorder.set(Channel.ROTATION_PID_SETPOINT,   rotationPID.getSetpoint());
+		recorder.set(Channel.ROTATION_PID_OUTPUT,     rotationPIDOutput.get());
+	}
+
+	/**
+	 * Reset the encoder distances to zero.
+	 * <p>
+	 * The current frame is replaced by a copy with the distances reset, so the rest of the 
+	 * loop sees the reset without reading the sensors again.
+	 */
 	public void resetEncoders() {
 
-		for (Encoder encoder: encoderArr) {
-			encoder.reset();
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			encoderResetDistanceArr[i] += sensorFrame.getEncoderDistance(i);
 		}
 
-		for (PIDController wheelSpeedPID: wheelSpeedPIDArr) {
+		odometry.resetEncoders();
+		headingEstimator.resetEncoders();
+
+		for (PIDLoop wheelSpeedPID: wheelSpeedPIDArr) {
 			wheelSpeedPID.setSetpoint(0.0);
 		}
 
+		publishSensorFrame(sensorFrame.withEncodersReset());
+	}
+
+	/**
+	 * Set the field position of the robot, for example at the start of autonomous.
+	 * @param x - field x in inches
+	 * @param y - field y in inches
+	 */
+	public void resetFieldPosition(double x, double y) {
+		odometry.reset(x, y);
 	}
 
 	/**
@@ -608,6 +978,9 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	 * <p>
 	 * This will allow the driver to reset the gyro to a given angle relative to the field to 
 	 * compensate for gyro drift.  The robot should not be moving when the gyro is reset. 
+	 * <p>
+	 * The current frame is replaced by a copy with the new angle, so the rest of the loop 
+	 * sees it without reading the gyro again.
 	 *
 	 * @param fieldAngle
 	 */
@@ -615,52 +988,36 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 		disableHoldAnglePID();
 		gyro.setOffset(fieldAngle);
+		headingEstimator.reset(fieldAngle);
 		lastAngleSetpoint = fieldAngle;
 
+		// The reset gyro reads the field angle.
+		publishSensorFrame(sensorFrame.withGyroReset(((fieldAngle % 360) + 360) % 360, headingEstimator.getHeading()));
 	}
 
 	@Override
 	public void updateDashboard() {
-		// accel.updateTable();
-
-		gyro.updateTable();
-
-		for (Encoder encoder: encoderArr) {
-			encoder.updateTable();
-		}
 
-		for (PIDController wheelSpeedPID: wheelSpeedPIDArr) {
-			wheelSpeedPID.updateTable();
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			motorOutputEntryArr[i].set(talonArr[i].get());
 		}
 
-		SmartDashboard.putNumber("Front Left Output", talonArr[FRONT_LEFT].get());
-		SmartDashboard.putNumber("Front Right Output", talonArr[FRONT_RIGHT].get());
-		SmartDashboard.putNumber("Rear Left Output", talonArr[REAR_LEFT].get());
-		SmartDashboard.putNumber("Rear Right Output", talonArr[REAR_RIGHT].get());
-
-		distancePID.updateTable();
-		SmartDashboard.putNumber("Distance PID Output", distancePIDOutput.get());
-		SmartDashboard.putNumber("Encoder Distance", getDistance(Units.ENCODER_COUNTS));
-		SmartDashboard.putNumber("Encoder Distance(in)", getDistance(Units.INCHES));
-		SmartDashboard.putNumber("Encoder Speed", getSpeed());
-		SmartDashboard.putBoolean("Distance Slow Down Ramp Enabled", distanceSlowDownRamp.isEnable());
-		SmartDashboard.putNumber("Distance Slow Down Ramp Output", distanceSlowDownRamp.getValue());
-
-		anglePID.updateTable();
-		SmartDashboard.putNumber("Angle PID Output", anglePIDOutput.get());
+		encoderDistanceEntry.set(getDistance(Units.ENCODER_COUNTS));
+		encoderDistanceInchesEntry.set(getDistance(Units.INCHES));
+		encoderSpeedEntry.set(getSpeed());
 
-		holdAnglePID.updateTable();
-		SmartDashboard.putNumber("Hold Angle PID Output", holdAnglePIDOutput.get());
+		anglePIDOutputEntry.set(anglePIDOutput.get());
+		holdAnglePIDOutputEntry.set(holdAnglePIDOutput.get());
+		rotationPIDOutputEntry.set(rotationPIDOutput.get());
 
-		rotationPID.updateTable();
-		SmartDashboard.putNumber("Rotation PID Output", rotationPIDOutput.get());
+		gyroAngleEntry.set(getGyroAngle());
+		gyroRateEntry.set(getGyroRotation());
+		gyroBiasEntry.set(headingEstimator.getBias());
 
-		SmartDashboard.putNumber("Gyro angle",     gyro.getAngle());
-		SmartDashboard.putNumber("Gyro rate",      getGyroRotation());
+		fieldXEntry.set(odometry.getX());
+		fieldYEntry.set(odometry.getY());
 
-		SmartDashboard.putBoolean("Chassis Subsystem Enabled" , subsystemEnabled);
-
-		// SmartDashboard.putNumber("X pos", xpos);
+		subsystemEnabledEntry.set(subsystemEnabled);
 	}
 
 	/**
@@ -672,20 +1029,6 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 		anglePID.disable();
 	}
 
-	/**
-	 * Disable the DistancePID
-	 * 
-	 * If already disabled, this routine does nothing.
-	 */
-	private void disableDistancePID() {
-		distancePID.disable();		
-		distancePIDTimer.disable();
-		
-		distanceSlowDownRamp.disable();
-		distanceOnTarget = false;
-	}
-
-
 	/**
 	 * Disable the HoldAnglePID
 	 * 
@@ -714,7 +1057,7 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	 */
 	private void disableWheelSpeedPIDs() {
 
-		for (PIDController wheelSpeedPID: wheelSpeedPIDArr) {
+		for (PIDLoop wheelSpeedPID: wheelSpeedPIDArr) {
 			wheelSpeedPID.disable();
 		}
 
@@ -731,6 +1074,8 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	private void drivePolar(PolarCoordinate p, double rotation, double angle,
 			PIDEnable rotationPIDEnable, PIDEnable motorPIDEnable) {
 		
+		scheduleGains(p);
+
 		// Determine if the angle should be held constant during this move sequence.
 		// if there is no rotational input then try to hold the rotation constant.
 		// Override the rotation PID to disabled.
@@ -756,7 +1101,7 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 						if (lastAngleSetpoint >= 0) {
 							holdAngle = lastAngleSetpoint;
 						} else {
-							holdAngle = gyro.getAngle();
+							holdAngle = sensorFrame.getHeading();
 						}
 					}
 					holdAnglePID.reset();
@@ -792,30 +1137,19 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 		 * The mecannum drive uses the angle theta of the polar coordinate p(r,theta) 
 		 * to set the relative speeds of all of the drive wheels.
 		 */
-		double [] motorSpeeds = mecanumDrive.drivePolar(p, mecanumRotation);
+		mecanumDrive.drivePolar(p, mecanumRotation, motorSpeeds);
 
-		// If the motor PIDs are enabled, then use the motor speeds as the setpoint values
+		// If the motor PIDs are enabled, then the motor speeds are the setpoint values
 		// for the motor PIDs.
 		if (motorPIDEnable == PIDEnable.ENABLED) {
 			enableWheelSpeedPIDs();
-
-			for (int i=0; i<MOTOR_COUNT; i++) {
-				wheelSpeedPIDArr[i].setSetpoint(motorSpeeds[i]);
-			}
 		} else {
 			disableWheelSpeedPIDs();
 		}
 
-		// Set the motor speeds.
-		if (motorPIDEnable == PIDEnable.ENABLED) {
-			for (int i=0; i<MOTOR_COUNT; i++) {
-				talonArr[i].set(wheelSpeedPIDOutputArr[i].get());
-			}
-		} else {
-			for (int i=0; i<MOTOR_COUNT; i++) {
-				talonArr[i].set(motorSpeeds[i]);
-			}
-		}
+		// The motor speeds are written at the end of the loop.
+		motorSpeedsToPIDs  = (motorPIDEnable == PIDEnable.ENABLED);
+		motorSpeedsPending = true;
 	}
 
 	/**
@@ -832,22 +1166,6 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 
 	}
 
-	/**
-	 * Enable and reset the DistancePID
-	 * 
-	 * If already enabled, this routine does nothing.
-	 */
-	private void enableDistancePID() {
-
-		if (!distancePID.isEnable()) {
-
-			distancePID.reset();
-			distancePID.enable();
-
-			resetEncoders();
-		}
-	}
-
 	/**
 	 * Enable and reset the RotationPID
 	 * 
@@ -872,7 +1190,7 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	 */
 	private void enableWheelSpeedPIDs() {
 
-		for (PIDController wheelSpeedPID: wheelSpeedPIDArr) {
+		for (PIDLoop wheelSpeedPID: wheelSpeedPIDArr) {
 
 			if (!wheelSpeedPID.isEnable()) {
 				wheelSpeedPID.reset();
@@ -890,7 +1208,46 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	 * @return double - the encoder distance since the last reset.
 	 */
 	// amount used for rotation of the robot.
-	private double getDistance(Units units) {
+	double getDistance(Units units) {
+
+		double distanceEncoderCounts = sensorFrame.getDistance();
+
+		switch (units) {
+		case ENCODER_COUNTS: return distanceEncoderCounts;
+		case INCHES:         return distanceEncoderCounts/RobotMap.ENCODER_COUNTS_PER_INCH;
+		default:             return distanceEncoderCounts;
+		}
+	}
+
+	/**
+	 * Get the distance travelled since the last encoder reset in inches.
+	 * @return double - the distance in inches
+	 */
+	public double getDistanceInches() {
+		return getDistance(Units.INCHES);
+	}
+
+	/**
+	 * Read the gyro and the encoders into a new frame, and make it the current frame.
+	 * @return ChassisSensorFrame - the new current frame
+	 */
+	private ChassisSensorFrame sampleSensors() {
+
+		long timeNanos = Clock.getInstance().getTimeNanos();
+
+		double gyroAngle = gyro.getAngle();
+		double gyroRate  = gyro.getRate();
+
+		double speedTotal = 0;
+
+		for (int i=0; i<MOTOR_COUNT; i++) {
+			// The distance is signed so that positive drives the robot forward.
+			encoderCountScratchArr[i]    = encoderArr[i].get();
+			encoderDistanceScratchArr[i] = encoderArr[i].getDistance() * (motorInversionArr[i] ? 1.0d : -1.0d)
+					- encoderResetDistanceArr[i];
+			encoderRateScratchArr[i]     = encoderArr[i].getRate();
+			speedTotal += Math.abs(encoderRateScratchArr[i]);
+		}
 
 		// In the mecanum drive, the front right and rear left encoders should be moving
 		// in the same direction and at the same speed in order to make the robot move in a 
@@ -899,29 +1256,126 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 		// does not contribute to the distance traveled.
 		
 		double distanceDiagonal1 = 
-				( encoderArr[FRONT_LEFT].getDistance() * (motorInversionArr[FRONT_LEFT] ? 1.0d : -1.0d)
-				+ encoderArr[REAR_RIGHT].getDistance() * (motorInversionArr[REAR_RIGHT] ? 1.0d : -1.0d)) / 2.0d;
+				( encoderDistanceScratchArr[FRONT_LEFT]
+				+ encoderDistanceScratchArr[REAR_RIGHT]) / 2.0d;
 		double distanceDiagonal2 = 
-				( encoderArr[REAR_LEFT]  .getDistance() * (motorInversionArr[REAR_LEFT] ? 1.0d : -1.0d)
-				+ encoderArr[FRONT_RIGHT].getDistance() * (motorInversionArr[FRONT_RIGHT] ? 1.0d : -1.0d)) / 2.0d;
+				( encoderDistanceScratchArr[REAR_LEFT]
+				+ encoderDistanceScratchArr[FRONT_RIGHT]) / 2.0d;
 
-		double distanceEncoderCounts = 
-				(Math.abs(distanceDiagonal1) + Math.abs(distanceDiagonal2)) / 2;
+		headingEstimator.update(
+				encoderDistanceScratchArr[FRONT_LEFT],
+				encoderDistanceScratchArr[REAR_LEFT],
+				encoderDistanceScratchArr[FRONT_RIGHT],
+				encoderDistanceScratchArr[REAR_RIGHT],
+				gyroAngle, gyroRate, timeNanos);
 
-		switch (units) {
-		case ENCODER_COUNTS: return distanceEncoderCounts;
-		case INCHES:         return distanceEncoderCounts/RobotMap.ENCODER_COUNTS_PER_INCH;
-		default:             return distanceEncoderCounts;
+		ChassisSensorFrame frame = new ChassisSensorFrame(timeNanos, gyroAngle, gyroRate,
+				headingEstimator.getHeading(), headingEstimator.getRate(),
+				encoderCountScratchArr, encoderDistanceScratchArr, encoderRateScratchArr,
+				(Math.abs(distanceDiagonal1) + Math.abs(distanceDiagonal2)) / 2, 
+				speedTotal / MOTOR_COUNT);
+
+		publishSensorFrame(frame);
+
+		return frame;
+	}
+
+	/**
+	 * Make the frame the current frame, and publish the values used by the control thread.
+	 */
+	private void publishSensorFrame(ChassisSensorFrame frame) {
+		sensorFrame        = frame;
+		controlHeading     = frame.getHeading();
+		controlHeadingRate = frame.getHeadingRate();
+	}
+
+	/**
+	 * Set the gains of the angle, hold angle and wheel speed PIDs from their gain schedules.
+	 * The gains of a loop are only set when the scheduled gains change.
+	 * @param p - the drive direction relative to the robot heading and the drive speed
+	 */
+	private void scheduleGains(PolarCoordinate p) {
+
+		double heading = p.getTheta();
+		double speed   = p.getR();
+
+		angleGainSchedule.lookup(heading, speed, scheduledGainArr);
+		if (applyGains(scheduledGainArr, angleAppliedGainArr)) {
+			anglePID.setPID(scheduledGainArr[0], scheduledGainArr[1], scheduledGainArr[2]);
+		}
+
+		holdAngleGainSchedule.lookup(heading, speed, scheduledGainArr);
+		if (applyGains(scheduledGainArr, holdAngleAppliedGainArr)) {
+			holdAnglePID.setPID(scheduledGainArr[0], scheduledGainArr[1], scheduledGainArr[2]);
+		}
+
+		wheelSpeedGainSchedule.lookup(heading, speed, scheduledGainArr);
+		if (applyGains(scheduledGainArr, wheelSpeedAppliedGainArr)) {
+			for (PIDLoop wheelSpeedPID: wheelSpeedPIDArr) {
+				wheelSpeedPID.setPID(scheduledGainArr[0], scheduledGainArr[1], scheduledGainArr[2]);
+			}
+		}
+	}
+
+	/**
+	 * @param gainArr - the scheduled { P, I, D } gains
+	 * @param appliedGainArr - the gains last set on the loop, updated if they changed
+	 * @return boolean - {@code true} if the gains changed and must be set on the loop
+	 */
+	private static boolean applyGains(double [] gainArr, double [] appliedGainArr) {
+
+		boolean changed = false;
+
+		for (int g=0; g<GainSchedule.GAIN_COUNT; g++) {
+			if (gainArr[g] != appliedGainArr[g]) {
+				appliedGainArr[g] = gainArr[g];
+				changed = true;
+			}
+		}
+
+		return changed;
+	}
+
+	/**
+	 * @param loop - a PID loop
+	 * @param gainArr - double[3] that receives the { P, I, D } gains of the loop
+	 */
+	private static void getGains(PIDLoop loop, double [] gainArr) {
+		gainArr[0] = loop.getP();
+		gainArr[1] = loop.getI();
+		gainArr[2] = loop.getD();
+	}
+
+	/**
+	 * The coded or tuned gains of a loop, the same at every direction and speed.
+	 */
+	private static class BaseGainModel implements GainSchedule.GainModel {
+
+		private final double [] baseGainArr;
+
+		/**
+		 * @param baseGainArr - { P, I, D }.  The array is read on every rebuild.
+		 */
+		BaseGainModel(double [] baseGainArr) {
+			this.baseGainArr = baseGainArr;
+		}
+
+		public void getGains(double heading, double speed, double [] gainArr) {
+			System.arraycopy(baseGainArr, 0, gainArr, 0, GainSchedule.GAIN_COUNT);
 		}
 	}
 
+	/**
+	 * Get the direction of travel relative to the robot heading.
+	 * <p>
+	 * The returned coordinate is reused on every call.
+	 */
 	private PolarCoordinate getDrivePolarCoordinate(PolarCoordinate p, DriveMode driveMode) {
 
-		PolarCoordinate drivePolarCoordinate = new PolarCoordinate();
 		drivePolarCoordinate.set(p);
 
 		if (driveMode == DriveMode.FIELD_RELATIVE) {
-			drivePolarCoordinate.setTheta(p.getTheta() - gyro.getAngle());
+			drivePolarCoordinate.setTheta(p.getTheta() - sensorFrame.getHeading());
 		}
 
 		return drivePolarCoordinate;
@@ -934,17 +1388,26 @@ public class ChassisSubsystem extends RunnymedeSubsystem {
 	 * @return double - average encoder speed for the robot wheels.
 	 */
 	private double getSpeed() {
-		double speedTotal = 0;
-		for (Encoder encoder: encoderArr) {
-			speedTotal += Math.abs(encoder.getRate());
-		}
-		return speedTotal / encoderArr.length;
+		return sensorFrame.getSpeed();
 	}
 
+	/**
+	 * Request the control thread to stop the motors.
+	 */
 	private void stopMotors() {
-		for (Talon talon: talonArr) {
-			talon.stopMotor();
-		}
+
+		// Do not let a drive earlier in this loop restart the motors.
+		motorSpeedsPending = false;
+
+		motorRequest.set(MOTOR_REQUEST_STOP);
+	}
+
+	/**
+	 * The wheel speed PID input is the encoder velocity normalized to the motor drive range.
+	 */
+	private EncoderVelocity newWheelVelocity(int wheel) {
+		return VelocityEstimator.getInstance().add(encoderArr[wheel], 
+				RobotMap.DRIVE_VELOCITY_WINDOW, RobotMap.MAX_ENCODER_RATE);
 	}
 
 }
@@ -4,15 +4,22 @@ import robot.MockSpeedController;
 import robot.RobotMap;
 import robot.commands.DriveContainerElevatorCommand;
 import robot.commands.TeleopContainerElevatorCommand;
-import edu.wpi.first.wpilibj.DigitalInput;
+import robot.control.EncoderVelocity;
+import robot.control.PIDEngine;
+import robot.control.PIDLoop;
+import robot.control.TuningFile;
+import robot.control.VelocityEstimator;
+import robot.hal.DigitalSensor;
+import robot.hal.DoubleSolenoidOutput;
+import robot.hal.Motor;
+import robot.hal.QuadratureEncoder;
+import robot.hal.SolenoidOutput;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.FlightRecorder;
+import robot.telemetry.FlightRecorder.Channel;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.PIDController;
 import edu.wpi.first.wpilibj.PIDSource;
-import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.Talon;
 import edu.wpi.first.wpilibj.command.Scheduler;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 public class ContainerElevatorSubsystem extends RunnymedeSubsystem {
 
@@ -35,29 +42,40 @@ public class ContainerElevatorSubsystem extends RunnymedeSubsystem {
 	
 	double difference = 0.0;
 	ContainerElevatorLevel level = ContainerElevatorLevel.FLOOR;
-	DigitalInput containerSensor = new DigitalInput(RobotMap.CONTAINER_SENSOR_PORT);
-	Talon intakeMotorLeft = new Talon(RobotMap.LEFT_CONTAINER_MOTOR_PORT);
-	Talon intakeMotorRight = new Talon(RobotMap.RIGHT_CONTAINER_MOTOR_PORT);
-	Solenoid containerClamp = new Solenoid(RobotMap.CONTAINER_PINCHER_PORT);
-	DoubleSolenoid containerDeploy = new DoubleSolenoid(RobotMap.CONTAINER_DEPLOY_PORT_ONE, RobotMap.CONTAINER_DEPLOY_PORT_TWO);
+	DigitalSensor containerSensor = RobotMap.hardware.digitalInput(RobotMap.CONTAINER_SENSOR_PORT);
+	Motor intakeMotorLeft = RobotMap.hardware.motor(RobotMap.LEFT_CONTAINER_MOTOR_PORT);
+	Motor intakeMotorRight = RobotMap.hardware.motor(RobotMap.RIGHT_CONTAINER_MOTOR_PORT);
+	SolenoidOutput containerClamp = RobotMap.hardware.solenoid(RobotMap.CONTAINER_PINCHER_PORT);
+	DoubleSolenoidOutput containerDeploy = RobotMap.hardware.doubleSolenoid(RobotMap.CONTAINER_DEPLOY_PORT_ONE, RobotMap.CONTAINER_DEPLOY_PORT_TWO);
 	MockSpeedController holdLevelPIDOutput = new MockSpeedController();
 	
-	Encoder encoder = new Encoder(RobotMap.CONTAINER_ELEVATOR_ENCODER_ONE,
+	QuadratureEncoder encoder = RobotMap.hardware.encoder(RobotMap.CONTAINER_ELEVATOR_ENCODER_ONE,
 			RobotMap.CONTAINER_ELEVATOR_ENCODER_TWO, true);
 	
-	Talon elevatorMotor = new Talon(RobotMap.CONTAINER_ELEVATOR_MOTOR);
-
-	PIDController elevatorRatePID = new PIDController(0.4, 0.0, 0.0, 0.002 * RobotMap.CONTAINER_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE,
-		new PIDSource() {
-			@Override
-			public double pidGet() {
-				return encoder.getRate() / RobotMap.CONTAINER_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE;
-			}
-	}, elevatorMotor);
+	Motor elevatorMotor = RobotMap.hardware.motor(RobotMap.CONTAINER_ELEVATOR_MOTOR);
+
+	// Sensor values read at the start of the loop.  The distance is also read by the hold 
+	// level PID on the control thread.  The rate PID reads the encoder velocity fit on 
+	// every control loop step.
+	private volatile double encoderDistance      = 0.0d;
+	private double          encoderRate          = 0.0d;
+	private boolean         containerSensorValue = false;
+
+	// The elevator only moves a few counts per control loop step, so the velocity is fit 
+	// over a longer window.
+	EncoderVelocity encoderVelocity = VelocityEstimator.getInstance().add(encoder, 
+			RobotMap.CONTAINER_ELEVATOR_VELOCITY_WINDOW, RobotMap.CONTAINER_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE);
+
+	// The rate PID is calculated on every control loop step.
+	PIDLoop elevatorRatePID = PIDEngine.getInstance().add(0.4, 0.0, 0.0, 0.002 * RobotMap.CONTAINER_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE,
+		encoderVelocity, elevatorMotor, 1.0d / RobotMap.CONTROL_LOOP_RATE);
 	
-	PIDController holdLevelPID = new PIDController(0.1, 0.0, 0.0, 0.0, new PIDSource() {
+	/** The name of the hold level PID gains in the {@link TuningFile} */
+	public static final String HOLD_LEVEL_PID_NAME = "ContainerHoldLevelPID";
+
+	PIDLoop holdLevelPID = PIDEngine.getInstance().add(0.1, 0.0, 0.0, 0.0, new PIDSource() {
 		public double pidGet() {
-			return encoder.getDistance();
+			return encoderDistance;
 		}
 	}, holdLevelPIDOutput);
 
@@ -71,7 +89,7 @@ public class ContainerElevatorSubsystem extends RunnymedeSubsystem {
 	}
 
 	public void driveToLevel(ContainerElevatorLevel level) {
-		difference = encoder.getDistance() - level.encoderSetpoint;
+		difference = encoderDistance - level.encoderSetpoint;
 		
 		enableRatePID();
 		disableHoldLevelPID();
@@ -116,8 +134,23 @@ public class ContainerElevatorSubsystem extends RunnymedeSubsystem {
 		
 	}
 	
+	/**
+	 * Get the hold level PID, for the autotune relay.
+	 * @return PIDLoop - the hold level PID
+	 */
+	public PIDLoop getHoldLevelPID() {
+		return holdLevelPID;
+	}
+
+	/**
+	 * Set the gains that were measured on this robot and saved in the {@link TuningFile}.
+	 */
+	public void loadTuning() {
+		TuningFile.getInstance().loadPID(HOLD_LEVEL_PID_NAME, holdLevelPID);
+	}
+
 	public void updatePickup(boolean clampState, boolean deployState) {
-		if(clampState && containerSensor.get()) {
+		if(clampState && containerSensorValue) {
 			intakeMotorLeft.set(-0.5);
 			intakeMotorRight.set(0.5);
 		} else {
@@ -156,16 +189,36 @@ public class ContainerElevatorSubsystem extends RunnymedeSubsystem {
 		elevatorRatePID.setOutputRange(-1.0, 1.0);
 		
 		holdLevelPID.setOutputRange(-1.0, 1.0);
+		
+		loadTuning();
+		
+		// The sensors, PIDs and talon are updated by the DashboardPublisher.
+		DashboardPublisher dashboard = DashboardPublisher.getInstance();
+		
+		dashboard.addSendable("Container Elevator Encoder", encoder);
+		dashboard.addSendable("Container Elevator PID", elevatorRatePID);
+		dashboard.addSendable("Container Elevator Talon", elevatorMotor);
+		dashboard.addSendable("Hold Level PID", holdLevelPID);
 	}
 
 	@Override
-	public void updateDashboard() {
-		SmartDashboard.putData("Container Elevator Encoder", encoder);
-		SmartDashboard.putData("Container Elevator PID", elevatorRatePID);
-		SmartDashboard.putData("Container Elevator Talon", elevatorMotor);
-		
-		SmartDashboard.putData("Hold Level PID", holdLevelPID);
+	public void readSensors() {
+		encoderDistance      = encoder.getDistance();
+		encoderRate          = encoder.getRate();
+		containerSensorValue = containerSensor.get();
+	}
 
+	@Override
+	public void updateDashboard() { }
+	
+	@Override
+	public void recordFlightData(FlightRecorder recorder) {
+		recorder.set(Channel.CONTAINER_ELEVATOR_ENCODER,      encoderDistance);
+		recorder.set(Channel.CONTAINER_ELEVATOR_ENCODER_RATE, encoderRate);
+		recorder.set(Channel.CONTAINER_ELEVATOR_PID_SETPOINT, elevatorRatePID.getSetpoint());
+		recorder.set(Channel.CONTAINER_ELEVATOR_OUTPUT,       elevatorMotor.get());
+		recorder.set(Channel.CONTAINER_HOLD_PID_SETPOINT,     holdLevelPID.getSetpoint());
+		recorder.set(Channel.CONTAINER_HOLD_PID_OUTPUT,       holdLevelPIDOutput.get());
 	}
 
 }
@@ -1,16 +1,47 @@
 package robot.subsystems;
 
-import edu.wpi.first.wpilibj.PowerDistributionPanel;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import robot.RobotMap;
+import robot.hal.PowerDistribution;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.DashboardPublisher.NumberEntry;
+import robot.telemetry.FlightRecorder;
+import robot.telemetry.FlightRecorder.Channel;
 
 /**
- *
+ * The power distribution panel.
+ * <p>
+ * Every read of the panel is a CAN transaction, so the channel currents, voltage and total 
+ * current are sampled once per loop in {@link #readSensors()} and every consumer reads the snapshot.
+ * The CAN traffic stays the same no matter how many motors check their current.  The dashboard
+ * values are also published from the snapshot, the panel is not registered as a sendable 
+ * because its updateTable() reads every value from the panel again.
+ * <p>
+ * The snapshot is stored as double bits in an {@link AtomicLongArray} so that it can be read 
+ * from the control thread as well as the robot thread.
  */
 public class PowerSubsystem extends RunnymedeSubsystem {
 	
-	PowerDistributionPanel powerDistributionPanel = new PowerDistributionPanel();
+	// Snapshot fields after the channel currents
+	private static final int VOLTAGE       = PowerDistribution.CHANNEL_COUNT;
+	private static final int TOTAL_CURRENT = PowerDistribution.CHANNEL_COUNT + 1;
+	private static final int SNAPSHOT_SIZE = PowerDistribution.CHANNEL_COUNT + 2;
+	
+	PowerDistribution powerDistributionPanel = RobotMap.hardware.powerDistribution();
+	
+	private final AtomicLongArray snapshot = new AtomicLongArray(SNAPSHOT_SIZE);
+	
+	private static final double CURRENT_DEADBAND = 0.1d;
+	private static final double VOLTAGE_DEADBAND = 0.05d;
+	
+	private DashboardPublisher dashboard = DashboardPublisher.getInstance();
 	
+	private final NumberEntry [] currentEntryArr = new NumberEntry [PowerDistribution.CHANNEL_COUNT];
+	
+	private NumberEntry voltageEntry      = dashboard.addNumber("PDP Voltage", VOLTAGE_DEADBAND, DashboardPublisher.DEFAULT_SENDABLE_PERIOD_MS);
+	private NumberEntry totalCurrentEntry = dashboard.addNumber("PDP Total Current", CURRENT_DEADBAND, DashboardPublisher.DEFAULT_SENDABLE_PERIOD_MS);
 	
     @Override
 	public void disableSubsystem() {}
@@ -19,18 +50,60 @@ public class PowerSubsystem extends RunnymedeSubsystem {
 	public void enableSubsystem() {}
     
     /**
-     * Get the current on any channel on the Power Distribution Panel.  
+     * Get the current on any channel on the Power Distribution Panel from the last snapshot.
      * @param channel - the channel number on the Power Distribution Panel.  
      * @return double - the current on the channel or 0 if the channel number is invalid.
+     * @see #isValidChannel(int)
      */
     public double getCurrent(int channel) {
     	
-    	if (channel >= 0 && channel < PowerDistributionPanel.kPDPChannels) {
-    		return powerDistributionPanel.getCurrent(channel);
+    	if (!isValidChannel(channel)) { return 0; }
+    	
+    	return get(channel);
+    }
+    
+    /**
+     * @return double - the battery voltage from the last snapshot
+     */
+    public double getVoltage() {
+    	return get(VOLTAGE);
+    }
+    
+    /**
+     * @return double - the total current from the last snapshot
+     */
+    public double getTotalCurrent() {
+    	return get(TOTAL_CURRENT);
+    }
+    
+    /**
+     * @param channel
+     * @return boolean - {@code true} if the channel is a monitored Power Distribution Panel channel
+     */
+    public static boolean isValidChannel(int channel) {
+    	return channel >= 0 && channel < PowerDistribution.CHANNEL_COUNT;
+    }
+    
+    /**
+     * Sample the Power Distribution Panel.
+     */
+    @Override
+    public void readSensors() {
+    	
+    	for (int channel=0; channel<PowerDistribution.CHANNEL_COUNT; channel++) {
+    		set(channel, powerDistributionPanel.getCurrent(channel));
     	}
     	
-    	System.out.println("Invalid channel number (" + channel + ") requested for PowerSubsystem.getCurrent()");
-    	return 0;
+    	set(VOLTAGE,       powerDistributionPanel.getVoltage());
+    	set(TOTAL_CURRENT, powerDistributionPanel.getTotalCurrent());
+    }
+    
+    private double get(int field) {
+    	return Double.longBitsToDouble(snapshot.get(field));
+    }
+    
+    private void set(int field, double value) {
+    	snapshot.set(field, Double.doubleToRawLongBits(value));
     }
 
     public void initDefaultCommand() { }
@@ -41,17 +114,30 @@ public class PowerSubsystem extends RunnymedeSubsystem {
     	// Add all sensors and motors to the LiveWindow
     	LiveWindow.addSensor  ("PowerDistributionPanel", "Current", powerDistributionPanel);
     	
-    	// Start Live Window for all sensors, PIDS and motors that implement LiveWindowSendable
-    	SmartDashboard.putData("PowerDistributionPanel", powerDistributionPanel);
+    	// The panel values are published from the snapshot.
+    	for (int channel=0; channel<PowerDistribution.CHANNEL_COUNT; channel++) {
+    		currentEntryArr[channel] = dashboard.addNumber("PDP Current " + channel, 
+    				CURRENT_DEADBAND, DashboardPublisher.DEFAULT_SENDABLE_PERIOD_MS);
+    	}
         
     }
 
 	@Override
     public void updateDashboard() {
-
-    	powerDistributionPanel.updateTable();
-    	
-    }
+		
+		for (int channel=0; channel<PowerDistribution.CHANNEL_COUNT; channel++) {
+			currentEntryArr[channel].set(get(channel));
+		}
+		
+		voltageEntry     .set(getVoltage());
+		totalCurrentEntry.set(getTotalCurrent());
+	}
+	
+	@Override
+	public void recordFlightData(FlightRecorder recorder) {
+		recorder.set(Channel.BATTERY_VOLTAGE, getVoltage());
+		recorder.set(Channel.TOTAL_CURRENT,   getTotalCurrent());
+	}
 
 }
 
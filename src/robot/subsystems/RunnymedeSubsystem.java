@@ -1,10 +1,17 @@
 package robot.subsystems;
 
+import robot.telemetry.FlightRecorder;
 import edu.wpi.first.wpilibj.command.Subsystem;
 
 /**
  *  This class is used as the basis for all Runnymede subsystems.  It implements
  *  the abstract classes required by the Runnymede robot.
+ *  <p>
+ *  Every robot loop runs in three phases: {@link #readSensors()} on every subsystem, then 
+ *  the commands compute from the sensor values read in that loop, and then the chassis writes
+ *  the motor speeds calculated by the commands ({@link ChassisSubsystem#writeOutputs()}).  
+ *  Reading each sensor once per loop keeps the HAL calls down and makes every decision in a 
+ *  loop use sensor values from the same moment.  The other subsystems set their outputs directly.
  */
 public abstract class RunnymedeSubsystem extends Subsystem {
     
@@ -38,5 +45,24 @@ public abstract class RunnymedeSubsystem extends Subsystem {
 	 * of this subsystem.
 	 */
 	public abstract void updateDashboard();
+	
+	/**
+	 * Read the subsystem sensors for this loop.
+	 * <p>
+	 * This method is called at the start of every loop, before the commands are run, in all 
+	 * robot modes including disabled.  The sensor values are held until the next call so that 
+	 * the subsystem methods called by the commands do not read the hardware again.  Subsystems 
+	 * that do not have any sensors do not need to override this method.
+	 */
+	public void readSensors() { }
+
+	/**
+	 * Record the sensor inputs and motor outputs of this subsystem for the current tick.
+	 * <p>
+	 * This method is called every loop and must not allocate.  Subsystems that have nothing 
+	 * to record do not need to override this method.
+	 * @param recorder
+	 */
+	public void recordFlightData(FlightRecorder recorder) { }
 }
 
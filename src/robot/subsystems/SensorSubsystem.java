@@ -2,24 +2,33 @@ package robot.subsystems;
 
 import robot.RobotMap;
 import robot.commands.SensorCommand;
-import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import robot.hal.DigitalSensor;
 
 public class SensorSubsystem extends RunnymedeSubsystem {
 
-	DigitalInput toteSensor = new DigitalInput(RobotMap.TOTE_SENSOR_PORT);
+	DigitalSensor toteSensor = RobotMap.hardware.digitalInput(RobotMap.TOTE_SENSOR_PORT);
 	
-	DigitalInput distanceSensorLeft  = new DigitalInput(RobotMap.DISTANCE_SENSOR_LEFT);
-	DigitalInput distanceSensorRight = new DigitalInput(RobotMap.DISTANCE_SENSOR_RIGHT);
+	DigitalSensor distanceSensorLeft  = RobotMap.hardware.digitalInput(RobotMap.DISTANCE_SENSOR_LEFT);
+	DigitalSensor distanceSensorRight = RobotMap.hardware.digitalInput(RobotMap.DISTANCE_SENSOR_RIGHT);
+	
+	// Sensor values read at the start of the loop
+	private boolean toteSensorValue         = true;
+	private boolean distanceSensorLeftValue = true;
 	
 	public boolean getToteSensor() {
-		return !toteSensor.get();
+		return !toteSensorValue;
 	}
 	
 	// The distance sensors are normally true, and go false when the 
 	// distance is reached.
 	public boolean getDistanceSensor() {
-		return !distanceSensorLeft.get();
+		return !distanceSensorLeftValue;
+	}
+	
+	@Override
+	public void readSensors() {
+		toteSensorValue         = toteSensor.get();
+		distanceSensorLeftValue = distanceSensorLeft.get();
 	}
 	
 	@Override
@@ -1,14 +1,33 @@
 package robot.subsystems;
 
+import robot.Clock;
+import robot.MotionProfile;
 import robot.RobotMap;
 import robot.SafeTalon;
-import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.PIDController;
-import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import robot.control.EncoderVelocity;
+import robot.control.PIDEngine;
+import robot.control.PIDLoop;
+import robot.control.TuningFile;
+import robot.control.VelocityEstimator;
+import robot.hal.DigitalSensor;
+import robot.hal.QuadratureEncoder;
+import robot.hal.SolenoidOutput;
+import robot.telemetry.DashboardPublisher;
+import robot.telemetry.FlightRecorder;
+import robot.telemetry.FlightRecorder.Channel;
+import edu.wpi.first.wpilibj.RobotState;
 
+/**
+ * The tote elevator drives between the levels along a jerk limited motion profile.
+ * <p>
+ * The elevator is a cascade of two loops.  Each robot loop, the position loop looks up the
+ * profile position and velocity by the time since the move started, and sets the rate PID to
+ * the profile velocity plus a correction for the following error.  The rate PID runs on the
+ * control thread.  The brake is set on the tail of the profile, when the elevator will stop at 
+ * the level in the time the brake takes to grip, and the rate PID keeps following the profile 
+ * until the brake grips.  A floor move does not stop at the floor.  Its profile ends below the 
+ * floor, so the elevator is still moving down when the floor sensor ends the move.
+ */
 public class ToteElevatorSubsystem extends RunnymedeSubsystem {
 
 	public enum ToteElevatorLevel {
@@ -17,8 +36,6 @@ public class ToteElevatorSubsystem extends RunnymedeSubsystem {
 		ONE   (-RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL), 
 		TWO   (-RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL
 					+ (1 * -RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_PER_ELEVATOR_LEVEL)),
-		AUTONOMOUS_CONTAINER_LEVEL((-RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL
-					+ (1 * -RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_PER_ELEVATOR_LEVEL)) - 200),
 		THREE (-RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL
 					+ (2 * -RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_PER_ELEVATOR_LEVEL)), 
 		FOUR  (-RobotMap.TOTE_ELEVATOR_MAX_DISTANCE);
@@ -31,33 +48,78 @@ public class ToteElevatorSubsystem extends RunnymedeSubsystem {
 
 	}
 
-	double difference = 0.0;
+	/** Distance from the level to be on target, in encoder counts */
+	private static final double LEVEL_TOLERANCE = 30;
+
+	// Profile following, rate per encoder count of position error, 1 / sec
+	private static final double PROFILE_POSITION_P = 5.0d;
+
+	// The rate PID follows its setpoint about this late, so the rate setpoint is taken this
+	// far ahead on the profile, in seconds
+	private static final double PROFILE_VELOCITY_LEAD = 0.1d;
+
+	// Time after the end of the profile to reach the level before giving up, in seconds
+	private static final double SETTLE_TIME = 0.5d;
+
+	// Time for the brake to grip while the rate PID holds the level, in seconds
+	private static final double BRAKE_ENGAGE_TIME = 0.08d;
+
+	/** 
+	 * The floor profile ends this far below the floor, so that the elevator reaches the floor 
+	 * at about 0.6 of the max rate, in encoder counts.
+	 */
+	public static final double FLOOR_OVERTRAVEL = 40;
+
+	// Rate PID setpoint to find the floor sensor if the profile ends above the floor
+	private static final double FLOOR_SEEK_RATE = 0.2d;
+
+	// Profile speeds as a fraction of the max elevator rate
+	private static final double AUTONOMOUS_SPEED = 1.0d;
+	private static final double TELEOP_SPEED     = 0.75d;
+
+	// The robot periodic loop time, in seconds
+	private static final double LOOP_PERIOD = 0.02d;
+
 	ToteElevatorLevel level = null;
-	double elevatorRatePIDSetpoint = 0.0d;
 	boolean enabled = false;
 
-	Encoder encoder = new Encoder(RobotMap.TOTE_ELEVATOR_ENCODER_ONE,
-			RobotMap.TOTE_ELEVATOR_ENCODER_TWO) {
-		@Override
-		public double pidGet() {
-			return this.getRate()
-					/ RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE;
-		}
-	};
+	private final MotionProfile profile = new MotionProfile(
+			RobotMap.TOTE_ELEVATOR_PROFILE_ACCELERATION, RobotMap.TOTE_ELEVATOR_PROFILE_JERK, LOOP_PERIOD);
+
+	private double  profileStartPosition = 0.0d;
+	private long    profileStartNanos    = 0;
+	private boolean brakeHolding         = false;
+	private long    brakeHoldingNanos    = 0;
+
+	QuadratureEncoder encoder = RobotMap.hardware.encoder(RobotMap.TOTE_ELEVATOR_ENCODER_ONE,
+			RobotMap.TOTE_ELEVATOR_ENCODER_TWO, false);
 
 	SafeTalon elevatorMotor = new SafeTalon(RobotMap.TOTE_ELEVATOR_MOTOR);
-	Solenoid brake = new Solenoid(RobotMap.BRAKE_SOLENOID);
+	SolenoidOutput brake = RobotMap.hardware.solenoid(RobotMap.BRAKE_SOLENOID);
 	
-	DigitalInput floorSensor = new DigitalInput(RobotMap.TOTE_ELEVATOR_LOWER_LIMIT_SWITCH);
+	DigitalSensor floorSensor = RobotMap.hardware.digitalInput(RobotMap.TOTE_ELEVATOR_LOWER_LIMIT_SWITCH);
+	
+	// Sensor values read at the start of the loop.  The rate PID reads the encoder velocity 
+	// fit on every control loop step.
+	private double  encoderDistance  = 0.0d;
+	private double  encoderRate      = 0.0d;
+	private boolean floorSensorValue = true;
+
+	EncoderVelocity encoderVelocity = VelocityEstimator.getInstance().add(encoder, 
+			RobotMap.TOTE_ELEVATOR_VELOCITY_WINDOW, RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE);
+
+	/** The name of the rate PID gains in the {@link TuningFile} */
+	public static final String RATE_PID_NAME = "ToteElevatorRatePID";
 
-	PIDController elevatorRatePID = new PIDController(0.2, 0.0, 0.0,
-			0.0004 * RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE, encoder,
-			elevatorMotor);
+	// The rate PID is calculated on every control loop step.
+	PIDLoop elevatorRatePID = PIDEngine.getInstance().add(0.2, 0.0, 0.0,
+			0.0004 * RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE, 
+			encoderVelocity, elevatorMotor, 1.0d / RobotMap.CONTROL_LOOP_RATE);
 
 	public ToteElevatorSubsystem() {
 		// Add the safety elements to the elevator talon
 		// Since negative power drives the motor up, the negative limit switch is the elevator upper limit switch
-		elevatorMotor.setNegativeLimitSwitch(new DigitalInput(RobotMap.TOTE_ELEVATOR_UPPER_LIMIT_SWITCH));
+		elevatorMotor.setNegativeLimitSwitch(RobotMap.hardware.digitalInput(RobotMap.TOTE_ELEVATOR_UPPER_LIMIT_SWITCH));
 		elevatorMotor.setPositiveLimitSwitch(floorSensor);
 		elevatorMotor.setOverCurrentFuse(RobotMap.TOTE_ELEVATOR_POWER_DISTRIBUTION_PORT, SafeTalon.CURRENT_NO_LIMIT, 0);
 	}
@@ -68,66 +130,130 @@ public class ToteElevatorSubsystem extends RunnymedeSubsystem {
 
 	public boolean onTarget() {
 
-
-		double difference = encoder.getDistance() - level.encoderSetpoint;
-		
 		// Drive down until the floor sensor is activated when floor is pressed
 		if (level == ToteElevatorLevel.FLOOR) {
 			// The floor sensor is normally closed, so the elevator has hit the limit when the switch is open
-			if (!floorSensor.get()) {
+			if (!floorSensorValue) {
 				resetEncoders();
 			}
-			return !floorSensor.get();
-		}  else {
-			if (   (elevatorRatePIDSetpoint > 0 && difference > -100)
-				|| (elevatorRatePIDSetpoint < 0 && difference < 100)) {
-				return true;
-			}
+			return !floorSensorValue;
 		}
-		
-		if (   (elevatorMotor.getState() == SafeTalon.TalonState.POSITIVE_LIMIT_SWITCH && level == ToteElevatorLevel.FLOOR) 
-			|| (elevatorMotor.getState() == SafeTalon.TalonState.NEGATIVE_LIMIT_SWITCH && level == ToteElevatorLevel.FOUR)) {
+
+		if (elevatorMotor.getState() == SafeTalon.TalonState.NEGATIVE_LIMIT_SWITCH && level == ToteElevatorLevel.FOUR) {
+			return true;
+		}
+
+		if (   brakeHolding 
+			&& (Clock.getInstance().getTimeNanos() - brakeHoldingNanos) / (double) Clock.NANOS_PER_SECOND >= BRAKE_ENGAGE_TIME) {
 			return true;
 		}
-					
-		return false;
+
+		// Stop if the elevator cannot reach the level after the profile ends.
+		return getProfileTime() > profile.getDuration() + SETTLE_TIME;
 	}
 
 	public ToteElevatorLevel getLevel() { return level; }
 	
+	/**
+	 * Follow the profile to the level set by {@link #initDriveToLevel(ToteElevatorLevel)}.
+	 * Call this every robot loop until the elevator is {@link #onTarget()}.
+	 */
 	public void driveToLevel() {
 
-		disengageBrake();
-		
-		elevatorRatePID.setSetpoint(elevatorRatePIDSetpoint);
+		double t = getProfileTime();
+
+		double positionError = profileStartPosition + profile.getPosition(t) - encoderDistance;
+
+		double rate = profile.getVelocity(t + PROFILE_VELOCITY_LEAD) + PROFILE_POSITION_P * positionError;
+
+		if (level == ToteElevatorLevel.FLOOR) {
+			// The floor sensor normally ends the move before the profile does.  If the encoder 
+			// read low, keep going down slowly until the floor sensor opens.  Positive drives 
+			// the elevator down.
+			if (profile.isComplete(t)) {
+				elevatorRatePID.setSetpoint(FLOOR_SEEK_RATE);
+				return;
+			}
+		}
+		// Set the brake on the tail of the profile, once the elevator would stop at the level 
+		// while the brake grips.  Slowing to a stop over the grip time, it moves half its rate
+		// times that time.  The motor follows the profile until the brake grips.  If the 
+		// elevator is behind the profile, the brake waits until the elevator reaches the level.
+		else if (   !brakeHolding 
+				 && profile.isComplete(t + BRAKE_ENGAGE_TIME)
+				 && Math.abs(level.encoderSetpoint 
+						 - (encoderDistance + encoderRate * BRAKE_ENGAGE_TIME / 2.0d)) < LEVEL_TOLERANCE) {
+			brake.set(true);
+			brakeHolding      = true;
+			brakeHoldingNanos = Clock.getInstance().getTimeNanos();
+		}
 
+		elevatorRatePID.setSetpoint(
+				Math.max(-1.0d, Math.min(1.0d, rate / RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE)));
 	}
 
+	/**
+	 * Start a move to a level.  The profile runs from the current elevator position to the
+	 * level at the autonomous or teleop speed, and the brake is released.
+	 * @param level - the level to drive to
+	 */
 	public void initDriveToLevel(ToteElevatorLevel level) {
 		
-		double difference = encoder.getDistance() - level.encoderSetpoint;
-		
-		double driveSpeed = 0;
-		
-		if(DriverStation.getInstance().isAutonomous()) {
-			driveSpeed = 1.0;
-		} else if(DriverStation.getInstance().isOperatorControl()) {
-			driveSpeed = 0.75;
-		}
-		
-		if (difference > 0) {
-			elevatorRatePIDSetpoint = -driveSpeed;
-		} else {
-			elevatorRatePIDSetpoint = driveSpeed;
+		double driveSpeed = RobotState.isAutonomous() ? AUTONOMOUS_SPEED : TELEOP_SPEED;
+
+		double target = level.encoderSetpoint;
+		if (level == ToteElevatorLevel.FLOOR) {
+			target += FLOOR_OVERTRAVEL;
 		}
 
+		profileStartPosition = encoderDistance;
+		profile.generate(target - encoderDistance, 
+				driveSpeed * RobotMap.TOTE_ELEVATOR_MAX_ELEVATOR_ENCODER_RATE);
+		profileStartNanos = Clock.getInstance().getTimeNanos();
+
 		this.level = level;
 		
 		enableSubsystem();
+		disengageBrake();
+	}
+
+	/**
+	 * Drive the elevator at a rate with the brake released, without a target level.  This
+	 * is used by the autotune relay, and the caller must stop the elevator before it reaches
+	 * the top.
+	 * @param rate - the rate PID setpoint -1.0 to 1.0, negative drives up
+	 */
+	public void driveAtRate(double rate) {
+		enabled = true;
+		disengageBrake();
+		elevatorRatePID.setSetpoint(rate);
+	}
+
+	/**
+	 * Get the rate PID, for the autotune relay.
+	 * @return PIDLoop - the rate PID
+	 */
+	public PIDLoop getRatePID() {
+		return elevatorRatePID;
+	}
+
+	/**
+	 * Set the gains that were measured on this robot and saved in the {@link TuningFile}.
+	 */
+	public void loadTuning() {
+		TuningFile.getInstance().loadPID(RATE_PID_NAME, elevatorRatePID);
+	}
+
+	/**
+	 * @return double - the time since the profile started in seconds
+	 */
+	private double getProfileTime() {
+		return (Clock.getInstance().getTimeNanos() - profileStartNanos) / (double) Clock.NANOS_PER_SECOND;
 	}
 
 	private void disengageBrake() {
 		brake.set(false);
+		brakeHolding = false;
 		elevatorRatePID.enable();
 	}
 
@@ -154,23 +280,54 @@ public class ToteElevatorSubsystem extends RunnymedeSubsystem {
 	public void initSubsystem() {
 		elevatorRatePID.setInputRange(-1.0, 1.0);
 		elevatorRatePID.setOutputRange(-1.0, 1.0);
+		
+		loadTuning();
+		
+		// The sensors, PID and talon are updated by the DashboardPublisher.
+		DashboardPublisher dashboard = DashboardPublisher.getInstance();
+		
+		dashboard.addSendable("Tote Elevator Encoder", encoder);
+		dashboard.addSendable("Tote Elevator PID", elevatorRatePID);
+		dashboard.addSendable("Tote Elevator Talon", elevatorMotor);
 	}
 
 	@Override
-	public void updateDashboard() {
-		SmartDashboard.putData("Tote Elevator Encoder", encoder);
-		SmartDashboard.putData("Tote Elevator PID", elevatorRatePID);
-		SmartDashboard.putData("Tote Elevator Talon", elevatorMotor);
-		
-		elevatorMotor.updateTable();
+	public void readSensors() {
+		// The encoder is reset on the control thread.
+		encoderDistance  = encoderVelocity.isResetPending() ? 0.0d : encoder.getDistance();
+		encoderRate      = encoder.getRate();
+		floorSensorValue = floorSensor.get();
+	}
+
+	@Override
+	public void updateDashboard() { }
+	
+	@Override
+	public void recordFlightData(FlightRecorder recorder) {
+		recorder.set(Channel.TOTE_ELEVATOR_ENCODER,      encoderDistance);
+		recorder.set(Channel.TOTE_ELEVATOR_ENCODER_RATE, encoderRate);
+		recorder.set(Channel.TOTE_ELEVATOR_PID_SETPOINT, elevatorRatePID.getSetpoint());
+		recorder.set(Channel.TOTE_ELEVATOR_OUTPUT,       elevatorMotor.get());
+		recorder.set(Channel.TOTE_ELEVATOR_TALON_STATE,  elevatorMotor.getState().ordinal());
+		recorder.set(Channel.TOTE_ELEVATOR_UPPER_LIMIT,  elevatorMotor.getNegativeLimitSwitch());
+		recorder.set(Channel.TOTE_ELEVATOR_LOWER_LIMIT,  elevatorMotor.getPositiveLimitSwitch());
+		recorder.set(Channel.TOTE_ELEVATOR_BRAKE,        brake.get());
+		recorder.set(Channel.TOTE_ELEVATOR_ENABLED,      enabled);
+		recorder.set(Channel.TOTE_ELEVATOR_LEVEL,        (level == null) ? -1 : level.ordinal());
 	}
 	
 	public void resetEncoders() {
-		encoder.reset();
+		// The encoder and the velocity samples are reset together on the control thread.
+		encoderVelocity.reset();
+		// The rest of the loop sees the reset.
+		encoderDistance = 0.0d;
 	}
 
+	/**
+	 * @return double - the encoder distance read at the start of this loop
+	 */
 	public double getEncoderDistance() {
-		return encoder.getDistance();
+		return encoderDistance;
 	}
 
 	public boolean isEnabled() {
@@ -1,20 +1,22 @@
 package robot.subsystems;
 
+import robot.Clock;
 import robot.Robot;
 import robot.RobotMap;
 import robot.commands.TeleopPickupCommand;
+import robot.hal.DoubleSolenoidOutput;
+import robot.hal.Motor;
+import robot.hal.SolenoidOutput;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
-import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.Talon;
 
 public class ToteIntakeSubsystem extends RunnymedeSubsystem {
 
-	DoubleSolenoid dropDownSolenoid = new DoubleSolenoid(RobotMap.DROP_DOWN_SOLENOID_ONE, RobotMap.DROP_DOWN_SOLENOID_TWO);
-	Solenoid eyebrowSolenoidLeft = new Solenoid(RobotMap.EYEBROW_SOLENOID_LEFT);
-	Solenoid eyebrowSolenoidRight = new Solenoid(RobotMap.EYEBROW_SOLENOID_RIGHT);
+	DoubleSolenoidOutput dropDownSolenoid = RobotMap.hardware.doubleSolenoid(RobotMap.DROP_DOWN_SOLENOID_ONE, RobotMap.DROP_DOWN_SOLENOID_TWO);
+	SolenoidOutput eyebrowSolenoidLeft = RobotMap.hardware.solenoid(RobotMap.EYEBROW_SOLENOID_LEFT);
+	SolenoidOutput eyebrowSolenoidRight = RobotMap.hardware.solenoid(RobotMap.EYEBROW_SOLENOID_RIGHT);
 
-	Talon leftPickupMotor = new Talon(RobotMap.LEFT_PICKUP_MOTOR_PORT);
-	Talon rightPickupMotor = new Talon(RobotMap.RIGHT_PICKUP_MOTOR_PORT);
+	Motor leftPickupMotor = RobotMap.hardware.motor(RobotMap.LEFT_PICKUP_MOTOR_PORT);
+	Motor rightPickupMotor = RobotMap.hardware.motor(RobotMap.RIGHT_PICKUP_MOTOR_PORT);
 
 	/**
 	 * 
@@ -73,8 +75,8 @@ public class ToteIntakeSubsystem extends RunnymedeSubsystem {
 		if(!Robot.toteElevatorSubsystem.isEnabled() && Robot.toteElevatorSubsystem.getEncoderDistance() < RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_AT_FIRST_LEVEL
 				- RobotMap.TOTE_ELEVATOR_ENCODER_COUNTS_PER_ELEVATOR_LEVEL/2) {
 			// FIXME: Make these delays into a Command or a CommandGroup
-			if((System.currentTimeMillis() - lastDeployTime < RobotMap.EYEBROW_RETRACT_PULSE_TIME && !deploy) ||
-					(System.currentTimeMillis() - lastDeployTime < RobotMap.EYEBROW_DEPLOY_PULSE_TIME && deploy)) {
+			if((Clock.getInstance().getTimeMillis() - lastDeployTime < RobotMap.EYEBROW_RETRACT_PULSE_TIME && !deploy) ||
+					(Clock.getInstance().getTimeMillis() - lastDeployTime < RobotMap.EYEBROW_DEPLOY_PULSE_TIME && deploy)) {
 				eyebrowSolenoidLeft.set(false);
 				eyebrowSolenoidRight.set(false);
 			}
@@ -1,14 +1,12 @@
 package robot.subsystems;
 
-import edu.wpi.first.wpilibj.CameraServer;
+import robot.RobotMap;
 
 /**
  *
  */
 public class VisionSubsystem extends RunnymedeSubsystem {
     
-	CameraServer server;
-
     @Override
 	public void disableSubsystem() { }
 
@@ -20,9 +18,7 @@ public class VisionSubsystem extends RunnymedeSubsystem {
 	@Override
     public void initSubsystem() {
     	
-	    server = CameraServer.getInstance();
-	    server.setQuality(50);
-	    server.startAutomaticCapture("cam0");
+	    RobotMap.hardware.startCameraCapture("cam0", 50);
 
     }
 
@@ -0,0 +1,462 @@
+package robot.telemetry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Publish values to the SmartDashboard only when they change.
+ * <p>
+ * Each dashboard key is registered once (usually as a field of the subsystem) and the
+ * returned entry is set with the latest value every loop.  Setting an entry only compares
+ * the value with the last published value; {@link #publish()} selects the entries that have
+ * changed by more than their deadband and whose publish period has elapsed.
+ * <p>
+ * Once {@link #start()} is called, the selected values are written to a {@link TelemetryRingBuffer}
+ * and the NetworkTables writes are done on a background publisher thread.  Before the thread is
+ * started (or if it is never started) the values are written directly.
+ * <p>
+ * LiveWindowSendable objects can also be registered so that their updateTable() is called at
+ * their publish period instead of every loop.  Sendables read their own sensors, so only an
+ * update request is queued, and updateTable() is called on the publisher thread where its
+ * sensor reads and NetworkTables writes do not hold up the robot thread.
+ */
+public class DashboardPublisher {
+
+	/** The default minimum time between publishing a key */
+	public static final long DEFAULT_PERIOD_MS = 100;
+
+	/** The default minimum time between updating a sendable */
+	public static final long DEFAULT_SENDABLE_PERIOD_MS = 250;
+
+	private static final int  RING_BUFFER_CAPACITY   = 1024;
+	private static final long PUBLISHER_IDLE_MS      = 5;
+	private static final long DROP_COUNT_PERIOD_MS   = 1000;
+
+	private static final String DROP_COUNT_KEY = "Telemetry dropped";
+
+	private static final DashboardPublisher instance = new DashboardPublisher();
+
+	private final List<Entry>        entryLs  = new ArrayList<Entry>();
+	private final Map<String, Entry> entryMap = new HashMap<String, Entry>();
+
+	// Copy of the entry list for the publisher thread.  The array is replaced when an
+	// entry is registered so that the publisher thread never sees a partly updated list.
+	private volatile Entry[] entryArr = new Entry[0];
+
+	private final TelemetryRingBuffer ringBuffer = new TelemetryRingBuffer(RING_BUFFER_CAPACITY);
+
+	private final TelemetryRingBuffer.Sink sink = new TelemetryRingBuffer.Sink() {
+		public void accept(int id, double value) {
+			entryArr[id].send(value);
+		}
+	};
+
+	private Thread publisherThread = null;
+	private volatile boolean publisherRunning = false;
+
+	public static DashboardPublisher getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Base class for all dashboard entries.
+	 */
+	public abstract static class Entry {
+
+		final DashboardPublisher publisher;
+
+		private final String key;
+		private final long   periodMs;
+
+		int id = -1;
+
+		private long    lastPublishTime = 0;
+		private boolean published = false;
+
+		boolean dirty = true;
+
+		Entry(DashboardPublisher publisher, String key, long periodMs) {
+			this.publisher = publisher;
+			this.key = key;
+			this.periodMs = periodMs;
+		}
+
+		public String getKey() { return key; }
+
+		/**
+		 * Is the publish period for this entry complete?
+		 * <p>
+		 * Use this to skip building a value that is expensive to calculate.
+		 * @return boolean - {@code true} if a new value would be published on the next publish.
+		 */
+		public boolean isDue() {
+			return isDue(System.currentTimeMillis());
+		}
+
+		boolean isDue(long currentTime) {
+			return !published || currentTime - lastPublishTime >= periodMs;
+		}
+
+		boolean isPublished() { return published; }
+
+		void publish(long currentTime) {
+
+			// If the sample could not be queued, leave the entry dirty and try again next loop.
+			if (!write()) { return; }
+
+			lastPublishTime = currentTime;
+			published = true;
+			dirty = false;
+		}
+
+		/**
+		 * Queue the current value for the publisher.  Called on the robot (main) thread.
+		 * @return boolean - {@code true} if the value was queued.
+		 */
+		abstract boolean write();
+
+		/**
+		 * Write the value to the SmartDashboard.  Called on the publisher thread.
+		 */
+		abstract void send(double value);
+	}
+
+	public static class NumberEntry extends Entry {
+
+		private final double deadband;
+
+		private double value = 0.0d;
+		private double publishedValue = 0.0d;
+
+		NumberEntry(DashboardPublisher publisher, String key, double deadband, long periodMs) {
+			super(publisher, key, periodMs);
+			this.deadband = deadband;
+		}
+
+		public void set(double value) {
+			this.value = value;
+			if (!isPublished() || Math.abs(value - publishedValue) > deadband) {
+				dirty = true;
+			}
+		}
+
+		@Override
+		boolean write() {
+			if (!publisher.offer(this, value)) { return false; }
+			publishedValue = value;
+			return true;
+		}
+
+		@Override
+		void send(double value) {
+			SmartDashboard.putNumber(getKey(), value);
+		}
+	}
+
+	public static class BooleanEntry extends Entry {
+
+		private boolean value = false;
+		private boolean publishedValue = false;
+
+		BooleanEntry(DashboardPublisher publisher, String key, long periodMs) {
+			super(publisher, key, periodMs);
+		}
+
+		public void set(boolean value) {
+			this.value = value;
+			if (!isPublished() || value != publishedValue) {
+				dirty = true;
+			}
+		}
+
+		@Override
+		boolean write() {
+			if (!publisher.offer(this, value ? 1.0d : 0.0d)) { return false; }
+			publishedValue = value;
+			return true;
+		}
+
+		@Override
+		void send(double value) {
+			SmartDashboard.putBoolean(getKey(), value != 0.0d);
+		}
+	}
+
+	/**
+	 * A string entry.  The ring buffer only carries numbers, so the publisher thread
+	 * sends the latest string value when it drains the entry id.
+	 */
+	public static class StringEntry extends Entry {
+
+		private String value = "";
+		private String publishedValue = null;
+
+		private volatile String sendValue = "";
+
+		StringEntry(DashboardPublisher publisher, String key, long periodMs) {
+			super(publisher, key, periodMs);
+		}
+
+		public void set(String value) {
+			this.value = value;
+			if (!value.equals(publishedValue)) {
+				dirty = true;
+			}
+		}
+
+		@Override
+		boolean write() {
+			sendValue = value;
+			if (!publisher.offer(this, 0.0d)) { return false; }
+			publishedValue = value;
+			return true;
+		}
+
+		@Override
+		void send(double value) {
+			SmartDashboard.putString(getKey(), sendValue);
+		}
+	}
+
+	/**
+	 * A LiveWindowSendable that is updated at its publish period.  The queued sample is only
+	 * an update request, the sendable reads its values when the publisher thread sends it.
+	 */
+	static class SendableEntry extends Entry {
+
+		private final LiveWindowSendable sendable;
+
+		SendableEntry(DashboardPublisher publisher, String key, LiveWindowSendable sendable, long periodMs) {
+			super(publisher, key, periodMs);
+			this.sendable = sendable;
+		}
+
+		@Override
+		boolean write() {
+			return publisher.offer(this, 0.0d);
+		}
+
+		@Override
+		void send(double value) {
+			sendable.updateTable();
+		}
+
+		@Override
+		void publish(long currentTime) {
+			super.publish(currentTime);
+			// Sendables read their own values, so they are always refreshed when due.
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Register a number using the default period and no deadband.
+	 * @param key - SmartDashboard key
+	 * @return NumberEntry - set the value on this entry.
+	 */
+	public NumberEntry addNumber(String key) {
+		return addNumber(key, 0.0d, DEFAULT_PERIOD_MS);
+	}
+
+	/**
+	 * Register a number.
+	 * <p>
+	 * If the key is already registered, the existing entry is returned.
+	 * @param key - SmartDashboard key
+	 * @param deadband - changes smaller than or equal to the deadband are not published
+	 * @param periodMs - minimum time between publishing this key in milliseconds
+	 * @return NumberEntry - set the value on this entry.
+	 */
+	public NumberEntry addNumber(String key, double deadband, long periodMs) {
+
+		Entry entry = entryMap.get(key);
+		if (entry == null) {
+			return (NumberEntry) register(new NumberEntry(this, key, deadband, periodMs));
+		}
+
+		return (NumberEntry) checkType(entry, NumberEntry.class);
+	}
+
+	public BooleanEntry addBoolean(String key) {
+		return addBoolean(key, DEFAULT_PERIOD_MS);
+	}
+
+	/**
+	 * Register a boolean.
+	 * <p>
+	 * If the key is already registered, the existing entry is returned.
+	 * @param key - SmartDashboard key
+	 * @param periodMs - minimum time between publishing this key in milliseconds
+	 * @return BooleanEntry - set the value on this entry.
+	 */
+	public BooleanEntry addBoolean(String key, long periodMs) {
+
+		Entry entry = entryMap.get(key);
+		if (entry == null) {
+			return (BooleanEntry) register(new BooleanEntry(this, key, periodMs));
+		}
+
+		return (BooleanEntry) checkType(entry, BooleanEntry.class);
+	}
+
+	public StringEntry addString(String key) {
+		return addString(key, DEFAULT_PERIOD_MS);
+	}
+
+	/**
+	 * Register a string.
+	 * <p>
+	 * If the key is already registered, the existing entry is returned.
+	 * @param key - SmartDashboard key
+	 * @param periodMs - minimum time between publishing this key in milliseconds
+	 * @return StringEntry - set the value on this entry.
+	 */
+	public StringEntry addString(String key, long periodMs) {
+
+		Entry entry = entryMap.get(key);
+		if (entry == null) {
+			return (StringEntry) register(new StringEntry(this, key, periodMs));
+		}
+
+		return (StringEntry) checkType(entry, StringEntry.class);
+	}
+
+	/**
+	 * Add a sendable to the SmartDashboard and update it at the default sendable period.
+	 * @param key - SmartDashboard key
+	 * @param sendable
+	 */
+	public void addSendable(String key, LiveWindowSendable sendable) {
+		addSendable(key, sendable, DEFAULT_SENDABLE_PERIOD_MS);
+	}
+
+	/**
+	 * Add a sendable to the SmartDashboard and update it at the given period.
+	 * <p>
+	 * The sendable is put on the SmartDashboard immediately.  This should be called from
+	 * the subsystem initSubsystem() method.
+	 * @param key - SmartDashboard key
+	 * @param sendable
+	 * @param periodMs - minimum time between updates in milliseconds
+	 */
+	public void addSendable(String key, LiveWindowSendable sendable, long periodMs) {
+
+		if (entryMap.containsKey(key)) {
+			throw new IllegalArgumentException("Dashboard key (" + key + ") is already registered");
+		}
+
+		SmartDashboard.putData(key, sendable);
+		register(new SendableEntry(this, key, sendable, periodMs));
+	}
+
+	/**
+	 * Publish all changed entries whose period has elapsed.
+	 * <p>
+	 * This is called once per loop from the robot periodic methods.
+	 */
+	public void publish() {
+
+		long currentTime = System.currentTimeMillis();
+
+		for (int i=0; i<entryLs.size(); i++) {
+			Entry entry = entryLs.get(i);
+			if (entry.dirty && entry.isDue(currentTime)) {
+				entry.publish(currentTime);
+			}
+		}
+	}
+
+	/**
+	 * Start the background publisher thread.
+	 * <p>
+	 * After this call the NetworkTables writes for all entries, and the sendable updates,
+	 * are done on the publisher thread.  Calling start more than once has no effect.
+	 */
+	public synchronized void start() {
+
+		if (publisherThread != null) { return; }
+
+		publisherThread = new Thread(new Runnable() {
+			public void run() {
+				publisherLoop();
+			}
+		}, "DashboardPublisher");
+
+		publisherThread.setDaemon(true);
+		publisherThread.setPriority(Thread.MIN_PRIORITY);
+
+		publisherRunning = true;
+		publisherThread.start();
+	}
+
+	/** @return long - the number of samples dropped because the publisher thread fell behind */
+	public long getDropCount() {
+		return ringBuffer.getDropCount();
+	}
+
+	boolean offer(Entry entry, double value) {
+
+		if (!publisherRunning) {
+			entry.send(value);
+			return true;
+		}
+
+		return ringBuffer.offer(entry.id, value);
+	}
+
+	private void publisherLoop() {
+
+		long lastDropCount = -1;
+		long lastDropCountTime = 0;
+
+		while (true) {
+
+			int count = ringBuffer.drain(sink);
+
+			long currentTime = System.currentTimeMillis();
+			if (currentTime - lastDropCountTime >= DROP_COUNT_PERIOD_MS) {
+				long dropCount = ringBuffer.getDropCount();
+				if (dropCount != lastDropCount) {
+					SmartDashboard.putNumber(DROP_COUNT_KEY, dropCount);
+					lastDropCount = dropCount;
+				}
+				lastDropCountTime = currentTime;
+			}
+
+			if (count == 0) {
+				try {
+					Thread.sleep(PUBLISHER_IDLE_MS);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	private Entry register(Entry entry) {
+
+		entry.id = entryLs.size();
+
+		entryLs.add(entry);
+		entryMap.put(entry.getKey(), entry);
+
+		entryArr = entryLs.toArray(new Entry[entryLs.size()]);
+
+		return entry;
+	}
+
+	private Entry checkType(Entry entry, Class<? extends Entry> type) {
+
+		if (!type.isInstance(entry)) {
+			throw new IllegalArgumentException("Dashboard key (" + entry.getKey() + ") is already registered as a "
+					+ entry.getClass().getSimpleName());
+		}
+
+		return entry;
+	}
+}
@@ -0,0 +1,283 @@
+package robot.telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Flight recorder for every control loop tick.
+ * <p>
+ * Each tick the subsystems set the value of their {@link Channel}s and the robot calls
+ * {@link #endTick()} which copies the values into the next record of a fixed size ring
+ * in a memory mapped file.  Writing a record only stores into the mapped memory, so it does not
+ * allocate or block on the file system.  A background thread forces the mapped file to flash
+ * every {@link #FORCE_PERIOD_MS} so that at most that much data is lost in a brownout reboot.
+ * <p>
+ * On start up an existing recording with the same layout is continued (the boot count is
+ * incremented) so the previous match is kept until the ring wraps.
+ * <p>
+ * File layout (big endian):
+ * <pre>
+ * header:  int magic, int version, int recordSize, int recordCapacity,
+ *          int channelCount, int bootCount, long nextSequence, long bootTimeMillis
+ * records: long sequence, long timeNanos, int bootCount, int reserved, float[channelCount]
+ * </pre>
+ * The record for sequence n is at index (n % recordCapacity).  The record sequence is written
+ * last so a record that was being written during a power loss can be detected.
+ */
+public class FlightRecorder {
+
+	/**
+	 * The recorded values.  Changing the channels changes the record layout, so increment 
+	 * the {@link FlightRecorder#VERSION} when a channel is added or removed.  The tote elevator
+	 * level is recorded by its ordinal, so also increment the version when a level is added
+	 * or removed.
+	 */
+	public enum Channel {
+
+		DRIVER_R, DRIVER_THETA, DRIVER_ROTATION, DRIVER_ROBOT_RELATIVE, DRIVER_ACCELERATION_OVERRIDE,
+
+		FRONT_LEFT_ENCODER,      REAR_LEFT_ENCODER,      FRONT_RIGHT_ENCODER,      REAR_RIGHT_ENCODER,
+		FRONT_LEFT_ENCODER_RATE, REAR_LEFT_ENCODER_RATE, FRONT_RIGHT_ENCODER_RATE, REAR_RIGHT_ENCODER_RATE,
+
+		GYRO_ANGLE, GYRO_RATE, HEADING, GYRO_BIAS,
+
+		FIELD_X, FIELD_Y,
+
+		FRONT_LEFT_OUTPUT, REAR_LEFT_OUTPUT, FRONT_RIGHT_OUTPUT, REAR_RIGHT_OUTPUT,
+
+		FRONT_LEFT_PID_SETPOINT,  FRONT_LEFT_PID_OUTPUT,
+		REAR_LEFT_PID_SETPOINT,   REAR_LEFT_PID_OUTPUT,
+		FRONT_RIGHT_PID_SETPOINT, FRONT_RIGHT_PID_OUTPUT,
+		REAR_RIGHT_PID_SETPOINT,  REAR_RIGHT_PID_OUTPUT,
+
+		ANGLE_PID_SETPOINT,      ANGLE_PID_OUTPUT,
+		HOLD_ANGLE_PID_SETPOINT, HOLD_ANGLE_PID_OUTPUT,
+		ROTATION_PID_SETPOINT,   ROTATION_PID_OUTPUT,
+
+		TOTE_ELEVATOR_ENCODER, TOTE_ELEVATOR_ENCODER_RATE,
+		TOTE_ELEVATOR_PID_SETPOINT, TOTE_ELEVATOR_OUTPUT, TOTE_ELEVATOR_TALON_STATE,
+		TOTE_ELEVATOR_UPPER_LIMIT, TOTE_ELEVATOR_LOWER_LIMIT, TOTE_ELEVATOR_BRAKE,
+		TOTE_ELEVATOR_ENABLED, TOTE_ELEVATOR_LEVEL,
+
+		CONTAINER_ELEVATOR_ENCODER, CONTAINER_ELEVATOR_ENCODER_RATE,
+		CONTAINER_ELEVATOR_PID_SETPOINT, CONTAINER_ELEVATOR_OUTPUT,
+		CONTAINER_HOLD_PID_SETPOINT, CONTAINER_HOLD_PID_OUTPUT,
+
+		BATTERY_VOLTAGE, TOTAL_CURRENT
+	}
+
+	public static final int  MAGIC   = 0x46524543; // "FREC"
+	public static final int  VERSION = 7;
+
+	public static final String DEFAULT_FILE = "/home/lvuser/flightRecorder.dat";
+
+	/** About 11 minutes at 50 ticks per second */
+	public static final int  DEFAULT_RECORD_CAPACITY = 32768;
+
+	public static final long FORCE_PERIOD_MS = 500;
+
+	public static final int HEADER_SIZE        = 64;
+	public static final int RECORD_HEADER_SIZE = 24;
+
+	static final int MAGIC_OFFSET           = 0;
+	static final int VERSION_OFFSET         = 4;
+	static final int RECORD_SIZE_OFFSET     = 8;
+	static final int RECORD_CAPACITY_OFFSET = 12;
+	static final int CHANNEL_COUNT_OFFSET   = 16;
+	static final int BOOT_COUNT_OFFSET      = 20;
+	static final int NEXT_SEQUENCE_OFFSET   = 24;
+	static final int BOOT_TIME_OFFSET       = 32;
+
+	static final int RECORD_SEQUENCE_OFFSET   = 0;
+	static final int RECORD_TIME_OFFSET       = 8;
+	static final int RECORD_BOOT_COUNT_OFFSET = 16;
+
+	private static final Channel[] CHANNELS = Channel.values();
+
+	public static final int CHANNEL_COUNT = CHANNELS.length;
+	public static final int RECORD_SIZE   = RECORD_HEADER_SIZE + CHANNEL_COUNT * 4;
+
+	private static FlightRecorder instance = null;
+
+	private final float[] values = new float[CHANNEL_COUNT];
+
+	private final int recordCapacity;
+
+	private MappedByteBuffer buffer = null;
+
+	private int  bootCount     = 0;
+	private long nextSequence  = 0;
+	private long bootTimeNanos = System.nanoTime();
+
+	private Thread forceThread = null;
+
+	/**
+	 * Get the robot flight recorder, which records to the {@link #DEFAULT_FILE}.
+	 * @return FlightRecorder
+	 */
+	public static synchronized FlightRecorder getInstance() {
+		if (instance == null) {
+			instance = new FlightRecorder(new File(DEFAULT_FILE), DEFAULT_RECORD_CAPACITY);
+		}
+		return instance;
+	}
+
+	/**
+	 * Create a flight recorder on the given file.
+	 * <p>
+	 * If the file cannot be mapped, a message is printed and the recorder is disabled.
+	 * Values can still be set, but nothing is recorded.
+	 * @param file - the recording file
+	 * @param recordCapacity - the number of records in the ring
+	 */
+	public FlightRecorder(File file, int recordCapacity) {
+
+		this.recordCapacity = recordCapacity;
+
+		try {
+			open(file);
+		} catch (IOException e) {
+			System.out.println("Flight recorder disabled, unable to map " + file + ": " + e.getMessage());
+			buffer = null;
+		}
+	}
+
+	/** @return boolean - {@code true} if the recorder is writing to its file */
+	public boolean isEnabled() { return buffer != null; }
+
+	/** @return int - the boot count of this recording session */
+	public int getBootCount() { return bootCount; }
+
+	/** @return long - the sequence number of the next record */
+	public long getNextSequence() { return nextSequence; }
+
+	/**
+	 * Set the value of a channel for the current tick.
+	 * <p>
+	 * Values that are not set in a tick keep their previous value.
+	 * @param channel
+	 * @param value
+	 */
+	public void set(Channel channel, double value) {
+		values[channel.ordinal()] = (float) value;
+	}
+
+	/**
+	 * Set the value of a channel for the current tick.  Booleans are recorded as 1 or 0.
+	 * @param channel
+	 * @param value
+	 */
+	public void set(Channel channel, boolean value) {
+		values[channel.ordinal()] = value ? 1.0f : 0.0f;
+	}
+
+	/**
+	 * Write the current channel values as the next record.
+	 */
+	public void endTick() {
+
+		if (buffer == null) { return; }
+
+		int recordOffset = HEADER_SIZE + (int) (nextSequence % recordCapacity) * RECORD_SIZE;
+
+		// Invalidate the record while it is being written.
+		buffer.putLong(recordOffset + RECORD_SEQUENCE_OFFSET, -1L);
+
+		buffer.putLong(recordOffset + RECORD_TIME_OFFSET,       System.nanoTime() - bootTimeNanos);
+		buffer.putInt (recordOffset + RECORD_BOOT_COUNT_OFFSET, bootCount);
+
+		int valueOffset = recordOffset + RECORD_HEADER_SIZE;
+		for (int i=0; i<CHANNEL_COUNT; i++) {
+			buffer.putFloat(valueOffset + i*4, values[i]);
+		}
+
+		buffer.putLong(recordOffset + RECORD_SEQUENCE_OFFSET, nextSequence);
+
+		nextSequence++;
+		buffer.putLong(NEXT_SEQUENCE_OFFSET, nextSequence);
+	}
+
+	/**
+	 * Start the background thread that forces the recording to flash.
+	 * Calling start more than once has no effect.
+	 */
+	public synchronized void start() {
+
+		if (buffer == null || forceThread != null) { return; }
+
+		forceThread = new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						Thread.sleep(FORCE_PERIOD_MS);
+					} catch (InterruptedException e) {
+						return;
+					}
+					buffer.force();
+				}
+			}
+		}, "FlightRecorder");
+
+		forceThread.setDaemon(true);
+		forceThread.setPriority(Thread.MIN_PRIORITY);
+		forceThread.start();
+	}
+
+	private void open(File file) throws IOException {
+
+		long fileSize = HEADER_SIZE + (long) recordCapacity * RECORD_SIZE;
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+
+		try {
+
+			boolean continueRecording = false;
+
+			// Check for an existing recording with the same layout.
+			if (randomAccessFile.length() == fileSize) {
+				randomAccessFile.seek(0);
+				continueRecording =
+						   randomAccessFile.readInt() == MAGIC
+						&& randomAccessFile.readInt() == VERSION
+						&& randomAccessFile.readInt() == RECORD_SIZE
+						&& randomAccessFile.readInt() == recordCapacity
+						&& randomAccessFile.readInt() == CHANNEL_COUNT;
+			}
+
+			if (!continueRecording) {
+				// Clear any old recording and extend the file with zeros.
+				randomAccessFile.setLength(0);
+				randomAccessFile.setLength(fileSize);
+			}
+
+			buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+
+			if (continueRecording) {
+				bootCount    = buffer.getInt (BOOT_COUNT_OFFSET) + 1;
+				nextSequence = buffer.getLong(NEXT_SEQUENCE_OFFSET);
+			} else {
+				buffer.putInt(MAGIC_OFFSET,           MAGIC);
+				buffer.putInt(VERSION_OFFSET,         VERSION);
+				buffer.putInt(RECORD_SIZE_OFFSET,     RECORD_SIZE);
+				buffer.putInt(RECORD_CAPACITY_OFFSET, recordCapacity);
+				buffer.putInt(CHANNEL_COUNT_OFFSET,   CHANNEL_COUNT);
+				bootCount    = 0;
+				nextSequence = 0;
+			}
+
+			buffer.putInt (BOOT_COUNT_OFFSET,    bootCount);
+			buffer.putLong(NEXT_SEQUENCE_OFFSET, nextSequence);
+			buffer.putLong(BOOT_TIME_OFFSET,     System.currentTimeMillis());
+			buffer.force();
+
+			bootTimeNanos = System.nanoTime();
+
+		} finally {
+			// The mapping stays valid after the file is closed.
+			randomAccessFile.close();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package robot.telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import robot.telemetry.FlightRecorder.Channel;
+
+/**
+ * A recording read back from a {@link FlightRecorder} file.
+ * <p>
+ * A recording holds the records from one boot of the robot in sequence order.  
+ * Use {@link #read(File)} to split a recorder file into its recordings.
+ */
+public class FlightRecording {
+
+	private final int       bootCount;
+	private final long[]    sequence;
+	private final long[]    timeNanos;
+	private final float[][] values;
+
+	private FlightRecording(int bootCount, long[] sequence, long[] timeNanos, float[][] values) {
+		this.bootCount = bootCount;
+		this.sequence  = sequence;
+		this.timeNanos = timeNanos;
+		this.values    = values;
+	}
+
+	/**
+	 * Read all of the recordings in a flight recorder file.
+	 * <p>
+	 * Records that were being written when the robot lost power are skipped.
+	 * @param file - a file written by the {@link FlightRecorder}
+	 * @return List&lt;FlightRecording&gt; - one recording for each boot, oldest first.
+	 * @throws IOException if the file cannot be read or was written with a different record layout.
+	 */
+	public static List<FlightRecording> read(File file) throws IOException {
+
+		ByteBuffer buffer;
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+		} finally {
+			randomAccessFile.close();
+		}
+
+		if (   buffer.limit() < FlightRecorder.HEADER_SIZE
+			|| buffer.getInt(FlightRecorder.MAGIC_OFFSET)         != FlightRecorder.MAGIC
+			|| buffer.getInt(FlightRecorder.VERSION_OFFSET)       != FlightRecorder.VERSION
+			|| buffer.getInt(FlightRecorder.RECORD_SIZE_OFFSET)   != FlightRecorder.RECORD_SIZE
+			|| buffer.getInt(FlightRecorder.CHANNEL_COUNT_OFFSET) != FlightRecorder.CHANNEL_COUNT) {
+			throw new IOException("File " + file + " is not a version " + FlightRecorder.VERSION + " flight recording");
+		}
+
+		int  recordCapacity = buffer.getInt (FlightRecorder.RECORD_CAPACITY_OFFSET);
+		long nextSequence   = buffer.getLong(FlightRecorder.NEXT_SEQUENCE_OFFSET);
+
+		// Find the valid records.  A record is valid if its sequence matches its slot and 
+		// it was written before the next sequence in the header.
+		List<Integer> offsetLs = new ArrayList<Integer>();
+
+		for (int slot=0; slot<recordCapacity; slot++) {
+			int offset = FlightRecorder.HEADER_SIZE + slot * FlightRecorder.RECORD_SIZE;
+			long recordSequence = buffer.getLong(offset + FlightRecorder.RECORD_SEQUENCE_OFFSET);
+			if (   recordSequence >= 0 
+				&& recordSequence <  nextSequence
+				&& recordSequence % recordCapacity == slot
+				&& !(recordSequence == 0 && buffer.getLong(offset + FlightRecorder.RECORD_TIME_OFFSET) == 0)) {
+				offsetLs.add(offset);
+			}
+		}
+
+		final ByteBuffer sortBuffer = buffer;
+		Integer[] offsets = offsetLs.toArray(new Integer[offsetLs.size()]);
+		Arrays.sort(offsets, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				long sequenceA = sortBuffer.getLong(a + FlightRecorder.RECORD_SEQUENCE_OFFSET);
+				long sequenceB = sortBuffer.getLong(b + FlightRecorder.RECORD_SEQUENCE_OFFSET);
+				return (sequenceA < sequenceB) ? -1 : ((sequenceA == sequenceB) ? 0 : 1);
+			}
+		});
+
+		// Split the records into one recording per boot.
+		List<FlightRecording> recordingLs = new ArrayList<FlightRecording>();
+
+		int start = 0;
+		while (start < offsets.length) {
+
+			int bootCount = buffer.getInt(offsets[start] + FlightRecorder.RECORD_BOOT_COUNT_OFFSET);
+
+			int end = start;
+			while (end < offsets.length 
+					&& buffer.getInt(offsets[end] + FlightRecorder.RECORD_BOOT_COUNT_OFFSET) == bootCount) {
+				end++;
+			}
+
+			int recordCount = end - start;
+
+			long[]    sequence  = new long[recordCount];
+			long[]    timeNanos = new long[recordCount];
+			float[][] values    = new float[recordCount][FlightRecorder.CHANNEL_COUNT];
+
+			for (int i=0; i<recordCount; i++) {
+				int offset = offsets[start + i];
+				sequence [i] = buffer.getLong(offset + FlightRecorder.RECORD_SEQUENCE_OFFSET);
+				timeNanos[i] = buffer.getLong(offset + FlightRecorder.RECORD_TIME_OFFSET);
+				for (int channel=0; channel<FlightRecorder.CHANNEL_COUNT; channel++) {
+					values[i][channel] = buffer.getFloat(offset + FlightRecorder.RECORD_HEADER_SIZE + channel*4);
+				}
+			}
+
+			recordingLs.add(new FlightRecording(bootCount, sequence, timeNanos, values));
+
+			start = end;
+		}
+
+		return recordingLs;
+	}
+
+	public int getBootCount() { return bootCount; }
+
+	public int getRecordCount() { return values.length; }
+
+	/** @return long - the sequence number of the record in the recorder file */
+	public long getSequence(int record) { return sequence[record]; }
+
+	/** @return long - the time of the record since the robot boot in nanoseconds */
+	public long getTimeNanos(int record) { return timeNanos[record]; }
+
+	/** @return double - the recorded duration in seconds */
+	public double getDurationSeconds() {
+		if (values.length < 2) { return 0; }
+		return (timeNanos[values.length - 1] - timeNanos[0]) / 1.0e9d;
+	}
+
+	public double get(int record, Channel channel) {
+		return values[record][channel.ordinal()];
+	}
+
+	/** @return boolean - the value of a channel recorded from a boolean */
+	public boolean getBoolean(int record, Channel channel) {
+		return values[record][channel.ordinal()] != 0.0f;
+	}
+}
@@ -0,0 +1,114 @@
+package robot.telemetry;
+
+/**
+ * A fixed size latency histogram with linear buckets.
+ * <p>
+ * All storage is allocated when the histogram is created so that recording 
+ * a sample in the robot loop does not allocate.  Samples longer than the last
+ * bucket are counted in an overflow bucket and reported using the maximum.
+ */
+public class LatencyHistogram {
+
+	private final long   bucketWidthNanos;
+	private final long   budgetNanos;
+	private final long[] bucketCounts;
+	
+	private long count        = 0;
+	private long maxNanos     = 0;
+	private long overrunCount = 0;
+	
+	private long totalOverrunCount = 0;
+	
+	/**
+	 * Create a histogram.
+	 * @param bucketWidthNanos - the width of each bucket in nanoseconds
+	 * @param bucketCount - the number of buckets.  One extra overflow bucket is always added.
+	 * @param budgetNanos - samples longer than this budget are counted as overruns
+	 */
+	public LatencyHistogram(long bucketWidthNanos, int bucketCount, long budgetNanos) {
+		
+		if (bucketWidthNanos <= 0 || bucketCount <= 0) {
+			throw new IllegalArgumentException(
+					"Invalid histogram size (" + bucketWidthNanos + "ns x " + bucketCount + ")");
+		}
+		
+		this.bucketWidthNanos = bucketWidthNanos;
+		this.budgetNanos      = budgetNanos;
+		this.bucketCounts     = new long[bucketCount + 1];
+	}
+	
+	/**
+	 * Record one sample.
+	 * @param nanos - the elapsed time in nanoseconds
+	 */
+	public void record(long nanos) {
+		
+		if (nanos < 0) { nanos = 0; }
+		
+		long bucket = nanos / bucketWidthNanos;
+		if (bucket >= bucketCounts.length) { bucket = bucketCounts.length - 1; }
+		
+		bucketCounts[(int) bucket]++;
+		count++;
+		
+		if (nanos > maxNanos) { maxNanos = nanos; }
+		
+		if (nanos > budgetNanos) {
+			overrunCount++;
+			totalOverrunCount++;
+		}
+	}
+	
+	/**
+	 * Get the latency at a percentile.  The value returned is the upper edge of the 
+	 * bucket holding the percentile, limited to the maximum recorded sample.
+	 * @param percentile - between 0 and 1.0 (p99 = 0.99)
+	 * @return long - the latency in nanoseconds, or 0 if no samples were recorded.
+	 */
+	public long getPercentileNanos(double percentile) {
+		
+		if (count == 0) { return 0; }
+		
+		long target = (long) Math.ceil(percentile * count);
+		if (target < 1)     { target = 1; }
+		if (target > count) { target = count; }
+		
+		long cumulativeCount = 0;
+		
+		// The overflow bucket is not included in the loop and falls through to the maximum.
+		for (int i=0; i<bucketCounts.length-1; i++) {
+			cumulativeCount += bucketCounts[i];
+			if (cumulativeCount >= target) {
+				return Math.min((i + 1) * bucketWidthNanos, maxNanos);
+			}
+		}
+		
+		return maxNanos;
+	}
+	
+	/** @return long - the number of samples since the last reset */
+	public long getCount()        { return count; }
+	
+	/** @return long - the longest sample in nanoseconds since the last reset */
+	public long getMaxNanos()     { return maxNanos; }
+	
+	/** @return long - the number of samples over the budget since the last reset */
+	public long getOverrunCount() { return overrunCount; }
+	
+	/** @return long - the number of samples over the budget since the histogram was created */
+	public long getTotalOverrunCount() { return totalOverrunCount; }
+	
+	/**
+	 * Clear the samples.  The total overrun count is not cleared.
+	 */
+	public void reset() {
+		
+		for (int i=0; i<bucketCounts.length; i++) {
+			bucketCounts[i] = 0;
+		}
+		
+		count        = 0;
+		maxNanos     = 0;
+		overrunCount = 0;
+	}
+}
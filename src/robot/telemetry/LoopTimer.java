@@ -0,0 +1,138 @@
+package robot.telemetry;
+
+import robot.telemetry.DashboardPublisher.NumberEntry;
+
+/**
+ * Time each phase of the robot periodic loop.
+ * <p>
+ * Call {@link #startLoop()} at the start of a periodic method, {@link #endPhase(Phase)}
+ * after each phase and {@link #endLoop()} at the end.  The p50, p99, max and overrun
+ * count for each phase and for the whole loop are published through the 
+ * {@link DashboardPublisher} about once a second, and the histograms are then cleared.
+ */
+public class LoopTimer {
+
+	public enum Phase { 
+		
+		SENSORS("Sensors"), SCHEDULER("Scheduler"), OI("OI"), OUTPUTS("Outputs"), DASHBOARD("Dashboard"), COMPRESSOR("Compressor"), RECORDER("Recorder");
+		
+		public final String name;
+		
+		Phase(String name) { this.name = name; }
+	}
+	
+	/** The robot periodic methods are called every 20 ms */
+	public static final long LOOP_BUDGET_NANOS = 20000000L;
+	
+	private static final long PUBLISH_PERIOD_NANOS = 1000000000L;
+	
+	// 100us buckets up to 50ms
+	private static final long BUCKET_WIDTH_NANOS = 100000L;
+	private static final int  BUCKET_COUNT       = 500;
+	
+	private static final double NANOS_PER_MS = 1000000.0d;
+	
+	private static final Phase[] PHASES = Phase.values();
+	
+	private static final String LOOP_NAME = "Loop";
+	
+	private final LatencyHistogram[] phaseHistograms = new LatencyHistogram[PHASES.length];
+	private final LatencyHistogram   loopHistogram;
+	
+	// Dashboard entries are built once so that publishing does not build strings.
+	private final NumberEntry[] p50Entries     = new NumberEntry[PHASES.length + 1];
+	private final NumberEntry[] p99Entries     = new NumberEntry[PHASES.length + 1];
+	private final NumberEntry[] maxEntries     = new NumberEntry[PHASES.length + 1];
+	private final NumberEntry[] overrunEntries = new NumberEntry[PHASES.length + 1];
+	
+	private long loopStartNanos   = 0;
+	private long phaseStartNanos  = 0;
+	private long lastPublishNanos = System.nanoTime();
+	
+	public LoopTimer() {
+		
+		for (int i=0; i<PHASES.length; i++) {
+			phaseHistograms[i] = new LatencyHistogram(BUCKET_WIDTH_NANOS, BUCKET_COUNT, LOOP_BUDGET_NANOS);
+			addEntries(i, PHASES[i].name);
+		}
+		
+		loopHistogram = new LatencyHistogram(BUCKET_WIDTH_NANOS, BUCKET_COUNT, LOOP_BUDGET_NANOS);
+		addEntries(PHASES.length, LOOP_NAME);
+	}
+	
+	/**
+	 * Mark the start of the periodic loop and of the first phase.
+	 */
+	public void startLoop() {
+		loopStartNanos  = System.nanoTime();
+		phaseStartNanos = loopStartNanos;
+	}
+	
+	/**
+	 * Record the time since the end of the previous phase (or the start of the loop).
+	 * @param phase - the phase that just finished
+	 */
+	public void endPhase(Phase phase) {
+		long now = System.nanoTime();
+		phaseHistograms[phase.ordinal()].record(now - phaseStartNanos);
+		phaseStartNanos = now;
+	}
+	
+	/**
+	 * Record the time for the whole loop and publish the summary if it is due.
+	 */
+	public void endLoop() {
+		
+		long now = System.nanoTime();
+		loopHistogram.record(now - loopStartNanos);
+		
+		if (now - lastPublishNanos >= PUBLISH_PERIOD_NANOS) {
+			publish();
+			lastPublishNanos = now;
+		}
+	}
+	
+	/**
+	 * @param phase
+	 * @return LatencyHistogram - the histogram for the phase since the last publish.
+	 */
+	public LatencyHistogram getHistogram(Phase phase) {
+		return phaseHistograms[phase.ordinal()];
+	}
+	
+	/**
+	 * @return LatencyHistogram - the histogram for the whole loop since the last publish.
+	 */
+	public LatencyHistogram getLoopHistogram() {
+		return loopHistogram;
+	}
+	
+	private void addEntries(int index, String name) {
+		
+		DashboardPublisher dashboard = DashboardPublisher.getInstance();
+		
+		// The summary is only set once per publish period, so there is no deadband or period.
+		p50Entries    [index] = dashboard.addNumber(name + " p50 (ms)", 0.0d, 0);
+		p99Entries    [index] = dashboard.addNumber(name + " p99 (ms)", 0.0d, 0);
+		maxEntries    [index] = dashboard.addNumber(name + " max (ms)", 0.0d, 0);
+		overrunEntries[index] = dashboard.addNumber(name + " overruns", 0.0d, 0);
+	}
+	
+	private void publish() {
+		
+		for (int i=0; i<PHASES.length; i++) {
+			publish(i, phaseHistograms[i]);
+		}
+		publish(PHASES.length, loopHistogram);
+	}
+	
+	private void publish(int index, LatencyHistogram histogram) {
+		
+		p50Entries    [index].set(histogram.getPercentileNanos(0.50d) / NANOS_PER_MS);
+		p99Entries    [index].set(histogram.getPercentileNanos(0.99d) / NANOS_PER_MS);
+		maxEntries    [index].set(histogram.getMaxNanos() / NANOS_PER_MS);
+		overrunEntries[index].set(histogram.getTotalOverrunCount());
+		
+		histogram.reset();
+	}
+}
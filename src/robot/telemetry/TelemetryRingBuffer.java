@@ -0,0 +1,112 @@
+package robot.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single producer, single consumer ring buffer of telemetry samples.
+ * <p>
+ * Each sample is an entry id and a double value stored in primitive arrays, so
+ * offering a sample does not allocate or box.  The buffer is lock free: the producer
+ * (the robot main thread) only writes the tail and the consumer (the publisher
+ * thread) only writes the head.
+ * <p>
+ * When the buffer is full the sample is dropped and counted.
+ */
+public class TelemetryRingBuffer {
+
+	/**
+	 * Receives the samples drained from the buffer.
+	 */
+	public interface Sink {
+		void accept(int id, double value);
+	}
+
+	private final int      capacity;
+	private final int      mask;
+	private final int[]    ids;
+	private final double[] values;
+
+	// Next slot to read, written only by the consumer.
+	private final AtomicLong head = new AtomicLong(0);
+
+	// Next slot to write, written only by the producer.
+	private final AtomicLong tail = new AtomicLong(0);
+
+	private final AtomicLong dropCount = new AtomicLong(0);
+
+	/**
+	 * Create a ring buffer.
+	 * @param capacity - the number of samples, must be a power of two.
+	 */
+	public TelemetryRingBuffer(int capacity) {
+
+		if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+			throw new IllegalArgumentException("Ring buffer capacity (" + capacity + ") must be a power of two");
+		}
+
+		this.capacity = capacity;
+		this.mask     = capacity - 1;
+		this.ids      = new int[capacity];
+		this.values   = new double[capacity];
+	}
+
+	/**
+	 * Add a sample.  Only one thread may call this method.
+	 * @param id - the entry id
+	 * @param value
+	 * @return boolean - {@code false} if the buffer was full and the sample was dropped.
+	 */
+	public boolean offer(int id, double value) {
+
+		long currentTail = tail.get();
+
+		if (currentTail - head.get() >= capacity) {
+			dropCount.incrementAndGet();
+			return false;
+		}
+
+		int slot = (int) currentTail & mask;
+		ids   [slot] = id;
+		values[slot] = value;
+
+		// Publish the slot to the consumer.
+		tail.lazySet(currentTail + 1);
+
+		return true;
+	}
+
+	/**
+	 * Pass all available samples to the sink.  Only one thread may call this method.
+	 * @param sink
+	 * @return int - the number of samples drained.
+	 */
+	public int drain(Sink sink) {
+
+		long currentHead = head.get();
+		long currentTail = tail.get();
+
+		int count = 0;
+
+		while (currentHead < currentTail) {
+			int slot = (int) currentHead & mask;
+			sink.accept(ids[slot], values[slot]);
+			currentHead++;
+			count++;
+		}
+
+		// Release the slots to the producer.
+		head.lazySet(currentHead);
+
+		return count;
+	}
+
+	/** @return int - the number of samples waiting to be drained */
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+
+	public int getCapacity() { return capacity; }
+
+	/** @return long - the number of samples dropped because the buffer was full */
+	public long getDropCount() { return dropCount.get(); }
+}
@@ -0,0 +1,162 @@
+package robot.trajectory;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A generated trajectory: field position, velocity and heading samples at a fixed period.
+ * <p>
+ * The samples are stored in one {@link DoubleBuffer} with {@link #STRIDE} values per sample, either
+ * in memory after the trajectory is generated or directly on a memory mapped trajectory file.  The
+ * values at a time are looked up by index and interpolated between the two samples around the time,
+ * so a lookup does not search or allocate.
+ * <p>
+ * Positions are in inches and angles in degrees clockwise from north, with the same field
+ * coordinates as the {@link Waypoint}s.
+ */
+public class Trajectory {
+
+	// Sample fields
+	static final int X          = 0;
+	static final int Y          = 1;
+	static final int VELOCITY_X = 2;
+	static final int VELOCITY_Y = 3;
+	static final int HEADING    = 4;
+	static final int STRIDE     = 5;
+
+	private final String       name;
+	private final double       period;
+	private final int          sampleCount;
+	private final DoubleBuffer sampleBuffer;
+
+	/**
+	 * @param name - the trajectory name
+	 * @param period - the time between samples in seconds
+	 * @param sampleBuffer - the samples, starting at index 0, with a multiple of {@link #STRIDE} values.
+	 */
+	Trajectory(String name, double period, DoubleBuffer sampleBuffer) {
+
+		if (sampleBuffer.capacity() < STRIDE || sampleBuffer.capacity() % STRIDE != 0) {
+			throw new IllegalArgumentException("Trajectory " + name + " has an incomplete sample buffer");
+		}
+
+		this.name         = name;
+		this.period       = period;
+		this.sampleCount  = sampleBuffer.capacity() / STRIDE;
+		this.sampleBuffer = sampleBuffer;
+	}
+
+	public String getName() { return name; }
+
+	/** @return double - the time between samples in seconds */
+	public double getPeriod() { return period; }
+
+	/** @return int - the number of samples */
+	public int getSampleCount() { return sampleCount; }
+
+	/** @return double - the time to drive the trajectory in seconds */
+	public double getDuration() {
+		return (sampleCount - 1) * period;
+	}
+
+	/**
+	 * Is the trajectory complete at the given time.
+	 * @param t - time since the start of the trajectory in seconds
+	 * @return boolean - {@code true} if the trajectory is complete.
+	 */
+	public boolean isComplete(double t) {
+		return t >= getDuration();
+	}
+
+	/**
+	 * @param t - time since the start of the trajectory in seconds
+	 * @return double - the field x position setpoint in inches
+	 */
+	public double getX(double t) { return lookup(X, t); }
+
+	/**
+	 * @param t - time since the start of the trajectory in seconds
+	 * @return double - the field y position setpoint in inches
+	 */
+	public double getY(double t) { return lookup(Y, t); }
+
+	/**
+	 * @param t - time since the start of the trajectory in seconds
+	 * @return double - the field x velocity setpoint in inches / sec, zero when the trajectory is complete
+	 */
+	public double getVelocityX(double t) { return lookup(VELOCITY_X, t); }
+
+	/**
+	 * @param t - time since the start of the trajectory in seconds
+	 * @return double - the field y velocity setpoint in inches / sec, zero when the trajectory is complete
+	 */
+	public double getVelocityY(double t) { return lookup(VELOCITY_Y, t); }
+
+	/**
+	 * Get the heading setpoint.  The heading is interpolated the short way around.
+	 * @param t - time since the start of the trajectory in seconds
+	 * @return double - the heading in degrees between 0 and 360
+	 */
+	public double getHeading(double t) {
+
+		int    i     = getIndex(t);
+		double ratio = getRatio(t, i);
+
+		double heading = get(i, HEADING);
+
+		if (ratio > 0.0d) {
+			double difference = get(i+1, HEADING) - heading;
+			if (difference >  180.0d) { difference -= 360.0d; }
+			if (difference < -180.0d) { difference += 360.0d; }
+			heading += difference * ratio;
+		}
+
+		if (heading <    0.0d) { heading += 360.0d; }
+		if (heading >= 360.0d) { heading -= 360.0d; }
+
+		return heading;
+	}
+
+	/**
+	 * Get a sample value.
+	 * @param index - the sample index
+	 * @param field - the sample field
+	 * @return double - the value
+	 */
+	double get(int index, int field) {
+		return sampleBuffer.get(index * STRIDE + field);
+	}
+
+	/**
+	 * Interpolate between the two samples around the time.  The last sample is returned
+	 * after the end of the trajectory, and the generator always ends at zero velocity.
+	 */
+	private double lookup(int field, double t) {
+
+		int    i     = getIndex(t);
+		double ratio = getRatio(t, i);
+
+		double value = get(i, field);
+
+		if (ratio > 0.0d) {
+			value += (get(i+1, field) - value) * ratio;
+		}
+
+		return value;
+	}
+
+	private int getIndex(double t) {
+
+		if (t <= 0.0d) { return 0; }
+
+		int i = (int) (t / period);
+
+		return (i >= sampleCount - 1) ? sampleCount - 1 : i;
+	}
+
+	private double getRatio(double t, int index) {
+
+		if (t <= 0.0d || index >= sampleCount - 1) { return 0.0d; }
+
+		return t / period - index;
+	}
+}
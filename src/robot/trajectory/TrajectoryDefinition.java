@@ -0,0 +1,101 @@
+package robot.trajectory;
+
+import java.util.zip.CRC32;
+
+/**
+ * The waypoints and limits of a trajectory.
+ * <p>
+ * The definition is what the autonomous code declares.  The {@link TrajectoryGenerator} turns it
+ * into a {@link Trajectory}, and the {@link #getChecksum(double)} of the definition is stored with
+ * a generated trajectory file, so that the file is generated again when the waypoints or limits
+ * change.
+ */
+public class TrajectoryDefinition {
+
+	private final String name;
+
+	private final double maxVelocity;
+	private final double maxAcceleration;
+	private final double maxCentripetalAcceleration;
+	private final double maxAngularVelocity;
+
+	private final Waypoint [] waypointArr;
+
+	/**
+	 * @param name - the trajectory name, used as the file name.
+	 * @param maxVelocity - the maximum speed in inches / sec
+	 * @param maxAcceleration - the maximum change in speed along the path in inches / sec^2
+	 * @param maxCentripetalAcceleration - the maximum acceleration across the path in inches / sec^2,
+	 * which limits the speed in curves.
+	 * @param maxAngularVelocity - the maximum rotation rate in degrees / sec, which limits the speed
+	 * where the heading changes.
+	 * @param waypointArr - at least two waypoints
+	 */
+	public TrajectoryDefinition(String name, double maxVelocity, double maxAcceleration,
+			double maxCentripetalAcceleration, double maxAngularVelocity, Waypoint... waypointArr) {
+
+		if (waypointArr.length < 2) {
+			throw new IllegalArgumentException("Trajectory " + name + " needs at least two waypoints");
+		}
+
+		if (maxVelocity <= 0 || maxAcceleration <= 0 || maxCentripetalAcceleration <= 0 || maxAngularVelocity <= 0) {
+			throw new IllegalArgumentException("Trajectory " + name + " limits must be greater than zero");
+		}
+
+		this.name                       = name;
+		this.maxVelocity                = maxVelocity;
+		this.maxAcceleration            = maxAcceleration;
+		this.maxCentripetalAcceleration = maxCentripetalAcceleration;
+		this.maxAngularVelocity         = maxAngularVelocity;
+		this.waypointArr                = waypointArr.clone();
+	}
+
+	public String getName() { return name; }
+
+	public double getMaxVelocity() { return maxVelocity; }
+
+	public double getMaxAcceleration() { return maxAcceleration; }
+
+	public double getMaxCentripetalAcceleration() { return maxCentripetalAcceleration; }
+
+	public double getMaxAngularVelocity() { return maxAngularVelocity; }
+
+	public int getWaypointCount() { return waypointArr.length; }
+
+	public Waypoint getWaypoint(int index) { return waypointArr[index]; }
+
+	/**
+	 * Get the checksum of everything that changes the generated samples.
+	 * @param period - the sample period in seconds
+	 * @return long - the CRC32 of the generator version, the period, the limits and the waypoints
+	 */
+	public long getChecksum(double period) {
+
+		CRC32 crc = new CRC32();
+
+		update(crc, TrajectoryGenerator.VERSION);
+		update(crc, period);
+		update(crc, maxVelocity);
+		update(crc, maxAcceleration);
+		update(crc, maxCentripetalAcceleration);
+		update(crc, maxAngularVelocity);
+
+		for (Waypoint waypoint: waypointArr) {
+			update(crc, waypoint.getX());
+			update(crc, waypoint.getY());
+			update(crc, waypoint.getDirection());
+			update(crc, waypoint.getHeading());
+		}
+
+		return crc.getValue();
+	}
+
+	private static void update(CRC32 crc, double value) {
+
+		long bits = Double.doubleToLongBits(value);
+
+		for (int i=0; i<8; i++) {
+			crc.update((int) (bits >>> (i * 8)));
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package robot.trajectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Store generated trajectories in binary files that are memory mapped when the robot starts.
+ * <p>
+ * Each trajectory is one file with a header and the samples as doubles.  The header holds the
+ * checksum of the {@link TrajectoryDefinition}, so a file is only used if the waypoints, limits,
+ * period and generator version are unchanged.  Otherwise the trajectory is generated on the first
+ * boot after the change and the file is written again.
+ * <p>
+ * A loaded trajectory reads its samples directly from the mapped file, so the pages are only
+ * read from flash as the trajectory is driven.
+ */
+public class TrajectoryFile {
+
+	public static final int MAGIC   = 0x5452414A; // "TRAJ"
+	public static final int VERSION = 1;
+
+	public static final String DEFAULT_DIRECTORY = "/home/lvuser/trajectories";
+	public static final String FILE_EXTENSION    = ".traj";
+
+	public static final int HEADER_SIZE = 32;
+
+	static final int MAGIC_OFFSET        = 0;
+	static final int VERSION_OFFSET      = 4;
+	static final int CHECKSUM_OFFSET     = 8;
+	static final int PERIOD_OFFSET       = 16;
+	static final int SAMPLE_COUNT_OFFSET = 24;
+
+	/**
+	 * Load a trajectory from the {@link #DEFAULT_DIRECTORY}.
+	 * @see #load(File, TrajectoryDefinition, double)
+	 */
+	public static Trajectory load(TrajectoryDefinition definition, double period) {
+		return load(new File(DEFAULT_DIRECTORY), definition, period);
+	}
+
+	/**
+	 * Load a trajectory, generating it if there is no file for the current definition.
+	 * <p>
+	 * If the file cannot be read or written, a message is printed and the generated trajectory
+	 * is used from memory.
+	 *
+	 * @param directory - the trajectory directory
+	 * @param definition - the waypoints and limits
+	 * @param period - the time between samples in seconds
+	 * @return Trajectory - the mapped or generated trajectory
+	 */
+	public static Trajectory load(File directory, TrajectoryDefinition definition, double period) {
+
+		File file     = new File(directory, definition.getName() + FILE_EXTENSION);
+		long checksum = definition.getChecksum(period);
+
+		try {
+			Trajectory trajectory = map(file, definition.getName(), checksum, period);
+			if (trajectory != null) {
+				return trajectory;
+			}
+		} catch (IOException e) {
+			System.out.println("Unable to map trajectory " + file + ": " + e.getMessage());
+		}
+
+		Trajectory trajectory = TrajectoryGenerator.generate(definition, period);
+
+		try {
+			write(directory, file, trajectory, checksum);
+		} catch (IOException e) {
+			System.out.println("Trajectory " + definition.getName() + " not saved to " + file + ": " + e.getMessage());
+		}
+
+		return trajectory;
+	}
+
+	/**
+	 * Map a trajectory file.
+	 * @return Trajectory - the trajectory, or {@code null} if there is no file or it is out of date.
+	 */
+	private static Trajectory map(File file, String name, long checksum, double period) throws IOException {
+
+		if (!file.isFile()) { return null; }
+
+		MappedByteBuffer buffer;
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+		try {
+			if (randomAccessFile.length() < HEADER_SIZE) { return null; }
+
+			buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+
+		} finally {
+			// The mapping stays valid after the file is closed.
+			randomAccessFile.close();
+		}
+
+		int sampleCount = buffer.getInt(SAMPLE_COUNT_OFFSET);
+
+		if (   buffer.getInt   (MAGIC_OFFSET)    != MAGIC
+			|| buffer.getInt   (VERSION_OFFSET)  != VERSION
+			|| buffer.getLong  (CHECKSUM_OFFSET) != checksum
+			|| buffer.getDouble(PERIOD_OFFSET)   != period
+			|| sampleCount < 1
+			|| buffer.capacity() != HEADER_SIZE + (long) sampleCount * Trajectory.STRIDE * 8) {
+			return null;
+		}
+
+		buffer.position(HEADER_SIZE);
+
+		return new Trajectory(name, period, buffer.slice().asDoubleBuffer());
+	}
+
+	/**
+	 * Write the trajectory to a temporary file and rename it, so that a partly written
+	 * file is never mapped.
+	 */
+	private static void write(File directory, File file, Trajectory trajectory, long checksum) throws IOException {
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create " + directory);
+		}
+
+		File tempFile = new File(directory, file.getName() + ".tmp");
+
+		int  valueCount = trajectory.getSampleCount() * Trajectory.STRIDE;
+		long fileSize   = HEADER_SIZE + (long) valueCount * 8;
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(tempFile, "rw");
+
+		try {
+			randomAccessFile.setLength(0);
+			randomAccessFile.setLength(fileSize);
+
+			MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+
+			buffer.putInt   (MAGIC_OFFSET,        MAGIC);
+			buffer.putInt   (VERSION_OFFSET,      VERSION);
+			buffer.putLong  (CHECKSUM_OFFSET,     checksum);
+			buffer.putDouble(PERIOD_OFFSET,       trajectory.getPeriod());
+			buffer.putInt   (SAMPLE_COUNT_OFFSET, trajectory.getSampleCount());
+
+			for (int i=0; i<trajectory.getSampleCount(); i++) {
+				for (int field=0; field<Trajectory.STRIDE; field++) {
+					buffer.putDouble(HEADER_SIZE + (i * Trajectory.STRIDE + field) * 8, trajectory.get(i, field));
+				}
+			}
+
+			buffer.force();
+
+		} finally {
+			randomAccessFile.close();
+		}
+
+		if (!tempFile.renameTo(file)) {
+			tempFile.delete();
+			throw new IOException("Unable to rename " + tempFile);
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package robot.trajectory;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Generate a {@link Trajectory} from a {@link TrajectoryDefinition}.
+ * <p>
+ * The path between each pair of waypoints is a quintic Hermite spline.  The first derivative at
+ * each end is the direction of travel scaled by the distance between the waypoints, and the
+ * second derivative is zero, so the path is continuous in direction and curvature through every
+ * waypoint.  The heading changes in proportion to the distance along each segment, independent of
+ * the direction of travel.
+ * <p>
+ * The path is sampled in short steps and each step gets a speed limit from the maximum velocity,
+ * the maximum centripetal acceleration in the curvature and the maximum angular velocity in the
+ * heading change.  A forward pass limits the acceleration and a backward pass limits the
+ * deceleration, starting and ending stopped.  The path is then resampled at the fixed period.
+ * <p>
+ * Generation allocates, and should be done when the robot starts, not in the loop.
+ */
+public class TrajectoryGenerator {
+
+	/** Change the version when the generated samples change, so that stored trajectories are generated again */
+	public static final int VERSION = 1;
+
+	/** The path step in inches */
+	private static final double PATH_STEP = 0.25d;
+
+	private static final int MIN_SEGMENT_STEPS = 16;
+
+	/**
+	 * Generate the trajectory.
+	 * @param definition - the waypoints and limits
+	 * @param period - the time between samples in seconds, normally the robot loop period
+	 * @return Trajectory - the in memory trajectory
+	 */
+	public static Trajectory generate(TrajectoryDefinition definition, double period) {
+
+		int waypointCount = definition.getWaypointCount();
+
+		// Path points along the splines.
+		int [] segmentStepArr = new int [waypointCount - 1];
+		int pointCount = 1;
+
+		for (int k=0; k<waypointCount-1; k++) {
+			double chord = getChord(definition.getWaypoint(k), definition.getWaypoint(k+1));
+			segmentStepArr[k] = Math.max(MIN_SEGMENT_STEPS, (int) Math.ceil(chord / PATH_STEP));
+			pointCount += segmentStepArr[k];
+		}
+
+		double [] xArr        = new double [pointCount];
+		double [] yArr        = new double [pointCount];
+		double [] distanceArr = new double [pointCount];
+		double [] headingArr  = new double [pointCount];
+
+		xArr[0]       = definition.getWaypoint(0).getX();
+		yArr[0]       = definition.getWaypoint(0).getY();
+		headingArr[0] = definition.getWaypoint(0).getHeading();
+
+		int point = 0;
+
+		for (int k=0; k<waypointCount-1; k++) {
+
+			Waypoint start = definition.getWaypoint(k);
+			Waypoint end   = definition.getWaypoint(k+1);
+
+			int firstPoint = point;
+
+			// The derivatives at the ends of the segment.
+			double chord = getChord(start, end);
+			double startVelocityX = chord * Math.sin(Math.toRadians(start.getDirection()));
+			double startVelocityY = chord * Math.cos(Math.toRadians(start.getDirection()));
+			double endVelocityX   = chord * Math.sin(Math.toRadians(end.getDirection()));
+			double endVelocityY   = chord * Math.cos(Math.toRadians(end.getDirection()));
+
+			for (int step=1; step<=segmentStepArr[k]; step++) {
+
+				point++;
+
+				double s = step / (double) segmentStepArr[k];
+
+				xArr[point] = spline(s, start.getX(), end.getX(), startVelocityX, endVelocityX);
+				yArr[point] = spline(s, start.getY(), end.getY(), startVelocityY, endVelocityY);
+
+				distanceArr[point] = distanceArr[point-1]
+						+ Math.hypot(xArr[point] - xArr[point-1], yArr[point] - yArr[point-1]);
+			}
+
+			// The heading is continuous (not wrapped) and changes the short way to the next waypoint.
+			double headingChange = wrap(end.getHeading() - start.getHeading());
+			double segmentLength = distanceArr[point] - distanceArr[firstPoint];
+
+			for (int i=firstPoint+1; i<=point; i++) {
+				double ratio = (segmentLength > 0) ? (distanceArr[i] - distanceArr[firstPoint]) / segmentLength : 1.0d;
+				headingArr[i] = headingArr[firstPoint] + headingChange * ratio;
+			}
+		}
+
+		double [] speedArr = getSpeedLimits(definition, xArr, yArr, distanceArr, headingArr);
+
+		limitAcceleration(definition.getMaxAcceleration(), distanceArr, speedArr);
+
+		// Time at each path point.
+		double [] timeArr = new double [pointCount];
+
+		for (int i=1; i<pointCount; i++) {
+			double step  = distanceArr[i] - distanceArr[i-1];
+			double speed = speedArr[i] + speedArr[i-1];
+			timeArr[i] = timeArr[i-1] + ((speed > 0) ? 2.0d * step / speed : 0.0d);
+		}
+
+		return new Trajectory(definition.getName(), period,
+				DoubleBuffer.wrap(resample(period, xArr, yArr, headingArr, speedArr, timeArr)));
+	}
+
+	/*
+	 * The speed limit at each point from the curvature and heading change on either side of it.
+	 */
+	private static double [] getSpeedLimits(TrajectoryDefinition definition, double [] xArr, double [] yArr,
+			double [] distanceArr, double [] headingArr) {
+
+		int pointCount = xArr.length;
+
+		double [] speedArr = new double [pointCount];
+
+		for (int i=0; i<pointCount; i++) {
+
+			double speed = definition.getMaxVelocity();
+
+			int before = Math.max(0, i - 1);
+			int after  = Math.min(pointCount - 1, i + 1);
+
+			double step = distanceArr[after] - distanceArr[before];
+
+			if (step > 0) {
+
+				if (i > 0 && i < pointCount - 1) {
+					double directionChange = Math.toRadians(Math.abs(wrap(
+							  getDirection(xArr, yArr, i, after)
+							- getDirection(xArr, yArr, before, i))));
+					double curvature = directionChange / (step / 2.0d);
+					if (curvature > 0) {
+						speed = Math.min(speed, Math.sqrt(definition.getMaxCentripetalAcceleration() / curvature));
+					}
+				}
+
+				double headingRate = Math.abs(headingArr[after] - headingArr[before]) / step;
+				if (headingRate > 0) {
+					speed = Math.min(speed, definition.getMaxAngularVelocity() / headingRate);
+				}
+			}
+
+			speedArr[i] = speed;
+		}
+
+		return speedArr;
+	}
+
+	/*
+	 * Limit the acceleration forwards from a stop at the start, and the deceleration
+	 * backwards from a stop at the end: v^2 = v0^2 + 2 a d
+	 */
+	private static void limitAcceleration(double maxAcceleration, double [] distanceArr, double [] speedArr) {
+
+		int pointCount = speedArr.length;
+
+		speedArr[0] = 0.0d;
+		for (int i=1; i<pointCount; i++) {
+			double step = distanceArr[i] - distanceArr[i-1];
+			speedArr[i] = Math.min(speedArr[i], Math.sqrt(speedArr[i-1] * speedArr[i-1] + 2.0d * maxAcceleration * step));
+		}
+
+		speedArr[pointCount-1] = 0.0d;
+		for (int i=pointCount-2; i>=0; i--) {
+			double step = distanceArr[i+1] - distanceArr[i];
+			speedArr[i] = Math.min(speedArr[i], Math.sqrt(speedArr[i+1] * speedArr[i+1] + 2.0d * maxAcceleration * step));
+		}
+	}
+
+	/*
+	 * Resample the path points at the period.  The velocity is the speed along the direction
+	 * of the path step.
+	 */
+	private static double [] resample(double period, double [] xArr, double [] yArr, double [] headingArr,
+			double [] speedArr, double [] timeArr) {
+
+		int pointCount  = xArr.length;
+		double duration = timeArr[pointCount-1];
+
+		int sampleCount = (int) Math.ceil(duration / period) + 1;
+
+		double [] sampleArr = new double [sampleCount * Trajectory.STRIDE];
+
+		int point = 0;
+
+		for (int i=0; i<sampleCount; i++) {
+
+			double t = Math.min(i * period, duration);
+
+			while (point < pointCount - 2 && timeArr[point+1] < t) {
+				point++;
+			}
+
+			double stepTime = timeArr[point+1] - timeArr[point];
+			double ratio    = (stepTime > 0) ? Math.min(1.0d, (t - timeArr[point]) / stepTime) : 1.0d;
+
+			double dx   = xArr[point+1] - xArr[point];
+			double dy   = yArr[point+1] - yArr[point];
+			double step = Math.hypot(dx, dy);
+
+			double speed = speedArr[point] + (speedArr[point+1] - speedArr[point]) * ratio;
+
+			int base = i * Trajectory.STRIDE;
+
+			sampleArr[base + Trajectory.X]          = xArr[point] + dx * ratio;
+			sampleArr[base + Trajectory.Y]          = yArr[point] + dy * ratio;
+			sampleArr[base + Trajectory.VELOCITY_X] = (step > 0) ? speed * dx / step : 0.0d;
+			sampleArr[base + Trajectory.VELOCITY_Y] = (step > 0) ? speed * dy / step : 0.0d;
+			sampleArr[base + Trajectory.HEADING]    = normalize(headingArr[point] + (headingArr[point+1] - headingArr[point]) * ratio);
+		}
+
+		// Remove any rounding error at the end of the trajectory.
+		int base = (sampleCount - 1) * Trajectory.STRIDE;
+		sampleArr[base + Trajectory.X]          = xArr[pointCount-1];
+		sampleArr[base + Trajectory.Y]          = yArr[pointCount-1];
+		sampleArr[base + Trajectory.VELOCITY_X] = 0.0d;
+		sampleArr[base + Trajectory.VELOCITY_Y] = 0.0d;
+		sampleArr[base + Trajectory.HEADING]    = normalize(headingArr[pointCount-1]);
+
+		return sampleArr;
+	}
+
+	/*
+	 * Quintic Hermite spline with zero second derivatives at both ends.
+	 */
+	private static double spline(double s, double p0, double p1, double v0, double v1) {
+
+		double s3 = s * s * s;
+		double s4 = s3 * s;
+		double s5 = s4 * s;
+
+		return p0 * (1 - 10*s3 + 15*s4 - 6*s5)
+			 + v0 * (s - 6*s3 + 8*s4 - 3*s5)
+			 + v1 * (-4*s3 + 7*s4 - 3*s5)
+			 + p1 * (10*s3 - 15*s4 + 6*s5);
+	}
+
+	private static double getChord(Waypoint start, Waypoint end) {
+		return Math.hypot(end.getX() - start.getX(), end.getY() - start.getY());
+	}
+
+	/** The direction from point i to point j in degrees clockwise from north */
+	private static double getDirection(double [] xArr, double [] yArr, int i, int j) {
+		return Math.toDegrees(Math.atan2(xArr[j] - xArr[i], yArr[j] - yArr[i]));
+	}
+
+	/** Wrap an angle difference to -180 to 180 degrees */
+	private static double wrap(double degrees) {
+		degrees %= 360.0d;
+		if (degrees >  180.0d) { degrees -= 360.0d; }
+		if (degrees < -180.0d) { degrees += 360.0d; }
+		return degrees;
+	}
+
+	/** Normalize a heading to 0 to 360 degrees */
+	private static double normalize(double degrees) {
+		degrees %= 360.0d;
+		if (degrees < 0.0d) { degrees += 360.0d; }
+		return degrees;
+	}
+}
@@ -0,0 +1,42 @@
+package robot.trajectory;
+
+/**
+ * A point that a trajectory passes through.
+ * <p>
+ * The field coordinates follow the drive conventions: x is to the right, y is forward from
+ * the driver station and angles are in degrees clockwise from north.  The direction of travel
+ * and the robot heading are separate, because the mecanum drive can strafe.
+ */
+public class Waypoint {
+
+	private final double x;
+	private final double y;
+	private final double direction;
+	private final double heading;
+
+	/**
+	 * @param x - field x in inches
+	 * @param y - field y in inches
+	 * @param direction - the direction of travel through the waypoint in degrees
+	 * @param heading - the direction the robot faces at the waypoint in degrees
+	 */
+	public Waypoint(double x, double y, double direction, double heading) {
+		this.x         = x;
+		this.y         = y;
+		this.direction = direction;
+		this.heading   = heading;
+	}
+
+	public double getX() { return x; }
+
+	public double getY() { return y; }
+
+	public double getDirection() { return direction; }
+
+	public double getHeading() { return heading; }
+
+	@Override
+	public String toString() {
+		return "(" + x + "," + y + ") direction " + direction + " heading " + heading;
+	}
+}